@@ -0,0 +1,84 @@
+package me.zedaster.articleservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.zedaster.articleservice.dto.article.Article;
+import me.zedaster.articleservice.dto.article.ArticleSummary;
+import me.zedaster.articleservice.dto.article.Creator;
+import me.zedaster.articleservice.dto.content.StoredContent;
+import me.zedaster.articleservice.entity.ArticleInfo;
+import me.zedaster.articleservice.repository.ArticleInfoSummary;
+import me.zedaster.articleservice.service.ArticleSummaryMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of building the DTOs of responses and writing them to JSON. The JSON is written to a stream that
+ * discards the bytes, like a socket does after sending them.
+ * <br>
+ * An article is written in two ways: with its content decoded into a string first (as it was before), and with the
+ * stored content decoded while it's written. The bytes that each way allocates are reported by {@code -prof gc} as
+ * {@code gc.alloc.rate.norm}, e.g. with {@code -Djmh.args="ArticleDtoBenchmark.write -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArticleDtoBenchmark {
+    /**
+     * Object mapper that is configured like the one of Spring MVC
+     */
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final List<ArticleInfoSummary> articleInfos = Downstreams.createArticleInfoSummaries();
+
+    private final List<Creator> creators = Downstreams.creatorsOf(articleInfos.stream()
+            .map(ArticleInfoSummary::creatorId)
+            .toList());
+
+    private final ArticleInfo articleInfo = Downstreams.createArticleInfo();
+
+    private final Creator creator = new Creator(Downstreams.CREATOR_ID, "creator");
+
+    /**
+     * Stored content that is taken from the cache for every request
+     */
+    private final StoredContent storedContent = StoredContent.gzip(Downstreams.CONTENT);
+
+    /**
+     * Article as it was written before: with the content decoded into a string
+     */
+    record DecodedArticle(Long id, String title, String content, Instant createdAt, Creator creator) {
+    }
+
+    @Benchmark
+    public List<ArticleSummary> toSummaries() {
+        return ArticleSummaryMapper.toSummaries(articleInfos, creators);
+    }
+
+    @Benchmark
+    public void writeDecodedArticleJson() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), new DecodedArticle(articleInfo.getId(),
+                articleInfo.getTitle(), storedContent.decode(), articleInfo.getCreatedAt(), creator));
+    }
+
+    @Benchmark
+    public void writeStreamedArticleJson() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), new Article(articleInfo, storedContent, creator));
+    }
+}
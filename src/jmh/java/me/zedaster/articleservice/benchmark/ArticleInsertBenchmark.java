@@ -0,0 +1,145 @@
+package me.zedaster.articleservice.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import me.zedaster.articleservice.entity.ArticleInfo;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of inserts of articles whose IDs are reserved in blocks by the pooled-lo optimizer (as the app does) and
+ * whose IDs are taken from the sequence one by one. Rows are inserted in JDBC batches in transactions of
+ * {@value #ROWS_PER_TRANSACTION} rows, like a batch of the batch endpoint, so the difference is the round trips to
+ * the sequence. They are counted as {@code sequenceCalls}.
+ * <br>
+ * The rows are {@link ArticleInfo} in both cases. Each trial has its own persistence unit with only that entity, and
+ * only the optimizer differs. With the {@code none} optimizer Hibernate takes the increment of the sequence as 1.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArticleInsertBenchmark {
+    private static final String POSTGRES_IMAGE = "postgres:16-alpine";
+
+    private static final int ROWS_PER_TRANSACTION = 1_000;
+
+    /**
+     * Optimizer of the IDs
+     */
+    @Param({"pooled-lo", "none"})
+    private String optimizer;
+
+    private PostgreSQLContainer<?> postgresContainer;
+
+    private HikariDataSource dataSource;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Number of the next row. Titles must be unique for a creator.
+     */
+    private long nextRow;
+
+    /**
+     * Counts calls to sequences that Hibernate sends to the DB
+     */
+    public static class SequenceCallCounter implements StatementInspector {
+        private static final AtomicLong calls = new AtomicLong();
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.contains("nextval")) {
+                calls.incrementAndGet();
+            }
+            return sql;
+        }
+    }
+
+    /**
+     * Calls to the sequence that are reported next to the throughput
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SequenceCalls {
+        public long sequenceCalls;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        postgresContainer = new PostgreSQLContainer<>(POSTGRES_IMAGE);
+        postgresContainer.start();
+        dataSource = new HikariDataSource();
+        String jdbcUrl = postgresContainer.getJdbcUrl();
+        dataSource.setJdbcUrl(jdbcUrl + (jdbcUrl.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true");
+        dataSource.setUsername(postgresContainer.getUsername());
+        dataSource.setPassword(postgresContainer.getPassword());
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setPersistenceUnitName("insert-benchmark");
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setManagedTypes(PersistenceManagedTypes.of(ArticleInfo.class.getName()));
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create-drop",
+                "hibernate.physical_naming_strategy",
+                "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy",
+                "hibernate.jdbc.batch_size", 50,
+                "hibernate.order_inserts", true,
+                "hibernate.id.optimizer.pooled.preferred", optimizer,
+                "hibernate.session_factory.statement_inspector", SequenceCallCounter.class.getName()));
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManagerFactory.close();
+        dataSource.close();
+        postgresContainer.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_TRANSACTION)
+    public void insertArticles(SequenceCalls sequenceCalls) {
+        long callsBefore = SequenceCallCounter.calls.get();
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            for (int i = 0; i < ROWS_PER_TRANSACTION; i++) {
+                long row = nextRow++;
+                entityManager.persist(new ArticleInfo("Title " + row, Instant.now(), row % 100));
+            }
+            entityManager.getTransaction().commit();
+        } finally {
+            entityManager.close();
+        }
+        sequenceCalls.sequenceCalls += SequenceCallCounter.calls.get() - callsBefore;
+    }
+}
@@ -0,0 +1,80 @@
+package me.zedaster.articleservice.benchmark;
+
+import me.zedaster.articleservice.configuration.DownstreamConfiguration;
+import me.zedaster.articleservice.dto.article.Article;
+import me.zedaster.articleservice.dto.article.ArticleSummary;
+import me.zedaster.articleservice.service.ArticleService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the read paths of {@link ArticleService} with sequential and concurrent calls to the stand-ins of
+ * the downstream services.
+ * <br>
+ * The latency of one read is reported in the average time mode, e.g. with
+ * {@code -Djmh.args="ArticleReadBenchmark.getArticle -bm avgt -tu ms -p latencyMicros=30000"}.
+ * @see Downstreams
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArticleReadBenchmark {
+    /**
+     * Latency of every downstream service in microseconds
+     */
+    @Param({"0", "1000"})
+    private long latencyMicros;
+
+    /**
+     * Whether independent downstream calls are made concurrently
+     */
+    @Param({"false", "true"})
+    private boolean parallelCalls;
+
+    private ExecutorService executor;
+
+    private ArticleService articleService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DownstreamConfiguration configuration = new DownstreamConfiguration();
+        configuration.setParallelCalls(parallelCalls);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        articleService = Downstreams.createArticleService(latencyMicros, executor, configuration);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public Optional<Article> getArticle() {
+        return articleService.getArticle(Downstreams.ARTICLE_ID);
+    }
+
+    @Benchmark
+    public List<ArticleSummary> getRecentArticleSummaries() {
+        return articleService.getRecentArticleSummaries(2);
+    }
+}
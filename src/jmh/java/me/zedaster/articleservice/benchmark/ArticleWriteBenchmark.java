@@ -0,0 +1,63 @@
+package me.zedaster.articleservice.benchmark;
+
+import me.zedaster.articleservice.configuration.DownstreamConfiguration;
+import me.zedaster.articleservice.dto.article.ArticleData;
+import me.zedaster.articleservice.service.ArticleService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link ArticleService#createArticle(long, ArticleData)}. The content is only hashed and added to the
+ * outbox, so the DB is the only downstream service of the write.
+ * @see Downstreams
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArticleWriteBenchmark {
+    /**
+     * Latency of every downstream service in microseconds
+     */
+    @Param({"0", "1000"})
+    private long latencyMicros;
+
+    private ExecutorService executor;
+
+    private ArticleService articleService;
+
+    private final ArticleData articleData = new ArticleData("Benchmark article title", Downstreams.CONTENT);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        articleService = Downstreams.createArticleService(latencyMicros, executor, new DownstreamConfiguration());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public long createArticle() {
+        return articleService.createArticle(Downstreams.CREATOR_ID, articleData);
+    }
+}
@@ -0,0 +1,156 @@
+package me.zedaster.articleservice.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
+import me.zedaster.articleservice.cache.RecentArticlesSnapshot;
+import me.zedaster.articleservice.concurrency.Bulkheads;
+import me.zedaster.articleservice.configuration.ArticleBatchConfiguration;
+import me.zedaster.articleservice.configuration.DownstreamConfiguration;
+import me.zedaster.articleservice.dto.article.Creator;
+import me.zedaster.articleservice.dto.content.StoredContent;
+import me.zedaster.articleservice.entity.ArticleInfo;
+import me.zedaster.articleservice.repository.ArticleInfoRepository;
+import me.zedaster.articleservice.repository.ArticleInfoSummary;
+import me.zedaster.articleservice.search.ArticleSearchIndex;
+import me.zedaster.articleservice.service.ArticleService;
+import me.zedaster.articleservice.service.ContentOutboxService;
+import me.zedaster.articleservice.service.ContentService;
+import me.zedaster.articleservice.service.CreatorService;
+import me.zedaster.articleservice.util.Hashes;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+
+/**
+ * In-process stand-ins of the DB, S3 and the auth service that respond after a fixed latency. With zero latency they
+ * respond at once, so only the work of the app is measured.
+ * <br>
+ * The stand-ins are stub-only mocks that don't record invocations. Their own allocations are included in the results
+ * of every benchmark in the same way.
+ */
+final class Downstreams {
+    static final long ARTICLE_ID = 1L;
+
+    static final long CREATOR_ID = 123L;
+
+    /**
+     * Number of articles on a page of recent articles
+     */
+    static final int PAGE_SIZE = 20;
+
+    /**
+     * Content of the longest allowed length
+     */
+    static final String CONTENT = "Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(18_000 / 57);
+
+    private final long latencyNanos;
+
+    private Downstreams(long latencyMicros) {
+        this.latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+    }
+
+    /**
+     * Creates the article service on top of the stand-ins
+     * @param latencyMicros Latency of every stand-in in microseconds
+     * @param executor Executor of concurrent calls to the stand-ins
+     * @param configuration Configuration of the calls
+     */
+    static ArticleService createArticleService(long latencyMicros, ExecutorService executor,
+                                               DownstreamConfiguration configuration) {
+        Downstreams downstreams = new Downstreams(latencyMicros);
+        RecentArticlesSnapshot snapshot = stub(RecentArticlesSnapshot.class);
+        // Pages are read from the DB, not from the snapshot
+        Mockito.when(snapshot.getPage(anyLong(), Mockito.anyInt())).thenReturn(Optional.empty());
+        return new ArticleService(downstreams.articleInfoRepository(), downstreams.contentService(),
+                stub(ContentOutboxService.class), downstreams.creatorService(), executor, configuration,
+                new Bulkheads(configuration, new SimpleMeterRegistry()), snapshot, stub(ArticleSearchIndex.class),
+                new ArticleBatchConfiguration(), stub(Validator.class),
+                new TransactionTemplate(stub(PlatformTransactionManager.class)));
+    }
+
+    static ArticleInfo createArticleInfo() {
+        ArticleInfo info = new ArticleInfo("Benchmark title", Instant.now(), CREATOR_ID);
+        info.setId(ARTICLE_ID);
+        info.setContentHash(Hashes.sha256(CONTENT));
+        return info;
+    }
+
+    static List<ArticleInfoSummary> createArticleInfoSummaries() {
+        List<ArticleInfoSummary> summaries = new ArrayList<>(PAGE_SIZE);
+        Instant now = Instant.now();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            summaries.add(new ArticleInfoSummary((long) i + 1, "Benchmark title " + i, now.minusSeconds(i),
+                    CREATOR_ID + i % 5));
+        }
+        return summaries;
+    }
+
+    static List<Creator> creatorsOf(List<Long> creatorIds) {
+        return creatorIds.stream()
+                .map(id -> new Creator(id, "creator" + id))
+                .toList();
+    }
+
+    private ArticleInfoRepository articleInfoRepository() {
+        ArticleInfoRepository repository = stub(ArticleInfoRepository.class);
+        ArticleInfo info = createArticleInfo();
+        List<ArticleInfoSummary> summaries = createArticleInfoSummaries();
+        Mockito.when(repository.findById(anyLong())).thenAnswer(invocation -> delayed(Optional.of(info)));
+        Mockito.when(repository.findAllByOrderByCreatedAtDesc(any())).thenAnswer(invocation -> delayed(summaries));
+        Mockito.when(repository.existsByCreatorIdAndTitle(anyLong(), anyString()))
+                .thenAnswer(invocation -> delayed(false));
+        Mockito.when(repository.saveAndFlush(any(ArticleInfo.class))).thenAnswer(invocation -> {
+            ArticleInfo saved = invocation.getArgument(0);
+            saved.setId(ARTICLE_ID);
+            return delayed(saved);
+        });
+        return repository;
+    }
+
+    private ContentService contentService() {
+        ContentService contentService = stub(ContentService.class);
+        // The stored content is taken from the cache for every request, like a popular article
+        StoredContent content = StoredContent.gzip(CONTENT);
+        Mockito.when(contentService.getStoredContent(anyLong(), any())).thenAnswer(invocation ->
+                delayed(Optional.of(content)));
+        Mockito.when(contentService.getStoredContentAsync(anyLong(), any())).thenAnswer(invocation -> latencyNanos == 0
+                ? CompletableFuture.completedFuture(Optional.of(content))
+                : CompletableFuture.supplyAsync(() -> Optional.of(content),
+                        CompletableFuture.delayedExecutor(latencyNanos, TimeUnit.NANOSECONDS)));
+        return contentService;
+    }
+
+    private CreatorService creatorService() {
+        CreatorService creatorService = stub(CreatorService.class);
+        Mockito.when(creatorService.getCreator(anyLong())).thenAnswer(invocation ->
+                delayed(new Creator(invocation.getArgument(0), "creator")));
+        Mockito.when(creatorService.getCreatorsByIds(anyList())).thenAnswer(invocation ->
+                delayed(creatorsOf(invocation.getArgument(0))));
+        return creatorService;
+    }
+
+    private <T> T delayed(T result) {
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+        return result;
+    }
+
+    private static <T> T stub(Class<T> type) {
+        return Mockito.mock(type, Mockito.withSettings().stubOnly());
+    }
+}
@@ -0,0 +1,128 @@
+package me.zedaster.articleservice.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import me.zedaster.articleservice.configuration.cache.ContentCacheConfiguration;
+import me.zedaster.articleservice.dto.content.StoredContent;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * In-process cache of article contents by their keys in S3. Contents are kept in the form in which they are stored,
+ * so compressed contents take less memory and can be sent to clients as they are. Articles with identical contents
+ * share one cached content.
+ * <br>
+ * The cache is bounded by the total size of the contents, so a few long articles can't push out all the short ones
+ * unnoticed. Hits, misses and evictions are exported as metrics with the name "contents".
+ */
+@Component
+public class ContentCache {
+    /**
+     * Name of the cache in the metrics
+     */
+    private static final String CACHE_NAME = "contents";
+
+    /**
+     * Approximate size of a stored content object and its array without the bytes
+     */
+    private static final int CONTENT_OVERHEAD_BYTES = 48;
+
+    /**
+     * The cache holds futures, so a load doesn't block other threads while it waits for S3. Synchronous loads would
+     * pin carrier threads of virtual threads for the whole S3 call.
+     */
+    private final AsyncCache<String, StoredContent> cache;
+
+    public ContentCache(ContentCacheConfiguration configuration, MeterRegistry meterRegistry,
+                        ExecutorService downstreamExecutor) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(configuration.getMaxSize().toBytes())
+                .weigher(ContentCache::weigh)
+                .executor(downstreamExecutor)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), CACHE_NAME);
+    }
+
+    /**
+     * Gets the content from the cache or loads it if it's absent. Concurrent loads of the same content wait for the
+     * first one instead of loading the content again.
+     * @param key Key of the content in S3
+     * @param loader Function that loads the content by its key. It may return null if there's no such content.
+     * @return Content or nothing if the loader didn't find it
+     */
+    public Optional<StoredContent> get(String key, Function<String, StoredContent> loader) {
+        try {
+            return Optional.ofNullable(cache.get(key, loader).join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the content from the cache or starts loading it if it's absent without waiting for the load. Concurrent
+     * loads of the same content share the first one.
+     * @param key Key of the content in S3
+     * @param loader Function that starts the load of the content by its key. The load may complete with null if
+     *               there's no such content.
+     * @return Future of the content or of nothing if the loader didn't find it. Cancelling it doesn't cancel the
+     * shared load.
+     */
+    public CompletableFuture<Optional<StoredContent>> getAsync(
+            String key, Function<String, CompletableFuture<StoredContent>> loader) {
+        return cache.get(key, (k, executor) -> loader.apply(k)).thenApply(Optional::ofNullable);
+    }
+
+    /**
+     * Puts the content to the cache
+     * @param key Key of the content in S3
+     * @param content Content
+     */
+    public void put(String key, StoredContent content) {
+        cache.put(key, CompletableFuture.completedFuture(content));
+    }
+
+    /**
+     * Checks if the content has been loaded or put to the cache. A content that is being loaded is not waited for.
+     * @param key Key of the content in S3
+     * @return True if the cache has the content
+     */
+    public boolean contains(String key) {
+        CompletableFuture<StoredContent> content = cache.getIfPresent(key);
+        return content != null && content.isDone() && !content.isCompletedExceptionally() && content.join() != null;
+    }
+
+    /**
+     * Removes the content from the cache
+     * @param key Key of the content in S3
+     */
+    public void invalidate(String key) {
+        cache.synchronous().invalidate(key);
+    }
+
+    /**
+     * Gets hit, miss and eviction counters of the cache
+     * @return Statistics of the cache
+     */
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    /**
+     * Estimates how many bytes the content takes in the heap
+     */
+    private static int weigh(String key, StoredContent content) {
+        return CONTENT_OVERHEAD_BYTES + content.getData().length;
+    }
+}
@@ -0,0 +1,311 @@
+package me.zedaster.articleservice.cache;
+
+import me.zedaster.articleservice.concurrency.Bulkheads;
+import me.zedaster.articleservice.configuration.cache.RecentArticlesCacheConfiguration;
+import me.zedaster.articleservice.dto.article.ArticleCursor;
+import me.zedaster.articleservice.dto.article.ArticleSummary;
+import me.zedaster.articleservice.dto.article.Creator;
+import me.zedaster.articleservice.entity.ArticleInfo;
+import me.zedaster.articleservice.event.CreatorNameChangedEvent;
+import me.zedaster.articleservice.repository.ArticleInfoRepository;
+import me.zedaster.articleservice.repository.ArticleInfoSummary;
+import me.zedaster.articleservice.service.ArticleSummaryMapper;
+import me.zedaster.articleservice.service.CreatorService;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory snapshot of summaries of the most recent articles with resolved creators. The first pages of recent
+ * articles are requested much more often than others, so they are served from it without the DB and the auth
+ * service.
+ * <br>
+ * Readers get the current immutable snapshot without locks. Changes of articles and creators replace it with an
+ * updated copy, and the whole snapshot is read from the DB again after the refresh interval. Fallback names of
+ * creators are never kept in it.
+ */
+@Component
+public class RecentArticlesSnapshot {
+    /**
+     * Order of recent articles: from new to old, articles with the same date are ordered by ID
+     */
+    private static final Comparator<ArticleSummary> RECENT_FIRST = Comparator
+            .comparing(ArticleSummary::getCreatedAt)
+            .thenComparingLong(ArticleSummary::getId)
+            .reversed();
+
+    private final ArticleInfoRepository articleInfoRepository;
+
+    private final CreatorService creatorService;
+
+    /**
+     * Limits concurrent reads from the DB
+     */
+    private final Bulkheads bulkheads;
+
+    /**
+     * Maximum number of summaries in the snapshot
+     */
+    private final int size;
+
+    private final long refreshIntervalNanos;
+
+    /**
+     * Current snapshot or null if it hasn't been read yet
+     */
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+
+    /**
+     * Number of changes that have been applied. A snapshot that was read from the DB during a change may miss it.
+     */
+    private final AtomicLong changes = new AtomicLong();
+
+    /**
+     * Lets only one thread read the snapshot from the DB
+     */
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    public RecentArticlesSnapshot(RecentArticlesCacheConfiguration configuration,
+                                  ArticleInfoRepository articleInfoRepository,
+                                  CreatorService creatorService,
+                                  Bulkheads bulkheads) {
+        this.articleInfoRepository = articleInfoRepository;
+        this.creatorService = creatorService;
+        this.bulkheads = bulkheads;
+        this.size = configuration.getSize();
+        this.refreshIntervalNanos = configuration.getRefreshInterval().toNanos();
+    }
+
+    /**
+     * Gets a page of recent articles by its position
+     * @param offset Number of articles before the page
+     * @param limit Maximum number of articles on the page
+     * @return Summaries of the page or nothing if the page is not in the snapshot
+     */
+    public Optional<List<ArticleSummary>> getPage(long offset, int limit) {
+        Snapshot snapshot = currentSnapshot();
+        if (snapshot == null) {
+            return Optional.empty();
+        }
+        return snapshot.slice(offset, limit);
+    }
+
+    /**
+     * Gets a page of recent articles that starts right after the cursor
+     * @param cursor Cursor of the previous page
+     * @param limit Maximum number of articles on the page
+     * @return Summaries of the page or nothing if the page is not in the snapshot
+     */
+    public Optional<List<ArticleSummary>> getPageAfter(ArticleCursor cursor, int limit) {
+        Snapshot snapshot = currentSnapshot();
+        if (snapshot == null) {
+            return Optional.empty();
+        }
+        return snapshot.slice(snapshot.indexAfter(cursor), limit);
+    }
+
+    /**
+     * Applies a created or updated article to the snapshot. Inside a transaction it's done after the commit, so
+     * readers never see an article that has been rolled back.
+     * @param articleInfo Saved article
+     */
+    public void articleSaved(ArticleInfo articleInfo) {
+        ArticleInfo savedInfo = articleInfo.copy();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applySavedArticle(savedInfo);
+                }
+            });
+        } else {
+            applySavedArticle(savedInfo);
+        }
+    }
+
+    /**
+     * Replaces the name of the creator in the snapshot. If the new name is unknown, the snapshot is read again.
+     * @param event Event about the changed username
+     */
+    @EventListener
+    public void onCreatorNameChanged(CreatorNameChangedEvent event) {
+        changes.incrementAndGet();
+        if (event.getNewUsername() == null) {
+            current.updateAndGet(snapshot -> snapshot == null ? null : snapshot.expired());
+            return;
+        }
+        Creator creator = new Creator(event.getCreatorId(), event.getNewUsername());
+        current.updateAndGet(snapshot -> snapshot == null ? null : snapshot.withCreator(creator));
+    }
+
+    /**
+     * Gets the actual snapshot. If it's expired, one of the readers reads it again and others get the old one.
+     * @return Snapshot or null if it hasn't been read yet and another thread is reading it
+     */
+    private Snapshot currentSnapshot() {
+        Snapshot snapshot = current.get();
+        if (snapshot != null && !snapshot.isExpired()) {
+            return snapshot;
+        }
+        if (!loadLock.tryLock()) {
+            return snapshot;
+        }
+        try {
+            Snapshot actual = current.get();
+            if (actual != null && !actual.isExpired()) {
+                return actual;
+            }
+            return load();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Reads the snapshot from the DB and the auth service
+     */
+    private Snapshot load() {
+        long changesBefore = changes.get();
+        List<ArticleInfoSummary> articleInfos = bulkheads.getDatabase().call(() -> articleInfoRepository
+                .findAllByOrderByCreatedAtDescIdDesc(PageRequest.ofSize(size)));
+        List<Creator> creators = creatorService.getCreatorsByIds(articleInfos.stream()
+                .map(ArticleInfoSummary::creatorId)
+                .toList());
+        Snapshot loaded = new Snapshot(ArticleSummaryMapper.toSummaries(articleInfos, creators),
+                articleInfos.size() < size, System.nanoTime() + refreshIntervalNanos);
+        if (creators.stream().anyMatch(Creator::isFallback)) {
+            // Fallback names are served only to this reader, so the actual ones are read once the auth service is back
+            return loaded.expired();
+        }
+        current.set(loaded);
+        // A change that has been applied to the old snapshot during the reading may be missing in the loaded one
+        if (changes.get() != changesBefore) {
+            current.compareAndSet(loaded, loaded.expired());
+        }
+        return loaded;
+    }
+
+    private void applySavedArticle(ArticleInfo articleInfo) {
+        changes.incrementAndGet();
+        Snapshot snapshot = current.get();
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            Creator creator = snapshot.find(articleInfo.getId())
+                    .map(ArticleSummary::getCreator)
+                    .orElseGet(() -> creatorService.getCreator(articleInfo.getCreatorId()));
+            if (creator.isFallback()) {
+                current.updateAndGet(s -> s == null ? null : s.expired());
+                return;
+            }
+            ArticleSummary summary = new ArticleSummary(articleInfo.getId(), articleInfo.getTitle(),
+                    roundToMicros(articleInfo.getCreatedAt()), creator);
+            current.updateAndGet(s -> s == null ? null : s.with(summary, size));
+        } catch (RuntimeException e) {
+            // The article is already saved, so the snapshot is just read again
+            current.updateAndGet(s -> s == null ? null : s.expired());
+        }
+    }
+
+    /**
+     * Rounds the moment the same way as the DB stores it, so cursors from the snapshot match the rows in the DB
+     */
+    private static Instant roundToMicros(Instant instant) {
+        long micros = (instant.getNano() + 500) / 1000;
+        return Instant.ofEpochSecond(instant.getEpochSecond(), micros * 1000);
+    }
+
+    /**
+     * Immutable snapshot
+     * @param summaries Summaries of the most recent articles in the order of {@link #RECENT_FIRST}
+     * @param complete Whether the summaries are all articles that exist
+     * @param expiresAt Value of {@link System#nanoTime()} after which the snapshot must be read again
+     */
+    private record Snapshot(List<ArticleSummary> summaries, boolean complete, long expiresAt) {
+        Snapshot {
+            summaries = List.copyOf(summaries);
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt >= 0;
+        }
+
+        Snapshot expired() {
+            return new Snapshot(summaries, complete, System.nanoTime());
+        }
+
+        Optional<List<ArticleSummary>> slice(long offset, int limit) {
+            if (offset + limit > summaries.size() && !complete) {
+                return Optional.empty();
+            }
+            int from = (int) Math.min(offset, summaries.size());
+            int to = (int) Math.min(offset + limit, summaries.size());
+            return Optional.of(summaries.subList(from, to));
+        }
+
+        /**
+         * Finds the index of the first summary after the cursor
+         */
+        int indexAfter(ArticleCursor cursor) {
+            for (int i = 0; i < summaries.size(); i++) {
+                ArticleSummary summary = summaries.get(i);
+                int byDate = summary.getCreatedAt().compareTo(cursor.getCreatedAt());
+                if (byDate < 0 || (byDate == 0 && summary.getId() < cursor.getId())) {
+                    return i;
+                }
+            }
+            return summaries.size();
+        }
+
+        Optional<ArticleSummary> find(long articleId) {
+            return summaries.stream()
+                    .filter(summary -> summary.getId() == articleId)
+                    .findFirst();
+        }
+
+        /**
+         * Creates a snapshot with the added or replaced summary
+         */
+        Snapshot with(ArticleSummary summary, int maxSize) {
+            List<ArticleSummary> updated = new ArrayList<>(summaries);
+            updated.removeIf(s -> s.getId() == summary.getId());
+            int index = 0;
+            while (index < updated.size() && RECENT_FIRST.compare(updated.get(index), summary) < 0) {
+                index++;
+            }
+            // An article that is older than all of incomplete summaries may be not one of the most recent ones
+            if (index < updated.size() || complete) {
+                updated.add(index, summary);
+            }
+            boolean stillComplete = complete;
+            if (updated.size() > maxSize) {
+                updated.remove(updated.size() - 1);
+                stillComplete = false;
+            }
+            return new Snapshot(updated, stillComplete, expiresAt);
+        }
+
+        /**
+         * Creates a snapshot with the new data of the creator
+         */
+        Snapshot withCreator(Creator creator) {
+            List<ArticleSummary> updated = summaries.stream()
+                    .map(s -> s.getCreator().getId() != creator.getId() ? s :
+                            new ArticleSummary(s.getId(), s.getTitle(), s.getCreatedAt(), creator))
+                    .toList();
+            return new Snapshot(updated, complete, expiresAt);
+        }
+    }
+}
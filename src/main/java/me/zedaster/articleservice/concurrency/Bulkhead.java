@@ -0,0 +1,163 @@
+package me.zedaster.articleservice.concurrency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.Getter;
+import me.zedaster.articleservice.metrics.CallTimer;
+import me.zedaster.articleservice.util.Futures;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of concurrent calls to a downstream service.
+ * <br>
+ * Virtual threads make waiting requests cheap, so without a limit all of them would hit the downstream service at
+ * once. A call that can't get a permit in time is rejected with {@link BulkheadFullException}.
+ * <br>
+ * The wait for a permit is timed as {@code bulkhead.wait}, so it can be told from the time of the downstream calls.
+ */
+public class Bulkhead {
+    /**
+     * Name of the downstream service
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * Maximum number of concurrent calls
+     */
+    @Getter
+    private final int maxConcurrentCalls;
+
+    /**
+     * Maximum time to wait for a permit
+     */
+    private final Duration maxWait;
+
+    private final Semaphore semaphore;
+
+    /**
+     * Number of calls that were rejected because the bulkhead was full
+     */
+    private final LongAdder rejectedCalls = new LongAdder();
+
+    /**
+     * Timer of the waits for a permit. It's null until the metrics are registered.
+     */
+    private volatile CallTimer waitTimer;
+
+    public Bulkhead(String name, int maxConcurrentCalls, Duration maxWait) {
+        this.name = name;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWait = maxWait;
+        this.semaphore = new Semaphore(maxConcurrentCalls, true);
+    }
+
+    /**
+     * Makes the call when a permit is available
+     * @param call Call to the downstream service
+     * @return Result of the call
+     * @throws BulkheadFullException If no permit is available in time
+     */
+    public <T> T call(Supplier<T> call) {
+        acquire();
+        try {
+            return call.get();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    /**
+     * Makes the call without result when a permit is available
+     * @param action Call to the downstream service
+     * @throws BulkheadFullException If no permit is available in time
+     */
+    public void run(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Makes the asynchronous call when a permit is available. The permit is held until the call completes, not
+     * until it returns.
+     * @param call Call to the downstream service that returns a future of its result
+     * @return Future of the result of the call. Cancelling it cancels the call.
+     * @throws BulkheadFullException If no permit is available in time
+     */
+    public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> call) {
+        acquire();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            semaphore.release();
+            throw e;
+        }
+        return Futures.propagateCancellation(future.whenComplete((result, e) -> semaphore.release()), future);
+    }
+
+    /**
+     * Gets number of calls that were rejected because the bulkhead was full
+     * @return Number of rejected calls
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    /**
+     * Registers metrics of the bulkhead
+     * @param meterRegistry Registry of the metrics
+     */
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("bulkhead.available.permits", semaphore, Semaphore::availablePermits)
+                .tag("downstream", name)
+                .description("Number of calls that can be made to the downstream service right now")
+                .register(meterRegistry);
+        Gauge.builder("bulkhead.max.permits", this, Bulkhead::getMaxConcurrentCalls)
+                .tag("downstream", name)
+                .description("Maximum number of concurrent calls to the downstream service")
+                .register(meterRegistry);
+        FunctionCounter.builder("bulkhead.rejected.calls", this, Bulkhead::getRejectedCalls)
+                .tag("downstream", name)
+                .description("Number of calls that were rejected because the bulkhead was full")
+                .register(meterRegistry);
+        waitTimer = new CallTimer("bulkhead.wait", "Time of waiting for a permit to call the downstream service",
+                Tags.of("downstream", name), meterRegistry);
+    }
+
+    private void acquire() {
+        CallTimer timer = waitTimer;
+        if (timer == null) {
+            acquireUntimed();
+            return;
+        }
+        timer.record(() -> {
+            acquireUntimed();
+            return null;
+        });
+    }
+
+    private void acquireUntimed() {
+        boolean acquired;
+        try {
+            acquired = semaphore.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BulkheadFullException("Interrupted while waiting for a call to " + name + "!", e);
+        }
+        if (!acquired) {
+            rejectedCalls.increment();
+            throw new BulkheadFullException("Too many concurrent calls to " + name + "!", null);
+        }
+    }
+}
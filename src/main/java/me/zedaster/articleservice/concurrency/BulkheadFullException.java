@@ -0,0 +1,10 @@
+package me.zedaster.articleservice.concurrency;
+
+/**
+ * Exception thrown when a call to a downstream service is rejected by its {@link Bulkhead}.
+ */
+public class BulkheadFullException extends RuntimeException {
+    public BulkheadFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,41 @@
+package me.zedaster.articleservice.concurrency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import me.zedaster.articleservice.configuration.DownstreamConfiguration;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bulkheads of all downstream services of the app
+ */
+@Component
+@Getter
+public class Bulkheads {
+    /**
+     * Bulkhead of the DB. It shouldn't allow more calls than there are connections in the pool.
+     */
+    private final Bulkhead database;
+
+    /**
+     * Bulkhead of the S3 storage
+     */
+    private final Bulkhead s3;
+
+    /**
+     * Bulkhead of the auth service
+     */
+    private final Bulkhead authService;
+
+    public Bulkheads(DownstreamConfiguration configuration, MeterRegistry meterRegistry) {
+        this.database = create("db", configuration.getDatabase(), meterRegistry);
+        this.s3 = create("s3", configuration.getS3(), meterRegistry);
+        this.authService = create("auth-service", configuration.getAuthService(), meterRegistry);
+    }
+
+    private static Bulkhead create(String name, DownstreamConfiguration.Downstream downstream,
+                                   MeterRegistry meterRegistry) {
+        Bulkhead bulkhead = new Bulkhead(name, downstream.getMaxConcurrentCalls(), downstream.getMaxWait());
+        bulkhead.bindTo(meterRegistry);
+        return bulkhead;
+    }
+}
@@ -0,0 +1,278 @@
+package me.zedaster.articleservice.concurrency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import me.zedaster.articleservice.configuration.DownstreamConfiguration;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Stops calls to a downstream service that keeps failing, so requests don't wait for calls that are going to fail.
+ * <br>
+ * The circuit is closed while the share of failed and slow calls among the last ones is below the threshold. Then it
+ * opens, and calls are rejected at once with {@link CircuitBreakerOpenException}. After some time it becomes half-open
+ * and lets a few probe calls through. If all of them succeed, the circuit closes, otherwise it opens again.
+ * <br>
+ * Only exceptions that are recorded as failures by the predicate count. Other exceptions, such as rejected requests
+ * of the client, show nothing about the health of the service, so their calls are not recorded at all.
+ */
+public class CircuitBreaker {
+    /**
+     * State of the circuit
+     */
+    public enum State {
+        /**
+         * Calls are made, their outcomes are recorded
+         */
+        CLOSED,
+
+        /**
+         * Calls are rejected
+         */
+        OPEN,
+
+        /**
+         * A few probe calls are made to check if the service is back
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Name of the downstream service
+     */
+    @Getter
+    private final String name;
+
+    private final DownstreamConfiguration.CircuitBreaker settings;
+
+    /**
+     * Checks if an exception of a call is a failure of the service
+     */
+    private final Predicate<Throwable> recordFailure;
+
+    /**
+     * Outcomes of the last calls in the closed state as a ring buffer. True means the call failed.
+     */
+    private final boolean[] outcomes;
+
+    /**
+     * Number of outcomes in the buffer
+     */
+    private int recordedCalls;
+
+    /**
+     * Index of the buffer for the next outcome
+     */
+    private int nextOutcome;
+
+    /**
+     * Number of failed calls in the buffer
+     */
+    private int failedCalls;
+
+    private State state = State.CLOSED;
+
+    /**
+     * Time when the circuit opened, in nanoseconds of {@link System#nanoTime()}
+     */
+    private long openedAt;
+
+    /**
+     * Number of probe calls that have started in the half-open state
+     */
+    private int startedProbes;
+
+    /**
+     * Number of probe calls that have succeeded in the half-open state
+     */
+    private int succeededProbes;
+
+    /**
+     * Number of transitions to each state
+     */
+    private final Map<State, LongAdder> transitions = new EnumMap<>(State.class);
+
+    /**
+     * Number of calls that were rejected because the circuit was open
+     */
+    private final LongAdder notPermittedCalls = new LongAdder();
+
+    public CircuitBreaker(String name, DownstreamConfiguration.CircuitBreaker settings) {
+        this(name, settings, e -> true);
+    }
+
+    public CircuitBreaker(String name, DownstreamConfiguration.CircuitBreaker settings,
+                          Predicate<Throwable> recordFailure) {
+        this.name = name;
+        this.settings = settings;
+        this.recordFailure = recordFailure;
+        this.outcomes = new boolean[settings.getSlidingWindowSize()];
+        for (State state : State.values()) {
+            transitions.put(state, new LongAdder());
+        }
+    }
+
+    /**
+     * Makes the call if the circuit permits it and records its outcome
+     * @param call Call to the downstream service
+     * @return Result of the call
+     * @throws CircuitBreakerOpenException If the circuit is open
+     */
+    public <T> T call(Supplier<T> call) {
+        boolean probe = acquirePermission();
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            if (recordFailure.test(e)) {
+                onResult(probe, true);
+            } else {
+                onIgnored(probe);
+            }
+            throw e;
+        }
+        onResult(probe, System.nanoTime() - start > settings.getSlowCallDuration().toNanos());
+        return result;
+    }
+
+    /**
+     * Gets current state of the circuit
+     * @return State of the circuit
+     */
+    public synchronized State getState() {
+        halfOpenIfExpired();
+        return state;
+    }
+
+    /**
+     * Gets number of transitions to the state
+     * @param state State of the circuit
+     * @return Number of transitions
+     */
+    public long getTransitions(State state) {
+        return transitions.get(state).sum();
+    }
+
+    /**
+     * Gets number of calls that were rejected because the circuit was open
+     * @return Number of rejected calls
+     */
+    public long getNotPermittedCalls() {
+        return notPermittedCalls.sum();
+    }
+
+    /**
+     * Registers metrics of the circuit breaker
+     * @param meterRegistry Registry of the metrics
+     */
+    public void bindTo(MeterRegistry meterRegistry) {
+        for (State state : State.values()) {
+            String stateTag = state.name().toLowerCase();
+            Gauge.builder("circuit.breaker.state", this, breaker -> breaker.getState() == state ? 1 : 0)
+                    .tag("downstream", name)
+                    .tag("state", stateTag)
+                    .description("Whether the circuit to the downstream service is in the state")
+                    .register(meterRegistry);
+            FunctionCounter.builder("circuit.breaker.transitions", transitions.get(state), LongAdder::sum)
+                    .tag("downstream", name)
+                    .tag("state", stateTag)
+                    .description("Number of transitions of the circuit to the state")
+                    .register(meterRegistry);
+        }
+        FunctionCounter.builder("circuit.breaker.not.permitted.calls", this, CircuitBreaker::getNotPermittedCalls)
+                .tag("downstream", name)
+                .description("Number of calls that were rejected because the circuit was open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Checks if a call may be made now
+     * @return Whether the call is a probe of the half-open state
+     */
+    private synchronized boolean acquirePermission() {
+        halfOpenIfExpired();
+        if (state == State.CLOSED) {
+            return false;
+        }
+        if (state == State.HALF_OPEN && startedProbes < settings.getHalfOpenCalls()) {
+            startedProbes++;
+            return true;
+        }
+        notPermittedCalls.increment();
+        throw new CircuitBreakerOpenException("Circuit breaker of " + name + " is open!");
+    }
+
+    /**
+     * Records the outcome of the call. Outcomes of calls that started in another state than the current one are
+     * ignored.
+     */
+    private synchronized void onResult(boolean probe, boolean failed) {
+        if (probe && state == State.HALF_OPEN) {
+            if (failed) {
+                transitionTo(State.OPEN);
+            } else if (++succeededProbes >= settings.getHalfOpenCalls()) {
+                transitionTo(State.CLOSED);
+            }
+        } else if (!probe && state == State.CLOSED) {
+            record(failed);
+            if (recordedCalls >= settings.getMinimumCalls()
+                    && failedCalls >= settings.getFailureRateThreshold() * recordedCalls) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    /**
+     * Forgets the call whose outcome is not recorded. A probe gives its place to another one.
+     */
+    private synchronized void onIgnored(boolean probe) {
+        if (probe && state == State.HALF_OPEN) {
+            startedProbes--;
+        }
+    }
+
+    private void record(boolean failed) {
+        if (recordedCalls == outcomes.length) {
+            if (outcomes[nextOutcome]) {
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        outcomes[nextOutcome] = failed;
+        if (failed) {
+            failedCalls++;
+        }
+        nextOutcome = (nextOutcome + 1) % outcomes.length;
+    }
+
+    private void halfOpenIfExpired() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= settings.getOpenDuration().toNanos()) {
+            transitionTo(State.HALF_OPEN);
+        }
+    }
+
+    private void transitionTo(State newState) {
+        state = newState;
+        transitions.get(newState).increment();
+        switch (newState) {
+            case OPEN -> openedAt = System.nanoTime();
+            case HALF_OPEN -> {
+                startedProbes = 0;
+                succeededProbes = 0;
+            }
+            case CLOSED -> {
+                recordedCalls = 0;
+                nextOutcome = 0;
+                failedCalls = 0;
+            }
+        }
+    }
+}
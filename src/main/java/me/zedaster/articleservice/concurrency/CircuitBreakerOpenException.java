@@ -0,0 +1,10 @@
+package me.zedaster.articleservice.concurrency;
+
+/**
+ * Exception thrown when a call to a downstream service is not permitted by its open {@link CircuitBreaker}.
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+}
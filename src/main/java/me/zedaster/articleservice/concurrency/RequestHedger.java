@@ -0,0 +1,258 @@
+package me.zedaster.articleservice.concurrency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import me.zedaster.articleservice.configuration.DownstreamConfiguration;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cuts the tail latency of idempotent calls to a downstream service. If a call hasn't completed within the configured
+ * percentile of the latencies of the last calls, a second identical call is made, and the result of the one that
+ * completes first is taken, and the other one is cancelled. The call fails only if both calls fail.
+ * <br>
+ * Every call adds a share of a hedge to the budget, and every hedge takes a whole one from it. So hedges never exceed
+ * the configured share of the calls, even if the downstream service is slow for all of them.
+ */
+public class RequestHedger {
+    /**
+     * Number of the last latencies the delay is calculated from
+     */
+    private static final int LATENCY_WINDOW = 1_000;
+
+    /**
+     * Number of new latencies after which the delay is recalculated
+     */
+    private static final int RECALCULATION_INTERVAL = 100;
+
+    /**
+     * Budget of one hedge. The budget is kept in millionths of a hedge to add fractions of it without locks.
+     */
+    private static final long HEDGE_COST = 1_000_000;
+
+    /**
+     * Maximum budget, so a long calm period doesn't allow a burst of hedges
+     */
+    private static final long MAX_BUDGET = 10 * HEDGE_COST;
+
+    /**
+     * Name of the downstream service
+     */
+    @Getter
+    private final String name;
+
+    private final DownstreamConfiguration.Hedging settings;
+
+    /**
+     * Executor of the hedges. Their calls may block while they wait for a bulkhead.
+     */
+    private final Executor executor;
+
+    /**
+     * Budget that is added by every call
+     */
+    private final long budgetPerCall;
+
+    private final AtomicLong budget = new AtomicLong();
+
+    /**
+     * Latencies of the last first calls in nanoseconds as a ring buffer. Failed and lost calls are included, so the
+     * slow calls that make the tail are not missing from it.
+     */
+    private final long[] latencies = new long[LATENCY_WINDOW];
+
+    private int recordedLatencies;
+
+    private int nextLatency;
+
+    private int latenciesSinceRecalculation;
+
+    /**
+     * Current delay of hedges in nanoseconds
+     */
+    private volatile long delayNanos;
+
+    private final LongAdder hedges = new LongAdder();
+
+    private final LongAdder wonHedges = new LongAdder();
+
+    /**
+     * Number of hedges that were not made because the budget was exhausted
+     */
+    private final LongAdder skippedHedges = new LongAdder();
+
+    public RequestHedger(String name, DownstreamConfiguration.Hedging settings, Executor executor) {
+        this.name = name;
+        this.settings = settings;
+        this.executor = executor;
+        this.budgetPerCall = Math.round(settings.getMaxHedgeRatio() * HEDGE_COST);
+        this.delayNanos = settings.getInitialDelay().toNanos();
+    }
+
+    /**
+     * Makes the call and hedges it if it's slow. If hedging is disabled, the call is just made.
+     * @param call Idempotent call to the downstream service that returns a future of its result
+     * @return Future of the result of the call that has completed first. Cancelling it cancels both calls.
+     */
+    public <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> call) {
+        if (!settings.isEnabled()) {
+            return call.get();
+        }
+        budget.accumulateAndGet(budgetPerCall, (current, added) -> Math.min(current + added, MAX_BUDGET));
+
+        long start = System.nanoTime();
+        CompletableFuture<T> first = call.get();
+        if (first.isDone()) {
+            recordLatency(System.nanoTime() - start);
+            return first;
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        // Calls that haven't failed yet. The result fails when there are none.
+        AtomicInteger runningCalls = new AtomicInteger(1);
+        AtomicReference<CompletableFuture<T>> hedgeCall = new AtomicReference<>();
+        // The call that has lost is not needed anymore
+        result.whenComplete((value, e) -> {
+            first.cancel(true);
+            CompletableFuture<T> second = hedgeCall.get();
+            if (second != null) {
+                second.cancel(true);
+            }
+        });
+        first.whenComplete((value, e) -> {
+            // A call that is cancelled because the hedge has won is recorded with the time until then, which is a
+            // lower bound of its latency
+            recordLatency(System.nanoTime() - start);
+            if (e == null) {
+                result.complete(value);
+            } else if (runningCalls.decrementAndGet() == 0) {
+                result.completeExceptionally(e);
+            }
+        });
+        CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS, executor)
+                .execute(() -> hedge(call, result, runningCalls, hedgeCall));
+        return result;
+    }
+
+    /**
+     * Gets current delay after which a slow call is hedged
+     * @return Delay of hedges
+     */
+    public Duration getDelay() {
+        return Duration.ofNanos(delayNanos);
+    }
+
+    /**
+     * Gets number of hedges that have been made
+     * @return Number of hedges
+     */
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    /**
+     * Gets number of hedges that have completed before the calls they hedged
+     * @return Number of won hedges
+     */
+    public long getWonHedges() {
+        return wonHedges.sum();
+    }
+
+    /**
+     * Gets number of hedges that were not made because the budget was exhausted
+     * @return Number of skipped hedges
+     */
+    public long getSkippedHedges() {
+        return skippedHedges.sum();
+    }
+
+    /**
+     * Registers metrics of the hedger
+     * @param meterRegistry Registry of the metrics
+     */
+    public void bindTo(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("hedging.hedges", this, RequestHedger::getHedges)
+                .tag("downstream", name)
+                .description("Number of second calls that were made because the first ones were slow")
+                .register(meterRegistry);
+        FunctionCounter.builder("hedging.won.hedges", this, RequestHedger::getWonHedges)
+                .tag("downstream", name)
+                .description("Number of second calls that completed before the first ones")
+                .register(meterRegistry);
+        FunctionCounter.builder("hedging.skipped.hedges", this, RequestHedger::getSkippedHedges)
+                .tag("downstream", name)
+                .description("Number of second calls that were not made because the budget was exhausted")
+                .register(meterRegistry);
+        Gauge.builder("hedging.delay", this, hedger -> hedger.delayNanos / 1_000_000_000.0)
+                .tag("downstream", name)
+                .description("Time after which a slow call is hedged")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Makes the second call if the first one is still running and the budget allows it
+     */
+    private <T> void hedge(Supplier<CompletableFuture<T>> call, CompletableFuture<T> result,
+                           AtomicInteger runningCalls, AtomicReference<CompletableFuture<T>> hedgeCall) {
+        if (result.isDone()) {
+            return;
+        }
+        if (budget.getAndUpdate(current -> current >= HEDGE_COST ? current - HEDGE_COST : current) < HEDGE_COST) {
+            skippedHedges.increment();
+            return;
+        }
+        // The first call may have failed meanwhile, then the result is already failed too
+        if (runningCalls.getAndUpdate(running -> running == 0 ? 0 : running + 1) == 0) {
+            return;
+        }
+        hedges.increment();
+        CompletableFuture<T> second;
+        try {
+            second = call.get();
+        } catch (RuntimeException e) {
+            second = CompletableFuture.failedFuture(e);
+        }
+        hedgeCall.set(second);
+        // The result may have completed while the hedge was being made
+        if (result.isDone()) {
+            second.cancel(true);
+        }
+        second.whenComplete((value, e) -> {
+            if (e == null) {
+                if (result.complete(value)) {
+                    wonHedges.increment();
+                }
+            } else if (runningCalls.decrementAndGet() == 0) {
+                result.completeExceptionally(e);
+            }
+        });
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latencies[nextLatency] = nanos;
+        nextLatency = (nextLatency + 1) % LATENCY_WINDOW;
+        if (recordedLatencies < LATENCY_WINDOW) {
+            recordedLatencies++;
+        }
+        if (++latenciesSinceRecalculation < RECALCULATION_INTERVAL) {
+            return;
+        }
+        latenciesSinceRecalculation = 0;
+        long[] sorted = Arrays.copyOf(latencies, recordedLatencies);
+        Arrays.sort(sorted);
+        int index = Math.max((int) Math.ceil(settings.getDelayPercentile() * sorted.length) - 1, 0);
+        delayNanos = Math.max(sorted[index], settings.getMinDelay().toNanos());
+    }
+}
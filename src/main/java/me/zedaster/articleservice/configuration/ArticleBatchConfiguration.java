@@ -0,0 +1,18 @@
+package me.zedaster.articleservice.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+
+/**
+ * Configuration of creation of several articles at once
+ */
+@ConfigurationProperties(prefix = "articles.batch")
+@ConfigurationPropertiesScan
+@Data
+public class ArticleBatchConfiguration {
+    /**
+     * Maximum number of articles in one batch
+     */
+    private int maxSize = 1000;
+}
@@ -0,0 +1,53 @@
+package me.zedaster.articleservice.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the outbox of contents that are waiting to be uploaded to S3
+ */
+@ConfigurationProperties(prefix = "outbox.content")
+@ConfigurationPropertiesScan
+@Data
+public class ContentOutboxConfiguration {
+    /**
+     * Number of threads that upload contents
+     */
+    private int workers = 4;
+
+    /**
+     * Interval of looking for contents that haven't been uploaded right after the commit, e.g. because the upload
+     * failed or the instance stopped
+     */
+    private Duration pollInterval = Duration.ofSeconds(5);
+
+    /**
+     * Maximum number of contents that are taken by one poll
+     */
+    private int batchSize = 100;
+
+    /**
+     * Time for which a worker claims a content. Other workers don't upload it meanwhile, so it must be much longer
+     * than an upload.
+     */
+    private Duration lease = Duration.ofMinutes(1);
+
+    /**
+     * Delay before the second attempt of a failed upload. It's doubled after every failure.
+     */
+    private Duration initialRetryDelay = Duration.ofSeconds(1);
+
+    /**
+     * Maximum delay between attempts
+     */
+    private Duration maxRetryDelay = Duration.ofMinutes(5);
+
+    /**
+     * Number of failed uploads after which a content is dead-lettered. It's not uploaded anymore until the article is
+     * saved again, but its article still reads it from the outbox. With the default delays it's about an hour.
+     */
+    private int maxAttempts = 20;
+}
@@ -0,0 +1,88 @@
+package me.zedaster.articleservice.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import me.zedaster.articleservice.concurrency.Bulkheads;
+import me.zedaster.articleservice.storage.AsyncContentStorage;
+import me.zedaster.articleservice.storage.ContentStorage;
+import me.zedaster.articleservice.storage.S3ConnectionPoolMetricPublisher;
+import me.zedaster.articleservice.storage.SyncContentStorage;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3BaseClientBuilder;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Configuration of the storage of article contents.
+ */
+@Configuration
+public class ContentStorageConfiguration {
+    /**
+     * Storage of the contents on the sync or the async S3 client, depending on the configuration
+     * @see S3Configuration#getClientMode()
+     */
+    @Bean(destroyMethod = "close")
+    public ContentStorage contentStorage(S3Configuration s3Configuration, Bulkheads bulkheads,
+                                         ExecutorService downstreamExecutor, MeterRegistry meterRegistry) {
+        String bucketName = s3Configuration.getContentBucketName();
+        S3ConnectionPoolMetricPublisher metricPublisher = new S3ConnectionPoolMetricPublisher(meterRegistry);
+        return switch (s3Configuration.getClientMode()) {
+            case SYNC -> new SyncContentStorage(createSyncClient(s3Configuration, metricPublisher), bucketName,
+                    bulkheads.getS3(), downstreamExecutor);
+            case ASYNC -> new AsyncContentStorage(createAsyncClient(s3Configuration, metricPublisher), bucketName,
+                    bulkheads.getS3());
+        };
+    }
+
+    private static S3Client createSyncClient(S3Configuration s3Configuration,
+                                             S3ConnectionPoolMetricPublisher metricPublisher) {
+        return configure(S3Client.builder(), s3Configuration, metricPublisher)
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(s3Configuration.getMaxConnections())
+                        .connectionTimeout(s3Configuration.getConnectionTimeout())
+                        .connectionAcquisitionTimeout(s3Configuration.getConnectionAcquisitionTimeout())
+                        .socketTimeout(s3Configuration.getReadTimeout())
+                        .connectionTimeToLive(s3Configuration.getConnectionTimeToLive())
+                        .connectionMaxIdleTime(s3Configuration.getConnectionMaxIdleTime()))
+                .build();
+    }
+
+    private static S3AsyncClient createAsyncClient(S3Configuration s3Configuration,
+                                                   S3ConnectionPoolMetricPublisher metricPublisher) {
+        return configure(S3AsyncClient.builder(), s3Configuration, metricPublisher)
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(s3Configuration.getMaxConnections())
+                        .maxPendingConnectionAcquires(s3Configuration.getMaxPendingConnectionAcquires())
+                        .connectionTimeout(s3Configuration.getConnectionTimeout())
+                        .connectionAcquisitionTimeout(s3Configuration.getConnectionAcquisitionTimeout())
+                        .readTimeout(s3Configuration.getReadTimeout())
+                        .connectionTimeToLive(s3Configuration.getConnectionTimeToLive())
+                        .connectionMaxIdleTime(s3Configuration.getConnectionMaxIdleTime()))
+                .build();
+    }
+
+    /**
+     * Applies the settings that are common for both clients
+     */
+    private static <B extends S3BaseClientBuilder<B, ?>> B configure(B builder, S3Configuration s3Configuration,
+                                                                     S3ConnectionPoolMetricPublisher metricPublisher) {
+        AwsBasicCredentials credentials = AwsBasicCredentials.create(s3Configuration.getAccessKey(),
+                s3Configuration.getSecretKey());
+        return builder
+                .endpointOverride(URI.create(s3Configuration.getEndpointUrl()))
+                .credentialsProvider(StaticCredentialsProvider.create(credentials))
+                .forcePathStyle(true)
+                .region(Region.AWS_GLOBAL)
+                .overrideConfiguration(o -> o
+                        .apiCallTimeout(s3Configuration.getApiCallTimeout())
+                        .addMetricPublisher(metricPublisher));
+    }
+}
@@ -0,0 +1,136 @@
+package me.zedaster.articleservice.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+
+import java.time.Duration;
+
+/**
+ * Configuration of calls to the services the app depends on (the DB, S3 and the auth service).
+ */
+@ConfigurationProperties(prefix = "downstream")
+@ConfigurationPropertiesScan
+@Data
+public class DownstreamConfiguration {
+    /**
+     * Whether independent calls to the downstream services are made concurrently while handling one request.
+     */
+    private boolean parallelCalls = true;
+
+    /**
+     * Configuration of calls to the DB.
+     */
+    private Downstream database = new Downstream();
+
+    /**
+     * Configuration of calls to the S3 storage.
+     */
+    private Downstream s3 = new Downstream();
+
+    /**
+     * Configuration of calls to the auth service.
+     */
+    private Downstream authService = new Downstream();
+
+    /**
+     * Configuration of calls to one downstream service.
+     */
+    @Data
+    public static class Downstream {
+        /**
+         * Maximum time to wait for a concurrent call. The call is cancelled after that.
+         */
+        private Duration timeout = Duration.ofSeconds(2);
+
+        /**
+         * Maximum number of concurrent calls from the app.
+         * @see me.zedaster.articleservice.concurrency.Bulkhead
+         */
+        private int maxConcurrentCalls = 10;
+
+        /**
+         * Maximum time a call waits for its turn before it's rejected.
+         */
+        private Duration maxWait = Duration.ofMillis(500);
+
+        /**
+         * Circuit breaker of the calls. Only calls to the auth service have it, because only they have a fallback.
+         * @see me.zedaster.articleservice.concurrency.CircuitBreaker
+         */
+        private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+        /**
+         * Hedging of the calls. Only reads of contents from S3 are hedged, because they are idempotent and cheap.
+         * @see me.zedaster.articleservice.concurrency.RequestHedger
+         */
+        private Hedging hedging = new Hedging();
+    }
+
+    /**
+     * Configuration of a circuit breaker of one downstream service.
+     */
+    @Data
+    public static class CircuitBreaker {
+        /**
+         * Number of the last calls whose outcomes are taken into account.
+         */
+        private int slidingWindowSize = 20;
+
+        /**
+         * Minimum number of calls in the window before the circuit can open.
+         */
+        private int minimumCalls = 10;
+
+        /**
+         * Share of failed calls in the window that opens the circuit.
+         */
+        private double failureRateThreshold = 0.5;
+
+        /**
+         * Calls that take longer than this are counted as failed even if they succeed.
+         */
+        private Duration slowCallDuration = Duration.ofSeconds(1);
+
+        /**
+         * Time the circuit stays open before probe calls are let through.
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * Number of probe calls in the half-open state. The circuit closes when all of them succeed.
+         */
+        private int halfOpenCalls = 3;
+    }
+
+    /**
+     * Configuration of hedging of calls to one downstream service: a second call is made if the first one is slow.
+     */
+    @Data
+    public static class Hedging {
+        /**
+         * Whether slow calls are hedged.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Percentile of the latencies of the last calls after which a second call is made.
+         */
+        private double delayPercentile = 0.95;
+
+        /**
+         * Minimum delay of the second call.
+         */
+        private Duration minDelay = Duration.ofMillis(10);
+
+        /**
+         * Delay of the second call until enough latencies are known.
+         */
+        private Duration initialDelay = Duration.ofMillis(100);
+
+        /**
+         * Maximum number of second calls as a share of all calls.
+         */
+        private double maxHedgeRatio = 0.05;
+    }
+}
@@ -0,0 +1,29 @@
+package me.zedaster.articleservice.configuration;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Configuration of executors of the app.
+ */
+@Configuration
+public class ExecutorConfiguration {
+    /**
+     * Executor for concurrent calls to the downstream services. Every call gets its own virtual thread, so calls that
+     * block on I/O are cheap.
+     * <br>
+     * The context of the caller, e.g. the current span, is passed to the calls, so their spans belong to the trace of
+     * the request.
+     * @see DownstreamConfiguration
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService downstreamExecutor() {
+        ContextSnapshotFactory snapshotFactory = ContextSnapshotFactory.builder().build();
+        return ContextExecutorService.wrap(Executors.newVirtualThreadPerTaskExecutor(), snapshotFactory::captureAll);
+    }
+}
@@ -0,0 +1,20 @@
+package me.zedaster.articleservice.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import me.zedaster.articleservice.http.HttpPayloadSizeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the metrics of the HTTP server that Spring doesn't record itself.
+ */
+@Configuration
+public class HttpMetricsConfiguration {
+    /**
+     * Filter that records sizes of the bodies of requests and responses
+     */
+    @Bean
+    public HttpPayloadSizeFilter httpPayloadSizeFilter(MeterRegistry meterRegistry) {
+        return new HttpPayloadSizeFilter(meterRegistry);
+    }
+}
@@ -4,6 +4,8 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
+import java.time.Duration;
+
 @ConfigurationProperties(prefix = "s3")
 @ConfigurationPropertiesScan
 @Data
@@ -28,4 +30,67 @@ public class S3Configuration {
      * @see me.zedaster.articleservice.service.ContentService
      */
     private String contentBucketName;
+
+    /**
+     * Kind of the S3 client.
+     * @see me.zedaster.articleservice.storage.ContentStorage
+     */
+    private ClientMode clientMode = ClientMode.SYNC;
+
+    /**
+     * Maximum number of open connections to the S3 storage. For the async client it's also the maximum number of
+     * concurrent requests.
+     */
+    private int maxConnections = 50;
+
+    /**
+     * Maximum number of requests of the async client that wait for a connection. Requests above it fail at once.
+     */
+    private int maxPendingConnectionAcquires = 1_000;
+
+    /**
+     * Maximum time to establish a connection.
+     */
+    private Duration connectionTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Maximum time to wait for a free connection from the pool.
+     */
+    private Duration connectionAcquisitionTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Maximum time to wait for data from an open connection.
+     */
+    private Duration readTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Maximum time of a whole call including retries.
+     */
+    private Duration apiCallTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Maximum time a connection is kept open. Older connections are closed when they are returned to the pool, so
+     * the load moves to new nodes of the storage.
+     */
+    private Duration connectionTimeToLive = Duration.ofMinutes(5);
+
+    /**
+     * Maximum time an unused connection is kept open.
+     */
+    private Duration connectionMaxIdleTime = Duration.ofMinutes(1);
+
+    /**
+     * Kind of the S3 client
+     */
+    public enum ClientMode {
+        /**
+         * Blocking client. Every fetch takes a virtual thread while it waits for S3.
+         */
+        SYNC,
+
+        /**
+         * Non-blocking client on Netty. Fetches don't take threads while they wait for S3.
+         */
+        ASYNC
+    }
 }
@@ -0,0 +1,64 @@
+package me.zedaster.articleservice.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration of the full-text index of the articles
+ */
+@ConfigurationProperties(prefix = "search.index")
+@ConfigurationPropertiesScan
+@Data
+public class SearchIndexConfiguration {
+    /**
+     * Directory of the index. The index is kept between restarts, so a start only catches up with the changes.
+     */
+    private Path path = Path.of("data", "search-index");
+
+    /**
+     * Whether the index is kept in memory instead of the directory. It's built from scratch on every start then.
+     */
+    private boolean inMemory = false;
+
+    /**
+     * Time after which saved articles become searchable
+     */
+    private Duration refreshInterval = Duration.ofSeconds(1);
+
+    /**
+     * Interval of the catch-ups with the articles that have been created or updated by other instances. Changes that
+     * are made by this instance are indexed at once.
+     */
+    private Duration catchUpInterval = Duration.ofSeconds(10);
+
+    /**
+     * Time by which a catch-up reads back before the start of the previous one. Transactions that have updated
+     * articles before the start may have been committed after it, and clocks of the instances may differ.
+     */
+    private Duration catchUpOverlap = Duration.ofMinutes(1);
+
+    /**
+     * Interval of the rebuilds of the index from the DB. Catch-ups don't see deleted articles, so it limits how long
+     * articles that have been deleted by other instances can be found.
+     */
+    private Duration rebuildInterval = Duration.ofDays(1);
+
+    /**
+     * Number of articles that are read from the DB at once during a rebuild or a catch-up
+     */
+    private int rebuildBatchSize = 100;
+
+    /**
+     * Time since the start of the last successful rebuild or catch-up after which the index is reported as unhealthy
+     */
+    private Duration maxStaleness = Duration.ofMinutes(5);
+
+    /**
+     * How many times a match in the title weighs more than a match in the content
+     */
+    private float titleBoost = 2;
+}
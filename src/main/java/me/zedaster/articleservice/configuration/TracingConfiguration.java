@@ -0,0 +1,54 @@
+package me.zedaster.articleservice.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.tracing.Tracer;
+import me.zedaster.articleservice.tracing.FileSpanExporter;
+import me.zedaster.articleservice.tracing.RepositoryTracingInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.io.IOException;
+
+/**
+ * Configuration of tracing. Spans of incoming requests and of calls to the auth service are made by Spring Boot,
+ * spans of calls to the DB and S3 are made by the app.
+ */
+@Configuration
+public class TracingConfiguration {
+    /**
+     * Makes calls of all repositories in spans
+     * @see RepositoryTracingInterceptor
+     */
+    @Bean
+    public static BeanPostProcessor repositoryTracingPostProcessor(ObjectProvider<Tracer> tracerProvider) {
+        SingletonSupplier<Tracer> tracer = SingletonSupplier.of(() ->
+                tracerProvider.getIfAvailable(() -> Tracer.NOOP));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(
+                                    new RepositoryTracingInterceptor(repositoryInformation.getRepositoryInterface(),
+                                            tracer))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Exporter of spans to a local file. Spring Boot passes it to OpenTelemetry together with the other exporters.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "tracing.export", name = "file")
+    public FileSpanExporter fileSpanExporter(TracingExportConfiguration configuration, ObjectMapper objectMapper)
+            throws IOException {
+        return new FileSpanExporter(configuration.getFile(), objectMapper);
+    }
+}
@@ -0,0 +1,21 @@
+package me.zedaster.articleservice.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration of the export of spans besides the ones that Spring Boot provides, e.g. OTLP with
+ * {@code management.otlp.tracing.endpoint}
+ */
+@ConfigurationProperties(prefix = "tracing.export")
+@ConfigurationPropertiesScan
+@Data
+public class TracingExportConfiguration {
+    /**
+     * File to which spans are written as JSON lines. If it's not set, spans are not written to a file.
+     */
+    private Path file;
+}
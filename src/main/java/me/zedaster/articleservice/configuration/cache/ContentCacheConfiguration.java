@@ -0,0 +1,17 @@
+package me.zedaster.articleservice.configuration.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "cache.content")
+@ConfigurationPropertiesScan
+@Data
+public class ContentCacheConfiguration {
+    /**
+     * Maximum total size of the cached contents.
+     * @see me.zedaster.articleservice.cache.ContentCache
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+}
@@ -0,0 +1,24 @@
+package me.zedaster.articleservice.configuration.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "cache.creators")
+@ConfigurationPropertiesScan
+@Data
+public class CreatorCacheConfiguration {
+    /**
+     * Time after which a cached creator is fetched from the auth service again. It can be long because the auth
+     * service notifies about changed usernames.
+     * @see me.zedaster.articleservice.controller.InternalCreatorController
+     */
+    private Duration ttl = Duration.ofHours(6);
+
+    /**
+     * Maximum number of cached creators. The least recently used ones are evicted first.
+     */
+    private long maxSize = 100_000;
+}
@@ -0,0 +1,24 @@
+package me.zedaster.articleservice.configuration.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "cache.recent-articles")
+@ConfigurationPropertiesScan
+@Data
+public class RecentArticlesCacheConfiguration {
+    /**
+     * Number of the most recent articles that are kept in memory. Pages that fit in them are served without the DB
+     * and the auth service.
+     */
+    private int size = 100;
+
+    /**
+     * Time after which the snapshot is read from the DB again. Changes that are made by this instance are applied
+     * at once, so it only limits how long changes of other instances can be missed.
+     */
+    private Duration refreshInterval = Duration.ofSeconds(30);
+}
@@ -2,11 +2,17 @@ package me.zedaster.articleservice.configuration.microservice;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.boot.context.properties.bind.ConstructorBinding;
 
 @ConfigurationProperties(prefix = "microservices.auth-service")
 @ConfigurationPropertiesScan
 public class AuthServiceConfiguration extends MicroserviceConfiguration {
+    @ConstructorBinding
+    public AuthServiceConfiguration(String url, HttpClientConfiguration httpClient) {
+        super(url, httpClient);
+    }
+
     public AuthServiceConfiguration(String url) {
-        super(url);
+        this(url, new HttpClientConfiguration());
     }
 }
@@ -0,0 +1,43 @@
+package me.zedaster.articleservice.configuration.microservice;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the pool of HTTP connections to a microservice.
+ * @see me.zedaster.articleservice.http.PooledHttpClientFactory
+ */
+@Data
+public class HttpClientConfiguration {
+    /**
+     * Maximum number of open connections to the microservice.
+     */
+    private int maxConnections = 50;
+
+    /**
+     * Maximum time to establish a connection.
+     */
+    private Duration connectionTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Maximum time to wait for a free connection from the pool.
+     */
+    private Duration connectionAcquisitionTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Maximum time to wait for a response.
+     */
+    private Duration readTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Maximum time a connection is kept open. Older connections are closed when they are returned to the pool, so
+     * the load moves to new instances of the microservice.
+     */
+    private Duration connectionTimeToLive = Duration.ofMinutes(5);
+
+    /**
+     * Maximum time an unused connection is kept open.
+     */
+    private Duration connectionMaxIdleTime = Duration.ofMinutes(1);
+}
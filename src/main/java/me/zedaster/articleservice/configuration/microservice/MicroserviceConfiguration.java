@@ -11,7 +11,14 @@ import java.net.URI;
 public abstract class MicroserviceConfiguration {
     private final URI uri;
 
-    public MicroserviceConfiguration(String url) {
+    /**
+     * Pool of HTTP connections to the microservice
+     */
+    private final HttpClientConfiguration httpClient;
+
+    public MicroserviceConfiguration(String url, HttpClientConfiguration httpClient) {
         this.uri = URI.create(url);
+        // Nothing is bound if no setting of the pool is set
+        this.httpClient = httpClient != null ? httpClient : new HttpClientConfiguration();
     }
 }
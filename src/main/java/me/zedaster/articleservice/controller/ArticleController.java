@@ -1,12 +1,34 @@
 package me.zedaster.articleservice.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import me.zedaster.articleservice.dto.article.Article;
+import me.zedaster.articleservice.dto.article.ArticleHead;
+import me.zedaster.articleservice.dto.article.ArticleLookup;
+import me.zedaster.articleservice.dto.article.ArticleSearchResult;
 import me.zedaster.articleservice.dto.article.ArticleSummary;
+import me.zedaster.articleservice.dto.article.ArticleSummaryPage;
+import me.zedaster.articleservice.dto.content.ContentEncoding;
+import me.zedaster.articleservice.dto.content.StoredContent;
 import me.zedaster.articleservice.service.ArticleService;
+import me.zedaster.articleservice.util.Hashes;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Controller for public article requests
@@ -15,32 +37,224 @@ import java.util.List;
 @RequestMapping("/articles")
 @AllArgsConstructor
 public class ArticleController {
+    /**
+     * Header with the cursor of the next page. It's absent if the page is the last one.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final MediaType CONTENT_TYPE = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    /**
+     * An article can be changed at any moment, so clients must revalidate it by its entity tag every time
+     */
+    private static final CacheControl ARTICLE_CACHE_CONTROL = CacheControl.noCache();
+
+    /**
+     * Lists of recent articles may be a few seconds old
+     */
+    private static final CacheControl RECENT_ARTICLES_CACHE_CONTROL = CacheControl.maxAge(Duration.ofSeconds(5))
+            .mustRevalidate();
+
     /**
      * Service that handles operations with articles
      */
     private final ArticleService articleService;
 
     /**
-     * Gets certain article by its ID
+     * Writes the streamed results
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Gets several articles by their IDs at once. It's much faster than getting them one by one.
+     * <br>
+     * The results are streamed as a JSON array: each one is written and flushed as soon as it and the ones before it
+     * are ready.
+     * @param ids Comma-separated IDs of the articles
+     * @return Results in the same order as the IDs. Articles that don't exist are marked as not found, and articles
+     * that can't be got have an error.
+     */
+    @GetMapping("")
+    public ResponseEntity<StreamingResponseBody> getArticles(@RequestParam("ids") List<Long> ids) {
+        Stream<ArticleLookup> lookups = articleService.getArticles(ids);
+        return ResponseEntity.ok()
+                .cacheControl(ARTICLE_CACHE_CONTROL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(output -> writeJsonArray(lookups, output));
+    }
+
+    /**
+     * Gets certain article by its ID. If the client has the actual version of the article, it gets 304 status
+     * without fetching the content. Otherwise, the info and the creator that have been read for the check are reused.
      * @param id ID of the article
+     * @param request Request with conditional headers
      * @return Article object
      */
     @GetMapping("/{id}")
-    public Article getArticle(@PathVariable long id) throws NotFoundException {
-        return articleService.getArticle(id).orElseThrow(() -> new NotFoundException("Article not found"));
+    public ResponseEntity<Article> getArticle(@PathVariable long id, WebRequest request) throws NotFoundException {
+        Article article;
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            ArticleHead head = articleService.getArticleHead(id)
+                    .orElseThrow(() -> new NotFoundException("Article not found"));
+            if (head.getEntityTag() != null && request.checkNotModified(head.getEntityTag())) {
+                return null;
+            }
+            article = articleService.getArticle(head);
+        } else {
+            article = articleService.getArticle(id).orElseThrow(() -> new NotFoundException("Article not found"));
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(ARTICLE_CACHE_CONTROL);
+        if (article.getEntityTag() != null) {
+            builder.eTag(article.getEntityTag());
+        }
+        return builder.body(article);
+    }
+
+    /**
+     * Gets only the content of certain article as plain text. Compressed content is sent as it's stored if the
+     * client accepts its encoding, otherwise it's decoded.
+     * @param id ID of the article
+     * @param acceptEncoding Value of the Accept-Encoding header
+     * @return Content of the article
+     */
+    @GetMapping("/{id}/content")
+    public ResponseEntity<byte[]> getArticleContent(
+            @PathVariable long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding)
+            throws NotFoundException {
+        StoredContent content = articleService.getStoredContent(id)
+                .orElseThrow(() -> new NotFoundException("Article not found"));
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(CONTENT_TYPE)
+                .cacheControl(ARTICLE_CACHE_CONTROL)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (content.getEncoding() == ContentEncoding.IDENTITY) {
+            return builder.body(content.getData());
+        }
+        if (accepts(acceptEncoding, content.getEncoding())) {
+            return builder
+                    .header(HttpHeaders.CONTENT_ENCODING, content.getEncoding().getHeaderValue())
+                    .body(content.getData());
+        }
+        return builder.body(content.decode().getBytes(StandardCharsets.UTF_8));
     }
 
     /**
-     * Get articles that has been published recently
+     * Get articles that has been published recently. If the cursor is specified, the page number is ignored.
      * @param pageNumber Number of page. Default value is 1
+     * @param cursor Cursor from the {@value #NEXT_CURSOR_HEADER} header of the previous page. An empty cursor means
+     *               the first page.
      * @return list of summaries of recent articles
      */
     @GetMapping("/recent")
-    public List<ArticleSummary> getRecentArticles(@RequestParam(value = "page", required = false) Integer pageNumber)
-            throws NumberFormatException {
-        if (pageNumber == null) {
-            pageNumber = 1;
+    public ResponseEntity<List<ArticleSummary>> getRecentArticles(
+            @RequestParam(value = "page", required = false) Integer pageNumber,
+            @RequestParam(value = "cursor", required = false) String cursor) throws NumberFormatException {
+        ArticleSummaryPage page;
+        if (cursor != null) {
+            page = articleService.getRecentArticleSummaries(cursor);
+        } else {
+            if (pageNumber == null) {
+                pageNumber = 1;
+            }
+            page = new ArticleSummaryPage(articleService.getRecentArticleSummaries(pageNumber), null);
+        }
+        // The entity tag is checked by Spring, the body is not written if the client has the same list
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(RECENT_ARTICLES_CACHE_CONTROL);
+        String entityTag = entityTagOf(page);
+        if (entityTag != null) {
+            builder.eTag(entityTag);
+        }
+        return toResponse(page, builder);
+    }
+
+    /**
+     * Searches articles by words of their titles and contents
+     * @param query Words to search
+     * @param pageNumber Number of page. Default value is 1
+     * @return Found articles from the most relevant with the matched words highlighted
+     */
+    @GetMapping("/search")
+    public List<ArticleSearchResult> searchArticles(
+            @RequestParam("query") String query,
+            @RequestParam(value = "page", defaultValue = "1") int pageNumber) {
+        return articleService.searchArticles(query, pageNumber);
+    }
+
+    /**
+     * Creates a response with summaries of the page and the cursor of the next page in the header
+     * @param page Page of summaries
+     * @param builder Builder of the response with other headers
+     * @return Response entity
+     */
+    static ResponseEntity<List<ArticleSummary>> toResponse(ArticleSummaryPage page,
+                                                           ResponseEntity.BodyBuilder builder) {
+        if (page.getNextCursor() != null) {
+            builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return builder.body(page.getSummaries());
+    }
+
+    /**
+     * Checks if the Accept-Encoding header allows the encoding
+     */
+    static boolean accepts(String acceptEncoding, ContentEncoding encoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String item : acceptEncoding.split(",")) {
+            String[] parameters = item.split(";");
+            String coding = parameters[0].trim();
+            if (!coding.equalsIgnoreCase(encoding.getHeaderValue()) && !coding.equals("*")) {
+                continue;
+            }
+            // "q=0" means that the encoding is not acceptable
+            boolean rejected = false;
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim().replace(" ", "");
+                if (parameter.matches("[qQ]=0(\\.0{0,3})?")) {
+                    rejected = true;
+                }
+            }
+            return !rejected;
+        }
+        return false;
+    }
+
+    /**
+     * Calculates the entity tag of the page from the data of its summaries
+     * @return Entity tag or null if a name of a creator is a fallback
+     */
+    private static String entityTagOf(ArticleSummaryPage page) {
+        List<Object> parts = new ArrayList<>();
+        for (ArticleSummary summary : page.getSummaries()) {
+            if (summary.getCreator().isFallback()) {
+                return null;
+            }
+            parts.add(summary.getId());
+            parts.add(summary.getTitle());
+            parts.add(summary.getCreatedAt());
+            parts.add(summary.getCreator().getId());
+            parts.add(summary.getCreator().getName());
+        }
+        parts.add(page.getNextCursor());
+        return Hashes.entityTag(parts.toArray());
+    }
+
+    /**
+     * Writes the items as a JSON array, flushing the output after each one. The stream is closed at the end, even if
+     * the client has gone.
+     */
+    private void writeJsonArray(Stream<?> items, OutputStream output) throws IOException {
+        try (items; JsonGenerator generator = objectMapper.createGenerator(output)) {
+            generator.writeStartArray();
+            Iterator<?> iterator = items.iterator();
+            while (iterator.hasNext()) {
+                generator.writeObject(iterator.next());
+                generator.flush();
+            }
+            generator.writeEndArray();
         }
-        return articleService.getRecentArticleSummaries(pageNumber);
     }
 }
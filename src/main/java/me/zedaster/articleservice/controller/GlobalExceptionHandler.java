@@ -2,6 +2,7 @@ package me.zedaster.articleservice.controller;
 
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Path;
+import me.zedaster.articleservice.concurrency.BulkheadFullException;
 import me.zedaster.articleservice.dto.error.ErrorDto;
 import me.zedaster.articleservice.dto.error.ValidationErrorDto;
 import me.zedaster.articleservice.service.ArticleServiceException;
@@ -48,6 +49,17 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(new ErrorDto(exception.getMessage()), HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Handles exceptions of calls that were rejected because a downstream service is overloaded.
+     * @param exception The instance of the exception.
+     * @return Json with a general error message. The message of the exception is not shown to the user.
+     */
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<ErrorDto> handleBulkheadFullException(BulkheadFullException exception) {
+        return new ResponseEntity<>(new ErrorDto("Service is overloaded, try again later!"),
+                HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     /**
      * Handles exceptions that can be shown with a simple error message.
      * @param exception The instance of the exception.
@@ -3,7 +3,9 @@ package me.zedaster.articleservice.controller;
 import lombok.AllArgsConstructor;
 import me.zedaster.articleservice.dto.article.ArticleData;
 import me.zedaster.articleservice.dto.request.CreateArticleRequest;
+import me.zedaster.articleservice.dto.request.CreateArticlesRequest;
 import me.zedaster.articleservice.dto.response.CreateArticleResponse;
+import me.zedaster.articleservice.dto.response.CreateArticlesResponse;
 import me.zedaster.articleservice.service.ArticleService;
 import me.zedaster.articleservice.service.ArticleServiceException;
 import org.springframework.web.bind.annotation.*;
@@ -30,6 +32,18 @@ public class InternalArticleController {
         return new CreateArticleResponse(articleId);
     }
 
+    /**
+     * Creates several articles at once. Each article is created or not independently of the others.
+     * Returns 200 with the result of every article, or 400 with error message if the batch itself is incorrect.
+     * @param data Body with data of the articles and IDs of their creators
+     * @return Object with results in the same order as the articles
+     */
+    @PostMapping("/batch")
+    public CreateArticlesResponse createArticles(@RequestBody CreateArticlesRequest data)
+            throws ArticleServiceException {
+        return new CreateArticlesResponse(articleService.createArticles(data.getArticles()));
+    }
+
     /**
      * Edits an existing article
      * Returns 200 if everything is okay, otherwise 400 with error message.
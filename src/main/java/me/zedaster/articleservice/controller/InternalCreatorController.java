@@ -0,0 +1,41 @@
+package me.zedaster.articleservice.controller;
+
+import lombok.AllArgsConstructor;
+import me.zedaster.articleservice.dto.request.UpdateCreatorRequest;
+import me.zedaster.articleservice.dto.request.UpdateCreatorsRequest;
+import me.zedaster.articleservice.service.CreatorService;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller for notifications about creators from other microservices.
+ * <br>
+ * The auth service calls it when usernames change, so cached creators are never outdated for long.
+ */
+@RestController
+@RequestMapping("/internal/creators")
+@AllArgsConstructor
+public class InternalCreatorController {
+    /**
+     * Service that handles data of the creators
+     */
+    private final CreatorService creatorService;
+
+    /**
+     * Updates username of a creator
+     * @param creatorId User ID of the creator
+     * @param data Body with the new username
+     */
+    @PutMapping("/{creatorId}")
+    public void updateCreator(@PathVariable long creatorId, @RequestBody UpdateCreatorRequest data) {
+        creatorService.updateCreatorName(creatorId, data.getNewUsername());
+    }
+
+    /**
+     * Updates usernames of several creators
+     * @param data Body with new usernames by user IDs
+     */
+    @PutMapping("")
+    public void updateCreators(@RequestBody UpdateCreatorsRequest data) {
+        creatorService.updateCreatorNames(data.getNewUsernames());
+    }
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import me.zedaster.articleservice.dto.article.ArticleSummary;
 import me.zedaster.articleservice.dto.article.Creator;
 import me.zedaster.articleservice.service.ArticleService;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -28,17 +29,24 @@ public class ProtectedArticleController {
     private final ArticleService articleService;
 
     /**
-     * Gets articles that written by current user
+     * Gets articles that written by current user. If the cursor is specified, the page number is ignored.
      * @return List of article summaries
+     * @see ArticleController#NEXT_CURSOR_HEADER
      */
     @GetMapping("/user")
-    public List<ArticleSummary> getUserArticles(@RequestParam("tokenPayload.sub") long userId,
-                                                @RequestParam("tokenPayload.username") String username,
-                                                @RequestParam(value = "page", required = false) Integer pageNumber) {
+    public ResponseEntity<List<ArticleSummary>> getUserArticles(
+            @RequestParam("tokenPayload.sub") long userId,
+            @RequestParam("tokenPayload.username") String username,
+            @RequestParam(value = "page", required = false) Integer pageNumber,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        Creator creator = new Creator(userId, username);
+        if (cursor != null) {
+            return ArticleController.toResponse(articleService.getArticleSummariesByCreator(creator, cursor),
+                    ResponseEntity.ok());
+        }
         if (pageNumber == null) {
             pageNumber = 1;
         }
-        Creator creator = new Creator(userId, username);
-        return articleService.getArticleSummariesByCreator(creator, pageNumber);
+        return ResponseEntity.ok(articleService.getArticleSummariesByCreator(creator, pageNumber));
     }
 }
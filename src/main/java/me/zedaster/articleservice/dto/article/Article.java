@@ -1,8 +1,14 @@
 package me.zedaster.articleservice.dto.article;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import me.zedaster.articleservice.dto.content.StoredContent;
+import me.zedaster.articleservice.dto.content.StoredContentSerializer;
 import me.zedaster.articleservice.entity.ArticleInfo;
+import me.zedaster.articleservice.util.Hashes;
 
 import java.time.Instant;
 
@@ -23,9 +29,12 @@ public class Article {
     private final String title;
 
     /**
-     * String content of the article
+     * Content of the article in the form in which it's stored. It's decoded only while the article is written to
+     * JSON, so the text of the content is never held in memory as a whole.
      */
-    private final String content;
+    @JsonProperty("content")
+    @JsonSerialize(using = StoredContentSerializer.class)
+    private final StoredContent storedContent;
 
     /**
      * Date of creation of the article
@@ -37,11 +46,46 @@ public class Article {
      */
     private final Creator creator;
 
-    public Article(ArticleInfo articleInfo, String content, Creator creator) {
+    /**
+     * Strong entity tag of the article or null if the hash of its content is unknown
+     */
+    @JsonIgnore
+    private final String entityTag;
+
+    public Article(ArticleInfo articleInfo, StoredContent storedContent, Creator creator) {
         this.id = articleInfo.getId();
         this.title = articleInfo.getTitle();
-        this.content = content;
+        this.storedContent = storedContent;
         this.createdAt = articleInfo.getCreatedAt();
         this.creator = creator;
+        this.entityTag = entityTagOf(articleInfo, creator);
+    }
+
+    public Article(ArticleInfo articleInfo, String content, Creator creator) {
+        this(articleInfo, StoredContent.identity(content), creator);
+    }
+
+    /**
+     * Decodes the content of the article. It's decoded again on every call.
+     * @return String content of the article
+     */
+    @JsonIgnore
+    public String getContent() {
+        return storedContent.decode();
+    }
+
+    /**
+     * Calculates the entity tag of the article without its content. It changes with the title, the content and the
+     * name of the creator.
+     * @param articleInfo Info of the article
+     * @param creator Creator of the article
+     * @return Entity tag or null if the hash of the content is unknown or the name of the creator is a fallback
+     */
+    public static String entityTagOf(ArticleInfo articleInfo, Creator creator) {
+        if (articleInfo.getContentHash() == null || creator.isFallback()) {
+            return null;
+        }
+        return Hashes.entityTag(articleInfo.getId(), articleInfo.getTitle(), articleInfo.getCreatedAt(),
+                articleInfo.getContentHash(), creator.getId(), creator.getName());
     }
 }
@@ -0,0 +1,70 @@
+package me.zedaster.articleservice.dto.article;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Position in a list of articles ordered from new to old. The next page starts right after the article of the
+ * cursor.
+ * <br>
+ * Clients get the cursor as an opaque string and must not rely on its format.
+ */
+@AllArgsConstructor
+@Getter
+@EqualsAndHashCode
+public class ArticleCursor {
+    /**
+     * Date of creation of the last article of the previous page
+     */
+    private final Instant createdAt;
+
+    /**
+     * ID of the last article of the previous page. Articles with the same date are ordered by ID.
+     */
+    private final long id;
+
+    /**
+     * Creates a cursor that points right after the article
+     * @param summary Summary of the last article of the page
+     * @return Cursor
+     */
+    public static ArticleCursor after(ArticleSummary summary) {
+        return new ArticleCursor(summary.getCreatedAt(), summary.getId());
+    }
+
+    /**
+     * Encodes the cursor to an opaque string
+     * @return String representation of the cursor
+     */
+    public String encode() {
+        String plain = createdAt.getEpochSecond() + ":" + createdAt.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes the cursor from its string representation
+     * @param encoded String representation of the cursor. An empty string means the start of the list.
+     * @return Cursor or nothing if the list must be read from the start
+     * @throws IllegalArgumentException If the string is not a correct cursor
+     * @throws java.time.DateTimeException If the date of the cursor is out of the supported range
+     * @throws ArithmeticException If the date of the cursor overflows
+     */
+    public static Optional<ArticleCursor> decode(String encoded) {
+        if (encoded.isEmpty()) {
+            return Optional.empty();
+        }
+        String plain = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+        String[] parts = plain.split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Cursor must consist of three parts!");
+        }
+        Instant createdAt = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+        return Optional.of(new ArticleCursor(createdAt, Long.parseLong(parts[2])));
+    }
+}
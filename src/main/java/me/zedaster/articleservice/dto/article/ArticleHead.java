@@ -0,0 +1,33 @@
+package me.zedaster.articleservice.dto.article;
+
+import lombok.Getter;
+import me.zedaster.articleservice.entity.ArticleInfo;
+
+/**
+ * Info of an article and its creator without the content. It's enough to tell if a client has the actual version
+ * of the article, and only the content has to be fetched to get the whole article.
+ */
+@Getter
+public class ArticleHead {
+    /**
+     * Info of the article
+     */
+    private final ArticleInfo info;
+
+    /**
+     * Data of creator of the article
+     */
+    private final Creator creator;
+
+    /**
+     * Strong entity tag of the article or null if it's not known
+     * @see Article#entityTagOf(ArticleInfo, Creator)
+     */
+    private final String entityTag;
+
+    public ArticleHead(ArticleInfo info, Creator creator) {
+        this.info = info;
+        this.creator = creator;
+        this.entityTag = Article.entityTagOf(info, creator);
+    }
+}
@@ -0,0 +1,51 @@
+package me.zedaster.articleservice.dto.article;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Result of looking up one article of several requested ones
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+@EqualsAndHashCode
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ArticleLookup {
+    /**
+     * Requested article ID
+     */
+    private final long id;
+
+    /**
+     * Whether the article exists
+     */
+    private final boolean found;
+
+    /**
+     * The article or null if it doesn't exist or can't be got
+     */
+    private final Article article;
+
+    /**
+     * Why the existing article can't be got, e.g. its content hasn't been fetched in time. It's null if the article
+     * is got or doesn't exist.
+     */
+    private final String error;
+
+    public static ArticleLookup found(Article article) {
+        return new ArticleLookup(article.getId(), true, article, null);
+    }
+
+    public static ArticleLookup missing(long id) {
+        return new ArticleLookup(id, false, null, null);
+    }
+
+    public static ArticleLookup failed(long id, String error) {
+        return new ArticleLookup(id, true, null, error);
+    }
+}
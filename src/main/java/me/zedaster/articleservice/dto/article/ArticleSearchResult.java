@@ -0,0 +1,31 @@
+package me.zedaster.articleservice.dto.article;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Article that has been found by a full-text search
+ */
+@AllArgsConstructor
+@Getter
+public class ArticleSearchResult {
+    /**
+     * Summary of the article
+     */
+    private ArticleSummary summary;
+
+    /**
+     * Title with the matched words in {@code <b>} tags. It's escaped for HTML.
+     */
+    private String highlightedTitle;
+
+    /**
+     * Passage of the content with the matched words in {@code <b>} tags. It's escaped for HTML.
+     */
+    private String snippet;
+
+    /**
+     * Relevance of the article to the query. Results are sorted by it.
+     */
+    private float score;
+}
@@ -0,0 +1,26 @@
+package me.zedaster.articleservice.dto.article;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Page of article summaries that was requested by a cursor
+ */
+@AllArgsConstructor
+@Getter
+@EqualsAndHashCode
+public class ArticleSummaryPage {
+    /**
+     * Summaries of the articles on the page
+     */
+    private final List<ArticleSummary> summaries;
+
+    /**
+     * Encoded cursor of the next page or null if this page is the last one
+     * @see ArticleCursor
+     */
+    private final String nextCursor;
+}
@@ -1,5 +1,6 @@
 package me.zedaster.articleservice.dto.article;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -20,4 +21,15 @@ public class Creator {
      * Username of the creator
      */
     private String name;
+
+    /**
+     * Whether the name is a fallback that was given because the auth service failed. Such names must not be kept or
+     * used in entity tags, because they may be not actual.
+     */
+    @JsonIgnore
+    private boolean fallback;
+
+    public Creator(long id, String name) {
+        this(id, name, false);
+    }
 }
@@ -0,0 +1,31 @@
+package me.zedaster.articleservice.dto.content;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Encoding of stored content of an article
+ */
+@AllArgsConstructor
+@Getter
+public enum ContentEncoding {
+    /**
+     * Plain UTF-8 text. Contents that were saved before compression have this encoding.
+     */
+    IDENTITY("identity", ".txt"),
+
+    /**
+     * UTF-8 text compressed with gzip
+     */
+    GZIP("gzip", ".txt.gz");
+
+    /**
+     * Value of the Content-Encoding header
+     */
+    private final String headerValue;
+
+    /**
+     * Suffix of the S3 object key
+     */
+    private final String keySuffix;
+}
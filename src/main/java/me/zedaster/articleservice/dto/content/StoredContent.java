@@ -0,0 +1,109 @@
+package me.zedaster.articleservice.dto.content;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content of an article in the form in which it's stored. Contents are equal if their encodings and bytes are, so
+ * comparing them never decodes the data. Texts in different encodings are compared by {@link #decode()}.
+ */
+@AllArgsConstructor
+@Getter
+@EqualsAndHashCode
+public class StoredContent {
+    /**
+     * Encoded bytes of the content
+     */
+    private final byte[] data;
+
+    /**
+     * Encoding of the bytes
+     */
+    private final ContentEncoding encoding;
+
+    /**
+     * Creates stored content from plain text
+     * @param content Text of the content
+     * @return Content with {@link ContentEncoding#IDENTITY} encoding
+     */
+    public static StoredContent identity(String content) {
+        return new StoredContent(content.getBytes(StandardCharsets.UTF_8), ContentEncoding.IDENTITY);
+    }
+
+    /**
+     * Compresses the text
+     * @param content Text of the content
+     * @return Content with {@link ContentEncoding#GZIP} encoding
+     */
+    public static StoredContent gzip(String content) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // Streams in memory don't throw it
+            throw new UncheckedIOException(e);
+        }
+        return new StoredContent(compressed.toByteArray(), ContentEncoding.GZIP);
+    }
+
+    /**
+     * Decodes the text of the content
+     * @return Text of the content
+     * @throws UncheckedIOException If the compressed data is corrupted
+     */
+    public String decode() {
+        if (encoding == ContentEncoding.IDENTITY) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+        try (InputStream decoded = openStream()) {
+            return new String(decoded.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Checks that the content can be decoded. The content is decoded chunk by chunk and the text is thrown away, so
+     * it's never held in memory.
+     * @throws UncheckedIOException If the compressed data is corrupted
+     */
+    public void validate() {
+        if (encoding == ContentEncoding.IDENTITY) {
+            return;
+        }
+        try (InputStream decoded = openStream()) {
+            decoded.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Opens a stream of the decoded text. Unlike {@link #decode()}, it decodes the content chunk by chunk while it's
+     * read, so the whole text is never held in memory.
+     * @return Stream of UTF-8 bytes of the text. It must be closed to release the decompressor.
+     * @throws UncheckedIOException If the compressed data is corrupted
+     */
+    public InputStream openStream() {
+        InputStream stored = new ByteArrayInputStream(data);
+        if (encoding == ContentEncoding.IDENTITY) {
+            return stored;
+        }
+        try {
+            return new GZIPInputStream(stored);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package me.zedaster.articleservice.dto.content;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes stored content as a JSON string. The content is decoded and escaped chunk by chunk right into the output,
+ * so neither the decoded bytes nor the text are held in memory as a whole.
+ * <br>
+ * The response may be already committed when the content is written, so it must be checked with
+ * {@link StoredContent#validate()} before. Otherwise corrupted data would cut the response off after its status.
+ */
+public class StoredContentSerializer extends StdSerializer<StoredContent> {
+    public StoredContentSerializer() {
+        super(StoredContent.class);
+    }
+
+    @Override
+    public void serialize(StoredContent content, JsonGenerator generator, SerializerProvider provider)
+            throws IOException {
+        try (Reader reader = new InputStreamReader(content.openStream(), StandardCharsets.UTF_8)) {
+            // -1 means that the length of the text is unknown, so the reader is read to the end
+            generator.writeString(reader, -1);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
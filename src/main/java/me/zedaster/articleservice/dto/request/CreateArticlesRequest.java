@@ -0,0 +1,20 @@
+package me.zedaster.articleservice.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request for creating several articles at once
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class CreateArticlesRequest {
+    /**
+     * Data of the new articles with their creators
+     */
+    private List<CreateArticleRequest> articles;
+}
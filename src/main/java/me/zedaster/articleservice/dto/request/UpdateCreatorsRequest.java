@@ -0,0 +1,20 @@
+package me.zedaster.articleservice.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Request for updating usernames of several creators at once
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class UpdateCreatorsRequest {
+    /**
+     * New usernames by user IDs of the creators. A null username means that the creator data is unknown now.
+     */
+    private Map<Long, String> newUsernames;
+}
@@ -0,0 +1,36 @@
+package me.zedaster.articleservice.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Result of creation of one article of a batch. Either the ID of the new article or the error is present.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+@EqualsAndHashCode
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CreateArticleResult {
+    /**
+     * ID of the new article
+     */
+    private final Long articleId;
+
+    /**
+     * Message of the error because of which the article wasn't created
+     */
+    private final String error;
+
+    public static CreateArticleResult created(long articleId) {
+        return new CreateArticleResult(articleId, null);
+    }
+
+    public static CreateArticleResult failed(String error) {
+        return new CreateArticleResult(null, error);
+    }
+}
@@ -0,0 +1,20 @@
+package me.zedaster.articleservice.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * DTO for response after creation of several articles
+ */
+@AllArgsConstructor
+@Getter
+@EqualsAndHashCode
+public class CreateArticlesResponse {
+    /**
+     * Results in the same order as the articles in the request
+     */
+    private final List<CreateArticleResult> results;
+}
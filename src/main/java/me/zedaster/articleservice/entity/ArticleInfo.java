@@ -5,6 +5,8 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.Instant;
 
@@ -13,7 +15,14 @@ import java.time.Instant;
  */
 @Entity
 @Table(name = "articles", indexes = {
-        @Index(name = "article_summaries_creator_id_index", columnList = "creatorId")
+        // Listings are ordered by (createdAt, id). The trailing columns make the indexes covering for summaries.
+        @Index(name = "articles_created_at_id_index", columnList = "createdAt DESC, id DESC, creatorId, title"),
+        @Index(name = "articles_creator_id_created_at_id_index",
+                columnList = "creatorId, createdAt DESC, id DESC, title"),
+        // A creator can't have two articles with the same title
+        @Index(name = "articles_creator_id_title_index", columnList = "creatorId, title", unique = true),
+        // The search index reads the changed articles in this order
+        @Index(name = "articles_updated_at_id_index", columnList = "updatedAt, id")
 })
 @Getter
 @Setter
@@ -21,10 +30,19 @@ import java.time.Instant;
 @NoArgsConstructor
 public class ArticleInfo {
     /**
-     * Article ID
+     * Number of IDs that are reserved with one call to the sequence. It must be equal to the increment of the
+     * sequence in the DB, so it can't be changed without altering the sequence.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Article ID. The IDs are given out from memory (by the optimizer that is set in hibernate.id.optimizer), so an
+     * insert doesn't wait for the sequence and several inserts can be sent in one JDBC batch.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "articles_id_generator")
+    @SequenceGenerator(name = "articles_id_generator", sequenceName = "articles_seq",
+            allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     /**
@@ -42,6 +60,28 @@ public class ArticleInfo {
      */
     private Long creatorId;
 
+    /**
+     * SHA-256 hash of the content of the article. It identifies the version of the content without reading it from
+     * the storage. It's null for articles that haven't been saved since the column was added.
+     */
+    @Column(length = 64)
+    private String contentHash;
+
+    /**
+     * Whether the content is still in the outbox and S3 may have no content or an older one
+     * @see ContentOutboxEntry
+     */
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean contentPending;
+
+    /**
+     * UTC moment of the last insert or update of the row. Bulk updates of the pending flag don't change it.
+     */
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private Instant updatedAt;
+
     public ArticleInfo(String title, Instant createdAt, Long creatorId) {
         this.title = title;
         this.createdAt = createdAt;
@@ -53,6 +93,9 @@ public class ArticleInfo {
         this.title = articleInfo.title;
         this.createdAt = articleInfo.createdAt;
         this.creatorId = articleInfo.creatorId;
+        this.contentHash = articleInfo.contentHash;
+        this.contentPending = articleInfo.contentPending;
+        this.updatedAt = articleInfo.updatedAt;
     }
 
     public ArticleInfo copy() {
@@ -0,0 +1,64 @@
+package me.zedaster.articleservice.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Content of an article that is saved in the DB and hasn't been uploaded to S3 yet. An article has one entry at
+ * most, so a newer content replaces the older one.
+ */
+@Entity
+@Table(name = "content_outbox", indexes = {
+        @Index(name = "content_outbox_available_at_index", columnList = "availableAt")
+})
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentOutboxEntry {
+    /**
+     * ID of the article
+     */
+    @Id
+    private Long articleId;
+
+    /**
+     * Content of the article
+     */
+    @Column(columnDefinition = "text")
+    private String content;
+
+    /**
+     * SHA-256 hash of the content. It tells whether the content has been replaced during an upload.
+     */
+    @Column(length = 64)
+    private String contentHash;
+
+    /**
+     * Number of failed uploads
+     */
+    private int attempts;
+
+    /**
+     * Moment from which a worker can claim the entry. It's moved forward while the entry is claimed and after a
+     * failed upload.
+     */
+    private Instant availableAt;
+
+    /**
+     * Moment when the content was added to the outbox. It's kept when the content is replaced.
+     */
+    private Instant createdAt;
+
+    /**
+     * Moment when the uploads were given up after too many failed attempts, or null if the content is still uploaded
+     */
+    private Instant deadLetteredAt;
+}
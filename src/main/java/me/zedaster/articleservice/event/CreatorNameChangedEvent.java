@@ -0,0 +1,21 @@
+package me.zedaster.articleservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Event that is published when the auth service notifies about a changed username
+ */
+@AllArgsConstructor
+@Getter
+public class CreatorNameChangedEvent {
+    /**
+     * ID of the creator
+     */
+    private final long creatorId;
+
+    /**
+     * New username of the creator or null if it's unknown and must be requested again
+     */
+    private final String newUsername;
+}
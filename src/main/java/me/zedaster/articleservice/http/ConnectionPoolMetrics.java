@@ -0,0 +1,93 @@
+package me.zedaster.articleservice.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Metrics of a pool of HTTP connections to a downstream service. Pools of all clients have the same meters that
+ * differ by the "client" tag:
+ * <ul>
+ *     <li>{@code http.client.pool.max}, {@code .leased}, {@code .available} and {@code .pending} - occupancy of the
+ *     pool and requests that wait for a connection</li>
+ *     <li>{@code http.client.pool.acquire} - time that requests wait for a connection</li>
+ *     <li>{@code http.client.pool.connections.opened} - new connections. Together with the size of the pool, its rate
+ *     shows how long connections live.</li>
+ * </ul>
+ */
+public class ConnectionPoolMetrics {
+    private static final String PREFIX = "http.client.pool";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Tags tags;
+
+    private final Timer acquireTimer;
+
+    /**
+     * @param client Name of the client in the metrics
+     */
+    public ConnectionPoolMetrics(String client, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.tags = Tags.of("client", client);
+        this.acquireTimer = Timer.builder(PREFIX + ".acquire")
+                .description("Time to get a connection from the pool")
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers gauges of the occupancy of the pool
+     * @param poolState Current state of the pool
+     */
+    public void bindPool(Supplier<PoolState> poolState) {
+        gauge("max", "Maximum number of connections", poolState, PoolState::max);
+        gauge("leased", "Connections that are used by requests", poolState, PoolState::leased);
+        gauge("available", "Open connections that are not used", poolState, PoolState::available);
+        gauge("pending", "Requests that wait for a connection", poolState, PoolState::pending);
+    }
+
+    /**
+     * Registers the counter of new connections. Not every client reports new connections, so it's registered only by
+     * the ones that do.
+     */
+    public Counter openedConnections() {
+        return Counter.builder(PREFIX + ".connections.opened")
+                .description("Connections that have been opened")
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    public void recordAcquire(Duration duration) {
+        acquireTimer.record(duration);
+    }
+
+    public void recordAcquire(long nanos) {
+        acquireTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void gauge(String name, String description, Supplier<PoolState> poolState,
+                       ToIntFunction<PoolState> value) {
+        Gauge.builder(PREFIX + "." + name, poolState, state -> value.applyAsInt(state.get()))
+                .description(description)
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Numbers of connections of the pool at some moment
+     * @param max Maximum number of connections
+     * @param leased Connections that are used by requests
+     * @param available Open connections that are not used
+     * @param pending Requests that wait for a connection
+     */
+    public record PoolState(int max, int leased, int available, int pending) {
+    }
+}
@@ -0,0 +1,163 @@
+package me.zedaster.articleservice.http;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records sizes of the bodies of HTTP requests and responses as the distribution summaries
+ * {@code http.server.request.size} and {@code http.server.response.size}. They are tagged by the method and the URI
+ * pattern like {@code http.server.requests}.
+ * <br>
+ * Bodies of responses are counted while they are written, so streamed responses are not buffered. Their sizes are
+ * recorded when the response is complete, also after asynchronous processing, and before the compression of the
+ * server. Only bodies written to the output stream are counted, which is how Spring MVC writes them. Sizes of request
+ * bodies are taken from the Content-Length header, so chunked requests are not recorded.
+ * @see me.zedaster.articleservice.configuration.HttpMetricsConfiguration
+ */
+public class HttpPayloadSizeFilter extends OncePerRequestFilter {
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+
+    public HttpPayloadSizeFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CountingResponse countingResponse = new CountingResponse(response);
+        try {
+            filterChain.doFilter(request, countingResponse);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request, countingResponse);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                record(request, countingResponse);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, CountingResponse response) {
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of("method", request.getMethod(), "uri", Objects.toString(uri, UNKNOWN_URI));
+        long requestSize = request.getContentLengthLong();
+        if (requestSize >= 0) {
+            summary("http.server.request.size", "Size of the body of an HTTP request", tags).record(requestSize);
+        }
+        summary("http.server.response.size", "Size of the body of an HTTP response", tags)
+                .record(response.getWrittenBytes());
+    }
+
+    private DistributionSummary summary(String name, String description, Tags tags) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Response that counts the bytes written to its output stream
+     */
+    private static class CountingResponse extends HttpServletResponseWrapper {
+        /**
+         * Number of written bytes. The body may be written by another thread than the one that records it.
+         */
+        private final LongAdder writtenBytes = new LongAdder();
+
+        private ServletOutputStream outputStream;
+
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public synchronized ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new CountingOutputStream(super.getOutputStream(), writtenBytes);
+            }
+            return outputStream;
+        }
+
+        long getWrittenBytes() {
+            return writtenBytes.sum();
+        }
+    }
+
+    private static class CountingOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+
+        private final LongAdder writtenBytes;
+
+        CountingOutputStream(ServletOutputStream delegate, LongAdder writtenBytes) {
+            this.delegate = delegate;
+            this.writtenBytes = writtenBytes;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            writtenBytes.increment();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            writtenBytes.add(len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package me.zedaster.articleservice.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import me.zedaster.articleservice.configuration.microservice.HttpClientConfiguration;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.ChainElement;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.ManagedHttpClientConnectionFactory;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.routing.SystemDefaultRoutePlanner;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.net.ProxySelector;
+
+/**
+ * Factory of blocking HTTP clients with a bounded pool of connections to a downstream service
+ * @see ConnectionPoolMetrics
+ */
+public final class PooledHttpClientFactory {
+    /**
+     * Attribute of the request context with the time when the request started to wait for a connection
+     */
+    private static final String ACQUIRE_START = PooledHttpClientFactory.class.getName() + ".acquireStart";
+
+    private PooledHttpClientFactory() {
+    }
+
+    /**
+     * Creates a client. All its requests go to one service, so the whole pool is available for one route.
+     * @param name Name of the client in the metrics
+     * @param configuration Configuration of the pool
+     * @return Client that must be closed when it's not needed anymore
+     */
+    public static CloseableHttpClient create(String name, HttpClientConfiguration configuration,
+                                             MeterRegistry meterRegistry) {
+        ConnectionPoolMetrics metrics = new ConnectionPoolMetrics(name, meterRegistry);
+        Counter openedConnections = metrics.openedConnections();
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(configuration.getMaxConnections())
+                .setMaxConnPerRoute(configuration.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(configuration.getConnectionTimeout()))
+                        .setSocketTimeout(Timeout.of(configuration.getReadTimeout()))
+                        .setTimeToLive(TimeValue.of(configuration.getConnectionTimeToLive()))
+                        .build())
+                .setConnectionFactory(socket -> {
+                    openedConnections.increment();
+                    return ManagedHttpClientConnectionFactory.INSTANCE.createConnection(socket);
+                })
+                .build();
+        metrics.bindPool(() -> {
+            PoolStats stats = connectionManager.getTotalStats();
+            return new ConnectionPoolMetrics.PoolState(stats.getMax(), stats.getLeased(), stats.getAvailable(),
+                    stats.getPending());
+        });
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(configuration.getConnectionAcquisitionTimeout()))
+                        .setResponseTimeout(Timeout.of(configuration.getReadTimeout()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(configuration.getConnectionMaxIdleTime()))
+                // Proxies of the JVM are used like by the default client of Spring
+                .setRoutePlanner(new SystemDefaultRoutePlanner(ProxySelector.getDefault()))
+                // The connect step takes a connection from the pool or opens a new one
+                .addExecInterceptorBefore(ChainElement.CONNECT.name(), "pool-acquire-start",
+                        (request, scope, chain) -> {
+                            scope.clientContext.setAttribute(ACQUIRE_START, System.nanoTime());
+                            return chain.proceed(request, scope);
+                        })
+                .addExecInterceptorAfter(ChainElement.CONNECT.name(), "pool-acquire-end",
+                        (request, scope, chain) -> {
+                            if (scope.clientContext.getAttribute(ACQUIRE_START) instanceof Long start) {
+                                metrics.recordAcquire(System.nanoTime() - start);
+                            }
+                            return chain.proceed(request, scope);
+                        })
+                .build();
+    }
+}
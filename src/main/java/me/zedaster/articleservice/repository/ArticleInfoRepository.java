@@ -2,9 +2,15 @@ package me.zedaster.articleservice.repository;
 
 import me.zedaster.articleservice.entity.ArticleInfo;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -12,11 +18,87 @@ import java.util.List;
  */
 @Repository
 public interface ArticleInfoRepository extends CrudRepository<ArticleInfo, Long> {
-    List<ArticleInfo> findAllByOrderByCreatedAtDesc(Pageable pageable);
+    /**
+     * Saves the article and flushes the changes at once, so a violated constraint fails the call and not the commit.
+     * It's implemented by the base repository of Spring Data JPA.
+     */
+    <S extends ArticleInfo> S saveAndFlush(S articleInfo);
 
-    List<ArticleInfo> findAllByCreatorIdOrderByCreatedAtDesc(Long creatorId, Pageable pageable);
+    /**
+     * Saves the articles and flushes the changes at once, like {@link #saveAndFlush(ArticleInfo)}
+     */
+    <S extends ArticleInfo> List<S> saveAllAndFlush(Iterable<S> articleInfos);
+
+    List<ArticleInfoSummary> findAllByOrderByCreatedAtDesc(Pageable pageable);
+
+    List<ArticleInfoSummary> findAllByCreatorIdOrderByCreatedAtDesc(Long creatorId, Pageable pageable);
 
     List<ArticleInfo> findAllByCreatorIdAndTitle(long creatorId, String title);
 
+    List<ArticleInfoSummary> findAllByOrderByCreatedAtDescIdDesc(Pageable pageable);
+
+    /**
+     * Finds articles that go after the specified one when they are ordered from new to old. The condition on
+     * createdAt alone lets the DB start the index scan right at the position of the cursor.
+     */
+    @Query("""
+            select new me.zedaster.articleservice.repository.ArticleInfoSummary(
+                a.id, a.title, a.createdAt, a.creatorId)
+            from ArticleInfo a
+            where a.createdAt <= :createdAt and (a.createdAt < :createdAt or a.id < :id)
+            order by a.createdAt desc, a.id desc""")
+    List<ArticleInfoSummary> findAllBefore(@Param("createdAt") Instant createdAt, @Param("id") long id, Pageable pageable);
+
+    List<ArticleInfoSummary> findAllByCreatorIdOrderByCreatedAtDescIdDesc(Long creatorId, Pageable pageable);
+
+    /**
+     * Finds articles of the creator that go after the specified one when they are ordered from new to old.
+     * @see #findAllBefore(Instant, long, Pageable)
+     */
+    @Query("""
+            select new me.zedaster.articleservice.repository.ArticleInfoSummary(
+                a.id, a.title, a.createdAt, a.creatorId)
+            from ArticleInfo a
+            where a.creatorId = :creatorId
+                and a.createdAt <= :createdAt and (a.createdAt < :createdAt or a.id < :id)
+            order by a.createdAt desc, a.id desc""")
+    List<ArticleInfoSummary> findAllByCreatorIdBefore(@Param("creatorId") Long creatorId,
+                                                      @Param("createdAt") Instant createdAt,
+                                                      @Param("id") long id,
+                                                      Pageable pageable);
+
+    /**
+     * Finds articles with IDs bigger than the specified one in the order of IDs, so all articles can be read page by
+     * page
+     */
+    List<ArticleInfo> findAllByIdGreaterThanOrderById(long id, Pageable pageable);
+
+    /**
+     * Finds articles that have been changed after the specified one in the order of changes, so all changes since
+     * some moment can be read page by page
+     */
+    @Query("""
+            select a from ArticleInfo a
+            where a.updatedAt >= :updatedAt and (a.updatedAt > :updatedAt or a.id > :id)
+            order by a.updatedAt, a.id""")
+    List<ArticleInfo> findAllUpdatedAfter(@Param("updatedAt") Instant updatedAt, @Param("id") long id,
+                                          Pageable pageable);
+
     boolean existsByCreatorIdAndTitle(Long creatorId, String title);
+
+    /**
+     * Marks the content of the article as uploaded if it hasn't been changed since
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            update ArticleInfo a set a.contentPending = false
+            where a.id = :id and a.contentHash = :contentHash""")
+    int markContentUploaded(@Param("id") long id, @Param("contentHash") String contentHash);
+
+    /**
+     * Finds articles whose creator is one of the specified ones and whose title is one of the specified ones. The
+     * result may contain pairs of a creator and a title that were not asked for, so it must be filtered.
+     */
+    List<ArticleInfoSummary> findAllByCreatorIdInAndTitleIn(Collection<Long> creatorIds, Collection<String> titles);
 }
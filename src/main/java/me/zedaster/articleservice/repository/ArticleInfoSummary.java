@@ -0,0 +1,14 @@
+package me.zedaster.articleservice.repository;
+
+import java.time.Instant;
+
+/**
+ * Projection of {@link me.zedaster.articleservice.entity.ArticleInfo} for listings of articles. It's read without
+ * managed entities, so the persistence context doesn't keep snapshots of them for dirty checking.
+ * @param id Article ID
+ * @param title Title of the article
+ * @param createdAt UTC moment of creation of the article
+ * @param creatorId Creator of the article
+ */
+public record ArticleInfoSummary(Long id, String title, Instant createdAt, Long creatorId) {
+}
@@ -0,0 +1,23 @@
+package me.zedaster.articleservice.repository;
+
+import java.time.Instant;
+
+/**
+ * Size and age of the contents in the outbox
+ * @param entries Number of entries, including the dead-lettered ones
+ * @param deadLettered Number of entries whose uploads have been given up
+ * @param oldestCreatedAt Moment when the oldest entry that is still uploaded was added, or null if there's none
+ */
+public record ContentOutboxBacklog(Long entries, Long deadLettered, Instant oldestCreatedAt) {
+    /**
+     * Empty outbox
+     */
+    public static final ContentOutboxBacklog EMPTY = new ContentOutboxBacklog(0L, 0L, null);
+
+    /**
+     * Number of entries that are still uploaded
+     */
+    public long pending() {
+        return entries - deadLettered;
+    }
+}
@@ -0,0 +1,121 @@
+package me.zedaster.articleservice.repository;
+
+import me.zedaster.articleservice.entity.ContentOutboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Repository for contents that are waiting to be uploaded to S3
+ */
+@Repository
+public interface ContentOutboxRepository extends CrudRepository<ContentOutboxEntry, Long> {
+    /**
+     * Adds the content of the article or replaces the existing one. A claim of the existing entry is kept, so the
+     * worker that is uploading the older content uploads the new one after it. A replaced content is uploaded again
+     * even if the uploads of the older one have been given up.
+     * <br>
+     * The upsert is written for Postgres, like the migrations of the schema.
+     */
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = """
+            insert into content_outbox (article_id, content, content_hash, attempts, available_at, created_at)
+            values (:articleId, :content, :contentHash, 0, :availableAt, :availableAt)
+            on conflict (article_id) do update
+            set content = excluded.content, content_hash = excluded.content_hash, attempts = 0,
+                created_at = case when content_outbox.dead_lettered_at is null
+                    then content_outbox.created_at else excluded.created_at end,
+                dead_lettered_at = null""")
+    void upsert(@Param("articleId") long articleId,
+                @Param("content") String content,
+                @Param("contentHash") String contentHash,
+                @Param("availableAt") Instant availableAt);
+
+    /**
+     * Adds or replaces the contents of several articles with one statement, like {@link #upsert}. The contents are
+     * passed as arrays of the same length, in which the same index belongs to the same article.
+     */
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = """
+            insert into content_outbox (article_id, content, content_hash, attempts, available_at, created_at)
+            select c.article_id, c.content, c.content_hash, 0, :availableAt, :availableAt
+            from unnest(cast(:articleIds as bigint[]), cast(:contents as text[]), cast(:contentHashes as varchar[]))
+                as c (article_id, content, content_hash)
+            on conflict (article_id) do update
+            set content = excluded.content, content_hash = excluded.content_hash, attempts = 0,
+                created_at = case when content_outbox.dead_lettered_at is null
+                    then content_outbox.created_at else excluded.created_at end,
+                dead_lettered_at = null""")
+    void upsertAll(@Param("articleIds") Long[] articleIds,
+                   @Param("contents") String[] contents,
+                   @Param("contentHashes") String[] contentHashes,
+                   @Param("availableAt") Instant availableAt);
+
+    @Query("""
+            select e.articleId from ContentOutboxEntry e
+            where e.availableAt <= :now and e.deadLetteredAt is null
+            order by e.availableAt""")
+    List<Long> findAvailableArticleIds(@Param("now") Instant now, Pageable pageable);
+
+    /**
+     * Claims the entry if it's available
+     * @return 1 if the entry is claimed, 0 if it doesn't exist or is claimed by another worker
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            update ContentOutboxEntry e set e.availableAt = :leaseEnd
+            where e.articleId = :articleId and e.availableAt <= :now and e.deadLetteredAt is null""")
+    int claim(@Param("articleId") long articleId, @Param("now") Instant now, @Param("leaseEnd") Instant leaseEnd);
+
+    /**
+     * Releases the claim after a failed upload
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            update ContentOutboxEntry e set e.attempts = e.attempts + 1, e.availableAt = :retryAt
+            where e.articleId = :articleId""")
+    int postpone(@Param("articleId") long articleId, @Param("retryAt") Instant retryAt);
+
+    /**
+     * Gives up the uploads of the entry after the last failed attempt. The entry is kept, so its content is still read
+     * from the outbox.
+     * @return 1 if the uploads are given up, 0 if the content has been replaced and must be uploaded again
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            update ContentOutboxEntry e set e.attempts = e.attempts + 1, e.deadLetteredAt = :now, e.availableAt = :now
+            where e.articleId = :articleId and e.contentHash = :contentHash""")
+    int deadLetter(@Param("articleId") long articleId,
+                   @Param("contentHash") String contentHash,
+                   @Param("now") Instant now);
+
+    /**
+     * Gets the number of entries and the age of the oldest one that is still uploaded
+     */
+    @Query("""
+            select new me.zedaster.articleservice.repository.ContentOutboxBacklog(count(e), count(e.deadLetteredAt),
+                min(case when e.deadLetteredAt is null then e.createdAt end))
+            from ContentOutboxEntry e""")
+    ContentOutboxBacklog getBacklog();
+
+    /**
+     * Deletes the entry if its content is the uploaded one
+     * @return 1 if the entry is deleted, 0 if the content has been replaced
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from ContentOutboxEntry e where e.articleId = :articleId and e.contentHash = :contentHash")
+    int deleteUploaded(@Param("articleId") long articleId, @Param("contentHash") String contentHash);
+}
@@ -0,0 +1,19 @@
+package me.zedaster.articleservice.search;
+
+import me.zedaster.articleservice.entity.ArticleInfo;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Source of the contents of the articles that are indexed by {@link ArticleSearchIndex}. It's implemented where the
+ * contents are stored, so the index doesn't depend on the services that use it.
+ */
+public interface ArticleContentSource {
+    /**
+     * Starts fetching the current content of the article
+     * @param articleInfo Info of the article
+     * @return Future of the content or of nothing if the article has no content
+     */
+    CompletableFuture<Optional<String>> fetchContent(ArticleInfo articleInfo);
+}
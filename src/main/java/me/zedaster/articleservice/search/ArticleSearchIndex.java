@@ -0,0 +1,612 @@
+package me.zedaster.articleservice.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import me.zedaster.articleservice.concurrency.Bulkheads;
+import me.zedaster.articleservice.configuration.SearchIndexConfiguration;
+import me.zedaster.articleservice.entity.ArticleInfo;
+import me.zedaster.articleservice.repository.ArticleInfoRepository;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Embedded full-text index of titles and contents of the articles. Searches are answered from the index alone, without
+ * the DB and S3.
+ * <br>
+ * Articles that are saved by this instance are indexed right after the commit and become searchable after the
+ * refresh interval. Changes of other instances are picked up by catch-ups, which read the articles that have been
+ * updated since the previous one. The whole index is rebuilt from the DB on start and then rarely, mostly to remove
+ * articles that have been deleted by other instances. A rebuild fetches only contents that have changed since they
+ * were indexed, so an index on disk isn't built from scratch on every start.
+ * <br>
+ * Queries support phrases in quotes, required (+) and excluded (-) words and prefixes (word*). All words are required
+ * by default.
+ * <br>
+ * Failures are logged and counted as {@code search.index.failures}. The health of the index is reported by
+ * {@link ArticleSearchIndexHealthIndicator}.
+ */
+@Slf4j
+@Component
+public class ArticleSearchIndex {
+    private static final String ID = "id";
+
+    /**
+     * ID as a number, so documents can be deleted by ranges of IDs
+     */
+    private static final String ID_POINT = "idPoint";
+
+    private static final String TITLE = "title";
+
+    private static final String CONTENT = "content";
+
+    /**
+     * Moment of creation in microseconds since the epoch, as the DB stores it
+     */
+    private static final String CREATED_AT = "createdAt";
+
+    private static final String CREATOR_ID = "creatorId";
+
+    private static final String CONTENT_HASH = "contentHash";
+
+    /**
+     * Stored text whose offsets are kept in the index, so matches are highlighted without analyzing the text again
+     */
+    private static final FieldType HIGHLIGHTED_TEXT = new FieldType(TextField.TYPE_STORED);
+
+    static {
+        HIGHLIGHTED_TEXT.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        HIGHLIGHTED_TEXT.freeze();
+    }
+
+    /**
+     * Length of the longest content, so matches at the end of it are highlighted too
+     */
+    private static final int MAX_HIGHLIGHTED_LENGTH = 18_000;
+
+    /**
+     * Formatter of the snippets. The text is escaped, so the snippets can be inserted into HTML.
+     */
+    private static final DefaultPassageFormatter SNIPPET_FORMATTER = new DefaultPassageFormatter("<b>", "</b>",
+            "... ", true);
+
+    private final SearchIndexConfiguration configuration;
+
+    private final ArticleInfoRepository articleInfoRepository;
+
+    private final ArticleContentSource contentSource;
+
+    private final Bulkheads bulkheads;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    private final Directory directory;
+
+    private final IndexWriter writer;
+
+    /**
+     * Gives out searchers of the latest refreshed state of the index
+     */
+    private final SearcherManager searcherManager;
+
+    /**
+     * Executor of refreshes, catch-ups and rebuilds
+     */
+    private final ScheduledExecutorService worker;
+
+    /**
+     * Lets a sync check that an article hasn't been saved during it and index the article atomically
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * IDs of the articles that have been saved since the current rebuild or catch-up started. It may have read their
+     * old data from the DB, so it doesn't index them.
+     */
+    private final Set<Long> savedDuringSync = ConcurrentHashMap.newKeySet();
+
+    private final Counter indexFailures;
+
+    private final Counter deleteFailures;
+
+    private final Counter refreshFailures;
+
+    private final Counter rebuildFailures;
+
+    private final Counter catchUpFailures;
+
+    /**
+     * Contents that couldn't be fetched during rebuilds
+     */
+    private final Counter fetchFailures;
+
+    /**
+     * Moment when the last successful rebuild or catch-up started, or null if there hasn't been a rebuild yet
+     */
+    private volatile Instant lastSyncStartedAt;
+
+    /**
+     * Moment since which the next catch-up reads the updated articles. It's the start of the last sync or the update
+     * of the earliest article whose content that sync couldn't fetch. It's null if there hasn't been a rebuild yet.
+     */
+    private volatile Instant caughtUpTo;
+
+    /**
+     * Number of articles in the DB that the last successful rebuild has read
+     */
+    private volatile long lastRebuildArticles;
+
+    /**
+     * Found article
+     * @param id ID of the article
+     * @param title Title of the article
+     * @param createdAt Date of creation of the article
+     * @param creatorId ID of the creator of the article
+     * @param score Relevance of the article to the query
+     * @param highlightedTitle Title with the matches in {@code <b>} tags. It's escaped for HTML.
+     * @param snippet Passage of the content with the matches in {@code <b>} tags or the beginning of the content if
+     *                only the title matches. It's escaped for HTML.
+     */
+    public record Hit(long id, String title, Instant createdAt, long creatorId, float score, String highlightedTitle,
+                      String snippet) {
+    }
+
+    public ArticleSearchIndex(SearchIndexConfiguration configuration,
+                              ArticleInfoRepository articleInfoRepository,
+                              ArticleContentSource contentSource,
+                              Bulkheads bulkheads,
+                              MeterRegistry meterRegistry) throws IOException {
+        this.configuration = configuration;
+        this.articleInfoRepository = articleInfoRepository;
+        this.contentSource = contentSource;
+        this.bulkheads = bulkheads;
+        this.directory = configuration.isInMemory()
+                ? new ByteBuffersDirectory()
+                : FSDirectory.open(configuration.getPath());
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        this.searcherManager = new SearcherManager(writer, null);
+        Gauge.builder("search.index.documents", this, ArticleSearchIndex::getDocumentCount)
+                .description("Number of articles in the full-text index")
+                .register(meterRegistry);
+        this.indexFailures = failureCounter("index", meterRegistry);
+        this.deleteFailures = failureCounter("delete", meterRegistry);
+        this.refreshFailures = failureCounter("refresh", meterRegistry);
+        this.rebuildFailures = failureCounter("rebuild", meterRegistry);
+        this.catchUpFailures = failureCounter("catch-up", meterRegistry);
+        this.fetchFailures = failureCounter("fetch", meterRegistry);
+
+        this.worker = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("search-index").daemon().factory());
+        long refreshMillis = configuration.getRefreshInterval().toMillis();
+        worker.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        worker.scheduleWithFixedDelay(this::rebuild, 0, configuration.getRebuildInterval().toMillis(),
+                TimeUnit.MILLISECONDS);
+        long catchUpMillis = configuration.getCatchUpInterval().toMillis();
+        worker.scheduleWithFixedDelay(this::catchUp, catchUpMillis, catchUpMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Indexes a created or updated article. Inside a transaction it's done after the commit, so an article that has
+     * been rolled back is never found.
+     * @param articleInfo Saved article
+     * @param content Content of the article
+     */
+    public void articleSaved(ArticleInfo articleInfo, String content) {
+        ArticleInfo savedInfo = articleInfo.copy();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    indexSavedArticle(savedInfo, content);
+                }
+            });
+        } else {
+            indexSavedArticle(savedInfo, content);
+        }
+    }
+
+    /**
+     * Removes deleted articles from the index
+     * @param articleIds IDs of the articles
+     */
+    public void articlesDeleted(Collection<Long> articleIds) {
+        writeLock.lock();
+        try {
+            savedDuringSync.addAll(articleIds);
+            writer.deleteDocuments(articleIds.stream()
+                    .map(ArticleSearchIndex::idTerm)
+                    .toArray(Term[]::new));
+        } catch (IOException e) {
+            // The articles are removed by the next rebuild
+            deleteFailures.increment();
+            log.warn("Failed to remove articles {} from the search index", articleIds, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Searches articles by words of their titles and contents. Matches in the title weigh more.
+     * @param text Query
+     * @param offset Number of the most relevant articles to skip
+     * @param limit Maximum number of articles to return
+     * @return Found articles from the most relevant
+     * @throws UncheckedIOException If the index can't be read
+     */
+    public List<Hit> search(String text, int offset, int limit) {
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer,
+                Map.of(TITLE, configuration.getTitleBoost(), CONTENT, 1f));
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        Query query = parser.parse(text);
+
+        IndexSearcher searcher;
+        try {
+            searcher = searcherManager.acquire();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            TopDocs topDocs = searcher.search(query, offset + limit);
+            if (topDocs.scoreDocs.length <= offset) {
+                return List.of();
+            }
+            TopDocs page = new TopDocs(topDocs.totalHits, Arrays.copyOfRange(topDocs.scoreDocs, offset,
+                    topDocs.scoreDocs.length));
+            Map<String, String[]> highlights = UnifiedHighlighter.builder(searcher, analyzer)
+                    .withFormatter(SNIPPET_FORMATTER)
+                    .withMaxLength(MAX_HIGHLIGHTED_LENGTH)
+                    .build()
+                    .highlightFields(new String[]{TITLE, CONTENT}, query, page, new int[]{1, 1});
+
+            StoredFields storedFields = searcher.storedFields();
+            List<Hit> hits = new ArrayList<>(page.scoreDocs.length);
+            for (int i = 0; i < page.scoreDocs.length; i++) {
+                ScoreDoc scoreDoc = page.scoreDocs[i];
+                Document document = storedFields.document(scoreDoc.doc, Set.of(ID, TITLE, CREATED_AT, CREATOR_ID));
+                hits.add(new Hit(
+                        Long.parseLong(document.get(ID)),
+                        document.get(TITLE),
+                        Instant.EPOCH.plus(document.getField(CREATED_AT).numericValue().longValue(),
+                                ChronoUnit.MICROS),
+                        document.getField(CREATOR_ID).numericValue().longValue(),
+                        scoreDoc.score,
+                        highlights.get(TITLE)[i],
+                        highlights.get(CONTENT)[i]));
+            }
+            return hits;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    /**
+     * Makes the indexed changes searchable
+     */
+    void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException | RuntimeException e) {
+            // An exception would cancel the next refreshes, so this one is just skipped
+            refreshFailures.increment();
+            log.warn("Failed to refresh the search index", e);
+        }
+    }
+
+    /**
+     * Indexes all articles from the DB. Articles whose titles and contents haven't changed are skipped, and articles
+     * that are not in the DB anymore are removed. Rebuilds don't overlap.
+     */
+    synchronized void rebuild() {
+        savedDuringSync.clear();
+        Instant startedAt = Instant.now();
+        long articles = 0;
+        Instant failedSince = null;
+        try {
+            long lastId = 0;
+            List<ArticleInfo> infos;
+            do {
+                long afterId = lastId;
+                infos = bulkheads.getDatabase().call(() -> articleInfoRepository.findAllByIdGreaterThanOrderById(
+                        afterId, PageRequest.ofSize(configuration.getRebuildBatchSize())));
+                failedSince = earliest(failedSince, indexBatch(infos));
+                articles += infos.size();
+                boolean lastPage = infos.size() < configuration.getRebuildBatchSize();
+                long toId = lastPage ? Long.MAX_VALUE : infos.getLast().getId();
+                deleteMissing(afterId, toId, infos);
+                lastId = toId;
+            } while (lastId != Long.MAX_VALUE);
+            writer.commit();
+            searcherManager.maybeRefresh();
+            lastRebuildArticles = articles;
+            lastSyncStartedAt = startedAt;
+            caughtUpTo = earliest(startedAt, failedSince);
+        } catch (IOException | RuntimeException e) {
+            // Articles that haven't been indexed are indexed by the next rebuild
+            rebuildFailures.increment();
+            log.warn("Failed to rebuild the search index", e);
+        }
+    }
+
+    /**
+     * Indexes the articles that have been created or updated since the last rebuild or catch-up. Articles that have
+     * been deleted are removed by the instance that deletes them, or by the next rebuild. The index is rebuilt
+     * instead if it hasn't been rebuilt yet.
+     */
+    synchronized void catchUp() {
+        Instant since = caughtUpTo;
+        if (since == null) {
+            rebuild();
+            return;
+        }
+        savedDuringSync.clear();
+        Instant startedAt = Instant.now();
+        Instant failedSince = null;
+        try {
+            // Transactions that have set updatedAt before the last sync may have been committed after it
+            Instant afterUpdatedAt = since.minus(configuration.getCatchUpOverlap());
+            long afterId = 0;
+            List<ArticleInfo> infos;
+            do {
+                Instant pageUpdatedAt = afterUpdatedAt;
+                long pageId = afterId;
+                infos = bulkheads.getDatabase().call(() -> articleInfoRepository.findAllUpdatedAfter(
+                        pageUpdatedAt, pageId, PageRequest.ofSize(configuration.getRebuildBatchSize())));
+                failedSince = earliest(failedSince, indexBatch(infos));
+                if (!infos.isEmpty()) {
+                    afterUpdatedAt = infos.getLast().getUpdatedAt();
+                    afterId = infos.getLast().getId();
+                }
+            } while (infos.size() == configuration.getRebuildBatchSize());
+            writer.commit();
+            searcherManager.maybeRefresh();
+            lastSyncStartedAt = startedAt;
+            caughtUpTo = earliest(startedAt, failedSince);
+        } catch (IOException | RuntimeException e) {
+            // The next catch-up starts from the same moment
+            catchUpFailures.increment();
+            log.warn("Failed to catch up the search index with the DB", e);
+        }
+    }
+
+    /**
+     * Gets the moment when the last successful rebuild or catch-up started. Changes of other instances that have been
+     * made before it are in the index.
+     * @return Moment or nothing if the index hasn't been rebuilt yet
+     */
+    public Optional<Instant> getLastSyncStartedAt() {
+        return Optional.ofNullable(lastSyncStartedAt);
+    }
+
+    /**
+     * Gets the number of articles in the DB that the last successful rebuild has read
+     */
+    public long getLastRebuildArticles() {
+        return lastRebuildArticles;
+    }
+
+    /**
+     * Gets the number of articles in the index, including the ones that are not searchable yet
+     */
+    public int getDocumentCount() {
+        return writer.getDocStats().numDocs;
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        worker.shutdownNow();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private void indexSavedArticle(ArticleInfo articleInfo, String content) {
+        writeLock.lock();
+        try {
+            savedDuringSync.add(articleInfo.getId());
+            writer.updateDocument(idTerm(articleInfo.getId()), toDocument(articleInfo, content));
+        } catch (IOException e) {
+            // The article is indexed by the next catch-up
+            indexFailures.increment();
+            log.warn("Failed to index article {}", articleInfo.getId(), e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Indexes the articles of one page of a rebuild or a catch-up. Changed contents are fetched concurrently.
+     * @return Earliest update of the articles whose contents couldn't be fetched, or null if all have been indexed
+     */
+    private Instant indexBatch(List<ArticleInfo> infos) throws IOException {
+        Map<Long, Document> indexedDocuments = findIndexedDocuments(infos);
+        Map<ArticleInfo, CompletableFuture<Optional<String>>> contents = new HashMap<>();
+        for (ArticleInfo info : infos) {
+            Document indexed = indexedDocuments.get(info.getId());
+            String contentHash = info.getContentHash() == null ? "" : info.getContentHash();
+            if (indexed != null && contentHash.equals(indexed.get(CONTENT_HASH))) {
+                if (!info.getTitle().equals(indexed.get(TITLE))) {
+                    contents.put(info, CompletableFuture.completedFuture(Optional.of(indexed.get(CONTENT))));
+                }
+            } else {
+                contents.put(info, contentSource.fetchContent(info));
+            }
+        }
+
+        Instant failedSince = null;
+        for (Map.Entry<ArticleInfo, CompletableFuture<Optional<String>>> entry : contents.entrySet()) {
+            ArticleInfo info = entry.getKey();
+            Optional<String> content;
+            try {
+                content = entry.getValue().join();
+            } catch (RuntimeException e) {
+                // The content can't be read now, so the article keeps its old data until a catch-up reads it again
+                fetchFailures.increment();
+                log.warn("Failed to fetch the content of article {} for the search index", info.getId(), e);
+                failedSince = earliest(failedSince, info.getUpdatedAt() == null ? Instant.EPOCH : info.getUpdatedAt());
+                continue;
+            }
+            if (content.isPresent()) {
+                indexSyncedArticle(info, content.get());
+            }
+        }
+        return failedSince;
+    }
+
+    /**
+     * Finds the indexed documents of the articles with their titles, contents and hashes of the contents
+     * @return Documents by article IDs
+     */
+    private Map<Long, Document> findIndexedDocuments(List<ArticleInfo> infos) throws IOException {
+        Map<Long, Document> documents = new HashMap<>();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            StoredFields storedFields = searcher.storedFields();
+            for (ArticleInfo info : infos) {
+                TopDocs found = searcher.search(new TermQuery(idTerm(info.getId())), 1);
+                if (found.scoreDocs.length > 0) {
+                    documents.put(info.getId(), storedFields.document(found.scoreDocs[0].doc,
+                            Set.of(TITLE, CONTENT, CONTENT_HASH)));
+                }
+            }
+        } finally {
+            release(searcher);
+        }
+        return documents;
+    }
+
+    /**
+     * Removes the articles with IDs in the range that are not in the DB. Articles that have been saved during the
+     * rebuild are kept, since the page may have been read before they were inserted.
+     * @param afterId Exclusive start of the range
+     * @param toId Inclusive end of the range
+     * @param infos Articles of the range from the DB
+     */
+    private void deleteMissing(long afterId, long toId, List<ArticleInfo> infos) throws IOException {
+        writeLock.lock();
+        try {
+            List<BytesRef> keptIds = new ArrayList<>();
+            for (ArticleInfo info : infos) {
+                keptIds.add(idTerm(info.getId()).bytes());
+            }
+            for (long savedId : savedDuringSync) {
+                keptIds.add(idTerm(savedId).bytes());
+            }
+            writer.deleteDocuments(new BooleanQuery.Builder()
+                    .add(LongPoint.newRangeQuery(ID_POINT, afterId + 1, toId), BooleanClause.Occur.FILTER)
+                    .add(new TermInSetQuery(ID, keptIds), BooleanClause.Occur.MUST_NOT)
+                    .build());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void indexSyncedArticle(ArticleInfo info, String content) throws IOException {
+        writeLock.lock();
+        try {
+            if (!savedDuringSync.contains(info.getId())) {
+                writer.updateDocument(idTerm(info.getId()), toDocument(info, content));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void release(IndexSearcher searcher) {
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException e) {
+            // The searcher is closed when the index is closed
+        }
+    }
+
+    private static Document toDocument(ArticleInfo info, String content) {
+        Instant createdAt = info.getCreatedAt();
+        long createdAtMicros = createdAt.getEpochSecond() * 1_000_000 + (createdAt.getNano() + 500) / 1000;
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(info.getId()), Field.Store.YES));
+        document.add(new LongPoint(ID_POINT, info.getId()));
+        document.add(new Field(TITLE, info.getTitle(), HIGHLIGHTED_TEXT));
+        document.add(new Field(CONTENT, content, HIGHLIGHTED_TEXT));
+        document.add(new StoredField(CREATED_AT, createdAtMicros));
+        document.add(new StoredField(CREATOR_ID, info.getCreatorId()));
+        document.add(new StoredField(CONTENT_HASH, info.getContentHash() == null ? "" : info.getContentHash()));
+        return document;
+    }
+
+    /**
+     * Gets the earlier of the moments, ignoring the missing ones
+     */
+    private static Instant earliest(Instant first, Instant second) {
+        if (first == null || second == null) {
+            return first == null ? second : first;
+        }
+        return first.isBefore(second) ? first : second;
+    }
+
+    private static Counter failureCounter(String operation, MeterRegistry meterRegistry) {
+        return Counter.builder("search.index.failures")
+                .description("Failed operations of the full-text index")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private static Term idTerm(long articleId) {
+        return new Term(ID, String.valueOf(articleId));
+    }
+}
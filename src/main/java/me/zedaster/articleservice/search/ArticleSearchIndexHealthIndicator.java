@@ -0,0 +1,53 @@
+package me.zedaster.articleservice.search;
+
+import me.zedaster.articleservice.configuration.SearchIndexConfiguration;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Health of the full-text index. It's down if the index hasn't been rebuilt yet, if it hasn't caught up with the DB
+ * for too long, or if it's empty while the DB has articles.
+ */
+@Component
+public class ArticleSearchIndexHealthIndicator implements HealthIndicator {
+    private final ArticleSearchIndex articleSearchIndex;
+
+    private final SearchIndexConfiguration configuration;
+
+    public ArticleSearchIndexHealthIndicator(ArticleSearchIndex articleSearchIndex,
+                                             SearchIndexConfiguration configuration) {
+        this.articleSearchIndex = articleSearchIndex;
+        this.configuration = configuration;
+    }
+
+    @Override
+    public Health health() {
+        int documents = articleSearchIndex.getDocumentCount();
+        Optional<Instant> lastSyncStartedAt = articleSearchIndex.getLastSyncStartedAt();
+        if (lastSyncStartedAt.isEmpty()) {
+            return Health.down()
+                    .withDetail("reason", "The index hasn't been rebuilt yet")
+                    .withDetail("documents", documents)
+                    .build();
+        }
+
+        Health.Builder health;
+        Duration staleness = Duration.between(lastSyncStartedAt.get(), Instant.now());
+        if (staleness.compareTo(configuration.getMaxStaleness()) > 0) {
+            health = Health.down().withDetail("reason", "The index hasn't caught up with the DB for " + staleness);
+        } else if (documents == 0 && articleSearchIndex.getLastRebuildArticles() > 0) {
+            health = Health.down().withDetail("reason", "The index is empty, but the DB has articles");
+        } else {
+            health = Health.up();
+        }
+        return health
+                .withDetail("documents", documents)
+                .withDetail("lastSyncStartedAt", lastSyncStartedAt.get())
+                .build();
+    }
+}
@@ -1,25 +1,70 @@
 package me.zedaster.articleservice.service;
 
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import me.zedaster.articleservice.cache.RecentArticlesSnapshot;
+import me.zedaster.articleservice.concurrency.Bulkheads;
+import me.zedaster.articleservice.configuration.ArticleBatchConfiguration;
+import me.zedaster.articleservice.configuration.DownstreamConfiguration;
 import me.zedaster.articleservice.dto.article.Article;
+import me.zedaster.articleservice.dto.article.ArticleCursor;
 import me.zedaster.articleservice.dto.article.ArticleData;
+import me.zedaster.articleservice.dto.article.ArticleHead;
+import me.zedaster.articleservice.dto.article.ArticleLookup;
+import me.zedaster.articleservice.dto.article.ArticleSearchResult;
 import me.zedaster.articleservice.dto.article.ArticleSummary;
+import me.zedaster.articleservice.dto.article.ArticleSummaryPage;
 import me.zedaster.articleservice.dto.article.Creator;
+import me.zedaster.articleservice.dto.content.StoredContent;
+import me.zedaster.articleservice.dto.request.CreateArticleRequest;
+import me.zedaster.articleservice.dto.response.CreateArticleResult;
 import me.zedaster.articleservice.entity.ArticleInfo;
 import me.zedaster.articleservice.repository.ArticleInfoRepository;
+import me.zedaster.articleservice.repository.ArticleInfoSummary;
+import me.zedaster.articleservice.search.ArticleSearchIndex;
+import me.zedaster.articleservice.util.Hashes;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
 
+import java.io.UncheckedIOException;
+import java.time.DateTimeException;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Service for handling operations with articles
@@ -38,6 +83,21 @@ public class ArticleService {
      */
     private static final int USER_ARTICLES_PAGE_SIZE = 20;
 
+    /**
+     * Number of articles on one page of search results
+     */
+    private static final int SEARCH_PAGE_SIZE = 20;
+
+    /**
+     * Maximum page of search results. Deeper pages would make the index collect too many hits.
+     */
+    private static final int MAX_SEARCH_PAGE_NUMBER = 50;
+
+    /**
+     * Maximum length of a search query
+     */
+    private static final int MAX_SEARCH_QUERY_LENGTH = 200;
+
     private static final String INCORRECT_USER_ID = "User id must be bigger than zero!";
     private static final String INCORRECT_PAGE_NUMBER = "Page number must be bigger than zero!";
 
@@ -45,12 +105,77 @@ public class ArticleService {
 
     private static final String ARTICLE_DATA_NOT_NULL = "Article data must be not null!";
 
+    private static final String CURSOR_NOT_NULL = "Cursor must be not null!";
+
+    private static final String INCORRECT_SEARCH_QUERY = "Search query must contain from 1 to "
+            + MAX_SEARCH_QUERY_LENGTH + " characters!";
+
+    private static final String INCORRECT_SEARCH_PAGE_NUMBER = "Page number of search results must be from 1 to "
+            + MAX_SEARCH_PAGE_NUMBER + "!";
+
+    /**
+     * Maximum number of articles that can be got at once
+     */
+    private static final int MAX_ARTICLES_PER_LOOKUP = 100;
+
+    private static final String IDS_NOT_NULL = "Article ids must be not null!";
+
+    private static final String INCORRECT_IDS_SIZE = "From 1 to " + MAX_ARTICLES_PER_LOOKUP
+            + " articles can be got at once!";
+
+    private static final String ARTICLES_NOT_NULL = "Articles must be not null!";
+
+    private static final String SAME_TITLE = "User already has an article with the same title!";
+
+    private static final String SAME_TITLE_AS_ANOTHER = "User already has another article with the same title!";
+
+    private static final String CORRUPTED_CONTENT = "Content of the article is corrupted!";
+
     private final ArticleInfoRepository articleInfoRepository;
 
     private final ContentService contentService;
 
+    /**
+     * Keeps new contents until they are uploaded to S3
+     */
+    private final ContentOutboxService contentOutboxService;
+
     private final CreatorService creatorService;
 
+    /**
+     * Executor for concurrent calls to the DB, S3 and the auth service
+     */
+    private final ExecutorService downstreamExecutor;
+
+    private final DownstreamConfiguration downstreamConfiguration;
+
+    /**
+     * Limits concurrent reads from the DB outside of transactions
+     */
+    private final Bulkheads bulkheads;
+
+    /**
+     * The most recent articles that are served without the DB
+     */
+    private final RecentArticlesSnapshot recentArticlesSnapshot;
+
+    /**
+     * Full-text index of the articles
+     */
+    private final ArticleSearchIndex articleSearchIndex;
+
+    private final ArticleBatchConfiguration articleBatchConfiguration;
+
+    /**
+     * Validates articles of a batch one by one, so an incorrect article doesn't fail the others
+     */
+    private final Validator validator;
+
+    /**
+     * Inserts the rows and the contents of a batch in one transaction
+     */
+    private final TransactionTemplate transactionTemplate;
+
     /**
      * Gets a certain article from a storage
      * @param id ID of the article
@@ -58,22 +183,166 @@ public class ArticleService {
      */
     @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<Article> getArticle(@Min(value = 1, message = INCORRECT_ARTICLE_ID) long id) {
-        Optional<ArticleInfo> info = articleInfoRepository.findById(id);
+        if (downstreamConfiguration.isParallelCalls()) {
+            return getArticleConcurrently(id);
+        }
+
+        Optional<ArticleInfo> info = bulkheads.getDatabase().call(() -> articleInfoRepository.findById(id));
         if (info.isEmpty()) {
             return Optional.empty();
         }
 
-        String content;
+        StoredContent content = contentOf(info.get(), () ->
+                contentService.getStoredContent(id, info.get().getContentHash()));
+        Creator creator = creatorService.getCreator(info.get().getCreatorId());
+        return Optional.of(new Article(info.get(), content, creator));
+    }
+
+    /**
+     * Gets several articles at once. The infos are read with one query and the creators with one call, while the
+     * contents are fetched concurrently. Each content has its own timeout, so a slow or failed content marks only its
+     * article as failed.
+     * <br>
+     * The infos and the creators are read before the method returns, so their failures are thrown. The results are
+     * given lazily: each one is ready as soon as its own content is, so they can be written while the later contents
+     * are being fetched.
+     * @param ids IDs of the articles. They may repeat.
+     * @return Results in the same order as the IDs. Articles that don't exist are marked as missing, and articles
+     * whose contents can't be got are marked as failed. The stream must be closed, so the fetches that are not needed
+     * anymore are cancelled.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Stream<ArticleLookup> getArticles(
+            @NotNull(message = IDS_NOT_NULL)
+            @Size(min = 1, max = MAX_ARTICLES_PER_LOOKUP, message = INCORRECT_IDS_SIZE)
+            List<@NotNull(message = INCORRECT_ARTICLE_ID) @Min(value = 1, message = INCORRECT_ARTICLE_ID) Long> ids) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        Iterable<ArticleInfo> foundInfos = bulkheads.getDatabase().call(() ->
+                articleInfoRepository.findAllById(distinctIds));
+        Map<Long, ArticleInfo> infosById = StreamSupport.stream(foundInfos.spliterator(), false)
+                .collect(Collectors.toMap(ArticleInfo::getId, Function.identity()));
+
+        Duration timeout = downstreamConfiguration.getS3().getTimeout();
+        List<CompletableFuture<Optional<StoredContent>>> contentFutures = new ArrayList<>();
+        Map<Long, CompletableFuture<Optional<StoredContent>>> timedContents = new HashMap<>();
+        try {
+            for (ArticleInfo info : infosById.values()) {
+                CompletableFuture<Optional<StoredContent>> content = pendingContentOf(info)
+                        .map(pending -> CompletableFuture.completedFuture(Optional.of(pending)))
+                        .orElseGet(() -> contentService.getStoredContentAsync(info.getId(), info.getContentHash()));
+                contentFutures.add(content);
+                // The copy times out without completing the fetch, which is cancelled when the stream is closed
+                timedContents.put(info.getId(), content.copy().orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS));
+            }
+            // The creators are got while the contents are being fetched
+            List<Long> creatorIds = infosById.values().stream().map(ArticleInfo::getCreatorId).distinct().toList();
+            List<Creator> creators = creatorService.getCreatorsByIds(creatorIds);
+            Map<Long, Creator> creatorsById = new HashMap<>();
+            for (int i = 0; i < creatorIds.size(); i++) {
+                creatorsById.put(creatorIds.get(i), creators.get(i));
+            }
+
+            Map<Long, CompletableFuture<ArticleLookup>> lookupsById = new HashMap<>();
+            for (ArticleInfo info : infosById.values()) {
+                Creator creator = creatorsById.get(info.getCreatorId());
+                lookupsById.put(info.getId(), timedContents.get(info.getId())
+                        .handle((content, e) -> lookupOf(info, content, creator, e, timeout)));
+            }
+            return ids.stream()
+                    .map(id -> lookupsById.containsKey(id) ? lookupsById.get(id).join() : ArticleLookup.missing(id))
+                    .onClose(() -> contentFutures.forEach(future -> future.cancel(true)));
+        } catch (RuntimeException e) {
+            // Does nothing for completed calls
+            contentFutures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+    }
+
+    /**
+     * Gets content of a certain article in the form in which it's stored, so it can be sent without decoding. A
+     * content that hasn't been uploaded yet is taken from the outbox.
+     * @param id ID of the article
+     * @return Stored content or nothing if the article doesn't exist
+     */
+    public Optional<StoredContent> getStoredContent(@Min(value = 1, message = INCORRECT_ARTICLE_ID) long id) {
+        Optional<ArticleInfo> info = bulkheads.getDatabase().call(() -> articleInfoRepository.findById(id));
+        if (info.isEmpty()) {
+            return Optional.empty();
+        }
+        if (info.get().isContentPending()) {
+            Optional<String> pendingContent = contentOutboxService.getContent(id);
+            if (pendingContent.isPresent()) {
+                return Optional.of(StoredContent.identity(pendingContent.get()));
+            }
+            // The content has been uploaded since the info was read
+        }
         try {
-            content = contentService.getContentByArticleId(id).orElseThrow();
+            return contentService.getStoredContent(id, info.get().getContentHash());
         } catch (ContentServiceException e) {
             throw new InternalServerException("Can't get content of the article!", e);
-        } catch (NoSuchElementException e) {
-            throw new InternalServerException("ArticleInfo exists, but there's no content for the article!", e);
         }
+    }
 
-        Creator creator = creatorService.getCreator(info.get().getCreatorId());
-        return Optional.of(new Article(info.get(), content, creator));
+    /**
+     * Gets the info and the creator of a certain article without its content. The content can be fetched for them
+     * afterwards by {@link #getArticle(ArticleHead)}, so they are not read twice.
+     * @param id ID of the article
+     * @return Head of the article or nothing if the article doesn't exist
+     * @see ArticleHead#getEntityTag()
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<ArticleHead> getArticleHead(@Min(value = 1, message = INCORRECT_ARTICLE_ID) long id) {
+        Optional<ArticleInfo> info = bulkheads.getDatabase().call(() -> articleInfoRepository.findById(id));
+        return info.map(i -> new ArticleHead(i, creatorService.getCreator(i.getCreatorId())));
+    }
+
+    /**
+     * Gets the article whose info and creator have been read already. Only its content is fetched.
+     * @param head Head of the article
+     * @return Article
+     */
+    public Article getArticle(ArticleHead head) {
+        ArticleInfo info = head.getInfo();
+        StoredContent content = contentOf(info, () -> contentService.getStoredContent(info.getId(),
+                info.getContentHash()));
+        return new Article(info, content, head.getCreator());
+    }
+
+    /**
+     * Gets a certain article, calling the downstream services concurrently. The content is stored by its hash, so
+     * it's fetched together with the creator as soon as the article info arrives. Calls that are not needed anymore
+     * are cancelled.
+     * @param id ID of the article
+     * @return Optional object with article or nothing if article with the ID doesn't exist
+     */
+    private Optional<Article> getArticleConcurrently(long id) {
+        Future<Optional<ArticleInfo>> infoFuture = downstreamExecutor.submit(() ->
+                bulkheads.getDatabase().call(() -> articleInfoRepository.findById(id)));
+        Optional<ArticleInfo> info;
+        try {
+            info = await(infoFuture, downstreamConfiguration.getDatabase(), "DB");
+        } finally {
+            // Does nothing for a completed call
+            infoFuture.cancel(true);
+        }
+        if (info.isEmpty()) {
+            return Optional.empty();
+        }
+
+        String contentHash = info.get().getContentHash();
+        Long creatorId = info.get().getCreatorId();
+        Future<Optional<StoredContent>> contentFuture = contentService.getStoredContentAsync(id, contentHash);
+        Future<Creator> creatorFuture = downstreamExecutor.submit(() -> creatorService.getCreator(creatorId));
+        try {
+            StoredContent content = contentOf(info.get(), () ->
+                    await(contentFuture, downstreamConfiguration.getS3(), "S3"));
+            Creator creator = await(creatorFuture, downstreamConfiguration.getAuthService(), "Auth service");
+            return Optional.of(new Article(info.get(), content, creator));
+        } finally {
+            // Does nothing for completed calls
+            contentFuture.cancel(true);
+            creatorFuture.cancel(true);
+        }
     }
 
     /**
@@ -84,12 +353,46 @@ public class ArticleService {
     @Transactional(propagation = Propagation.SUPPORTS)
     public List<ArticleSummary> getRecentArticleSummaries(
             @Min(value = 1, message = INCORRECT_PAGE_NUMBER) int pageNumber) {
+        long offset = (long) (pageNumber - 1) * RECENT_ARTICLES_PAGE_SIZE;
+        Optional<List<ArticleSummary>> snapshotPage = recentArticlesSnapshot.getPage(offset,
+                RECENT_ARTICLES_PAGE_SIZE);
+        if (snapshotPage.isPresent()) {
+            return snapshotPage.get();
+        }
         PageRequest pageRequest = PageRequest.of(pageNumber - 1, RECENT_ARTICLES_PAGE_SIZE);
-        List<ArticleInfo> articleInfos = articleInfoRepository.findAllByOrderByCreatedAtDesc(pageRequest);
+        List<ArticleInfoSummary> articleInfos = bulkheads.getDatabase().call(() ->
+                articleInfoRepository.findAllByOrderByCreatedAtDesc(pageRequest));
         List<Creator> creators = creatorService.getCreatorsByIds(articleInfos.stream()
-                .map(ArticleInfo::getCreatorId)
+                .map(ArticleInfoSummary::creatorId)
                 .toList());
-        return ArticleSummary.fromArticleInfosAndCreators(articleInfos, creators);
+        return ArticleSummaryMapper.toSummaries(articleInfos, creators);
+    }
+
+    /**
+     * Gets summaries of articles that has been published recently, starting right after the cursor. Unlike pages
+     * with numbers, a page by cursor is read as fast as the first page regardless of how far it is.
+     * @param cursor Encoded cursor from the previous page or an empty string for the first page
+     * @return Page of article summaries
+     * @throws ArticleServiceException If the cursor is incorrect
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ArticleSummaryPage getRecentArticleSummaries(@NotNull(message = CURSOR_NOT_NULL) String cursor) {
+        Optional<ArticleCursor> after = decodeCursor(cursor);
+        Optional<List<ArticleSummary>> snapshotPage = after
+                .map(c -> recentArticlesSnapshot.getPageAfter(c, RECENT_ARTICLES_PAGE_SIZE))
+                .orElseGet(() -> recentArticlesSnapshot.getPage(0, RECENT_ARTICLES_PAGE_SIZE));
+        if (snapshotPage.isPresent()) {
+            return toPage(snapshotPage.get(), RECENT_ARTICLES_PAGE_SIZE);
+        }
+        PageRequest limit = PageRequest.ofSize(RECENT_ARTICLES_PAGE_SIZE);
+        List<ArticleInfoSummary> articleInfos = bulkheads.getDatabase().call(() -> after
+                .map(c -> articleInfoRepository.findAllBefore(c.getCreatedAt(), c.getId(), limit))
+                .orElseGet(() -> articleInfoRepository.findAllByOrderByCreatedAtDescIdDesc(limit)));
+        List<Creator> creators = creatorService.getCreatorsByIds(articleInfos.stream()
+                .map(ArticleInfoSummary::creatorId)
+                .toList());
+        List<ArticleSummary> summaries = ArticleSummaryMapper.toSummaries(articleInfos, creators);
+        return toPage(summaries, RECENT_ARTICLES_PAGE_SIZE);
     }
 
     /**
@@ -103,13 +406,66 @@ public class ArticleService {
             Creator creator,
             @Min(value = 1, message = INCORRECT_PAGE_NUMBER) int pageNumber) {
         PageRequest pageRequest = PageRequest.of(pageNumber - 1, USER_ARTICLES_PAGE_SIZE);
-        List<ArticleInfo> articleInfos = articleInfoRepository.findAllByCreatorIdOrderByCreatedAtDesc(
-                creator.getId(), pageRequest);
-        return ArticleSummary.fromArticleInfosBySingleCreator(articleInfos, creator);
+        List<ArticleInfoSummary> articleInfos = bulkheads.getDatabase().call(() ->
+                articleInfoRepository.findAllByCreatorIdOrderByCreatedAtDesc(creator.getId(), pageRequest));
+        return ArticleSummaryMapper.toSummaries(articleInfos, creator);
+    }
+
+    /**
+     * Gets summaries of articles that are published by user with the specified ID, starting right after the cursor.
+     * @param creator Creator of the articles
+     * @param cursor Encoded cursor from the previous page or an empty string for the first page
+     * @return Page of article summaries
+     * @throws ArticleServiceException If the cursor is incorrect
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ArticleSummaryPage getArticleSummariesByCreator(
+            Creator creator,
+            @NotNull(message = CURSOR_NOT_NULL) String cursor) {
+        Optional<ArticleCursor> after = decodeCursor(cursor);
+        PageRequest limit = PageRequest.ofSize(USER_ARTICLES_PAGE_SIZE);
+        List<ArticleInfoSummary> articleInfos = bulkheads.getDatabase().call(() -> after
+                .map(c -> articleInfoRepository.findAllByCreatorIdBefore(
+                        creator.getId(), c.getCreatedAt(), c.getId(), limit))
+                .orElseGet(() -> articleInfoRepository.findAllByCreatorIdOrderByCreatedAtDescIdDesc(
+                        creator.getId(), limit)));
+        List<ArticleSummary> summaries = ArticleSummaryMapper.toSummaries(articleInfos, creator);
+        return toPage(summaries, USER_ARTICLES_PAGE_SIZE);
+    }
+
+    /**
+     * Searches articles by words of their titles and contents. Only the index is read, the contents are not fetched.
+     * @param query Words to search. Phrases may be put in quotes, words may be excluded with "-", and a word with
+     *              "*" at the end matches every word that starts with it.
+     * @param pageNumber Number of page (starts from 1)
+     * @return Found articles from the most relevant
+     */
+    public List<ArticleSearchResult> searchArticles(
+            @NotBlank(message = INCORRECT_SEARCH_QUERY)
+            @Size(max = MAX_SEARCH_QUERY_LENGTH, message = INCORRECT_SEARCH_QUERY) String query,
+            @Min(value = 1, message = INCORRECT_SEARCH_PAGE_NUMBER)
+            @Max(value = MAX_SEARCH_PAGE_NUMBER, message = INCORRECT_SEARCH_PAGE_NUMBER) int pageNumber) {
+        List<ArticleSearchIndex.Hit> hits;
+        try {
+            hits = articleSearchIndex.search(query, (pageNumber - 1) * SEARCH_PAGE_SIZE, SEARCH_PAGE_SIZE);
+        } catch (UncheckedIOException e) {
+            throw new InternalServerException("Can't search articles!", e);
+        }
+        List<Creator> creators = creatorService.getCreatorsByIds(hits.stream()
+                .map(ArticleSearchIndex.Hit::creatorId)
+                .toList());
+        List<ArticleSearchResult> results = new ArrayList<>(hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            ArticleSearchIndex.Hit hit = hits.get(i);
+            ArticleSummary summary = new ArticleSummary(hit.id(), hit.title(), hit.createdAt(), creators.get(i));
+            results.add(new ArticleSearchResult(summary, hit.highlightedTitle(), hit.snippet(), hit.score()));
+        }
+        return results;
     }
 
     /**
-     * Creates a new article
+     * Creates a new article. The content is saved to the outbox in the same transaction and uploaded to S3 after the
+     * commit.
      * @param userId ID of user that is creating the article
      * @param articleData Data for the new article
      * @return ID of the new article
@@ -119,20 +475,67 @@ public class ArticleService {
             @Min(value = 1, message = INCORRECT_USER_ID) long userId,
             @NotNull(message = ARTICLE_DATA_NOT_NULL) @Valid ArticleData articleData) {
         if (articleInfoRepository.existsByCreatorIdAndTitle(userId, articleData.getTitle())) {
-            throw new ArticleServiceException("User already has an article with the same title!");
+            throw new ArticleServiceException(SAME_TITLE);
         }
-        ArticleInfo info = articleInfoRepository.save(new ArticleInfo(articleData.getTitle(), Instant.now(), userId));
+        ArticleInfo newInfo = new ArticleInfo(articleData.getTitle(), Instant.now(), userId);
+        newInfo.setContentHash(Hashes.sha256(articleData.getContent()));
+        newInfo.setContentPending(true);
+        ArticleInfo info = saveWithUniqueTitle(newInfo, SAME_TITLE);
 
-        try {
-            contentService.saveContent(info.getId(), articleData.getContent());
-        } catch (ContentServiceException e) {
-            throw new InternalServerException("Failed to save content for the article!", e);
-        }
+        contentOutboxService.add(info.getId(), articleData.getContent(), newInfo.getContentHash());
+        recentArticlesSnapshot.articleSaved(info);
+        articleSearchIndex.articleSaved(info, articleData.getContent());
         return info.getId();
     }
 
     /**
-     * Updates an existing article
+     * Creates several articles at once. Titles of all articles are checked with one query, and the rows are inserted
+     * in JDBC batches in one transaction with their contents in the outbox. The contents are uploaded to S3 after the
+     * commit, like the one of {@link #createArticle(long, ArticleData)}. Each article is created or not independently
+     * of the others.
+     * @param requests Data of the new articles with IDs of their creators
+     * @return Results of the creation in the order of the requests
+     * @throws ArticleServiceException If there are too many articles in the batch
+     */
+    public List<CreateArticleResult> createArticles(
+            @NotNull(message = ARTICLES_NOT_NULL) List<CreateArticleRequest> requests) {
+        int maxSize = articleBatchConfiguration.getMaxSize();
+        if (requests.size() > maxSize) {
+            throw new ArticleServiceException("Batch can't contain more than " + maxSize + " articles!");
+        }
+
+        CreateArticleResult[] results = new CreateArticleResult[requests.size()];
+        Set<Map.Entry<Long, String>> takenTitles = findTakenTitles(requests);
+        Instant now = Instant.now();
+        // New rows by indexes of the requests
+        Map<Integer, ArticleInfo> newInfos = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CreateArticleRequest request = requests.get(i);
+            String error = validate(request);
+            // Adding the title also rejects the same title twice in the batch
+            if (error == null && !takenTitles.add(Map.entry(request.getCreatorId(), request.getTitle()))) {
+                error = SAME_TITLE;
+            }
+            if (error != null) {
+                results[i] = CreateArticleResult.failed(error);
+            } else {
+                newInfos.put(i, newArticleInfo(request, now));
+            }
+        }
+
+        insertArticleInfos(requests, newInfos, results);
+        for (Map.Entry<Integer, ArticleInfo> entry : newInfos.entrySet()) {
+            ArticleInfo info = entry.getValue();
+            results[entry.getKey()] = CreateArticleResult.created(info.getId());
+            recentArticlesSnapshot.articleSaved(info);
+            articleSearchIndex.articleSaved(info, requests.get(entry.getKey()).getContent());
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Updates an existing article. A changed content is saved to the outbox in the same transaction and uploaded to
+     * S3 after the commit. An unchanged content is not uploaded again.
      * @param articleId ID of the article
      * @param articleData New data for the article
      */
@@ -147,12 +550,250 @@ public class ArticleService {
 
         ArticleInfo newInfo = oldInfo.copy();
         newInfo.setTitle(articleData.getTitle());
-        articleInfoRepository.save(newInfo);
+        String contentHash = Hashes.sha256(articleData.getContent());
+        boolean contentChanged = !contentHash.equals(oldInfo.getContentHash());
+        if (contentChanged) {
+            newInfo.setContentHash(contentHash);
+            newInfo.setContentPending(true);
+        }
+        saveWithUniqueTitle(newInfo, SAME_TITLE_AS_ANOTHER);
 
+        if (contentChanged) {
+            contentOutboxService.add(articleId, articleData.getContent(), contentHash);
+        }
+        recentArticlesSnapshot.articleSaved(newInfo);
+        articleSearchIndex.articleSaved(newInfo, articleData.getContent());
+    }
+
+    /**
+     * Finds titles that the creators of the batch already have
+     * @return Mutable set of pairs of a creator ID and a title
+     */
+    private Set<Map.Entry<Long, String>> findTakenTitles(List<CreateArticleRequest> requests) {
+        Set<Long> creatorIds = new HashSet<>();
+        Set<String> titles = new HashSet<>();
+        for (CreateArticleRequest request : requests) {
+            if (request != null && request.getTitle() != null) {
+                creatorIds.add(request.getCreatorId());
+                titles.add(request.getTitle());
+            }
+        }
+
+        Set<Map.Entry<Long, String>> takenTitles = new HashSet<>();
+        if (titles.isEmpty()) {
+            return takenTitles;
+        }
+        List<ArticleInfoSummary> sameNamedArticles = bulkheads.getDatabase().call(() ->
+                articleInfoRepository.findAllByCreatorIdInAndTitleIn(creatorIds, titles));
+        for (ArticleInfoSummary summary : sameNamedArticles) {
+            takenTitles.add(Map.entry(summary.creatorId(), summary.title()));
+        }
+        return takenTitles;
+    }
+
+    /**
+     * Validates an article of a batch
+     * @return Error message or null if the article is correct
+     */
+    private String validate(CreateArticleRequest request) {
+        if (request == null) {
+            return ARTICLE_DATA_NOT_NULL;
+        }
+        if (request.getCreatorId() < 1) {
+            return INCORRECT_USER_ID;
+        }
+        return validator.validate(request.getArticleData()).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static ArticleInfo newArticleInfo(CreateArticleRequest request, Instant createdAt) {
+        ArticleInfo info = new ArticleInfo(request.getTitle(), createdAt, request.getCreatorId());
+        info.setContentHash(Hashes.sha256(request.getContent()));
+        info.setContentPending(true);
+        return info;
+    }
+
+    /**
+     * Inserts rows of the new articles and adds their contents to the outbox in one transaction. If an article with
+     * the same title has been created since the titles were checked, each article is inserted in its own transaction,
+     * so only such articles fail.
+     * @param newInfos New rows by indexes of the requests. The rows are replaced with the saved ones, and the rows
+     *                 that can't be inserted are removed.
+     * @param results Results where the failures are put
+     */
+    private void insertArticleInfos(List<CreateArticleRequest> requests, Map<Integer, ArticleInfo> newInfos,
+                                    CreateArticleResult[] results) {
+        if (newInfos.isEmpty()) {
+            return;
+        }
         try {
-            contentService.saveContent(oldInfo.getId(), articleData.getContent());
+            List<ArticleInfo> savedInfos = bulkheads.getDatabase().call(() -> transactionTemplate.execute(status -> {
+                List<ArticleInfo> saved = articleInfoRepository.saveAllAndFlush(List.copyOf(newInfos.values()));
+                Iterator<ArticleInfo> savedIterator = saved.iterator();
+                List<ContentOutboxService.NewContent> contents = new ArrayList<>(saved.size());
+                for (Integer index : newInfos.keySet()) {
+                    ArticleInfo info = savedIterator.next();
+                    contents.add(new ContentOutboxService.NewContent(info.getId(), requests.get(index).getContent(),
+                            info.getContentHash()));
+                }
+                contentOutboxService.addAll(contents);
+                return saved;
+            }));
+            Iterator<ArticleInfo> savedIterator = savedInfos.iterator();
+            newInfos.replaceAll((index, info) -> savedIterator.next());
+            return;
+        } catch (DataIntegrityViolationException e) {
+            // The whole transaction is rolled back, so every row is inserted again
+        }
+
+        Iterator<Map.Entry<Integer, ArticleInfo>> iterator = newInfos.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, ArticleInfo> entry = iterator.next();
+            String content = requests.get(entry.getKey()).getContent();
+            // The rolled back row already has an ID, so a fresh row is saved instead
+            ArticleInfo info = newArticleInfo(requests.get(entry.getKey()), entry.getValue().getCreatedAt());
+            try {
+                entry.setValue(bulkheads.getDatabase().call(() -> transactionTemplate.execute(status -> {
+                    ArticleInfo saved = articleInfoRepository.saveAndFlush(info);
+                    contentOutboxService.add(saved.getId(), content, saved.getContentHash());
+                    return saved;
+                })));
+            } catch (DataIntegrityViolationException e) {
+                results[entry.getKey()] = CreateArticleResult.failed(SAME_TITLE);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Decodes the cursor that was received from a user
+     * @throws ArticleServiceException If the cursor is incorrect
+     */
+    private static Optional<ArticleCursor> decodeCursor(String cursor) {
+        try {
+            return ArticleCursor.decode(cursor);
+        } catch (IllegalArgumentException | DateTimeException | ArithmeticException e) {
+            // Numbers of a forged cursor may be out of the range of dates
+            throw new ArticleServiceException("Incorrect cursor of the page!");
+        }
+    }
+
+    /**
+     * Creates a page with the cursor of the next page. A page that is not full is the last one.
+     */
+    private static ArticleSummaryPage toPage(List<ArticleSummary> summaries, int pageSize) {
+        String nextCursor = null;
+        if (summaries.size() == pageSize) {
+            nextCursor = ArticleCursor.after(summaries.get(summaries.size() - 1)).encode();
+        }
+        return new ArticleSummaryPage(summaries, nextCursor);
+    }
+
+    /**
+     * Creates the result of looking up an existing article from the result of fetching its content
+     * @param content Fetched content or null if the fetch has failed
+     * @param failure Failure of the fetch or null if it has succeeded
+     */
+    private static ArticleLookup lookupOf(ArticleInfo info, Optional<StoredContent> content, Creator creator,
+                                          Throwable failure, Duration timeout) {
+        if (failure instanceof TimeoutException) {
+            return ArticleLookup.failed(info.getId(), "S3 didn't respond in " + timeout + "!");
+        }
+        if (failure != null) {
+            return ArticleLookup.failed(info.getId(), "Can't get content of the article!");
+        }
+        if (content.isEmpty()) {
+            return ArticleLookup.failed(info.getId(), "ArticleInfo exists, but there's no content for the article!");
+        }
+        try {
+            content.get().validate();
+        } catch (UncheckedIOException e) {
+            return ArticleLookup.failed(info.getId(), CORRUPTED_CONTENT);
+        }
+        return ArticleLookup.found(new Article(info, content.get(), creator));
+    }
+
+    /**
+     * Gets the content of the article from the outbox if it hasn't been uploaded yet
+     * @return Content or nothing if it's in S3
+     */
+    private Optional<StoredContent> pendingContentOf(ArticleInfo info) {
+        if (!info.isContentPending()) {
+            return Optional.empty();
+        }
+        // Nothing is returned if the content has been uploaded since the info was read
+        return contentOutboxService.getContent(info.getId()).map(StoredContent::identity);
+    }
+
+    /**
+     * Gets content of an existing article in the form in which it's stored, so it's decoded only when the article is
+     * written to the response. It's checked before, so corrupted data fails the request before the response is
+     * committed. A content that hasn't been uploaded yet is taken from the outbox.
+     * @param info Info of the article
+     * @param storedContentFetcher Function that fetches the content from S3
+     * @return Content of the article
+     */
+    private StoredContent contentOf(ArticleInfo info, Supplier<Optional<StoredContent>> storedContentFetcher) {
+        return pendingContentOf(info).orElseGet(() -> requireContent(storedContentFetcher));
+    }
+
+    /**
+     * Gets content of an article that must exist
+     * @param contentFetcher Function that fetches the content
+     * @return Content of the article
+     */
+    private static StoredContent requireContent(Supplier<Optional<StoredContent>> contentFetcher) {
+        try {
+            StoredContent content = contentFetcher.get().orElseThrow();
+            content.validate();
+            return content;
+        } catch (UncheckedIOException e) {
+            throw new InternalServerException(CORRUPTED_CONTENT, e);
         } catch (ContentServiceException e) {
-            throw new InternalServerException("Failed to update content for the article!", e);
+            throw new InternalServerException("Can't get content of the article!", e);
+        } catch (NoSuchElementException e) {
+            throw new InternalServerException("ArticleInfo exists, but there's no content for the article!", e);
+        }
+    }
+
+    /**
+     * Waits for the result of a concurrent call to a downstream service. Exceptions of the call are rethrown.
+     * @param future Future of the call
+     * @param downstream Configuration of the downstream service
+     * @param downstreamName Name of the downstream service for error messages
+     * @return Result of the call
+     * @throws InternalServerException If the call takes too long or the waiting thread is interrupted
+     */
+    private static <T> T await(Future<T> future, DownstreamConfiguration.Downstream downstream, String downstreamName) {
+        return await(future, downstream.getTimeout(), downstreamName);
+    }
+
+    /**
+     * Waits for the result of a concurrent call to a downstream service. Exceptions of the call are rethrown.
+     * @param future Future of the call
+     * @param timeout Maximum time of waiting
+     * @param downstreamName Name of the downstream service for error messages
+     * @return Result of the call
+     * @throws InternalServerException If the call takes too long or the waiting thread is interrupted
+     */
+    private static <T> T await(Future<T> future, Duration timeout, String downstreamName) {
+        try {
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new InternalServerException(downstreamName + " didn't respond in " + timeout + "!", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InternalServerException("Interrupted while waiting for " + downstreamName + "!", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new InternalServerException(downstreamName + " call failed!", e.getCause());
         }
     }
 
@@ -162,7 +803,23 @@ public class ArticleService {
     private void ensureUniqueTitle(long creatorId, long articleId, String title) {
         List<ArticleInfo> sameNamedArticles = articleInfoRepository.findAllByCreatorIdAndTitle(creatorId, title);
         if (sameNamedArticles.size() == 1 && !sameNamedArticles.get(0).getId().equals(articleId)) {
-            throw new ArticleServiceException("User already has another article with the same title!");
+            throw new ArticleServiceException(SAME_TITLE_AS_ANOTHER);
+        }
+    }
+
+    /**
+     * Saves the info of an article at once. The title is checked before, but an article with the same title may be
+     * saved concurrently, and then the unique index fails the insert.
+     * @param info Info of the article
+     * @param sameTitleMessage Message of the exception if the title is taken
+     * @return Saved info
+     * @throws ArticleServiceException If the creator already has an article with the same title
+     */
+    private ArticleInfo saveWithUniqueTitle(ArticleInfo info, String sameTitleMessage) {
+        try {
+            return articleInfoRepository.saveAndFlush(info);
+        } catch (DataIntegrityViolationException e) {
+            throw new ArticleServiceException(sameTitleMessage);
         }
     }
 }
@@ -0,0 +1,49 @@
+package me.zedaster.articleservice.service;
+
+import me.zedaster.articleservice.dto.article.ArticleSummary;
+import me.zedaster.articleservice.dto.article.Creator;
+import me.zedaster.articleservice.repository.ArticleInfoSummary;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Builds summaries of articles from the rows that are read from the DB and the creators of the articles
+ */
+public final class ArticleSummaryMapper {
+    private ArticleSummaryMapper() {
+    }
+
+    /**
+     * Builds summaries of articles of the same creator
+     * @param articleInfos Rows of the articles
+     * @param creator Creator of all articles
+     * @return Summaries in the same order as the rows
+     */
+    public static List<ArticleSummary> toSummaries(List<ArticleInfoSummary> articleInfos, Creator creator) {
+        return articleInfos.stream()
+                .map(articleInfo -> toSummary(articleInfo, creator))
+                .toList();
+    }
+
+    /**
+     * Builds summaries of articles of different creators
+     * @param articleInfos Rows of the articles
+     * @param creators Creators of the articles in the same order as the rows
+     * @return Summaries in the same order as the rows
+     */
+    public static List<ArticleSummary> toSummaries(List<ArticleInfoSummary> articleInfos, List<Creator> creators) {
+        return IntStream.range(0, articleInfos.size())
+                .mapToObj(i -> toSummary(articleInfos.get(i), creators.get(i)))
+                .toList();
+    }
+
+    private static ArticleSummary toSummary(ArticleInfoSummary articleInfo, Creator creator) {
+        return new ArticleSummary(
+                articleInfo.id(),
+                articleInfo.title(),
+                articleInfo.createdAt(),
+                creator
+        );
+    }
+}
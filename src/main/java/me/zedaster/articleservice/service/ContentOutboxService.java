@@ -0,0 +1,327 @@
+package me.zedaster.articleservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import me.zedaster.articleservice.concurrency.Bulkheads;
+import me.zedaster.articleservice.configuration.ContentOutboxConfiguration;
+import me.zedaster.articleservice.entity.ContentOutboxEntry;
+import me.zedaster.articleservice.repository.ArticleInfoRepository;
+import me.zedaster.articleservice.repository.ContentOutboxBacklog;
+import me.zedaster.articleservice.repository.ContentOutboxRepository;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service for contents that are saved in the DB together with their articles and uploaded to S3 in the background.
+ * So a transaction doesn't wait for S3, and a content can't be lost if S3 fails after the commit.
+ * <br>
+ * A content is uploaded right after the commit. If the upload fails, it's retried with a growing delay. Contents that
+ * are left by stopped instances are found by polling. Only one worker uploads the content of an article at a time, so
+ * an older content can't overwrite a newer one. After {@link ContentOutboxConfiguration#getMaxAttempts()} failures a
+ * content is dead-lettered: it stays in the outbox, but it's not uploaded until its article is saved again.
+ * <br>
+ * Failures are logged and counted as {@code outbox.content.failures}. The size and the age of the backlog are
+ * reported by gauges, they are updated by every poll.
+ */
+@Slf4j
+@Service
+public class ContentOutboxService implements SmartLifecycle {
+    private final ContentOutboxRepository contentOutboxRepository;
+
+    private final ArticleInfoRepository articleInfoRepository;
+
+    private final ContentService contentService;
+
+    private final ContentOutboxConfiguration configuration;
+
+    private final Bulkheads bulkheads;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Executor of uploads and polls
+     */
+    private final ScheduledExecutorService workers;
+
+    /**
+     * Failed uploads to S3
+     */
+    private final Counter uploadFailures;
+
+    /**
+     * Failed calls to the DB of uploads and polls
+     */
+    private final Counter databaseFailures;
+
+    private final Counter deadLetters;
+
+    /**
+     * Backlog that has been read by the last poll
+     */
+    private volatile ContentOutboxBacklog backlog = ContentOutboxBacklog.EMPTY;
+
+    /**
+     * Scheduled polls, or null if the service is not running
+     */
+    private ScheduledFuture<?> polls;
+
+    public ContentOutboxService(ContentOutboxRepository contentOutboxRepository,
+                                ArticleInfoRepository articleInfoRepository,
+                                ContentService contentService,
+                                ContentOutboxConfiguration configuration,
+                                Bulkheads bulkheads,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry) {
+        this.contentOutboxRepository = contentOutboxRepository;
+        this.articleInfoRepository = articleInfoRepository;
+        this.contentService = contentService;
+        this.configuration = configuration;
+        this.bulkheads = bulkheads;
+        this.transactionTemplate = transactionTemplate;
+        this.uploadFailures = failureCounter("s3", meterRegistry);
+        this.databaseFailures = failureCounter("database", meterRegistry);
+        this.deadLetters = Counter.builder("outbox.content.dead.letters")
+                .description("Contents whose uploads have been given up")
+                .register(meterRegistry);
+        Gauge.builder("outbox.content.pending", this, service -> service.backlog.pending())
+                .description("Contents that are waiting to be uploaded to S3")
+                .register(meterRegistry);
+        Gauge.builder("outbox.content.dead.lettered", this, service -> service.backlog.deadLettered())
+                .description("Contents in the outbox whose uploads have been given up")
+                .register(meterRegistry);
+        Gauge.builder("outbox.content.oldest.age", this, ContentOutboxService::getOldestAgeSeconds)
+                .description("Time since the oldest content that is waiting to be uploaded was added")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.workers = Executors.newScheduledThreadPool(configuration.getWorkers(),
+                Thread.ofPlatform().name("content-outbox-", 0).daemon().factory());
+    }
+
+    /**
+     * Starts the polls when the application context has been started, so they don't run before the DB is migrated
+     */
+    @Override
+    public synchronized void start() {
+        if (polls == null) {
+            long pollMillis = configuration.getPollInterval().toMillis();
+            polls = workers.scheduleWithFixedDelay(this::uploadAvailable, pollMillis, pollMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the polls. Uploads that have been started are finished, and uploads after commits are still started
+     * until the service is destroyed.
+     */
+    @Override
+    public synchronized void stop() {
+        if (polls != null) {
+            polls.cancel(false);
+            polls = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return polls != null;
+    }
+
+    /**
+     * Adds the content of the article to the outbox in the current transaction. The upload starts after the commit.
+     * @param articleId ID of the article
+     * @param content Content of the article
+     * @param contentHash Hash of the content that is saved in the article info
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(long articleId, String content, String contentHash) {
+        contentOutboxRepository.upsert(articleId, content, contentHash, Instant.now());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                workers.execute(() -> upload(articleId));
+            }
+        });
+    }
+
+    /**
+     * Adds the contents of several articles to the outbox in the current transaction with one statement. The uploads
+     * start after the commit.
+     * @param contents Contents of the articles
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addAll(List<NewContent> contents) {
+        if (contents.isEmpty()) {
+            return;
+        }
+        contentOutboxRepository.upsertAll(
+                contents.stream().map(NewContent::articleId).toArray(Long[]::new),
+                contents.stream().map(NewContent::content).toArray(String[]::new),
+                contents.stream().map(NewContent::contentHash).toArray(String[]::new),
+                Instant.now());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (NewContent content : contents) {
+                    workers.execute(() -> upload(content.articleId()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the content of the article if it hasn't been uploaded yet
+     * @param articleId ID of the article
+     * @return Content or nothing if the content is already in S3
+     */
+    public Optional<String> getContent(long articleId) {
+        return bulkheads.getDatabase().call(() -> contentOutboxRepository.findById(articleId))
+                .map(ContentOutboxEntry::getContent);
+    }
+
+    /**
+     * Uploads the content of the article if no other worker is uploading it. Failures are not thrown, the upload is
+     * retried later.
+     * @param articleId ID of the article
+     */
+    void upload(long articleId) {
+        try {
+            Instant now = Instant.now();
+            if (contentOutboxRepository.claim(articleId, now, now.plus(configuration.getLease())) == 0) {
+                return;
+            }
+            boolean uploaded = false;
+            while (!uploaded) {
+                Optional<ContentOutboxEntry> entry = contentOutboxRepository.findById(articleId);
+                if (entry.isEmpty()) {
+                    return;
+                }
+                uploaded = uploadEntry(entry.get());
+            }
+        } catch (RuntimeException e) {
+            // The DB is not available. The claim expires, and the entry is found by one of the next polls.
+            databaseFailures.increment();
+            log.warn("Failed to upload the content of article {} because of the DB", articleId, e);
+        }
+    }
+
+    /**
+     * Uploads the content of the entry and removes the entry if its content hasn't been replaced meanwhile
+     * @return False if the content has been replaced and the new one must be uploaded too
+     */
+    private boolean uploadEntry(ContentOutboxEntry entry) {
+        try {
+            contentService.saveContent(entry.getContent());
+        } catch (RuntimeException e) {
+            uploadFailed(entry, e);
+            return true;
+        }
+        Boolean completed = transactionTemplate.execute(status -> {
+            if (contentOutboxRepository.deleteUploaded(entry.getArticleId(), entry.getContentHash()) == 0) {
+                return false;
+            }
+            articleInfoRepository.markContentUploaded(entry.getArticleId(), entry.getContentHash());
+            return true;
+        });
+        return Boolean.TRUE.equals(completed);
+    }
+
+    /**
+     * Postpones the entry after a failed upload, or dead-letters it if it has failed too many times
+     */
+    private void uploadFailed(ContentOutboxEntry entry, RuntimeException e) {
+        uploadFailures.increment();
+        long articleId = entry.getArticleId();
+        int attempts = entry.getAttempts() + 1;
+        if (attempts >= configuration.getMaxAttempts()
+                && contentOutboxRepository.deadLetter(articleId, entry.getContentHash(), Instant.now()) == 1) {
+            deadLetters.increment();
+            log.error("Gave up uploading the content of article {} after {} attempts", articleId, attempts, e);
+            return;
+        }
+        Duration delay = retryDelay(entry.getAttempts());
+        contentOutboxRepository.postpone(articleId, Instant.now().plus(delay));
+        log.warn("Failed to upload the content of article {} (attempt {}), retrying in {}", articleId, attempts,
+                delay, e);
+    }
+
+    /**
+     * Starts uploads of the entries that are not claimed by anyone and updates the backlog
+     */
+    void uploadAvailable() {
+        try {
+            List<Long> articleIds = contentOutboxRepository.findAvailableArticleIds(Instant.now(),
+                    PageRequest.ofSize(configuration.getBatchSize()));
+            for (Long articleId : articleIds) {
+                workers.execute(() -> upload(articleId));
+            }
+            backlog = contentOutboxRepository.getBacklog();
+        } catch (RuntimeException e) {
+            // An exception would cancel the next polls, so this one is just skipped
+            databaseFailures.increment();
+            log.warn("Failed to poll the content outbox", e);
+        }
+    }
+
+    /**
+     * Gets the time since the oldest content that is still uploaded was added, or 0 if there's none
+     */
+    private double getOldestAgeSeconds() {
+        Instant oldestCreatedAt = backlog.oldestCreatedAt();
+        if (oldestCreatedAt == null) {
+            return 0;
+        }
+        return Math.max(0, Duration.between(oldestCreatedAt, Instant.now()).toMillis() / 1000.0);
+    }
+
+    /**
+     * Calculates the delay after the failed attempt
+     * @param attempts Number of failed attempts before this one
+     */
+    Duration retryDelay(int attempts) {
+        Duration maxDelay = configuration.getMaxRetryDelay();
+        Duration delay = configuration.getInitialRetryDelay();
+        for (int i = 0; i < attempts && delay.compareTo(maxDelay) < 0; i++) {
+            delay = delay.multipliedBy(2);
+        }
+        return delay.compareTo(maxDelay) < 0 ? delay : maxDelay;
+    }
+
+    private static Counter failureCounter(String downstream, MeterRegistry meterRegistry) {
+        return Counter.builder("outbox.content.failures")
+                .description("Failed uploads and polls of the content outbox")
+                .tag("downstream", downstream)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void close() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Content of an article that is added to the outbox
+     * @param articleId ID of the article
+     * @param content Content of the article
+     * @param contentHash Hash of the content that is saved in the article info
+     */
+    public record NewContent(long articleId, String content, String contentHash) {
+    }
+}
@@ -1,118 +1,300 @@
 package me.zedaster.articleservice.service;
 
-import me.zedaster.articleservice.configuration.S3Configuration;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.tracing.Tracer;
+import me.zedaster.articleservice.cache.ContentCache;
+import me.zedaster.articleservice.concurrency.RequestHedger;
+import me.zedaster.articleservice.configuration.DownstreamConfiguration;
+import me.zedaster.articleservice.dto.content.ContentEncoding;
+import me.zedaster.articleservice.dto.content.StoredContent;
+import me.zedaster.articleservice.metrics.CallTimer;
+import me.zedaster.articleservice.storage.ContentStorage;
+import me.zedaster.articleservice.tracing.CallTracer;
+import me.zedaster.articleservice.util.Hashes;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
-import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.*;
-
-import java.net.URI;
-import java.nio.charset.StandardCharsets;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.UncheckedIOException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
- * Service for working with content of the articles
+ * Service for working with content of the articles.
+ * <br>
+ * Contents are stored compressed with gzip under keys that are derived from their SHA-256 hashes:
+ * {@code contents/{hash}.txt.gz}. An object never changes after it's saved, and articles with identical contents
+ * share one object. Contents that were saved before are stored by article IDs as {@code articles/{id}.txt.gz} or,
+ * before compression, as plain text in {@code articles/{id}.txt}. They are read from there until the article is
+ * saved again.
+ * <br>
+ * Slow reads of objects can be hedged with second reads, see {@link RequestHedger}.
+ * <br>
+ * Gets and saves of contents are timed as {@code contents.calls}, and the calls to S3 they make as {@code s3.calls}.
+ * So the time spent in S3 can be told from the time of the cache. Calls to S3 are timed including the wait for the
+ * bulkhead, like the calls to the auth service, and the wait alone is timed as {@code bulkhead.wait}. Calls to S3 are
+ * also traced as spans.
  */
 @Service
 public class ContentService {
+    private static final String CONTENT_TYPE = "text/plain; charset=utf-8";
+
+    /**
+     * Storage of the objects in S3
+     */
+    private final ContentStorage contentStorage;
+
     /**
-     * Client for interacting with S3
+     * Local cache of the contents
      */
-    private final S3Client s3Client;
+    private final ContentCache contentCache;
+
+    /**
+     * Hedger of reads of objects
+     */
+    private final RequestHedger hedger;
+
+    /**
+     * Executor of the fallbacks to legacy objects. They must not wait for the bulkhead in the threads of the S3
+     * client that complete the previous fetches.
+     */
+    private final ExecutorService downstreamExecutor;
+
+    private final CallTimer getTimer;
+
+    private final CallTimer saveTimer;
+
+    /**
+     * Timer of fetches of objects from S3. Every hedge is timed as a separate fetch.
+     */
+    private final CallTimer fetchTimer;
+
+    private final CallTimer uploadTimer;
 
     /**
-     * Bucket name for storing content
+     * Tracer of fetches of objects from S3. Every hedge gets its own span.
      */
-    private final String bucketName;
+    private final CallTracer fetchTracer;
 
-    public ContentService(S3Configuration s3config) {
-        // 18_000 * 4 bytes = 72_000 bytes = 0.072 MB (max size of file with content)
-        AwsBasicCredentials awsCredentials = AwsBasicCredentials.create(s3config.getAccessKey(), s3config.getSecretKey());
-        this.bucketName = s3config.getContentBucketName();
-        this.s3Client = S3Client.builder()
-                .endpointOverride(URI.create(s3config.getEndpointUrl()))
-                .credentialsProvider(StaticCredentialsProvider.create(awsCredentials))
-                .forcePathStyle(true)
-                .region(Region.AWS_GLOBAL)
-                .build();
-        createBucketIfNotExists();
+    private final CallTracer uploadTracer;
+
+    /**
+     * Sizes of the fetched objects
+     */
+    private final DistributionSummary fetchedSize;
+
+    /**
+     * Sizes of the uploaded objects
+     */
+    private final DistributionSummary uploadedSize;
+
+    public ContentService(ContentStorage contentStorage,
+                          ContentCache contentCache,
+                          DownstreamConfiguration downstreamConfiguration,
+                          ExecutorService downstreamExecutor,
+                          MeterRegistry meterRegistry,
+                          ObjectProvider<Tracer> tracerProvider) {
+        this.contentStorage = contentStorage;
+        this.contentCache = contentCache;
+        this.hedger = new RequestHedger("s3", downstreamConfiguration.getS3().getHedging(), downstreamExecutor);
+        this.downstreamExecutor = downstreamExecutor;
+        hedger.bindTo(meterRegistry);
+        this.getTimer = new CallTimer("contents.calls", "Time of getting a content, from the cache or S3",
+                Tags.of("operation", "get"), meterRegistry);
+        this.saveTimer = new CallTimer("contents.calls", "Time of saving a content",
+                Tags.of("operation", "save"), meterRegistry);
+        this.fetchTimer = new CallTimer("s3.calls", "Time of a call to S3 including the wait for the bulkhead",
+                Tags.of("operation", "fetch"), meterRegistry);
+        this.uploadTimer = new CallTimer("s3.calls", "Time of a call to S3 including the wait for the bulkhead",
+                Tags.of("operation", "upload"), meterRegistry);
+        Tracer tracer = tracerProvider.getIfAvailable(() -> Tracer.NOOP);
+        this.fetchTracer = new CallTracer("s3 fetch", Tags.of("downstream", "s3", "operation", "fetch"), tracer);
+        this.uploadTracer = new CallTracer("s3 upload", Tags.of("downstream", "s3", "operation", "upload"), tracer);
+        this.fetchedSize = objectSize("fetch", meterRegistry);
+        this.uploadedSize = objectSize("upload", meterRegistry);
+        contentStorage.createBucketIfNotExists();
     }
 
     /**
-     * Fetch content by article ID
+     * Fetch content of the article. The content is taken from the local cache if it's there.
      * @param articleId ID of the article
+     * @param contentHash Hash of the content from the article info or null if it's unknown
      * @return String representation of article content
      */
-    public Optional<String> getContentByArticleId(long articleId) throws ContentServiceException {
-        String key = "articles/" + articleId + ".txt";
+    public Optional<String> getContent(long articleId, String contentHash) throws ContentServiceException {
+        Optional<StoredContent> storedContent = getStoredContent(articleId, contentHash);
+        try {
+            return storedContent.map(StoredContent::decode);
+        } catch (UncheckedIOException e) {
+            throw new ContentServiceException("Content of article with ID " + articleId + " is corrupted", e);
+        }
+    }
 
+    /**
+     * Fetch content of the article in the form in which it's stored. The content is taken from the local cache if
+     * it's there.
+     * @param articleId ID of the article
+     * @param contentHash Hash of the content from the article info or null if it's unknown
+     * @return Stored content of the article
+     */
+    public Optional<StoredContent> getStoredContent(long articleId, String contentHash)
+            throws ContentServiceException {
         try {
-            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(key)
-                    .build();
-
-            String content = s3Client.getObjectAsBytes(getObjectRequest).asUtf8String();
-            return Optional.of(content);
-        } catch (NoSuchKeyException e) {
-            return Optional.empty();
-        } catch (S3Exception e) {
-            throw new ContentServiceException("Failed to fetch content for article with ID: " + articleId, e);
+            return getStoredContentAsync(articleId, contentHash).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
     }
 
     /**
-     * Save content for the article
+     * Starts fetching content of the article in the form in which it's stored without waiting for it. The content is
+     * taken from the local cache if it's there.
      * @param articleId ID of the article
-     * @param content Content to save
+     * @param contentHash Hash of the content from the article info or null if it's unknown
+     * @return Future of the stored content of the article. It fails with {@link ContentServiceException} if S3
+     * fails.
      */
-    public void saveContent(long articleId, String content) {
-        String key = "articles/" + articleId + ".txt";
+    public CompletableFuture<Optional<StoredContent>> getStoredContentAsync(long articleId, String contentHash) {
+        return getTimer.recordAsync(() -> getStoredContentUntimed(articleId, contentHash, contentCache::getAsync));
+    }
 
-        try {
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(key)
-                    .build();
+    /**
+     * Starts fetching content of the article from S3 without the local cache, so bulk reads of all articles don't
+     * evict the contents that are read often
+     * @param articleId ID of the article
+     * @param contentHash Hash of the content from the article info or null if it's unknown
+     * @return Future of the stored content of the article. It fails with {@link ContentServiceException} if S3
+     * fails.
+     */
+    public CompletableFuture<Optional<StoredContent>> fetchStoredContentAsync(long articleId, String contentHash) {
+        return getStoredContentUntimed(articleId, contentHash,
+                (key, loader) -> loader.apply(key).thenApply(Optional::ofNullable));
+    }
 
-            s3Client.putObject(putObjectRequest, RequestBody.fromString(content, StandardCharsets.UTF_8));
-        } catch (S3Exception e) {
-            throw new ContentServiceException("Failed to save content for article with ID: " + articleId, e);
+    /**
+     * Starts fetching the stored content without timing the call
+     * @param lookup Function that gets the object by its key with the loader of the object from S3, e.g. from the
+     *               cache
+     */
+    private CompletableFuture<Optional<StoredContent>> getStoredContentUntimed(
+            long articleId, String contentHash,
+            BiFunction<String, Function<String, CompletableFuture<StoredContent>>,
+                    CompletableFuture<Optional<StoredContent>>> lookup) {
+        CompletableFuture<Optional<StoredContent>> content = contentHash == null
+                ? CompletableFuture.completedFuture(Optional.empty())
+                : lookup.apply(keyOf(contentHash), key -> fetchObject(key, ContentEncoding.GZIP,
+                        "Failed to fetch content with hash: " + contentHash));
+        // A content from the cache is returned at once, only the fallback is moved to the executor
+        if (content.state() == Future.State.SUCCESS && content.resultNow().isPresent()) {
+            return content;
         }
+        return content.thenComposeAsync(c -> {
+            if (c.isPresent()) {
+                return CompletableFuture.completedFuture(c);
+            }
+            // The article hasn't been saved since contents are stored by their hashes
+            return lookup.apply(legacyKeyOf(articleId, ContentEncoding.GZIP), key -> fetchLegacyContent(articleId));
+        }, downstreamExecutor);
     }
 
     /**
-     * Create a bucket if it doesn't exist
+     * Save the content. An identical content that has been saved or read by this instance is not uploaded again.
+     * @param content Content to save
+     * @return Hash of the content by which it can be got
      */
-    private void createBucketIfNotExists() {
-        try {
-            if (!bucketExists()) {
-                s3Client.createBucket(b -> b.bucket(bucketName));
-            }
-        } catch (S3Exception e) {
-            throw new RuntimeException("Failed to create bucket: " + bucketName, e);
-        }
+    public String saveContent(String content) {
+        return saveTimer.record(() -> saveContentUntimed(content));
     }
 
     /**
-     * Check if the bucket exists
-     * @return True if the bucket exists, false otherwise
+     * Saves the content without timing the call
      */
-    private boolean bucketExists() {
-        HeadBucketRequest headBucketRequest = HeadBucketRequest.builder()
-                .bucket(bucketName)
-                .build();
+    private String saveContentUntimed(String content) {
+        String contentHash = Hashes.sha256(content);
+        String key = keyOf(contentHash);
+        if (contentCache.contains(key)) {
+            return contentHash;
+        }
 
+        StoredContent storedContent = StoredContent.gzip(content);
         try {
-            s3Client.headBucket(headBucketRequest);
-            return true;
-        } catch (NoSuchBucketException e) {
-            return false;
+            uploadTracer.trace(() -> uploadTimer.record(() -> {
+                contentStorage.upload(key, storedContent.getData(), CONTENT_TYPE,
+                        ContentEncoding.GZIP.getHeaderValue());
+                return null;
+            }));
         } catch (S3Exception e) {
-            throw new RuntimeException("Failed to check if bucket exists: " + bucketName, e);
+            throw new ContentServiceException("Failed to save content with hash: " + contentHash, e);
         }
+        uploadedSize.record(storedContent.getData().length);
+        contentCache.put(key, storedContent);
+        return contentHash;
+    }
+
+    /**
+     * Fetch content from S3 by article ID. Compressed content is looked for first.
+     * @param articleId ID of the article
+     * @return Future of the stored article content or of null if there's no content
+     */
+    private CompletableFuture<StoredContent> fetchLegacyContent(long articleId) {
+        String errorMessage = "Failed to fetch content for article with ID: " + articleId;
+        return fetchObject(legacyKeyOf(articleId, ContentEncoding.GZIP), ContentEncoding.GZIP, errorMessage)
+                .thenComposeAsync(compressed -> compressed != null
+                        ? CompletableFuture.completedFuture(compressed)
+                        : fetchObject(legacyKeyOf(articleId, ContentEncoding.IDENTITY), ContentEncoding.IDENTITY,
+                                errorMessage), downstreamExecutor);
+    }
+
+    /**
+     * Fetch the object of the content with the specified encoding
+     * @param errorMessage Message of the exception if S3 fails
+     * @return Future of the stored content or of null if there's no such object
+     */
+    private CompletableFuture<StoredContent> fetchObject(String key, ContentEncoding encoding, String errorMessage) {
+        Supplier<CompletableFuture<byte[]>> fetch = fetchTracer.traceAsync(() ->
+                fetchTimer.recordAsync(() -> contentStorage.fetch(key)));
+        return hedger.call(fetch).handle((data, e) -> {
+            if (e == null) {
+                if (data == null) {
+                    return null;
+                }
+                fetchedSize.record(data.length);
+                return new StoredContent(data, encoding);
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof S3Exception s3Exception) {
+                throw new ContentServiceException(errorMessage, s3Exception);
+            }
+            throw cause instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new CompletionException(cause);
+        });
+    }
+
+    private static DistributionSummary objectSize(String operation, MeterRegistry meterRegistry) {
+        return DistributionSummary.builder("s3.object.size")
+                .tag("operation", operation)
+                .description("Size of a compressed content in S3")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    private static String keyOf(String contentHash) {
+        return "contents/" + contentHash + ContentEncoding.GZIP.getKeySuffix();
+    }
+
+    private static String legacyKeyOf(long articleId, ContentEncoding encoding) {
+        return "articles/" + articleId + encoding.getKeySuffix();
     }
 }
@@ -1,76 +1,378 @@
 package me.zedaster.articleservice.service;
 
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import me.zedaster.articleservice.concurrency.Bulkhead;
+import me.zedaster.articleservice.concurrency.BulkheadFullException;
+import me.zedaster.articleservice.concurrency.Bulkheads;
+import me.zedaster.articleservice.concurrency.CircuitBreaker;
+import me.zedaster.articleservice.concurrency.CircuitBreakerOpenException;
+import me.zedaster.articleservice.configuration.DownstreamConfiguration;
+import me.zedaster.articleservice.configuration.cache.CreatorCacheConfiguration;
 import me.zedaster.articleservice.configuration.microservice.AuthServiceConfiguration;
 import me.zedaster.articleservice.dto.article.Creator;
+import me.zedaster.articleservice.event.CreatorNameChangedEvent;
+import me.zedaster.articleservice.http.PooledHttpClientFactory;
+import me.zedaster.articleservice.metrics.CallTimer;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.io.CloseMode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.IntStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Service to work with data of the creators
+ * <br>
+ * Creators are cached for some time because their usernames almost never change. Concurrent requests of the same
+ * uncached creator share one request to the auth service.
+ * <br>
+ * Calls to the auth service go through a circuit breaker. If the auth service fails, the last known usernames are
+ * served even if they have expired in the cache, and creators without them get a placeholder name. So an outage of
+ * the auth service doesn't fail reads of articles. Only I/O errors, timeouts and 5xx responses are failures of the
+ * auth service. 4xx responses are thrown to the caller and don't open the circuit.
+ * <br>
+ * HTTP calls to the auth service are timed as {@code auth.service.calls} including the wait for the bulkhead, like
+ * the calls to S3. The wait alone is timed as {@code bulkhead.wait}. The calls are observed by Spring too, so they get
+ * spans, and the trace context is passed to the auth service in their headers.
  */
 @Service
 @Validated
 public class CreatorService {
+    /**
+     * Name of the cache in the metrics
+     */
+    private static final String CACHE_NAME = "creators";
+
+    private static final String INCORRECT_USER_ID = "User id must be bigger than zero!";
+
+    private static final String USERNAMES_NOT_NULL = "New usernames must be not null!";
+
+    /**
+     * Name of the HTTP client in the metrics
+     */
+    private static final String CLIENT_NAME = "auth-service";
+
+    /**
+     * Name of a creator whose username is unknown while the auth service is not available
+     */
+    static final String PLACEHOLDER_NAME = "[unknown]";
+
+    /**
+     * HTTP client with the pool of connections to the auth service
+     */
+    private final CloseableHttpClient httpClient;
+
     private final RestClient restClient;
 
-    public CreatorService(AuthServiceConfiguration configuration) {
-        this.restClient = RestClient.create(configuration.getUri());
+    /**
+     * Cache of creators by their IDs
+     */
+    private final AsyncLoadingCache<Long, Creator> cache;
+
+    /**
+     * Last known usernames by creator IDs. Unlike the cache, they don't expire, so they can be served while the auth
+     * service is not available.
+     */
+    private final Cache<Long, String> lastKnownNames;
+
+    /**
+     * Limits concurrent calls to the auth service
+     */
+    private final Bulkhead bulkhead;
+
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * Timer of requests of one creator
+     */
+    private final CallTimer singleTimer;
+
+    /**
+     * Timer of requests of several creators
+     */
+    private final CallTimer batchTimer;
+
+    /**
+     * Number of creators in requests of several creators
+     */
+    private final DistributionSummary batchSize;
+
+    /**
+     * Number of creators that were served with their last known usernames because the auth service failed
+     */
+    private final Counter staleFallbacks;
+
+    /**
+     * Number of creators that were served with the placeholder name because the auth service failed
+     */
+    private final Counter placeholderFallbacks;
+
+    /**
+     * Publisher of events about changed usernames for components that keep names of creators
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CreatorService(AuthServiceConfiguration configuration,
+                          CreatorCacheConfiguration cacheConfiguration,
+                          MeterRegistry meterRegistry,
+                          ExecutorService downstreamExecutor,
+                          Bulkheads bulkheads,
+                          DownstreamConfiguration downstreamConfiguration,
+                          ApplicationEventPublisher eventPublisher,
+                          ObjectProvider<ObservationRegistry> observationRegistry) {
+        this.httpClient = PooledHttpClientFactory.create(CLIENT_NAME, configuration.getHttpClient(), meterRegistry);
+        this.restClient = RestClient.builder()
+                .baseUrl(configuration.getUri().toString())
+                .requestFactory(new HttpComponentsClientHttpRequestFactory(httpClient))
+                .observationRegistry(observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP))
+                .build();
+        this.bulkhead = bulkheads.getAuthService();
+        this.circuitBreaker = new CircuitBreaker(CLIENT_NAME,
+                downstreamConfiguration.getAuthService().getCircuitBreaker(), CreatorService::isAuthServiceFailure);
+        circuitBreaker.bindTo(meterRegistry);
+        this.singleTimer = new CallTimer("auth.service.calls",
+                "Time of an HTTP call to the auth service including the wait for the bulkhead",
+                Tags.of("operation", "get-username"), meterRegistry);
+        this.batchTimer = new CallTimer("auth.service.calls",
+                "Time of an HTTP call to the auth service including the wait for the bulkhead",
+                Tags.of("operation", "get-usernames"), meterRegistry);
+        this.batchSize = DistributionSummary.builder("auth.service.batch.size")
+                .description("Number of creators requested from the auth service in one call")
+                .baseUnit("creators")
+                .register(meterRegistry);
+        this.staleFallbacks = fallbackCounter("stale", meterRegistry);
+        this.placeholderFallbacks = fallbackCounter("placeholder", meterRegistry);
+        this.lastKnownNames = Caffeine.newBuilder()
+                .maximumSize(cacheConfiguration.getMaxSize())
+                .build();
+        this.eventPublisher = eventPublisher;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(cacheConfiguration.getTtl())
+                .maximumSize(cacheConfiguration.getMaxSize())
+                // Loading blocks on HTTP calls, so it must not occupy threads of the common pool
+                .executor(downstreamExecutor)
+                .recordStats()
+                .buildAsync(new CreatorLoader());
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), CACHE_NAME);
     }
 
     /**
-     * Get creators by their ids.
+     * Get creators by their ids. Only creators that are not cached are requested from the auth service. If the auth
+     * service is not available, the last known usernames or the placeholder name are returned as fallbacks.
      * @param userIds List of creator ids
-     * @throws InternalServerException If the creator service is not available
-     * @return List of creators
+     * @return List of creators in the same order as the ids
+     * @throws HttpClientErrorException If the auth service rejected the request
      */
     public List<Creator> getCreatorsByIds(List<Long> userIds) {
+        Map<Long, Creator> creatorsById;
+        try {
+            creatorsById = join(cache.getAll(userIds));
+        } catch (InternalServerException e) {
+            return userIds.stream()
+                    .map(this::fallbackCreator)
+                    .toList();
+        }
+        return userIds.stream()
+                .map(creatorsById::get)
+                .toList();
+    }
+
+    /**
+     * Get creator by their id. If the auth service is not available, the last known username or the placeholder name
+     * is returned as a fallback.
+     * @param creatorId Creator id
+     * @return Creator
+     * @throws HttpClientErrorException If the auth service rejected the request
+     */
+    public Creator getCreator(Long creatorId) {
+        try {
+            return join(cache.get(creatorId));
+        } catch (InternalServerException e) {
+            return fallbackCreator(creatorId);
+        }
+    }
+
+    /**
+     * Updates the cached username of the creator. If the new username is null, the creator is removed from the cache
+     * and will be requested from the auth service next time.
+     * @param creatorId Creator id
+     * @param newUsername New username of the creator or null
+     */
+    public void updateCreatorName(@Min(value = 1, message = INCORRECT_USER_ID) long creatorId, String newUsername) {
+        if (newUsername == null) {
+            cache.synchronous().invalidate(creatorId);
+            lastKnownNames.invalidate(creatorId);
+        } else {
+            cache.put(creatorId, CompletableFuture.completedFuture(new Creator(creatorId, newUsername)));
+            lastKnownNames.put(creatorId, newUsername);
+        }
+        eventPublisher.publishEvent(new CreatorNameChangedEvent(creatorId, newUsername));
+    }
+
+    /**
+     * Updates the cached usernames of several creators
+     * @param newUsernames New usernames by creator ids
+     * @see #updateCreatorName(long, String)
+     */
+    public void updateCreatorNames(
+            @NotNull(message = USERNAMES_NOT_NULL)
+            Map<@NotNull(message = INCORRECT_USER_ID) @Min(value = 1, message = INCORRECT_USER_ID) Long, String>
+                    newUsernames) {
+        // The IDs are checked by the constraints of this method, the calls below bypass the proxy and its validation
+        newUsernames.forEach(this::updateCreatorName);
+    }
+
+    /**
+     * Fetches creators from the auth service
+     * @param userIds List of creator ids
+     * @return Creators by their ids
+     */
+    private Map<Long, Creator> fetchCreators(List<Long> userIds) {
         try {
             URI uri = UriComponentsBuilder
                     .fromPath("/internal/profile/usernames")
                     .queryParam("ids", userIds)
                     .build()
                     .toUri();
-            List<String> names = restClient.get()
+            batchSize.record(userIds.size());
+            List<String> names = circuitBreaker.call(() -> batchTimer.record(() -> bulkhead.call(() -> restClient.get()
                     .uri(uri)
                     .retrieve()
                     .toEntity(new ParameterizedTypeReference<List<String>>() {})
-                    .getBody();
-            return IntStream.range(0, userIds.size())
-                    .mapToObj(i -> new Creator(userIds.get(i), names.get(i)))
-                    .toList();
-        } catch (ResourceAccessException e) {
+                    .getBody())));
+            Map<Long, Creator> creatorsById = new HashMap<>();
+            for (int i = 0; i < userIds.size(); i++) {
+                creatorsById.put(userIds.get(i), new Creator(userIds.get(i), names.get(i)));
+                lastKnownNames.put(userIds.get(i), names.get(i));
+            }
+            return creatorsById;
+        } catch (HttpClientErrorException e) {
+            throw e;
+        } catch (RestClientException | BulkheadFullException | CircuitBreakerOpenException e) {
             throw new InternalServerException("Creator service is not available", e);
         }
     }
 
     /**
-     * Get creator by their id.
+     * Fetches creator from the auth service
      * @param creatorId Creator id
-     * @throws InternalServerException If the creator service is not available
      * @return Creator
      */
-    public Creator getCreator(Long creatorId) {
+    private Creator fetchCreator(Long creatorId) {
         try {
             URI uri = UriComponentsBuilder
                     .fromPath("/internal/profile/{id}/username")
                     .buildAndExpand(creatorId)
                     .toUri();
-            String name = restClient.get()
+            String name = circuitBreaker.call(() -> singleTimer.record(() -> bulkhead.call(() -> restClient.get()
                     .uri(uri)
                     .retrieve()
                     .toEntity(String.class)
-                    .getBody();
+                    .getBody())));
+            lastKnownNames.put(creatorId, name);
             return new Creator(creatorId, name);
-        } catch (ResourceAccessException e) {
+        } catch (HttpClientErrorException e) {
+            throw e;
+        } catch (RestClientException | BulkheadFullException | CircuitBreakerOpenException e) {
             throw new InternalServerException("Creator service is not available", e);
         }
     }
+
+    /**
+     * Creates the creator for the case when the auth service is not available
+     * @param creatorId Creator id
+     * @return Fallback creator with the last known username or the placeholder name
+     */
+    private Creator fallbackCreator(Long creatorId) {
+        String name = lastKnownNames.getIfPresent(creatorId);
+        if (name != null) {
+            staleFallbacks.increment();
+            return new Creator(creatorId, name, true);
+        }
+        placeholderFallbacks.increment();
+        return new Creator(creatorId, PLACEHOLDER_NAME, true);
+    }
+
+    /**
+     * Checks if the exception of a call shows that the auth service is failing. Calls rejected by the bulkhead were
+     * not made, and 4xx responses are answers of a healthy service.
+     */
+    private static boolean isAuthServiceFailure(Throwable e) {
+        return e instanceof ResourceAccessException || e instanceof HttpServerErrorException;
+    }
+
+    private static Counter fallbackCounter(String kind, MeterRegistry meterRegistry) {
+        return Counter.builder("creators.fallbacks")
+                .tag("kind", kind)
+                .description("Number of creators that were served without the auth service because it failed")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void close() {
+        httpClient.close(CloseMode.GRACEFUL);
+    }
+
+    /**
+     * Waits for the result of the cache and rethrows the exception of the loader if it failed
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Loader of the cache that requests missing creators from the auth service
+     */
+    private class CreatorLoader implements CacheLoader<Long, Creator> {
+        @Override
+        public Creator load(Long creatorId) {
+            return fetchCreator(creatorId);
+        }
+
+        @Override
+        public Map<Long, Creator> loadAll(Set<? extends Long> creatorIds) {
+            // Sorted ids make the same set of missing creators always produce the same request
+            List<Long> userIds = new ArrayList<>(creatorIds);
+            Collections.sort(userIds);
+            return fetchCreators(userIds);
+        }
+    }
 }
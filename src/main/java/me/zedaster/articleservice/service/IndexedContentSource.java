@@ -0,0 +1,39 @@
+package me.zedaster.articleservice.service;
+
+import me.zedaster.articleservice.dto.content.StoredContent;
+import me.zedaster.articleservice.entity.ArticleInfo;
+import me.zedaster.articleservice.search.ArticleContentSource;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Gives the contents of the articles to the search index. A content that hasn't been uploaded yet is taken from the
+ * outbox, others are fetched from S3 without the cache, so a sync of the index doesn't evict the contents that are
+ * read often.
+ */
+@Component
+public class IndexedContentSource implements ArticleContentSource {
+    private final ContentService contentService;
+
+    private final ContentOutboxService contentOutboxService;
+
+    public IndexedContentSource(ContentService contentService, ContentOutboxService contentOutboxService) {
+        this.contentService = contentService;
+        this.contentOutboxService = contentOutboxService;
+    }
+
+    @Override
+    public CompletableFuture<Optional<String>> fetchContent(ArticleInfo articleInfo) {
+        if (articleInfo.isContentPending()) {
+            Optional<String> pendingContent = contentOutboxService.getContent(articleInfo.getId());
+            if (pendingContent.isPresent()) {
+                return CompletableFuture.completedFuture(pendingContent);
+            }
+            // The content has been uploaded since the info was read
+        }
+        return contentService.fetchStoredContentAsync(articleInfo.getId(), articleInfo.getContentHash())
+                .thenApply(content -> content.map(StoredContent::decode));
+    }
+}
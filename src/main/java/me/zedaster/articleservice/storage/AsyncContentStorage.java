@@ -0,0 +1,95 @@
+package me.zedaster.articleservice.storage;
+
+import me.zedaster.articleservice.concurrency.Bulkhead;
+import me.zedaster.articleservice.util.Futures;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Content storage on the non-blocking S3 client. Fetches don't take threads while they wait for S3, so the number
+ * of concurrent fetches is limited only by the bulkhead and the connection pool.
+ */
+public class AsyncContentStorage extends ContentStorage {
+    private final S3AsyncClient s3Client;
+
+    public AsyncContentStorage(S3AsyncClient s3Client, String bucketName, Bulkhead bulkhead) {
+        super(bucketName, bulkhead);
+        this.s3Client = s3Client;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * Cancelling the future aborts the request to S3.
+     */
+    @Override
+    public CompletableFuture<byte[]> fetch(String key) {
+        CompletableFuture<ResponseBytes<GetObjectResponse>> response = bulkhead.callAsync(() ->
+                s3Client.getObject(getObjectRequest(key), AsyncResponseTransformer.toBytes()));
+        return Futures.propagateCancellation(response.handle((bytes, e) -> {
+            if (e == null) {
+                return bytes.asByteArrayUnsafe();
+            }
+            Throwable cause = unwrap(e);
+            if (cause instanceof NoSuchKeyException) {
+                return null;
+            }
+            throw cause instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new CompletionException(cause);
+        }), response);
+    }
+
+    @Override
+    public void upload(String key, byte[] data, String contentType, String contentEncoding) {
+        join(bulkhead.callAsync(() -> s3Client.putObject(putObjectRequest(key, contentType, contentEncoding),
+                AsyncRequestBody.fromBytes(data))));
+    }
+
+    @Override
+    public void createBucketIfNotExists() {
+        try {
+            join(s3Client.headBucket(headBucketRequest()));
+        } catch (NoSuchBucketException e) {
+            try {
+                join(s3Client.createBucket(b -> b.bucket(bucketName)));
+            } catch (S3Exception createException) {
+                throw new RuntimeException("Failed to create bucket: " + bucketName, createException);
+            }
+        } catch (S3Exception e) {
+            throw new RuntimeException("Failed to check if bucket exists: " + bucketName, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        s3Client.close();
+    }
+
+    /**
+     * Waits for the call and rethrows its exception as it is
+     */
+    private static <T> T join(CompletableFuture<T> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (unwrap(e) instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
@@ -0,0 +1,85 @@
+package me.zedaster.articleservice.storage;
+
+import me.zedaster.articleservice.concurrency.Bulkhead;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Storage of the objects of article contents in an S3 bucket. Objects are fetched asynchronously, so fetches of
+ * several contents can be started at once and waited for together.
+ * <br>
+ * The implementation is chosen by {@link me.zedaster.articleservice.configuration.S3Configuration#getClientMode()}.
+ * @see SyncContentStorage
+ * @see AsyncContentStorage
+ */
+public abstract class ContentStorage implements AutoCloseable {
+    /**
+     * Bucket of the objects
+     */
+    protected final String bucketName;
+
+    /**
+     * Limits concurrent calls to S3
+     */
+    protected final Bulkhead bulkhead;
+
+    protected ContentStorage(String bucketName, Bulkhead bulkhead) {
+        this.bucketName = bucketName;
+        this.bulkhead = bulkhead;
+    }
+
+    /**
+     * Fetches the object
+     * @param key Key of the object
+     * @return Future of the bytes of the object or of null if there's no such object. The future fails with
+     * {@link software.amazon.awssdk.core.exception.SdkException} if S3 fails.
+     */
+    public abstract CompletableFuture<byte[]> fetch(String key);
+
+    /**
+     * Uploads the object and waits until it's uploaded
+     * @param key Key of the object
+     * @param data Bytes of the object
+     * @param contentType Value of the Content-Type header of the object
+     * @param contentEncoding Value of the Content-Encoding header of the object
+     * @throws software.amazon.awssdk.core.exception.SdkException If S3 fails
+     */
+    public abstract void upload(String key, byte[] data, String contentType, String contentEncoding);
+
+    /**
+     * Creates the bucket if it doesn't exist
+     * @throws RuntimeException If S3 fails
+     */
+    public abstract void createBucketIfNotExists();
+
+    /**
+     * Closes the client and its connections
+     */
+    @Override
+    public abstract void close();
+
+    protected GetObjectRequest getObjectRequest(String key) {
+        return GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .build();
+    }
+
+    protected PutObjectRequest putObjectRequest(String key, String contentType, String contentEncoding) {
+        return PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .contentEncoding(contentEncoding)
+                .build();
+    }
+
+    protected HeadBucketRequest headBucketRequest() {
+        return HeadBucketRequest.builder()
+                .bucket(bucketName)
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+package me.zedaster.articleservice.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import me.zedaster.articleservice.http.ConnectionPoolMetrics;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.metrics.SdkMetric;
+
+import java.util.List;
+
+/**
+ * Publisher of the metrics of the S3 client that exports the pool of its connections. The client reports the state
+ * of the pool with every request, so the gauges show the state at the last request. The client doesn't report new
+ * connections, so there is no counter of them.
+ * @see ConnectionPoolMetrics
+ */
+public class S3ConnectionPoolMetricPublisher implements MetricPublisher {
+    private final ConnectionPoolMetrics metrics;
+
+    private volatile ConnectionPoolMetrics.PoolState lastState = new ConnectionPoolMetrics.PoolState(0, 0, 0, 0);
+
+    public S3ConnectionPoolMetricPublisher(MeterRegistry meterRegistry) {
+        this.metrics = new ConnectionPoolMetrics("s3", meterRegistry);
+        metrics.bindPool(() -> lastState);
+    }
+
+    @Override
+    public void publish(MetricCollection metricCollection) {
+        List<Integer> leased = metricCollection.metricValues(HttpMetric.LEASED_CONCURRENCY);
+        if (!leased.isEmpty()) {
+            lastState = new ConnectionPoolMetrics.PoolState(
+                    lastValue(metricCollection, HttpMetric.MAX_CONCURRENCY),
+                    leased.getLast(),
+                    lastValue(metricCollection, HttpMetric.AVAILABLE_CONCURRENCY),
+                    lastValue(metricCollection, HttpMetric.PENDING_CONCURRENCY_ACQUIRES));
+        }
+        metricCollection.metricValues(HttpMetric.CONCURRENCY_ACQUIRE_DURATION).forEach(metrics::recordAcquire);
+        // Metrics of HTTP requests are nested into the metrics of the attempts of the API call
+        metricCollection.children().forEach(this::publish);
+    }
+
+    @Override
+    public void close() {
+        // Meters stay in the registry
+    }
+
+    private static int lastValue(MetricCollection metricCollection, SdkMetric<Integer> metric) {
+        List<Integer> values = metricCollection.metricValues(metric);
+        return values.isEmpty() ? 0 : values.getLast();
+    }
+}
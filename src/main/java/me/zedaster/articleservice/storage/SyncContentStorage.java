@@ -0,0 +1,79 @@
+package me.zedaster.articleservice.storage;
+
+import me.zedaster.articleservice.concurrency.Bulkhead;
+import me.zedaster.articleservice.util.Futures;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Content storage on the blocking S3 client. Every fetch waits for S3 in its own thread of the executor.
+ */
+public class SyncContentStorage extends ContentStorage {
+    private final S3Client s3Client;
+
+    /**
+     * Executor of the fetches
+     */
+    private final ExecutorService executor;
+
+    public SyncContentStorage(S3Client s3Client, String bucketName, Bulkhead bulkhead, ExecutorService executor) {
+        super(bucketName, bulkhead);
+        this.s3Client = s3Client;
+        this.executor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * Cancelling the future interrupts the thread of the fetch, so a fetch that is not needed anymore stops waiting
+     * for the bulkhead or for S3.
+     */
+    @Override
+    public CompletableFuture<byte[]> fetch(String key) {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                result.complete(bulkhead.call(() -> s3Client.getObjectAsBytes(getObjectRequest(key)))
+                        .asByteArrayUnsafe());
+            } catch (NoSuchKeyException e) {
+                result.complete(null);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return Futures.propagateCancellation(result, task);
+    }
+
+    @Override
+    public void upload(String key, byte[] data, String contentType, String contentEncoding) {
+        bulkhead.call(() -> s3Client.putObject(putObjectRequest(key, contentType, contentEncoding),
+                RequestBody.fromBytes(data)));
+    }
+
+    @Override
+    public void createBucketIfNotExists() {
+        try {
+            s3Client.headBucket(headBucketRequest());
+        } catch (NoSuchBucketException e) {
+            try {
+                s3Client.createBucket(b -> b.bucket(bucketName));
+            } catch (S3Exception createException) {
+                throw new RuntimeException("Failed to create bucket: " + bucketName, createException);
+            }
+        } catch (S3Exception e) {
+            throw new RuntimeException("Failed to check if bucket exists: " + bucketName, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        s3Client.close();
+    }
+}
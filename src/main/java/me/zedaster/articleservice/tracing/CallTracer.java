@@ -0,0 +1,92 @@
+package me.zedaster.articleservice.tracing;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import me.zedaster.articleservice.util.Futures;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Makes calls to a downstream service in spans, so a slow request shows which of its calls was slow.
+ * <br>
+ * A span is a child of the span that is current when the call is made. Calls outside of a trace, e.g. by background
+ * workers, are not traced.
+ */
+public class CallTracer {
+    /**
+     * Name of the spans
+     */
+    private final String name;
+
+    /**
+     * Tags of the spans
+     */
+    private final Tags tags;
+
+    private final Tracer tracer;
+
+    public CallTracer(String name, Tags tags, Tracer tracer) {
+        this.name = name;
+        this.tags = tags;
+        this.tracer = tracer;
+    }
+
+    /**
+     * Makes the call in a span
+     * @param call Call to the downstream service
+     * @return Result of the call
+     */
+    public <T> T trace(Supplier<T> call) {
+        Span parent = tracer.currentSpan();
+        if (parent == null) {
+            return call.get();
+        }
+        Span span = start(parent);
+        try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+            return call.get();
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Wraps the asynchronous call, so every time it's made, it's made in a span that ends when the call completes.
+     * The parent of the spans is the span that is current now, even if the call is made later in another thread.
+     * @param call Call to the downstream service that returns a future of its result
+     * @return Call that is made in a span. Cancelling its future cancels the call.
+     */
+    public <T> Supplier<CompletableFuture<T>> traceAsync(Supplier<CompletableFuture<T>> call) {
+        Span parent = tracer.currentSpan();
+        if (parent == null) {
+            return call;
+        }
+        return () -> {
+            Span span = start(parent);
+            CompletableFuture<T> future;
+            try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+                future = call.get();
+            } catch (RuntimeException e) {
+                span.error(e);
+                span.end();
+                throw e;
+            }
+            return Futures.propagateCancellation(future.whenComplete((result, e) -> {
+                if (e != null) {
+                    span.error(e);
+                }
+                span.end();
+            }), future);
+        };
+    }
+
+    private Span start(Span parent) {
+        Span span = tracer.nextSpan(parent).name(name);
+        tags.forEach(tag -> span.tag(tag.getKey(), tag.getValue()));
+        return span.start();
+    }
+}
@@ -0,0 +1,96 @@
+package me.zedaster.articleservice.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exports spans to a local file as JSON lines, one span per line. It stands in for a collector of traces when the
+ * app runs locally or in a load test.
+ */
+public class FileSpanExporter implements SpanExporter {
+    private final ObjectMapper objectMapper;
+
+    private final BufferedWriter writer;
+
+    /**
+     * Exported span
+     * @param traceId ID of the trace
+     * @param spanId ID of the span
+     * @param parentSpanId ID of the parent span or null if the span is the root one
+     * @param name Name of the span
+     * @param kind Kind of the span, e.g. SERVER or CLIENT
+     * @param startEpochNanos Start time of the span in nanoseconds since the epoch
+     * @param durationNanos Duration of the span in nanoseconds
+     * @param status Status of the span: UNSET, OK or ERROR
+     * @param attributes Attributes (tags) of the span
+     */
+    record ExportedSpan(String traceId, String spanId, String parentSpanId, String name, String kind,
+                        long startEpochNanos, long durationNanos, String status, Map<String, String> attributes) {
+    }
+
+    /**
+     * Opens the file. Spans are appended to it if it exists.
+     * @param file File to write the spans to
+     * @param objectMapper Mapper that writes the spans as JSON
+     */
+    public FileSpanExporter(Path file, ObjectMapper objectMapper) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        this.objectMapper = objectMapper;
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        try {
+            for (SpanData span : spans) {
+                writer.write(objectMapper.writeValueAsString(toExportedSpan(span)));
+                writer.newLine();
+            }
+            writer.flush();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        // Every export is flushed at once
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        try {
+            writer.close();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    private static ExportedSpan toExportedSpan(SpanData span) {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), String.valueOf(value)));
+        String parentSpanId = span.getParentSpanContext().isValid() ? span.getParentSpanId() : null;
+        return new ExportedSpan(span.getTraceId(), span.getSpanId(), parentSpanId, span.getName(),
+                span.getKind().name(), span.getStartEpochNanos(), span.getEndEpochNanos() - span.getStartEpochNanos(),
+                span.getStatus().getStatusCode().name(), attributes);
+    }
+}
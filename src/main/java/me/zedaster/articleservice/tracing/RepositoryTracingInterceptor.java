@@ -0,0 +1,53 @@
+package me.zedaster.articleservice.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.util.function.Supplier;
+
+/**
+ * Makes calls of the methods of a repository in spans named {@code db Repository.method}. Calls outside of a trace
+ * are not traced.
+ */
+public class RepositoryTracingInterceptor implements MethodInterceptor {
+    /**
+     * Simple name of the interface of the repository
+     */
+    private final String repositoryName;
+
+    /**
+     * Tracer is got lazily, because repositories are created before it
+     */
+    private final Supplier<Tracer> tracer;
+
+    public RepositoryTracingInterceptor(Class<?> repositoryInterface, Supplier<Tracer> tracer) {
+        this.repositoryName = repositoryInterface.getSimpleName();
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Tracer currentTracer = tracer.get();
+        Span parent = currentTracer.currentSpan();
+        if (parent == null || invocation.getMethod().getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+        String method = invocation.getMethod().getName();
+        Span span = currentTracer.nextSpan(parent)
+                .name("db " + repositoryName + "." + method)
+                .tag("db.system", "postgresql")
+                .tag("repository", repositoryName)
+                .tag("method", method)
+                .start();
+        try (Tracer.SpanInScope scope = currentTracer.withSpan(span)) {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package me.zedaster.articleservice.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * Helpers of futures of asynchronous calls
+ */
+public final class Futures {
+    private Futures() {
+    }
+
+    /**
+     * Makes cancellation of the dependent future cancel the future it depends on. Futures that are created by
+     * methods like {@link CompletableFuture#whenComplete} don't do it themselves, so a cancelled call would keep
+     * running.
+     * @param dependent Future that is given to the caller
+     * @param source Future of the call itself
+     * @return The dependent future
+     */
+    public static <T> CompletableFuture<T> propagateCancellation(CompletableFuture<T> dependent, Future<?> source) {
+        dependent.whenComplete((result, e) -> {
+            if (dependent.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return dependent;
+    }
+}
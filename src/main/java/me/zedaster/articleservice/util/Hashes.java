@@ -0,0 +1,56 @@
+package me.zedaster.articleservice.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Hashes of data that are used as validators of its versions
+ */
+public final class Hashes {
+    /**
+     * Number of bytes of a hash that are used in entity tags
+     */
+    private static final int ENTITY_TAG_BYTES = 16;
+
+    private Hashes() {
+    }
+
+    /**
+     * Calculates SHA-256 hash of the text
+     * @param text Text
+     * @return Hash in hex format
+     */
+    public static String sha256(String text) {
+        return HexFormat.of().formatHex(digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Calculates a strong entity tag of a representation that consists of the parts. Different parts give
+     * different tags.
+     * @param parts Parts of the representation. Their string values are used.
+     * @return Entity tag without quotes
+     */
+    public static String entityTag(Object... parts) {
+        StringBuilder joined = new StringBuilder();
+        for (Object part : parts) {
+            // Length prefixes keep the parts apart, so ("ab", "c") and ("a", "bc") give different tags
+            String value = String.valueOf(part);
+            joined.append(value.length()).append(':').append(value);
+        }
+        byte[] hash = digest(joined.toString().getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, ENTITY_TAG_BYTES));
+    }
+
+    private static byte[] digest(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform must support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
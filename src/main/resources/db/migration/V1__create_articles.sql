@@ -0,0 +1,9 @@
+-- Schema of the articles before the migrations were introduced
+create table if not exists articles (
+    id         bigint not null primary key,
+    title      varchar(255),
+    created_at timestamp(6) with time zone,
+    creator_id bigint
+);
+
+create index if not exists article_summaries_creator_id_index on articles (creator_id);
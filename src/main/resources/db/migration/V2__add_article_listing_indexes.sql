@@ -0,0 +1,13 @@
+-- Listings are ordered by (created_at, id). The trailing columns make the indexes covering for summaries.
+create index if not exists articles_created_at_id_index
+    on articles (created_at desc, id desc, creator_id, title);
+
+create index if not exists articles_creator_id_created_at_id_index
+    on articles (creator_id, created_at desc, id desc, title);
+
+-- A creator can't have two articles with the same title. It fails if there are such articles already, and they must
+-- be renamed first.
+create unique index if not exists articles_creator_id_title_index on articles (creator_id, title);
+
+-- The indexes above start with creator_id, so this one isn't needed anymore
+drop index if exists article_summaries_creator_id_index;
@@ -0,0 +1,2 @@
+-- Hash of the content of an article. It's null for articles that haven't been saved since it was added.
+alter table articles add column if not exists content_hash varchar(64);
@@ -0,0 +1,5 @@
+-- IDs of the articles are reserved by 50 at a time. The increment must be equal to ArticleInfo.ID_ALLOCATION_SIZE.
+create sequence if not exists articles_seq increment by 50;
+
+-- The sequence starts after the existing articles
+select setval('articles_seq', coalesce(max(id), 0) + 1, false) from articles;
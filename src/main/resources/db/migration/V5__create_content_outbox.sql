@@ -0,0 +1,13 @@
+-- Whether the content of an article is still in the outbox and S3 may have no content or an older one
+alter table articles add column if not exists content_pending boolean not null default false;
+
+-- Contents that are saved together with their articles and haven't been uploaded to S3 yet
+create table if not exists content_outbox (
+    article_id   bigint  not null primary key,
+    content      text,
+    content_hash varchar(64),
+    attempts     integer not null,
+    available_at timestamp(6) with time zone
+);
+
+create index if not exists content_outbox_available_at_index on content_outbox (available_at);
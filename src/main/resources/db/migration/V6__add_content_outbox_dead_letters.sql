@@ -0,0 +1,5 @@
+-- Moment when the content was added to the outbox. It tells the age of the backlog.
+alter table content_outbox add column if not exists created_at timestamp(6) with time zone not null default now();
+
+-- Moment when the uploads of the content were given up after too many failed attempts
+alter table content_outbox add column if not exists dead_lettered_at timestamp(6) with time zone;
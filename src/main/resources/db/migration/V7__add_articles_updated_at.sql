@@ -0,0 +1,4 @@
+-- Moment of the last change of an article. The full-text indexes of the instances catch up with the changes by it.
+alter table articles add column if not exists updated_at timestamp(6) with time zone not null default now();
+
+create index if not exists articles_updated_at_id_index on articles (updated_at, id);
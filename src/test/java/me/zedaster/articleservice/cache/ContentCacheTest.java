@@ -0,0 +1,121 @@
+package me.zedaster.articleservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.zedaster.articleservice.configuration.cache.ContentCacheConfiguration;
+import me.zedaster.articleservice.dto.content.StoredContent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for {@link ContentCache}
+ */
+public class ContentCacheTest {
+    private ExecutorService executor;
+
+    private ContentCache contentCache;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        contentCache = new ContentCache(new ContentCacheConfiguration(), new SimpleMeterRegistry(), executor);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.close();
+    }
+
+    /**
+     * Checks that the loader is called only on the first request of the content
+     */
+    @Test
+    public void loadOnlyOnMiss() {
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            Optional<StoredContent> loaded = contentCache.get("key", key -> {
+                loads.incrementAndGet();
+                return content("content");
+            });
+            Assertions.assertEquals(Optional.of(content("content")), loaded);
+        }
+
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(1, contentCache.stats().missCount());
+        Assertions.assertEquals(2, contentCache.stats().hitCount());
+    }
+
+    /**
+     * Checks that absent content is not cached
+     */
+    @Test
+    public void absentContentIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+
+        Assertions.assertTrue(contentCache.get("key", key -> {
+            loads.incrementAndGet();
+            return null;
+        }).isEmpty());
+        Assertions.assertEquals(Optional.of(content("content")), contentCache.get("key", key -> {
+            loads.incrementAndGet();
+            return content("content");
+        }));
+
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    /**
+     * Checks that exceptions of the loader are rethrown as they are
+     */
+    @Test
+    public void rethrowLoaderException() {
+        IllegalStateException exception = new IllegalStateException("Test exception");
+
+        IllegalStateException thrown = Assertions.assertThrows(IllegalStateException.class,
+                () -> contentCache.get("key", key -> {
+                    throw exception;
+                }));
+        Assertions.assertSame(exception, thrown);
+    }
+
+    /**
+     * Checks that put content replaces the cached one and invalidated content is loaded again
+     */
+    @Test
+    public void putAndInvalidate() {
+        contentCache.put("key", content("old content"));
+        contentCache.put("key", content("new content"));
+        Assertions.assertEquals(Optional.of(content("new content")),
+                contentCache.get("key", key -> content("loaded content")));
+
+        contentCache.invalidate("key");
+        Assertions.assertEquals(Optional.of(content("loaded content")),
+                contentCache.get("key", key -> content("loaded content")));
+    }
+
+    /**
+     * Checks that only loaded or put contents are reported as cached
+     */
+    @Test
+    public void containsOnlyPresentContent() {
+        Assertions.assertFalse(contentCache.contains("key"));
+        contentCache.get("key", key -> null);
+        Assertions.assertFalse(contentCache.contains("key"));
+
+        contentCache.put("key", content("content"));
+        Assertions.assertTrue(contentCache.contains("key"));
+        contentCache.get("other key", key -> content("other content"));
+        Assertions.assertTrue(contentCache.contains("other key"));
+    }
+
+    private static StoredContent content(String text) {
+        return StoredContent.identity(text);
+    }
+}
@@ -0,0 +1,209 @@
+package me.zedaster.articleservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.zedaster.articleservice.concurrency.Bulkheads;
+import me.zedaster.articleservice.configuration.DownstreamConfiguration;
+import me.zedaster.articleservice.configuration.cache.RecentArticlesCacheConfiguration;
+import me.zedaster.articleservice.dto.article.ArticleCursor;
+import me.zedaster.articleservice.dto.article.ArticleSummary;
+import me.zedaster.articleservice.dto.article.Creator;
+import me.zedaster.articleservice.entity.ArticleInfo;
+import me.zedaster.articleservice.event.CreatorNameChangedEvent;
+import me.zedaster.articleservice.repository.ArticleInfoRepository;
+import me.zedaster.articleservice.repository.ArticleInfoSummary;
+import me.zedaster.articleservice.service.CreatorService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static me.zedaster.articleservice.util.TestUtils.createInstantOf;
+import static org.mockito.ArgumentMatchers.anyList;
+
+/**
+ * Tests for {@link RecentArticlesSnapshot}
+ */
+public class RecentArticlesSnapshotTest {
+    private static final Instant NEWEST_CREATED_AT = createInstantOf(2024, 1, 1, 17, 40, 0);
+
+    private ArticleInfoRepository articleInfoRepository;
+
+    private CreatorService creatorService;
+
+    private RecentArticlesSnapshot snapshot;
+
+    @BeforeEach
+    public void setUp() {
+        articleInfoRepository = Mockito.mock(ArticleInfoRepository.class);
+        creatorService = Mockito.mock(CreatorService.class);
+        Mockito.when(creatorService.getCreatorsByIds(anyList())).thenAnswer(inv -> inv.<List<Long>>getArgument(0)
+                .stream()
+                .map(id -> new Creator(id, "user" + id))
+                .toList());
+
+        RecentArticlesCacheConfiguration configuration = new RecentArticlesCacheConfiguration();
+        configuration.setSize(5);
+        snapshot = new RecentArticlesSnapshot(configuration, articleInfoRepository, creatorService,
+                new Bulkheads(new DownstreamConfiguration(), new SimpleMeterRegistry()));
+    }
+
+    /**
+     * Checks that the snapshot is read once and pages inside it are served from memory
+     */
+    @Test
+    public void servePagesFromMemory() {
+        givenArticles(10);
+
+        Assertions.assertEquals(List.of(10L, 9L), ids(snapshot.getPage(0, 2)));
+        Assertions.assertEquals(List.of(8L, 7L, 6L), ids(snapshot.getPage(2, 3)));
+        Assertions.assertEquals("user10", snapshot.getPage(0, 1).orElseThrow().get(0).getCreator().getName());
+
+        Mockito.verify(articleInfoRepository, Mockito.times(1))
+                .findAllByOrderByCreatedAtDescIdDesc(PageRequest.ofSize(5));
+    }
+
+    /**
+     * Checks that pages outside of the snapshot must be read from the DB
+     */
+    @Test
+    public void pageOutsideOfSnapshot() {
+        givenArticles(10);
+
+        Assertions.assertTrue(snapshot.getPage(4, 2).isEmpty());
+        Assertions.assertTrue(snapshot.getPage(20, 2).isEmpty());
+    }
+
+    /**
+     * Checks that a snapshot with all existing articles serves any page
+     */
+    @Test
+    public void completeSnapshot() {
+        givenArticles(3);
+
+        Assertions.assertEquals(List.of(1L), ids(snapshot.getPage(2, 2)));
+        Assertions.assertEquals(List.of(), ids(snapshot.getPage(20, 2)));
+    }
+
+    /**
+     * Checks that a page after the cursor is served from the snapshot
+     */
+    @Test
+    public void servePageAfterCursor() {
+        givenArticles(10);
+        ArticleSummary third = snapshot.getPage(2, 1).orElseThrow().get(0);
+
+        Optional<List<ArticleSummary>> page = snapshot.getPageAfter(ArticleCursor.after(third), 2);
+
+        Assertions.assertEquals(List.of(7L, 6L), ids(page));
+        Assertions.assertTrue(snapshot.getPageAfter(ArticleCursor.after(third), 3).isEmpty());
+    }
+
+    /**
+     * Checks that a created article is added to the start and the oldest article is removed
+     */
+    @Test
+    public void addCreatedArticle() {
+        givenArticles(10);
+        snapshot.getPage(0, 1);
+        Mockito.when(creatorService.getCreator(11L)).thenReturn(new Creator(11L, "user11"));
+
+        ArticleInfo createdInfo = new ArticleInfo("Title 11", NEWEST_CREATED_AT.plusSeconds(60), 11L);
+        createdInfo.setId(11L);
+        snapshot.articleSaved(createdInfo);
+
+        Assertions.assertEquals(List.of(11L, 10L, 9L, 8L, 7L), ids(snapshot.getPage(0, 5)));
+        Assertions.assertTrue(snapshot.getPage(0, 6).isEmpty());
+    }
+
+    /**
+     * Checks that an updated article is replaced in place
+     */
+    @Test
+    public void replaceUpdatedArticle() {
+        givenArticles(10);
+        ArticleSummary old = snapshot.getPage(1, 1).orElseThrow().get(0);
+
+        ArticleInfo updatedInfo = new ArticleInfo("New title", old.getCreatedAt(), old.getCreator().getId());
+        updatedInfo.setId(old.getId());
+        snapshot.articleSaved(updatedInfo);
+
+        List<ArticleSummary> page = snapshot.getPage(0, 3).orElseThrow();
+        Assertions.assertEquals(List.of(10L, 9L, 8L), ids(Optional.of(page)));
+        Assertions.assertEquals("New title", page.get(1).getTitle());
+        Mockito.verify(creatorService, Mockito.never()).getCreator(Mockito.anyLong());
+    }
+
+    /**
+     * Checks that changed usernames are applied to the snapshot
+     */
+    @Test
+    public void applyChangedCreatorName() {
+        givenArticles(10);
+        snapshot.getPage(0, 1);
+
+        snapshot.onCreatorNameChanged(new CreatorNameChangedEvent(9L, "renamed"));
+
+        List<ArticleSummary> page = snapshot.getPage(0, 2).orElseThrow();
+        Assertions.assertEquals("user10", page.get(0).getCreator().getName());
+        Assertions.assertEquals("renamed", page.get(1).getCreator().getName());
+    }
+
+    /**
+     * Checks that the snapshot is read again if a username is unknown
+     */
+    @Test
+    public void reloadOnUnknownCreatorName() {
+        givenArticles(10);
+        snapshot.getPage(0, 1);
+
+        snapshot.onCreatorNameChanged(new CreatorNameChangedEvent(9L, null));
+        snapshot.getPage(0, 1);
+
+        Mockito.verify(articleInfoRepository, Mockito.times(2))
+                .findAllByOrderByCreatedAtDescIdDesc(PageRequest.ofSize(5));
+    }
+
+    /**
+     * Checks that fallback names of creators are served, but not kept in the snapshot
+     */
+    @Test
+    public void dontKeepFallbackCreatorNames() {
+        givenArticles(10);
+        Mockito.when(creatorService.getCreatorsByIds(anyList())).thenAnswer(inv -> inv.<List<Long>>getArgument(0)
+                .stream()
+                .map(id -> new Creator(id, "[unknown]", true))
+                .toList());
+
+        Assertions.assertEquals("[unknown]", snapshot.getPage(0, 1).orElseThrow().get(0).getCreator().getName());
+        snapshot.getPage(0, 1);
+
+        Mockito.verify(articleInfoRepository, Mockito.times(2))
+                .findAllByOrderByCreatedAtDescIdDesc(PageRequest.ofSize(5));
+    }
+
+    /**
+     * Creates articles with IDs from 1 to the count, the article with the biggest ID is the newest. Every article
+     * has its own creator with the same ID.
+     */
+    private void givenArticles(int count) {
+        List<ArticleInfoSummary> infos = LongStream.iterate(count, id -> id >= 1, id -> id - 1)
+                .mapToObj(id -> new ArticleInfoSummary(id, "Title " + id,
+                        NEWEST_CREATED_AT.minusSeconds(count - id), id))
+                .limit(5)
+                .toList();
+        Mockito.when(articleInfoRepository.findAllByOrderByCreatedAtDescIdDesc(PageRequest.ofSize(5)))
+                .thenReturn(infos);
+    }
+
+    private static List<Long> ids(Optional<List<ArticleSummary>> page) {
+        return page.orElseThrow().stream()
+                .map(ArticleSummary::getId)
+                .toList();
+    }
+}
@@ -0,0 +1,112 @@
+package me.zedaster.articleservice.concurrency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tests for {@link Bulkhead}
+ */
+public class BulkheadTest {
+    /**
+     * Checks that the result of the call is returned and the permit is released after the call
+     */
+    @Test
+    public void callReleasesPermit() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, Duration.ZERO);
+
+        Assertions.assertEquals("first", bulkhead.call(() -> "first"));
+        Assertions.assertEquals("second", bulkhead.call(() -> "second"));
+        Assertions.assertEquals(0, bulkhead.getRejectedCalls());
+    }
+
+    /**
+     * Checks that the permit is released when the call fails
+     */
+    @Test
+    public void failedCallReleasesPermit() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, Duration.ZERO);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> bulkhead.run(() -> {
+            throw new IllegalStateException();
+        }));
+        Assertions.assertEquals("ok", bulkhead.call(() -> "ok"));
+    }
+
+    /**
+     * Checks that the permit of an asynchronous call is held until the call completes
+     */
+    @Test
+    public void asyncCallHoldsPermitUntilCompletion() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, Duration.ZERO);
+        CompletableFuture<String> call = new CompletableFuture<>();
+
+        CompletableFuture<String> result = bulkhead.callAsync(() -> call);
+        Assertions.assertThrows(BulkheadFullException.class, () -> bulkhead.call(() -> "rejected"));
+
+        call.complete("first");
+        Assertions.assertEquals("first", result.join());
+        Assertions.assertEquals("second", bulkhead.call(() -> "second"));
+    }
+
+    /**
+     * Checks that calls over the limit are rejected and counted in the metrics, and the waits for permits are timed
+     */
+    @Test
+    public void rejectCallsOverLimit() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, Duration.ofMillis(10));
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        bulkhead.bindTo(meterRegistry);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<?> runningCall = executor.submit(() -> bulkhead.run(() -> {
+                started.countDown();
+                awaitUninterruptibly(finish);
+            }));
+            started.await();
+
+            BulkheadFullException ex = Assertions.assertThrows(BulkheadFullException.class,
+                    () -> bulkhead.call(() -> "rejected"));
+            Assertions.assertEquals("Too many concurrent calls to test!", ex.getMessage());
+
+            finish.countDown();
+            runningCall.get();
+        }
+
+        Assertions.assertEquals(1, bulkhead.getRejectedCalls());
+        Assertions.assertEquals(1.0, meterRegistry.get("bulkhead.rejected.calls")
+                .tag("downstream", "test")
+                .functionCounter()
+                .count());
+        Assertions.assertEquals(1.0, meterRegistry.get("bulkhead.available.permits")
+                .tag("downstream", "test")
+                .gauge()
+                .value());
+        Assertions.assertEquals(1, meterRegistry.get("bulkhead.wait")
+                .tags("downstream", "test", "outcome", "success")
+                .timer()
+                .count());
+        Assertions.assertEquals(1, meterRegistry.get("bulkhead.wait")
+                .tags("downstream", "test", "outcome", "error")
+                .timer()
+                .count());
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package me.zedaster.articleservice.concurrency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.zedaster.articleservice.configuration.DownstreamConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+/**
+ * Tests for {@link CircuitBreaker}
+ */
+public class CircuitBreakerTest {
+    private static final Duration OPEN_DURATION = Duration.ofMillis(50);
+
+    /**
+     * Checks that the circuit opens when enough calls fail and rejects calls after that
+     */
+    @Test
+    public void openAfterFailures() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", createSettings());
+
+        fail(circuitBreaker);
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        fail(circuitBreaker);
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        CircuitBreakerOpenException ex = Assertions.assertThrows(CircuitBreakerOpenException.class,
+                () -> circuitBreaker.call(() -> "rejected"));
+        Assertions.assertEquals("Circuit breaker of test is open!", ex.getMessage());
+        Assertions.assertEquals(1, circuitBreaker.getNotPermittedCalls());
+    }
+
+    /**
+     * Checks that the circuit stays closed while the share of failed calls is below the threshold
+     */
+    @Test
+    public void stayClosedBelowThreshold() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", createSettings());
+
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals("ok", circuitBreaker.call(() -> "ok"));
+            Assertions.assertEquals("ok", circuitBreaker.call(() -> "ok"));
+            Assertions.assertEquals("ok", circuitBreaker.call(() -> "ok"));
+            fail(circuitBreaker);
+        }
+
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        Assertions.assertEquals(0, circuitBreaker.getTransitions(CircuitBreaker.State.OPEN));
+    }
+
+    /**
+     * Checks that successful calls that are too slow open the circuit
+     */
+    @Test
+    public void slowCallsOpenCircuit() {
+        DownstreamConfiguration.CircuitBreaker settings = createSettings();
+        settings.setSlowCallDuration(Duration.ofMillis(1));
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", settings);
+
+        for (int i = 0; i < 2; i++) {
+            circuitBreaker.call(() -> {
+                sleep(Duration.ofMillis(10));
+                return "slow";
+            });
+        }
+
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    /**
+     * Checks that a successful probe in the half-open state closes the circuit
+     */
+    @Test
+    public void successfulProbeClosesCircuit() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", createSettings());
+        fail(circuitBreaker);
+        fail(circuitBreaker);
+
+        sleep(OPEN_DURATION.multipliedBy(2));
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        Assertions.assertEquals("probe", circuitBreaker.call(() -> "probe"));
+
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        Assertions.assertEquals("ok", circuitBreaker.call(() -> "ok"));
+    }
+
+    /**
+     * Checks that a failed probe opens the circuit again and only the allowed number of probes is let through
+     */
+    @Test
+    public void failedProbeOpensCircuit() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", createSettings());
+        fail(circuitBreaker);
+        fail(circuitBreaker);
+        sleep(OPEN_DURATION.multipliedBy(2));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> circuitBreaker.call(() -> {
+            // The probe is still running, so other calls are not let through
+            Assertions.assertThrows(CircuitBreakerOpenException.class, () -> circuitBreaker.call(() -> "rejected"));
+            throw new IllegalStateException();
+        }));
+
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Assertions.assertEquals(2, circuitBreaker.getTransitions(CircuitBreaker.State.OPEN));
+    }
+
+    /**
+     * Checks that exceptions that are not failures of the service don't open the circuit
+     */
+    @Test
+    public void ignoreNotRecordedExceptions() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", createSettings(),
+                e -> !(e instanceof IllegalArgumentException));
+
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> circuitBreaker.call(() -> {
+                throw new IllegalArgumentException();
+            }));
+        }
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        fail(circuitBreaker);
+        fail(circuitBreaker);
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    /**
+     * Checks that the state and the transitions are exposed as metrics
+     */
+    @Test
+    public void exposeMetrics() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", createSettings());
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker.bindTo(meterRegistry);
+
+        fail(circuitBreaker);
+        fail(circuitBreaker);
+        Assertions.assertThrows(CircuitBreakerOpenException.class, () -> circuitBreaker.call(() -> "rejected"));
+
+        Assertions.assertEquals(1, meterRegistry.get("circuit.breaker.state")
+                .tag("downstream", "test").tag("state", "open").gauge().value());
+        Assertions.assertEquals(0, meterRegistry.get("circuit.breaker.state")
+                .tag("downstream", "test").tag("state", "closed").gauge().value());
+        Assertions.assertEquals(1, meterRegistry.get("circuit.breaker.transitions")
+                .tag("downstream", "test").tag("state", "open").functionCounter().count());
+        Assertions.assertEquals(1, meterRegistry.get("circuit.breaker.not.permitted.calls")
+                .tag("downstream", "test").functionCounter().count());
+    }
+
+    private static DownstreamConfiguration.CircuitBreaker createSettings() {
+        DownstreamConfiguration.CircuitBreaker settings = new DownstreamConfiguration.CircuitBreaker();
+        settings.setSlidingWindowSize(4);
+        settings.setMinimumCalls(2);
+        settings.setFailureRateThreshold(0.5);
+        settings.setOpenDuration(OPEN_DURATION);
+        settings.setHalfOpenCalls(1);
+        return settings;
+    }
+
+    private static void fail(CircuitBreaker circuitBreaker) {
+        Assertions.assertThrows(IllegalStateException.class, () -> circuitBreaker.call(() -> {
+            throw new IllegalStateException();
+        }));
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package me.zedaster.articleservice.concurrency;
+
+import me.zedaster.articleservice.configuration.DownstreamConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Tests for {@link RequestHedger}
+ */
+public class RequestHedgerTest {
+    /**
+     * Checks that a call is just made if hedging is disabled
+     */
+    @Test
+    public void disabledHedging() {
+        DownstreamConfiguration.Hedging settings = createSettings(1.0);
+        settings.setEnabled(false);
+        RequestHedger hedger = new RequestHedger("test", settings, Runnable::run);
+        CompletableFuture<String> call = new CompletableFuture<>();
+
+        Assertions.assertSame(call, hedger.call(() -> call));
+    }
+
+    /**
+     * Checks that a call that completes in time is not hedged
+     */
+    @Test
+    public void fastCallIsNotHedged() {
+        RequestHedger hedger = new RequestHedger("test", createSettings(1.0), Runnable::run);
+
+        Assertions.assertEquals("first", hedger.call(() -> CompletableFuture.completedFuture("first")).join());
+        Assertions.assertEquals(0, hedger.getHedges());
+    }
+
+    /**
+     * Checks that a slow call is hedged and the result of the hedge is taken if it completes first
+     */
+    @Test
+    public void slowCallIsHedged() throws Exception {
+        RequestHedger hedger = new RequestHedger("test", createSettings(1.0), Runnable::run);
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> result = hedger.call(() -> calls.incrementAndGet() == 1
+                ? new CompletableFuture<>()
+                : CompletableFuture.completedFuture("second"));
+
+        Assertions.assertEquals("second", result.get(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, hedger.getHedges());
+        Assertions.assertEquals(1, hedger.getWonHedges());
+    }
+
+    /**
+     * Checks that the call that has lost is cancelled, and cancelling the result cancels both calls
+     */
+    @Test
+    public void cancelNotNeededCalls() {
+        RequestHedger hedger = new RequestHedger("test", createSettings(1.0), Runnable::run);
+        // The hedges are made in another thread
+        List<CompletableFuture<String>> calls = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> result = hedger.call(() -> {
+            CompletableFuture<String> call = new CompletableFuture<>();
+            calls.add(call);
+            return call;
+        });
+        awaitUntil(() -> calls.size() == 2);
+
+        calls.get(1).complete("second");
+        Assertions.assertEquals("second", result.join());
+        Assertions.assertTrue(calls.get(0).isCancelled());
+
+        calls.clear();
+        CompletableFuture<String> cancelled = hedger.call(() -> {
+            CompletableFuture<String> call = new CompletableFuture<>();
+            calls.add(call);
+            return call;
+        });
+        awaitUntil(() -> calls.size() == 2);
+        cancelled.cancel(true);
+        Assertions.assertTrue(calls.stream().allMatch(CompletableFuture::isCancelled));
+    }
+
+    /**
+     * Checks that the delay doesn't shrink when hedges keep winning, because the latencies of the lost calls are
+     * recorded too
+     */
+    @Test
+    public void keepDelayWhenHedgesWin() {
+        DownstreamConfiguration.Hedging settings = createSettings(1.0);
+        settings.setInitialDelay(Duration.ofMillis(20));
+        settings.setMinDelay(Duration.ofMillis(1));
+        settings.setDelayPercentile(0.9);
+        RequestHedger hedger = new RequestHedger("test", settings, Runnable::run);
+
+        for (int i = 0; i < 200; i++) {
+            if (i % 5 == 0) {
+                // A slow call whose hedge wins
+                AtomicInteger calls = new AtomicInteger();
+                CompletableFuture<String> result = hedger.call(() -> calls.incrementAndGet() == 1
+                        ? new CompletableFuture<>()
+                        : CompletableFuture.completedFuture("second"));
+                Assertions.assertEquals("second", result.join());
+            } else {
+                CompletableFuture<String> first = new CompletableFuture<>();
+                CompletableFuture<String> result = hedger.call(() -> first);
+                first.complete("first");
+                Assertions.assertEquals("first", result.join());
+            }
+        }
+
+        Assertions.assertEquals(40, hedger.getWonHedges());
+        Assertions.assertTrue(hedger.getDelay().compareTo(Duration.ofMillis(20)) >= 0,
+                "Delay has shrunk to " + hedger.getDelay());
+    }
+
+    /**
+     * Checks that hedges don't exceed the configured share of the calls
+     */
+    @Test
+    public void hedgesAreLimitedByBudget() {
+        RequestHedger hedger = new RequestHedger("test", createSettings(0.5), Runnable::run);
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(hedger.call(CompletableFuture::new));
+        }
+        awaitUntil(() -> hedger.getHedges() + hedger.getSkippedHedges() == 4);
+
+        Assertions.assertEquals(2, hedger.getHedges());
+        Assertions.assertEquals(2, hedger.getSkippedHedges());
+        Assertions.assertTrue(results.stream().noneMatch(CompletableFuture::isDone));
+    }
+
+    /**
+     * Checks that the result fails only when both the call and its hedge fail
+     */
+    @Test
+    public void failOnlyWhenBothCallsFail() {
+        RequestHedger hedger = new RequestHedger("test", createSettings(1.0), Runnable::run);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> result = hedger.call(() -> calls.incrementAndGet() == 1
+                ? first
+                : CompletableFuture.failedFuture(new IllegalStateException("second")));
+        awaitUntil(() -> hedger.getHedges() == 1);
+        Assertions.assertFalse(result.isDone());
+
+        first.completeExceptionally(new IllegalStateException("first"));
+        CompletionException ex = Assertions.assertThrows(CompletionException.class, result::join);
+        Assertions.assertEquals("first", ex.getCause().getMessage());
+    }
+
+    /**
+     * Checks that a call that fails before the delay is not hedged
+     */
+    @Test
+    public void failedCallIsNotHedged() throws Exception {
+        RequestHedger hedger = new RequestHedger("test", createSettings(1.0), Runnable::run);
+        CompletableFuture<String> first = new CompletableFuture<>();
+
+        CompletableFuture<String> result = hedger.call(() -> first);
+        first.completeExceptionally(new IllegalStateException("first"));
+        Thread.sleep(100);
+
+        Assertions.assertTrue(result.isCompletedExceptionally());
+        Assertions.assertEquals(0, hedger.getHedges());
+    }
+
+    private static DownstreamConfiguration.Hedging createSettings(double maxHedgeRatio) {
+        DownstreamConfiguration.Hedging settings = new DownstreamConfiguration.Hedging();
+        settings.setEnabled(true);
+        settings.setInitialDelay(Duration.ofMillis(50));
+        settings.setMaxHedgeRatio(maxHedgeRatio);
+        return settings;
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(1).toNanos();
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "Condition is not met in time");
+            Thread.onSpinWait();
+        }
+    }
+}
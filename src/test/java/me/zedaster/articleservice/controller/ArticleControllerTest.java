@@ -1,28 +1,46 @@
 package me.zedaster.articleservice.controller;
 
 import me.zedaster.articleservice.dto.article.Article;
+import me.zedaster.articleservice.dto.article.ArticleHead;
+import me.zedaster.articleservice.dto.article.ArticleLookup;
+import me.zedaster.articleservice.dto.article.ArticleSearchResult;
 import me.zedaster.articleservice.dto.article.ArticleSummary;
+import me.zedaster.articleservice.dto.article.ArticleSummaryPage;
 import me.zedaster.articleservice.dto.article.Creator;
+import me.zedaster.articleservice.dto.content.StoredContent;
 import me.zedaster.articleservice.entity.ArticleInfo;
 import me.zedaster.articleservice.service.ArticleService;
+import me.zedaster.articleservice.util.Hashes;
 import me.zedaster.articleservice.util.TestUtils;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -68,6 +86,67 @@ public class ArticleControllerTest {
                 .andExpect(jsonPath("$.creator.name").value("john"));
     }
 
+    /**
+     * Checks if compressed content of an article is decoded into the JSON and special characters are escaped
+     * @throws Exception If something in the mock request went wrong
+     */
+    @Test
+    public void getArticleWithCompressedContent() throws Exception {
+        Creator fakeCreator = new Creator(123L, "john");
+        ArticleInfo fakeInfo = new ArticleInfo("a".repeat(15), TestUtils.createInstantOf(2021, 1, 1, 12, 30, 0), 123L);
+        fakeInfo.setId(321L);
+        String text = "Line with \"quotes\" and \\ slash\n".repeat(1_000);
+        Article fakeArticle = new Article(fakeInfo, StoredContent.gzip(text), fakeCreator);
+
+        when(articleService.getArticle(321L)).thenReturn(Optional.of(fakeArticle));
+
+        mockMvc.perform(get("/articles/321"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.*", hasSize(5)))
+                .andExpect(jsonPath("$.content").value(text));
+    }
+
+    /**
+     * Checks if several articles are streamed in the requested order with missing and failed ones marked
+     * @throws Exception If something in the mock request went wrong
+     */
+    @Test
+    public void getSeveralArticles() throws Exception {
+        Creator fakeCreator = new Creator(123L, "john");
+        Instant createdAt = TestUtils.createInstantOf(2021, 1, 1, 12, 30, 0);
+        ArticleInfo fakeInfo = new ArticleInfo("a".repeat(15), createdAt, 123L);
+        fakeInfo.setId(321L);
+        Article fakeArticle = new Article(fakeInfo, "a".repeat(100), fakeCreator);
+
+        AtomicBoolean closed = new AtomicBoolean();
+        when(articleService.getArticles(List.of(5L, 321L, 7L))).thenReturn(Stream.of(
+                ArticleLookup.missing(5L),
+                ArticleLookup.found(fakeArticle),
+                ArticleLookup.failed(7L, "S3 didn't respond in PT2S!")).onClose(() -> closed.set(true)));
+
+        MvcResult result = mockMvc.perform(get("/articles?ids=5,321,7"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].*", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(5L))
+                .andExpect(jsonPath("$[0].found").value(false))
+                .andExpect(jsonPath("$[1].*", hasSize(3)))
+                .andExpect(jsonPath("$[1].id").value(321L))
+                .andExpect(jsonPath("$[1].found").value(true))
+                .andExpect(jsonPath("$[1].article.title").value("a".repeat(15)))
+                .andExpect(jsonPath("$[1].article.content").value("a".repeat(100)))
+                .andExpect(jsonPath("$[1].article.creator.name").value("john"))
+                .andExpect(jsonPath("$[2].*", hasSize(3)))
+                .andExpect(jsonPath("$[2].id").value(7L))
+                .andExpect(jsonPath("$[2].found").value(true))
+                .andExpect(jsonPath("$[2].error").value("S3 didn't respond in PT2S!"));
+        Assertions.assertTrue(closed.get());
+    }
+
     /**
      * Checks if getter of recent articles is called
      * @throws Exception If something in the mock request went wrong
@@ -100,6 +179,30 @@ public class ArticleControllerTest {
                 .andExpect(jsonPath("$[1].creator.name").value("bill"));
     }
 
+    /**
+     * Checks if the search is called with the query and the default page, and the results are written with their
+     * highlights
+     * @throws Exception If something in the mock request went wrong
+     */
+    @Test
+    public void searchArticles() throws Exception {
+        Instant createdAt = TestUtils.createInstantOf(2021, 1, 1, 12, 30, 0);
+        ArticleSummary summary = new ArticleSummary(1L, "a".repeat(15), createdAt, new Creator(123L, "john"));
+        when(articleService.searchArticles("full text", 1)).thenReturn(List.of(
+                new ArticleSearchResult(summary, "a".repeat(15), "About <b>full</b> <b>text</b>", 1.5f)));
+
+        mockMvc.perform(get("/articles/search").param("query", "full text"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.*", hasSize(1)))
+                .andExpect(jsonPath("$[0].summary.id").value(1L))
+                .andExpect(jsonPath("$[0].summary.title").value("a".repeat(15)))
+                .andExpect(jsonPath("$[0].summary.createdAt").value("2021-01-01T12:30:00Z"))
+                .andExpect(jsonPath("$[0].summary.creator.name").value("john"))
+                .andExpect(jsonPath("$[0].highlightedTitle").value("a".repeat(15)))
+                .andExpect(jsonPath("$[0].snippet").value("About <b>full</b> <b>text</b>"))
+                .andExpect(jsonPath("$[0].score").value(1.5));
+    }
+
     /**
      * Checks if getter of recent articles support default page
      * @throws Exception If something in the mock request went wrong
@@ -113,4 +216,205 @@ public class ArticleControllerTest {
 
         Mockito.verify(articleService, times(1)).getRecentArticleSummaries(1);
     }
+
+    /**
+     * Checks if getter of recent articles uses the cursor instead of the page and returns the next cursor
+     * @throws Exception If something in the mock request went wrong
+     */
+    @Test
+    public void getRecentArticlesByCursor() throws Exception {
+        Instant createdAt = TestUtils.createInstantOf(2021, 1, 1, 12, 30, 0);
+        List<ArticleSummary> articleSummaries = List.of(
+                new ArticleSummary(1L, "a".repeat(15), createdAt, new Creator(123L, "john")));
+        when(articleService.getRecentArticleSummaries("abc"))
+                .thenReturn(new ArticleSummaryPage(articleSummaries, "def"));
+
+        mockMvc.perform(get("/articles/recent?page=3&cursor=abc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ArticleController.NEXT_CURSOR_HEADER, "def"))
+                .andExpect(jsonPath("$.*", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(1L));
+
+        Mockito.verify(articleService, times(0)).getRecentArticleSummaries(3);
+    }
+
+    /**
+     * Checks if there is no header with the next cursor on the last page
+     * @throws Exception If something in the mock request went wrong
+     */
+    @Test
+    public void getLastPageOfRecentArticlesByCursor() throws Exception {
+        when(articleService.getRecentArticleSummaries(""))
+                .thenReturn(new ArticleSummaryPage(Collections.emptyList(), null));
+
+        mockMvc.perform(get("/articles/recent?cursor="))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(ArticleController.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$.*", hasSize(0)));
+    }
+
+    /**
+     * Checks if an article with a known content hash is returned with its entity tag
+     * @throws Exception If something in the mock request went wrong
+     */
+    @Test
+    public void getArticleWithEntityTag() throws Exception {
+        Article fakeArticle = createArticleWithContentHash();
+        when(articleService.getArticle(321L)).thenReturn(Optional.of(fakeArticle));
+
+        mockMvc.perform(get("/articles/321"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + fakeArticle.getEntityTag() + "\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("$.*", hasSize(5)));
+
+        Mockito.verify(articleService, times(0)).getArticleHead(anyLong());
+    }
+
+    /**
+     * Checks if the content of an article is not fetched if the client has the actual version
+     * @throws Exception If something in the mock request went wrong
+     */
+    @Test
+    public void getNotModifiedArticle() throws Exception {
+        ArticleHead head = createHeadWithContentHash();
+        when(articleService.getArticleHead(321L)).thenReturn(Optional.of(head));
+        String entityTag = "\"" + head.getEntityTag() + "\"";
+
+        mockMvc.perform(get("/articles/321").header(HttpHeaders.IF_NONE_MATCH, entityTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, entityTag));
+
+        Mockito.verify(articleService, times(0)).getArticle(anyLong());
+        Mockito.verify(articleService, times(0)).getArticle(any(ArticleHead.class));
+    }
+
+    /**
+     * Checks if a changed article is returned if the client has an old version, and its info and creator are not read
+     * again
+     * @throws Exception If something in the mock request went wrong
+     */
+    @Test
+    public void getModifiedArticle() throws Exception {
+        ArticleHead head = createHeadWithContentHash();
+        Article fakeArticle = createArticleWithContentHash();
+        when(articleService.getArticleHead(321L)).thenReturn(Optional.of(head));
+        when(articleService.getArticle(head)).thenReturn(fakeArticle);
+
+        mockMvc.perform(get("/articles/321").header(HttpHeaders.IF_NONE_MATCH, "\"old\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + fakeArticle.getEntityTag() + "\""))
+                .andExpect(jsonPath("$.id").value(321L));
+
+        Mockito.verify(articleService, times(0)).getArticle(anyLong());
+    }
+
+    /**
+     * Checks if a conditional request of an article that doesn't exist gets 404 status
+     * @throws Exception If something in the mock request went wrong
+     */
+    @Test
+    public void getMissingArticleWithEntityTag() throws Exception {
+        when(articleService.getArticleHead(321L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/articles/321").header(HttpHeaders.IF_NONE_MATCH, "\"old\""))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Checks if the same list of recent articles is not sent again
+     * @throws Exception If something in the mock request went wrong
+     */
+    @Test
+    public void getNotModifiedRecentArticles() throws Exception {
+        Instant createdAt = TestUtils.createInstantOf(2021, 1, 1, 12, 30, 0);
+        List<ArticleSummary> articleSummaries = List.of(
+                new ArticleSummary(1L, "a".repeat(15), createdAt, new Creator(123L, "john")));
+        when(articleService.getRecentArticleSummaries(1)).thenReturn(articleSummaries);
+
+        String entityTag = mockMvc.perform(get("/articles/recent"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=5, must-revalidate"))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/articles/recent").header(HttpHeaders.IF_NONE_MATCH, entityTag))
+                .andExpect(status().isNotModified());
+    }
+
+    /**
+     * Checks if recent articles with fallback names of creators are sent without an entity tag
+     * @throws Exception If something in the mock request went wrong
+     */
+    @Test
+    public void getRecentArticlesWithFallbackCreator() throws Exception {
+        Instant createdAt = TestUtils.createInstantOf(2021, 1, 1, 12, 30, 0);
+        List<ArticleSummary> articleSummaries = List.of(
+                new ArticleSummary(1L, "a".repeat(15), createdAt, new Creator(123L, "[unknown]", true)));
+        when(articleService.getRecentArticleSummaries(1)).thenReturn(articleSummaries);
+
+        mockMvc.perform(get("/articles/recent"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$[0].creator.name").value("[unknown]"))
+                .andExpect(jsonPath("$[0].creator.fallback").doesNotExist());
+    }
+
+    /**
+     * Checks if compressed content is sent as it's stored to a client that accepts gzip
+     * @throws Exception If something in the mock request went wrong
+     */
+    @Test
+    public void getCompressedArticleContent() throws Exception {
+        StoredContent content = StoredContent.gzip("a".repeat(100));
+        when(articleService.getStoredContent(321L)).thenReturn(Optional.of(content));
+
+        mockMvc.perform(get("/articles/321/content").header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(content().bytes(content.getData()));
+    }
+
+    /**
+     * Checks if compressed content is decoded for a client that doesn't accept gzip
+     * @throws Exception If something in the mock request went wrong
+     */
+    @Test
+    public void getDecodedArticleContent() throws Exception {
+        when(articleService.getStoredContent(321L)).thenReturn(Optional.of(StoredContent.gzip("a".repeat(100))));
+
+        mockMvc.perform(get("/articles/321/content").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().string("a".repeat(100)));
+    }
+
+    /**
+     * Checks if getter of content of a non-existing article returns 404
+     * @throws Exception If something in the mock request went wrong
+     */
+    @Test
+    public void getContentOfNonExistingArticle() throws Exception {
+        when(articleService.getStoredContent(321L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/articles/321/content"))
+                .andExpect(status().isNotFound());
+    }
+
+    private static Article createArticleWithContentHash() {
+        return new Article(createInfoWithContentHash(), "a".repeat(100), new Creator(123L, "john"));
+    }
+
+    private static ArticleHead createHeadWithContentHash() {
+        return new ArticleHead(createInfoWithContentHash(), new Creator(123L, "john"));
+    }
+
+    private static ArticleInfo createInfoWithContentHash() {
+        Instant createdAt = TestUtils.createInstantOf(2021, 1, 1, 12, 30, 0);
+        ArticleInfo fakeInfo = new ArticleInfo("a".repeat(15), createdAt, 123L);
+        fakeInfo.setId(321L);
+        fakeInfo.setContentHash(Hashes.sha256("a".repeat(100)));
+        return fakeInfo;
+    }
 }
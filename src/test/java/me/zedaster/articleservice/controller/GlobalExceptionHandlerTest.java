@@ -3,6 +3,7 @@ package me.zedaster.articleservice.controller;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Path;
+import me.zedaster.articleservice.concurrency.BulkheadFullException;
 import me.zedaster.articleservice.dto.article.ArticleData;
 import me.zedaster.articleservice.service.ArticleService;
 import me.zedaster.articleservice.service.ArticleServiceException;
@@ -70,6 +71,17 @@ public class GlobalExceptionHandlerTest {
                 .andExpect(jsonPath("$.message").value("Article not found"));
     }
 
+    @Test
+    public void handleBulkheadFullException() throws Exception {
+        when(articleService.getArticle(anyLong()))
+                .thenThrow(new BulkheadFullException("Too many concurrent calls to s3!", null));
+
+        mockMvc.perform(get("/articles/1"))
+                .andExpect(status().is(503))
+                .andExpect(jsonPath("$.*", hasSize(1)))
+                .andExpect(jsonPath("$.message").value("Service is overloaded, try again later!"));
+    }
+
     @Test
     public void handleConstraintViolationException() throws Exception {
         ConstraintViolation<?> mockViolation1 = mockConstraintViolation("first", "First validation exception");
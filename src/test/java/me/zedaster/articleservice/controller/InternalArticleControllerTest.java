@@ -1,6 +1,8 @@
 package me.zedaster.articleservice.controller;
 
 import me.zedaster.articleservice.dto.article.ArticleData;
+import me.zedaster.articleservice.dto.request.CreateArticleRequest;
+import me.zedaster.articleservice.dto.response.CreateArticleResult;
 import me.zedaster.articleservice.service.ArticleService;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -10,6 +12,8 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -65,6 +69,39 @@ public class InternalArticleControllerTest {
         verify(articleService, times(1)).createArticle(anyLong(), any());
     }
 
+    /**
+     * Check if the controller passes a batch to the service and returns the result of every article
+     */
+    @Test
+    public void createArticles() throws Exception {
+        List<CreateArticleRequest> requests = List.of(
+                new CreateArticleRequest(TEST_TITLE, TEST_CONTENT, 1),
+                new CreateArticleRequest(TEST_TITLE, TEST_CONTENT, 2));
+        when(articleService.createArticles(requests)).thenReturn(List.of(
+                CreateArticleResult.created(123L),
+                CreateArticleResult.failed("User already has an article with the same title!")));
+
+        String contentJson = """
+                {
+                  "articles": [
+                    {"title": "%1$s", "content": "%2$s", "creatorId": 1},
+                    {"title": "%1$s", "content": "%2$s", "creatorId": 2}
+                  ]
+                }""".formatted(TEST_TITLE, TEST_CONTENT);
+
+        mockMvc.perform(post("/internal/articles/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(contentJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results", hasSize(2)))
+                .andExpect(jsonPath("$.results[0].*", hasSize(1)))
+                .andExpect(jsonPath("$.results[0].articleId").value(123))
+                .andExpect(jsonPath("$.results[1].*", hasSize(1)))
+                .andExpect(jsonPath("$.results[1].error").value("User already has an article with the same title!"));
+
+        verify(articleService, times(1)).createArticles(requests);
+    }
+
     /**
      * Check if the controller calls update method in the service
      */
@@ -0,0 +1,79 @@
+package me.zedaster.articleservice.controller;
+
+import me.zedaster.articleservice.service.CreatorService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.Mockito.times;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests for {@link InternalCreatorController}
+ */
+@WebMvcTest(InternalCreatorController.class)
+public class InternalCreatorControllerTest {
+    /**
+     * Mock MVC object for testing.
+     */
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Mock creator service
+     */
+    @MockitoBean
+    private CreatorService creatorService;
+
+    /**
+     * Check if the controller passes the new username of a creator to the service
+     */
+    @Test
+    public void updateCreator() throws Exception {
+        String contentJson = """
+                {
+                  "newUsername": "john"
+                }""";
+
+        mockMvc.perform(put("/internal/creators/12")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(contentJson))
+                .andExpect(status().isOk());
+
+        Mockito.verify(creatorService, times(1)).updateCreatorName(12L, "john");
+    }
+
+    /**
+     * Check if the controller passes all new usernames of a batch to the service
+     */
+    @Test
+    public void updateCreators() throws Exception {
+        String contentJson = """
+                {
+                  "newUsernames": {
+                    "1": "john",
+                    "2": "billy",
+                    "3": null
+                  }
+                }""";
+
+        mockMvc.perform(put("/internal/creators")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(contentJson))
+                .andExpect(status().isOk());
+
+        Map<Long, String> expected = new HashMap<>();
+        expected.put(1L, "john");
+        expected.put(2L, "billy");
+        expected.put(3L, null);
+        Mockito.verify(creatorService, times(1)).updateCreatorNames(expected);
+    }
+}
@@ -1,5 +1,6 @@
 package me.zedaster.articleservice.controller;
 
+import me.zedaster.articleservice.dto.article.ArticleSummaryPage;
 import me.zedaster.articleservice.dto.article.Creator;
 import me.zedaster.articleservice.service.ArticleService;
 import org.junit.jupiter.api.Test;
@@ -9,8 +10,12 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -54,4 +59,19 @@ public class ProtectedArticleControllerTest {
         Mockito.verify(articleService, times(1)).getArticleSummariesByCreator(new Creator(1, "test"), 2);
     }
 
+    /**
+     * Check if getter of user articles uses the cursor and returns the next cursor
+     */
+    @Test
+    public void getUserArticlesByCursor() throws Exception {
+        Creator creator = new Creator(1, "test");
+        when(articleService.getArticleSummariesByCreator(creator, "abc"))
+                .thenReturn(new ArticleSummaryPage(List.of(), "def"));
+
+        mockMvc.perform(get("/protected/articles/user?tokenPayload.sub=1&tokenPayload.username=test&cursor=abc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ArticleController.NEXT_CURSOR_HEADER, "def"));
+
+        Mockito.verify(articleService, times(1)).getArticleSummariesByCreator(creator, "abc");
+    }
 }
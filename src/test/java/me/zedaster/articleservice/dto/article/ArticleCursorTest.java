@@ -0,0 +1,42 @@
+package me.zedaster.articleservice.dto.article;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Tests for {@link ArticleCursor}
+ */
+public class ArticleCursorTest {
+    /**
+     * Checks if the decoded cursor is equal to the encoded one
+     */
+    @Test
+    public void encodeAndDecode() {
+        ArticleCursor cursor = new ArticleCursor(Instant.ofEpochSecond(1_700_000_000L, 123_456_000), 42L);
+
+        Optional<ArticleCursor> decoded = ArticleCursor.decode(cursor.encode());
+
+        Assertions.assertEquals(Optional.of(cursor), decoded);
+    }
+
+    /**
+     * Checks if an empty string means the start of the list
+     */
+    @Test
+    public void decodeEmptyCursor() {
+        Assertions.assertTrue(ArticleCursor.decode("").isEmpty());
+    }
+
+    /**
+     * Checks if an incorrect string can't be decoded
+     */
+    @Test
+    public void decodeIncorrectCursor() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ArticleCursor.decode("%%%"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ArticleCursor.decode("YWJj"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ArticleCursor.decode("YTpiOmM"));
+    }
+}
@@ -0,0 +1,43 @@
+package me.zedaster.articleservice.dto.content;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Tests for {@link StoredContent}
+ */
+public class StoredContentTest {
+    /**
+     * Checks if contents are compared by their encodings and bytes without decoding them
+     */
+    @Test
+    public void compareEncodedBytes() {
+        StoredContent compressed = StoredContent.gzip("Some content");
+        StoredContent plain = StoredContent.identity("Some content");
+        byte[] data = compressed.getData();
+        StoredContent corrupted = new StoredContent(Arrays.copyOf(data, data.length - 4), ContentEncoding.GZIP);
+
+        Assertions.assertEquals(compressed, StoredContent.gzip("Some content"));
+        Assertions.assertEquals(compressed.hashCode(), StoredContent.gzip("Some content").hashCode());
+        Assertions.assertNotEquals(compressed, plain);
+        Assertions.assertEquals(compressed.decode(), plain.decode());
+        Assertions.assertNotEquals(compressed, corrupted);
+        Assertions.assertDoesNotThrow(corrupted::hashCode);
+    }
+
+    /**
+     * Checks if corrupted compressed data is found without decoding the content into a string
+     */
+    @Test
+    public void validateCompressedData() {
+        byte[] compressed = StoredContent.gzip("Some content").getData();
+        StoredContent corrupted = new StoredContent(Arrays.copyOf(compressed, compressed.length - 4),
+                ContentEncoding.GZIP);
+
+        StoredContent.gzip("Some content").validate();
+        Assertions.assertThrows(UncheckedIOException.class, corrupted::validate);
+    }
+}
@@ -0,0 +1,65 @@
+package me.zedaster.articleservice.http;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for {@link HttpPayloadSizeFilter}
+ */
+public class HttpPayloadSizeFilterTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final HttpPayloadSizeFilter filter = new HttpPayloadSizeFilter(meterRegistry);
+
+    /**
+     * Checks that sizes of the bodies of the request and the response are recorded with the URI pattern
+     */
+    @Test
+    public void recordPayloadSizes() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/articles/1");
+        request.setContent("{\"title\":\"Test\"}".getBytes(StandardCharsets.UTF_8));
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/articles/{id}");
+            res.getOutputStream().write("Created".getBytes(StandardCharsets.UTF_8));
+        });
+
+        Assertions.assertEquals(16.0, summary("http.server.request.size", "POST", "/articles/{id}").totalAmount());
+        Assertions.assertEquals(7.0, summary("http.server.response.size", "POST", "/articles/{id}").totalAmount());
+    }
+
+    /**
+     * Checks that the body of an asynchronous response is recorded only when the response is complete
+     */
+    @Test
+    public void recordAsyncResponseOnCompletion() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/articles");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> req.startAsync(req, res));
+        AsyncContext asyncContext = request.getAsyncContext();
+        asyncContext.getResponse().getOutputStream().write(new byte[100]);
+        Assertions.assertNull(meterRegistry.find("http.server.response.size").summary());
+
+        asyncContext.complete();
+
+        DistributionSummary responseSize = summary("http.server.response.size", "GET", "UNKNOWN");
+        Assertions.assertEquals(1, responseSize.count());
+        Assertions.assertEquals(100.0, responseSize.totalAmount());
+        Assertions.assertNull(meterRegistry.find("http.server.request.size").summary());
+    }
+
+    private DistributionSummary summary(String name, String method, String uri) {
+        return meterRegistry.get(name).tags("method", method, "uri", uri).summary();
+    }
+}
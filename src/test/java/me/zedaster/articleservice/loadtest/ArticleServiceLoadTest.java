@@ -0,0 +1,208 @@
+package me.zedaster.articleservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+
+/**
+ * Load test of the whole app over HTTP. The app runs with a real Postgres and MinIO in containers and with a stub of
+ * the auth service. Concurrent clients send a mix of reads and writes to the public, protected and internal
+ * endpoints. Throughput, latency percentiles and histograms and error rates are written to a JSON report.
+ * <br>
+ * Run with {@code mvn test -P load-test}. Settings are described in {@link LoadTestSettings}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.hibernate.ddl-auto=validate", "search.index.in-memory=true"})
+public class ArticleServiceLoadTest {
+    private static final String POSTGRES_IMAGE = "postgres:16-alpine";
+
+    private static final String MINIO_IMAGE = "minio/minio:RELEASE.2024-10-13T13-34-11Z";
+
+    /**
+     * Number of articles that are created before the load
+     */
+    private static final int SEEDED_ARTICLES = 500;
+
+    private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>(POSTGRES_IMAGE);
+
+    private static final MinIOContainer minIoContainer = new MinIOContainer(MINIO_IMAGE);
+
+    /**
+     * Stub of the auth service that knows every creator. Names of several creators are built from the query by a
+     * template.
+     */
+    private static final WireMockServer authService = new WireMockServer(WireMockConfiguration.options()
+            .dynamicPort()
+            .globalTemplating(true));
+
+    // The context is created before the tests run, so the downstream services must be started before it
+    static {
+        postgresContainer.start();
+        minIoContainer.start();
+        authService.start();
+        authService.stubFor(get(urlPathEqualTo("/internal/profile/usernames"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("[{{#each request.query.ids}}\"user{{this}}\"{{#unless @last}},{{/unless}}"
+                                + "{{/each}}]")));
+        authService.stubFor(get(urlPathMatching("/internal/profile/[0-9]+/username"))
+                .willReturn(aResponse().withBody("user{{request.path.[2]}}")));
+    }
+
+    @DynamicPropertySource
+    static void downstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+        registry.add("s3.endpoint-url", minIoContainer::getS3URL);
+        registry.add("s3.access-key", minIoContainer::getUserName);
+        registry.add("s3.secret-key", minIoContainer::getPassword);
+        registry.add("microservices.auth-service.url", authService::baseUrl);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterAll
+    static void afterAll() {
+        authService.stop();
+        minIoContainer.stop();
+        postgresContainer.stop();
+    }
+
+    /**
+     * Runs the load and checks that the share of failed requests doesn't exceed the configured one
+     */
+    @Test
+    public void runLoad() throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        LoadContext context = new LoadContext(URI.create("http://localhost:" + port), objectMapper,
+                seedArticles(httpClient));
+
+        runWorkers(settings, httpClient, context, settings.warmup(), new LoadRecorder());
+        LoadRecorder recorder = new LoadRecorder();
+        long start = System.nanoTime();
+        runWorkers(settings, httpClient, context, settings.duration(), recorder);
+        LoadTestReport report = recorder.report(settings, Duration.ofNanos(System.nanoTime() - start));
+
+        Path reportPath = Path.of(settings.reportPath());
+        Files.createDirectories(reportPath.toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportPath.toFile(), report);
+        LoadTestReport.OperationReport total = report.total();
+        System.out.printf("Load test: %.0f requests/s, p50 %.1f ms, p99 %.1f ms, p999 %.1f ms, error rate %.4f. "
+                        + "Report: %s%n", total.throughput(), total.latencyMillis().get("p50"),
+                total.latencyMillis().get("p99"), total.latencyMillis().get("p999"), total.errorRate(),
+                reportPath.toAbsolutePath());
+        Assertions.assertTrue(total.requests() > 0, "No requests were completed");
+        Assertions.assertTrue(total.errorRate() <= settings.maxErrorRate(),
+                "Error rate " + total.errorRate() + " exceeds " + settings.maxErrorRate());
+    }
+
+    /**
+     * Creates the articles that are read and updated during the load
+     */
+    private List<LoadContext.SeededArticle> seedArticles(HttpClient httpClient)
+            throws IOException, InterruptedException {
+        LoadContext seedContext = new LoadContext(URI.create("http://localhost:" + port), objectMapper, List.of());
+        List<LoadContext.SeededArticle> articles = new ArrayList<>(SEEDED_ARTICLES);
+        for (int i = 0; i < SEEDED_ARTICLES; i++) {
+            String title = "Seeded load test article " + i;
+            HttpRequest request = seedContext.post("/internal/articles", Map.of(
+                    "title", title,
+                    "content", seedContext.randomContent(),
+                    "creatorId", (long) i % LoadContext.CREATORS + 1));
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(200, response.statusCode(), "Can't seed articles: " + response.body());
+            articles.add(new LoadContext.SeededArticle(
+                    objectMapper.readTree(response.body()).get("articleId").asLong(), title));
+        }
+        return articles;
+    }
+
+    /**
+     * Runs concurrent clients for the duration. Each of them sends requests one after another.
+     */
+    private static void runWorkers(LoadTestSettings settings, HttpClient httpClient, LoadContext context,
+                                   Duration duration, LoadRecorder recorder) {
+        List<LoadOperation> operations = new ArrayList<>(settings.mix().keySet());
+        int[] cumulativeWeights = new int[operations.size()];
+        int totalWeight = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            totalWeight += settings.mix().get(operations.get(i));
+            cumulativeWeights[i] = totalWeight;
+        }
+        int weightSum = totalWeight;
+
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < settings.workers(); i++) {
+                workers.execute(() -> {
+                    while (System.nanoTime() < deadline) {
+                        int weight = ThreadLocalRandom.current().nextInt(weightSum);
+                        int index = 0;
+                        while (cumulativeWeights[index] <= weight) {
+                            index++;
+                        }
+                        send(httpClient, context, operations.get(index), recorder);
+                    }
+                });
+            }
+        }
+    }
+
+    private static void send(HttpClient httpClient, LoadContext context, LoadOperation operation,
+                             LoadRecorder recorder) {
+        HttpRequest request = operation.createRequest(context);
+        long start = System.nanoTime();
+        boolean failed;
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            failed = response.statusCode() >= 400;
+        } catch (IOException e) {
+            failed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        recorder.record(operation, System.nanoTime() - start, failed);
+    }
+}
@@ -0,0 +1,126 @@
+package me.zedaster.articleservice.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Data that the operations of a load test need to build their requests
+ */
+class LoadContext {
+    /**
+     * Number of creators the articles are spread over
+     */
+    static final int CREATORS = 50;
+
+    /**
+     * Number of pages of recent articles that are read
+     */
+    private static final int RECENT_PAGES = 5;
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private final URI baseUri;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Articles that exist before the load starts
+     */
+    private final List<SeededArticle> articles;
+
+    private final AtomicLong createdArticles = new AtomicLong();
+
+    /**
+     * Article that is created before the load
+     * @param id ID of the article
+     * @param title Title of the article, it's kept on updates
+     */
+    record SeededArticle(long id, String title) {
+    }
+
+    LoadContext(URI baseUri, ObjectMapper objectMapper, List<SeededArticle> articles) {
+        this.baseUri = baseUri;
+        this.objectMapper = objectMapper;
+        this.articles = articles;
+    }
+
+    SeededArticle randomArticle() {
+        return articles.get(ThreadLocalRandom.current().nextInt(articles.size()));
+    }
+
+    long randomCreatorId() {
+        return ThreadLocalRandom.current().nextLong(1, CREATORS + 1);
+    }
+
+    int randomPage() {
+        return ThreadLocalRandom.current().nextInt(1, RECENT_PAGES + 1);
+    }
+
+    /**
+     * Title that no other article has
+     */
+    String uniqueTitle() {
+        return "Load test article " + createdArticles.incrementAndGet();
+    }
+
+    /**
+     * Content of a random length. Contents repeat, like in a real service, so some of them are deduplicated.
+     */
+    String randomContent() {
+        int paragraphs = ThreadLocalRandom.current().nextInt(2, 100);
+        return ("Paragraph of a load test article number " + paragraphs + ". ").repeat(paragraphs * 3);
+    }
+
+    /**
+     * Creates a query that matches the contents of some articles, already encoded for the URL
+     */
+    String randomQuery() {
+        return "article+number+" + ThreadLocalRandom.current().nextInt(2, 100);
+    }
+
+    HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    HttpRequest post(String path, Object body) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(toJson(body)))
+                .build();
+    }
+
+    HttpRequest put(String path, Object body) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(toJson(body)))
+                .build();
+    }
+
+    /**
+     * Username that the auth service stub returns for the creator
+     */
+    static String usernameOf(long creatorId) {
+        return "user" + creatorId;
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(REQUEST_TIMEOUT);
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
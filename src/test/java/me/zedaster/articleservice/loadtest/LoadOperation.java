@@ -0,0 +1,68 @@
+package me.zedaster.articleservice.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Operations of a load test. Each of them is one request to an endpoint of the app.
+ */
+enum LoadOperation {
+    GET_ARTICLE("get-article", context -> context.get("/articles/" + context.randomArticle().id())),
+
+    GET_ARTICLE_CONTENT("get-article-content", context -> context.get("/articles/"
+            + context.randomArticle().id() + "/content")),
+
+    GET_ARTICLES("get-articles", context -> context.get("/articles?ids=" + context.randomArticle().id()
+            + "&ids=" + context.randomArticle().id() + "&ids=" + context.randomArticle().id())),
+
+    GET_RECENT("get-recent", context -> context.get("/articles/recent?page=" + context.randomPage())),
+
+    SEARCH("search", context -> context.get("/articles/search?query=" + context.randomQuery())),
+
+    GET_USER_ARTICLES("get-user-articles", context -> {
+        long creatorId = context.randomCreatorId();
+        return context.get("/protected/articles/user?tokenPayload.sub=" + creatorId
+                + "&tokenPayload.username=" + LoadContext.usernameOf(creatorId));
+    }),
+
+    CREATE_ARTICLE("create-article", context -> context.post("/internal/articles", Map.of(
+            "title", context.uniqueTitle(),
+            "content", context.randomContent(),
+            "creatorId", context.randomCreatorId()))),
+
+    UPDATE_ARTICLE("update-article", context -> {
+        LoadContext.SeededArticle article = context.randomArticle();
+        return context.put("/internal/articles/" + article.id(), Map.of(
+                "title", article.title(),
+                "content", context.randomContent()));
+    });
+
+    /**
+     * Name of the operation in the settings and the report
+     */
+    private final String name;
+
+    private final Function<LoadContext, HttpRequest> requestFactory;
+
+    LoadOperation(String name, Function<LoadContext, HttpRequest> requestFactory) {
+        this.name = name;
+        this.requestFactory = requestFactory;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    HttpRequest createRequest(LoadContext context) {
+        return requestFactory.apply(context);
+    }
+
+    static LoadOperation byName(String name) {
+        return Arrays.stream(values())
+                .filter(operation -> operation.name.equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown operation: " + name));
+    }
+}
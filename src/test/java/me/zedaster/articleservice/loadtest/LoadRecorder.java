@@ -0,0 +1,112 @@
+package me.zedaster.articleservice.loadtest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records latencies and errors of the requests of a load test
+ */
+class LoadRecorder {
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private static final String[] PERCENTILE_NAMES = {"p50", "p99", "p999"};
+
+    /**
+     * Upper bounds of the buckets of the latency histograms
+     */
+    private static final Duration[] BUCKETS = {Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25),
+            Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500),
+            Duration.ofSeconds(1), Duration.ofMillis(2_500), Duration.ofSeconds(5), Duration.ofSeconds(10)};
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final Map<LoadOperation, Timer> timers = new EnumMap<>(LoadOperation.class);
+
+    private final Map<LoadOperation, LongAdder> errors = new EnumMap<>(LoadOperation.class);
+
+    private final Timer totalTimer;
+
+    private final LongAdder totalErrors = new LongAdder();
+
+    LoadRecorder() {
+        for (LoadOperation operation : LoadOperation.values()) {
+            timers.put(operation, createTimer(operation.getName()));
+            errors.put(operation, new LongAdder());
+        }
+        this.totalTimer = createTimer("total");
+    }
+
+    /**
+     * Records the outcome of a request
+     * @param operation Operation of the request
+     * @param nanos Latency of the request
+     * @param failed Whether the request failed or got an error status
+     */
+    void record(LoadOperation operation, long nanos, boolean failed) {
+        timers.get(operation).record(nanos, TimeUnit.NANOSECONDS);
+        totalTimer.record(nanos, TimeUnit.NANOSECONDS);
+        if (failed) {
+            errors.get(operation).increment();
+            totalErrors.increment();
+        }
+    }
+
+    /**
+     * Builds the report of the recorded requests
+     * @param settings Settings of the load test
+     * @param elapsed Time during which the requests were recorded
+     */
+    LoadTestReport report(LoadTestSettings settings, Duration elapsed) {
+        double seconds = elapsed.toNanos() / 1_000_000_000.0;
+        Map<String, LoadTestReport.OperationReport> operations = new LinkedHashMap<>();
+        settings.mix().keySet().forEach(operation -> operations.put(operation.getName(),
+                operationReport(timers.get(operation), errors.get(operation).sum(), seconds)));
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        settings.mix().forEach((operation, weight) -> mix.put(operation.getName(), weight));
+        return new LoadTestReport(seconds, settings.workers(), mix,
+                operationReport(totalTimer, totalErrors.sum(), seconds), operations);
+    }
+
+    private Timer createTimer(String name) {
+        return Timer.builder("loadtest.requests")
+                .tag("operation", name)
+                .publishPercentiles(PERCENTILES)
+                .percentilePrecision(3)
+                .serviceLevelObjectives(BUCKETS)
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                // Percentiles are calculated over the whole test instead of a sliding window
+                .distributionStatisticExpiry(Duration.ofDays(1))
+                .distributionStatisticBufferLength(1)
+                .register(meterRegistry);
+    }
+
+    private static LoadTestReport.OperationReport operationReport(Timer timer, long errors, double seconds) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Double> latencyMillis = new LinkedHashMap<>();
+        ValueAtPercentile[] percentiles = snapshot.percentileValues();
+        for (int i = 0; i < percentiles.length; i++) {
+            latencyMillis.put(PERCENTILE_NAMES[i], percentiles[i].value(TimeUnit.MILLISECONDS));
+        }
+        latencyMillis.put("mean", snapshot.mean(TimeUnit.MILLISECONDS));
+        latencyMillis.put("max", snapshot.max(TimeUnit.MILLISECONDS));
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (CountAtBucket bucket : snapshot.histogramCounts()) {
+            histogram.put(String.valueOf((long) bucket.bucket(TimeUnit.MILLISECONDS)), (long) bucket.count());
+        }
+        long requests = snapshot.count();
+        return new LoadTestReport.OperationReport(requests, errors, requests == 0 ? 0 : (double) errors / requests,
+                requests / seconds, latencyMillis, histogram);
+    }
+}
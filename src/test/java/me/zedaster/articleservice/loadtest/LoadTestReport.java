@@ -0,0 +1,27 @@
+package me.zedaster.articleservice.loadtest;
+
+import java.util.Map;
+
+/**
+ * Machine-readable results of a load test
+ * @param durationSeconds Duration of the measured load
+ * @param workers Number of concurrent clients
+ * @param mix Weights of the operations
+ * @param total Results of all requests
+ * @param operations Results of the requests of each operation
+ */
+record LoadTestReport(double durationSeconds, int workers, Map<String, Integer> mix, OperationReport total,
+                      Map<String, OperationReport> operations) {
+    /**
+     * Results of some requests
+     * @param requests Number of completed requests
+     * @param errors Number of requests that failed or got an error status
+     * @param errorRate Share of the failed requests
+     * @param throughput Completed requests per second
+     * @param latencyMillis Percentiles (p50, p99, p999), mean and max of the latencies in milliseconds
+     * @param histogram Number of requests that took at most the number of milliseconds of each bucket
+     */
+    record OperationReport(long requests, long errors, double errorRate, double throughput,
+                           Map<String, Double> latencyMillis, Map<String, Long> histogram) {
+    }
+}
@@ -0,0 +1,50 @@
+package me.zedaster.articleservice.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Settings of a load test. They are read from system properties, so they can be passed to Maven, e.g.
+ * {@code mvn test -P load-test -Dloadtest.duration=5m -Dloadtest.workers=64}.
+ * @param duration Duration of the measured load
+ * @param warmup Duration of the load before the measurement
+ * @param workers Number of concurrent clients. Every client sends the next request when the previous one completes.
+ * @param mix Weights of the operations. An operation is picked for every request with the probability proportional to
+ *            its weight.
+ * @param maxErrorRate Maximum share of failed requests for the test to pass
+ * @param reportPath Path of the JSON report
+ */
+record LoadTestSettings(Duration duration, Duration warmup, int workers, Map<LoadOperation, Integer> mix,
+                        double maxErrorRate, String reportPath) {
+    private static final String DEFAULT_MIX = "get-article:45,get-article-content:10,get-articles:5,get-recent:15,"
+            + "search:5,get-user-articles:10,create-article:8,update-article:2";
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                DurationStyle.detectAndParse(System.getProperty("loadtest.duration", "60s")),
+                DurationStyle.detectAndParse(System.getProperty("loadtest.warmup", "15s")),
+                Integer.parseInt(System.getProperty("loadtest.workers", "32")),
+                parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)),
+                Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01")),
+                System.getProperty("loadtest.report", "target/load-test-report.json"));
+    }
+
+    /**
+     * Parses weights of the operations in the form {@code get-article:50,create-article:5}. Operations that are not
+     * mentioned are not sent.
+     */
+    static Map<LoadOperation, Integer> parseMix(String mix) {
+        Map<LoadOperation, Integer> weights = new EnumMap<>(LoadOperation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Incorrect entry of the mix: " + entry);
+            }
+            weights.put(LoadOperation.byName(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
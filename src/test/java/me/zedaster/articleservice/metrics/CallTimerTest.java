@@ -0,0 +1,78 @@
+package me.zedaster.articleservice.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Tests for {@link CallTimer}
+ */
+public class CallTimerTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final CallTimer callTimer = new CallTimer("test.calls", "Test calls", Tags.of("operation", "test"),
+            meterRegistry);
+
+    /**
+     * Checks that successful and failed calls are recorded with their outcomes
+     */
+    @Test
+    public void recordCallsByOutcome() {
+        Assertions.assertEquals("ok", callTimer.record(() -> "ok"));
+        Assertions.assertThrows(IllegalStateException.class, () -> callTimer.record(() -> {
+            throw new IllegalStateException();
+        }));
+
+        Assertions.assertEquals(1, meterRegistry.get("test.calls").tag("operation", "test")
+                .tag("outcome", "success").timer().count());
+        Assertions.assertEquals(1, meterRegistry.get("test.calls").tag("operation", "test")
+                .tag("outcome", "error").timer().count());
+    }
+
+    /**
+     * Checks that an asynchronous call is recorded only when it completes
+     */
+    @Test
+    public void recordAsyncCallOnCompletion() {
+        CompletableFuture<String> call = new CompletableFuture<>();
+
+        CompletableFuture<String> result = callTimer.recordAsync(() -> call);
+        Assertions.assertEquals(0, callTimer.getSucceeded().count());
+
+        call.complete("ok");
+        Assertions.assertEquals("ok", result.join());
+        Assertions.assertEquals(1, callTimer.getSucceeded().count());
+    }
+
+    /**
+     * Checks that an asynchronous call that fails is recorded as failed
+     */
+    @Test
+    public void recordFailedAsyncCall() {
+        CompletableFuture<String> result = callTimer.recordAsync(() ->
+                CompletableFuture.failedFuture(new IllegalStateException()));
+
+        Assertions.assertThrows(CompletionException.class, result::join);
+        Assertions.assertEquals(1, callTimer.getFailed().count());
+        Assertions.assertEquals(0, callTimer.getSucceeded().count());
+    }
+
+    /**
+     * Checks that cancelling the future of a timed call cancels the call itself
+     */
+    @Test
+    public void cancelAsyncCall() {
+        CompletableFuture<String> call = new CompletableFuture<>();
+
+        callTimer.recordAsync(() -> call).cancel(true);
+
+        Assertions.assertTrue(call.isCancelled());
+        Assertions.assertEquals(1, meterRegistry.get("test.calls").tag("operation", "test")
+                .tag("outcome", "error").timer().count());
+    }
+}
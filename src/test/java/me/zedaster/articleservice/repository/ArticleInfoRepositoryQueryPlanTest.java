@@ -0,0 +1,198 @@
+package me.zedaster.articleservice.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Regression tests for query plans of {@link ArticleInfoRepository}. The SQL that Hibernate generates for the
+ * repository methods is explained on a table that is big enough for the planner to prefer indexes. Listings must
+ * be read by an index in the required order, without sequential scans and sorts.
+ * <br>
+ * The schema is created by the Flyway migrations, so the plans use the indexes that are shipped.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "me.zedaster.articleservice.repository.ArticleInfoRepositoryQueryPlanTest$SqlCapture"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ArticleInfoRepositoryQueryPlanTest {
+    private static final String POSTGRES_IMAGE = "postgres:16-alpine";
+
+    private static final int ARTICLE_COUNT = 50_000;
+
+    private static final int CREATOR_COUNT = 500;
+
+    // The context is created together with the test instance, so the container must be started before it
+    private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>(POSTGRES_IMAGE);
+
+    static {
+        postgresContainer.start();
+    }
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+    }
+
+    /**
+     * Remembers SQL statements that Hibernate sends to the DB
+     */
+    public static class SqlCapture implements StatementInspector {
+        private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private ArticleInfoRepository articleInfoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Fills the table with articles of several creators and collects statistics for the planner
+     */
+    @BeforeAll
+    void fillArticles() {
+        jdbcTemplate.update("""
+                insert into articles (id, title, created_at, creator_id, updated_at)
+                select g, 'Title ' || g, now() - g * interval '1 minute', g % ?, now() - g * interval '1 minute'
+                from generate_series(1, ?) g""", CREATOR_COUNT, ARTICLE_COUNT);
+        jdbcTemplate.execute("vacuum analyze articles");
+    }
+
+    @AfterAll
+    static void afterAll() {
+        postgresContainer.stop();
+    }
+
+    @Test
+    public void recentArticlesByPageUseIndex() {
+        JsonNode plan = explain(() -> articleInfoRepository.findAllByOrderByCreatedAtDesc(PageRequest.of(0, 20)),
+                20);
+        assertOrderedIndexScan(plan, "articles_created_at_id_index");
+    }
+
+    @Test
+    public void recentArticlesByCursorUseIndex() {
+        Timestamp createdAt = createdAtOf(ARTICLE_COUNT / 2);
+        JsonNode plan = explain(() -> articleInfoRepository.findAllBefore(createdAt.toInstant(), ARTICLE_COUNT / 2,
+                PageRequest.ofSize(20)), createdAt, createdAt, ARTICLE_COUNT / 2, 20);
+        assertOrderedIndexScan(plan, "articles_created_at_id_index");
+    }
+
+    @Test
+    public void userArticlesByPageUseIndex() {
+        JsonNode plan = explain(() -> articleInfoRepository.findAllByCreatorIdOrderByCreatedAtDesc(7L,
+                PageRequest.of(0, 20)), 7L, 20);
+        assertOrderedIndexScan(plan, "articles_creator_id_created_at_id_index");
+    }
+
+    @Test
+    public void userArticlesByCursorUseIndex() {
+        Timestamp createdAt = createdAtOf(ARTICLE_COUNT / 2 + 7);
+        JsonNode plan = explain(() -> articleInfoRepository.findAllByCreatorIdBefore(7L, createdAt.toInstant(),
+                ARTICLE_COUNT / 2 + 7, PageRequest.ofSize(20)), 7L, createdAt, createdAt, ARTICLE_COUNT / 2 + 7, 20);
+        assertOrderedIndexScan(plan, "articles_creator_id_created_at_id_index");
+    }
+
+    @Test
+    public void titleOfCreatorIsCheckedByUniqueIndex() {
+        JsonNode plan = explain(() -> articleInfoRepository.existsByCreatorIdAndTitle(7L, "Title 7"),
+                7L, "Title 7", 1);
+        assertOrderedIndexScan(plan, "articles_creator_id_title_index");
+
+        plan = explain(() -> articleInfoRepository.findAllByCreatorIdAndTitle(7L, "Title 7"), 7L, "Title 7");
+        assertOrderedIndexScan(plan, "articles_creator_id_title_index");
+    }
+
+    @Test
+    public void updatedArticlesAreReadByIndex() {
+        Timestamp updatedAt = jdbcTemplate.queryForObject("select updated_at from articles where id = ?",
+                Timestamp.class, 100);
+        JsonNode plan = explain(() -> articleInfoRepository.findAllUpdatedAfter(updatedAt.toInstant(), 100,
+                PageRequest.ofSize(100)), updatedAt, updatedAt, 100, 100);
+        assertOrderedIndexScan(plan, "articles_updated_at_id_index");
+    }
+
+    /**
+     * Runs the query of the repository and explains the SQL statement that has been generated for it
+     * @param query Call of the repository method
+     * @param parameters Values of the statement parameters in the order of their placeholders
+     * @return Root node of the plan
+     */
+    private JsonNode explain(Runnable query, Object... parameters) {
+        SqlCapture.statements.clear();
+        query.run();
+        Assertions.assertEquals(1, SqlCapture.statements.size(), "Repository method must send one statement");
+        String sql = SqlCapture.statements.get(0);
+        Assertions.assertEquals(parameters.length, sql.chars().filter(c -> c == '?').count(),
+                "Unexpected parameters of statement: " + sql);
+
+        String json = jdbcTemplate.queryForObject("explain (format json) " + sql, String.class, parameters);
+        try {
+            return objectMapper.readTree(json).get(0).get("Plan");
+        } catch (Exception e) {
+            throw new IllegalStateException("Can't parse the plan: " + json, e);
+        }
+    }
+
+    /**
+     * Asserts that the plan reads rows by the specified index and doesn't read the whole table or sort rows
+     */
+    private static void assertOrderedIndexScan(JsonNode plan, String indexName) {
+        List<JsonNode> nodes = new ArrayList<>();
+        collectNodes(plan, nodes);
+        for (JsonNode node : nodes) {
+            String nodeType = node.get("Node Type").asText();
+            Assertions.assertNotEquals("Seq Scan", nodeType, plan.toPrettyString());
+            Assertions.assertNotEquals("Sort", nodeType, plan.toPrettyString());
+        }
+        Assertions.assertTrue(nodes.stream()
+                .anyMatch(node -> node.has("Index Name") && node.get("Index Name").asText().equals(indexName)),
+                plan.toPrettyString());
+    }
+
+    private static void collectNodes(JsonNode node, List<JsonNode> nodes) {
+        nodes.add(node);
+        if (node.has("Plans")) {
+            node.get("Plans").forEach(child -> collectNodes(child, nodes));
+        }
+    }
+
+    private Timestamp createdAtOf(long id) {
+        return jdbcTemplate.queryForObject("select created_at from articles where id = ?", Timestamp.class, id);
+    }
+}
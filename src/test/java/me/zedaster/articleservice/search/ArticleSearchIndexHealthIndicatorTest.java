@@ -0,0 +1,85 @@
+package me.zedaster.articleservice.search;
+
+import me.zedaster.articleservice.configuration.SearchIndexConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Tests for {@link ArticleSearchIndexHealthIndicator}
+ */
+public class ArticleSearchIndexHealthIndicatorTest {
+    private ArticleSearchIndex index;
+
+    private ArticleSearchIndexHealthIndicator healthIndicator;
+
+    @BeforeEach
+    public void setUp() {
+        index = Mockito.mock(ArticleSearchIndex.class);
+        SearchIndexConfiguration configuration = new SearchIndexConfiguration();
+        configuration.setMaxStaleness(Duration.ofMinutes(10));
+        healthIndicator = new ArticleSearchIndexHealthIndicator(index, configuration);
+    }
+
+    /**
+     * Checks if an index that has caught up with the DB is up
+     */
+    @Test
+    public void upAfterSync() {
+        mockIndex(Instant.now().minusSeconds(60), 5, 5);
+
+        Assertions.assertEquals(Status.UP, healthIndicator.health().getStatus());
+    }
+
+    /**
+     * Checks if an empty index is up when the DB has no articles
+     */
+    @Test
+    public void upWhenDatabaseIsEmpty() {
+        mockIndex(Instant.now().minusSeconds(60), 0, 0);
+
+        Assertions.assertEquals(Status.UP, healthIndicator.health().getStatus());
+    }
+
+    /**
+     * Checks if the index is down until it's rebuilt for the first time
+     */
+    @Test
+    public void downBeforeFirstRebuild() {
+        Mockito.when(index.getLastSyncStartedAt()).thenReturn(Optional.empty());
+
+        Assertions.assertEquals(Status.DOWN, healthIndicator.health().getStatus());
+    }
+
+    /**
+     * Checks if the index is down when it hasn't caught up with the DB for too long
+     */
+    @Test
+    public void downWhenStale() {
+        mockIndex(Instant.now().minus(Duration.ofMinutes(11)), 5, 5);
+
+        Assertions.assertEquals(Status.DOWN, healthIndicator.health().getStatus());
+    }
+
+    /**
+     * Checks if the index is down when it's empty while the DB has articles
+     */
+    @Test
+    public void downWhenEmpty() {
+        mockIndex(Instant.now().minusSeconds(60), 0, 5);
+
+        Assertions.assertEquals(Status.DOWN, healthIndicator.health().getStatus());
+    }
+
+    private void mockIndex(Instant lastSyncStartedAt, int documents, long articles) {
+        Mockito.when(index.getLastSyncStartedAt()).thenReturn(Optional.of(lastSyncStartedAt));
+        Mockito.when(index.getDocumentCount()).thenReturn(documents);
+        Mockito.when(index.getLastRebuildArticles()).thenReturn(articles);
+    }
+}
@@ -0,0 +1,274 @@
+package me.zedaster.articleservice.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.zedaster.articleservice.concurrency.Bulkheads;
+import me.zedaster.articleservice.configuration.DownstreamConfiguration;
+import me.zedaster.articleservice.configuration.SearchIndexConfiguration;
+import me.zedaster.articleservice.entity.ArticleInfo;
+import me.zedaster.articleservice.repository.ArticleInfoRepository;
+import me.zedaster.articleservice.util.Hashes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static me.zedaster.articleservice.util.TestUtils.createInstantOf;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+
+/**
+ * Tests for {@link ArticleSearchIndex}
+ */
+public class ArticleSearchIndexTest {
+    private static final Instant CREATED_AT = createInstantOf(2024, 1, 1, 17, 40, 0);
+
+    private ArticleInfoRepository articleInfoRepository;
+
+    private ArticleContentSource contentSource;
+
+    private ArticleSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        articleInfoRepository = Mockito.mock(ArticleInfoRepository.class);
+        contentSource = Mockito.mock(ArticleContentSource.class);
+
+        SearchIndexConfiguration configuration = new SearchIndexConfiguration();
+        configuration.setInMemory(true);
+        // Changes are made searchable by the tests
+        configuration.setRefreshInterval(Duration.ofHours(1));
+        configuration.setCatchUpInterval(Duration.ofHours(1));
+        configuration.setCatchUpOverlap(Duration.ofMinutes(1));
+        configuration.setRebuildInterval(Duration.ofHours(1));
+        DownstreamConfiguration downstreamConfiguration = new DownstreamConfiguration();
+        try {
+            index = new ArticleSearchIndex(configuration, articleInfoRepository, contentSource,
+                    new Bulkheads(downstreamConfiguration, new SimpleMeterRegistry()), new SimpleMeterRegistry());
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        // Waits for the rebuild on start of an empty DB, so it doesn't remove the articles of the tests
+        Mockito.verify(articleInfoRepository, Mockito.timeout(5_000))
+                .findAllByIdGreaterThanOrderById(anyLong(), any());
+        index.rebuild();
+        Mockito.clearInvocations(articleInfoRepository);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        index.close();
+    }
+
+    /**
+     * Checks if an article that matches by its title is more relevant than one that matches only by its content
+     */
+    @Test
+    public void rankTitleMatchesFirst() {
+        index.articleSaved(article(1L, "Notes about the weekend trip"),
+                "We went to the mountains and talked about search engines. " + filler());
+        index.articleSaved(article(2L, "How search engines rank pages"), "Ranking starts with an index. " + filler());
+        index.refresh();
+
+        List<ArticleSearchIndex.Hit> hits = index.search("search engines", 0, 10);
+
+        Assertions.assertEquals(List.of(2L, 1L), hits.stream().map(ArticleSearchIndex.Hit::id).toList());
+        Assertions.assertTrue(hits.get(0).score() > hits.get(1).score());
+        Assertions.assertEquals("How search engines rank pages", hits.get(0).title());
+        Assertions.assertEquals(CREATED_AT, hits.get(0).createdAt());
+        Assertions.assertEquals(123L, hits.get(0).creatorId());
+    }
+
+    /**
+     * Checks if the matched words are highlighted and the text around them is escaped for HTML
+     */
+    @Test
+    public void highlightMatches() {
+        index.articleSaved(article(1L, "Markup in the articles"),
+                "Tags like <script> are shown as text, and indexes are built by Lucene. " + filler());
+        index.refresh();
+
+        ArticleSearchIndex.Hit hit = index.search("lucene", 0, 10).getFirst();
+
+        Assertions.assertTrue(hit.snippet().contains("<b>Lucene</b>"), hit.snippet());
+        Assertions.assertTrue(hit.snippet().contains("&lt;script&gt;"), hit.snippet());
+        Assertions.assertEquals("Markup in the articles", hit.highlightedTitle());
+    }
+
+    /**
+     * Checks if the pages of hits follow each other
+     */
+    @Test
+    public void searchPages() {
+        for (long id = 1; id <= 5; id++) {
+            index.articleSaved(article(id, "Article number " + id + " about caches"), filler());
+        }
+        index.refresh();
+
+        List<Long> firstPage = ids(index.search("caches", 0, 3));
+        List<Long> secondPage = ids(index.search("caches", 3, 3));
+
+        Assertions.assertEquals(3, firstPage.size());
+        Assertions.assertEquals(2, secondPage.size());
+        Assertions.assertTrue(secondPage.stream().noneMatch(firstPage::contains));
+        Assertions.assertTrue(index.search("caches", 5, 3).isEmpty());
+    }
+
+    /**
+     * Checks if an updated article is found only by its new words
+     */
+    @Test
+    public void replaceUpdatedArticle() {
+        index.articleSaved(article(1L, "An article about caches"), "Caffeine keeps the entries. " + filler());
+        index.articleSaved(article(1L, "An article about indexes"), "Lucene keeps the terms. " + filler());
+        index.refresh();
+
+        Assertions.assertTrue(index.search("caffeine", 0, 10).isEmpty());
+        Assertions.assertTrue(index.search("caches", 0, 10).isEmpty());
+        Assertions.assertEquals(List.of(1L), ids(index.search("lucene indexes", 0, 10)));
+    }
+
+    /**
+     * Checks if deleted articles are not found anymore
+     */
+    @Test
+    public void removeDeletedArticles() {
+        index.articleSaved(article(1L, "An article about caches"), filler());
+        index.articleSaved(article(2L, "Another article about caches"), filler());
+        index.articlesDeleted(List.of(1L));
+        index.refresh();
+
+        Assertions.assertEquals(List.of(2L), ids(index.search("caches", 0, 10)));
+    }
+
+    /**
+     * Checks if queries with syntax of the parser and without any words don't fail
+     */
+    @Test
+    public void searchWithSpecialCharacters() {
+        index.articleSaved(article(1L, "Operators of C++ and Java"), filler());
+        index.refresh();
+
+        Assertions.assertEquals(List.of(1L), ids(index.search("c++ \"operators of", 0, 10)));
+        Assertions.assertTrue(index.search("+-*~()|", 0, 10).isEmpty());
+        Assertions.assertEquals(List.of(1L), ids(index.search("oper*", 0, 10)));
+        Assertions.assertTrue(index.search("operators -java", 0, 10).isEmpty());
+    }
+
+    /**
+     * Checks if a rebuild indexes articles from the DB and doesn't fetch unchanged contents again
+     */
+    @Test
+    public void rebuildFromDatabase() {
+        ArticleInfo first = articleWithContent(1L, "The first article", "Contents are fetched from the source. ");
+        ArticleInfo second = articleWithContent(2L, "The second article", "Unchanged contents are kept. ");
+        Mockito.when(articleInfoRepository.findAllByIdGreaterThanOrderById(0, PageRequest.ofSize(100)))
+                .thenReturn(List.of(first, second));
+
+        index.rebuild();
+        index.rebuild();
+
+        Assertions.assertEquals(List.of(1L), ids(index.search("fetched", 0, 10)));
+        Assertions.assertEquals(List.of(2L), ids(index.search("unchanged", 0, 10)));
+        Mockito.verify(contentSource, Mockito.times(2)).fetchContent(any());
+        Assertions.assertEquals(2, index.getLastRebuildArticles());
+        Assertions.assertEquals(2, index.getDocumentCount());
+    }
+
+    /**
+     * Checks if a rebuild removes articles that are not in the DB, but keeps the ones saved during it
+     */
+    @Test
+    public void rebuildRemovesMissingArticles() {
+        index.articleSaved(article(1L, "An article about caches"), filler());
+        index.refresh();
+        Mockito.when(articleInfoRepository.findAllByIdGreaterThanOrderById(0, PageRequest.ofSize(100)))
+                .thenAnswer(invocation -> {
+                    // Saved after the DB has been read
+                    index.articleSaved(article(2L, "Another article about caches"), filler());
+                    return List.of();
+                });
+
+        index.rebuild();
+
+        Assertions.assertEquals(List.of(2L), ids(index.search("caches", 0, 10)));
+    }
+
+    /**
+     * Checks if a catch-up indexes the articles that have been updated since the last sync, including the ones that
+     * have been updated shortly before it
+     */
+    @Test
+    public void catchUpWithUpdatedArticles() {
+        ArticleInfo updated = articleWithContent(1L, "An article of another instance", "Caught up contents. ");
+        Mockito.when(articleInfoRepository.findAllUpdatedAfter(any(), eq(0L), eq(PageRequest.ofSize(100))))
+                .thenReturn(List.of(updated));
+        Instant catchUpStartedAt = Instant.now();
+
+        index.catchUp();
+
+        Assertions.assertEquals(List.of(1L), ids(index.search("caught", 0, 10)));
+        Mockito.verify(articleInfoRepository).findAllUpdatedAfter(
+                Mockito.argThat(since -> since.isBefore(catchUpStartedAt.minusSeconds(59))), eq(0L), any());
+        Assertions.assertFalse(index.getLastSyncStartedAt().orElseThrow().isBefore(catchUpStartedAt));
+    }
+
+    /**
+     * Checks if a catch-up reads the article whose content couldn't be fetched again
+     */
+    @Test
+    public void catchUpRetriesFailedContents() {
+        ArticleInfo failed = articleWithContent(1L, "An article of another instance", "Caught up contents. ");
+        Instant failedUpdatedAt = Instant.now().minus(Duration.ofHours(1));
+        failed.setUpdatedAt(failedUpdatedAt);
+        Mockito.when(articleInfoRepository.findAllUpdatedAfter(any(), eq(0L), eq(PageRequest.ofSize(100))))
+                .thenReturn(List.of(failed));
+        Mockito.when(contentSource.fetchContent(failed))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Test")));
+
+        index.catchUp();
+        Mockito.clearInvocations(articleInfoRepository);
+        index.catchUp();
+
+        Mockito.verify(articleInfoRepository).findAllUpdatedAfter(
+                Mockito.argThat(since -> !since.isAfter(failedUpdatedAt.minusSeconds(60))), eq(0L), any());
+    }
+
+    private static ArticleInfo article(long id, String title) {
+        ArticleInfo info = new ArticleInfo(title, CREATED_AT, 123L);
+        info.setId(id);
+        info.setUpdatedAt(Instant.now());
+        return info;
+    }
+
+    /**
+     * Creates an article whose content is given by the source
+     */
+    private ArticleInfo articleWithContent(long id, String title, String content) {
+        ArticleInfo info = article(id, title);
+        info.setContentHash(Hashes.sha256(content + filler()));
+        Mockito.when(contentSource.fetchContent(info))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(content + filler())));
+        return info;
+    }
+
+    /**
+     * Text that makes a content long enough and doesn't match the queries of the tests
+     */
+    private static String filler() {
+        return "Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(3);
+    }
+
+    private static List<Long> ids(List<ArticleSearchIndex.Hit> hits) {
+        return hits.stream().map(ArticleSearchIndex.Hit::id).toList();
+    }
+}
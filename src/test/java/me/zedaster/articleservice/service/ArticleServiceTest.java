@@ -1,12 +1,30 @@
 package me.zedaster.articleservice.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.validation.ConstraintViolationException;
+import me.zedaster.articleservice.cache.RecentArticlesSnapshot;
+import me.zedaster.articleservice.concurrency.Bulkheads;
+import me.zedaster.articleservice.configuration.ArticleBatchConfiguration;
+import me.zedaster.articleservice.configuration.DownstreamConfiguration;
+import me.zedaster.articleservice.configuration.ExecutorConfiguration;
 import me.zedaster.articleservice.dto.article.Article;
+import me.zedaster.articleservice.dto.article.ArticleHead;
+import me.zedaster.articleservice.dto.article.ArticleCursor;
 import me.zedaster.articleservice.dto.article.ArticleData;
+import me.zedaster.articleservice.dto.article.ArticleLookup;
+import me.zedaster.articleservice.dto.article.ArticleSearchResult;
 import me.zedaster.articleservice.dto.article.ArticleSummary;
+import me.zedaster.articleservice.dto.article.ArticleSummaryPage;
 import me.zedaster.articleservice.dto.article.Creator;
+import me.zedaster.articleservice.dto.content.ContentEncoding;
+import me.zedaster.articleservice.dto.content.StoredContent;
+import me.zedaster.articleservice.dto.request.CreateArticleRequest;
+import me.zedaster.articleservice.dto.response.CreateArticleResult;
 import me.zedaster.articleservice.entity.ArticleInfo;
 import me.zedaster.articleservice.repository.ArticleInfoRepository;
+import me.zedaster.articleservice.repository.ArticleInfoSummary;
+import me.zedaster.articleservice.search.ArticleSearchIndex;
+import me.zedaster.articleservice.util.Hashes;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
@@ -14,14 +32,30 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static me.zedaster.articleservice.util.TestUtils.createInstantOf;
 import static org.mockito.ArgumentMatchers.*;
@@ -29,20 +63,51 @@ import static org.mockito.ArgumentMatchers.*;
 /**
  * Tests for {@link ArticleService}
  */
-@SpringBootTest(classes = {ArticleService.class, ValidationAutoConfiguration.class})
+@SpringBootTest(classes = {ArticleService.class, ValidationAutoConfiguration.class, ExecutorConfiguration.class,
+        Bulkheads.class, SimpleMeterRegistry.class, ArticleServiceTest.TestConfig.class})
 public class ArticleServiceTest {
     @Autowired
     private ArticleService articleService;
 
+    @Autowired
+    private DownstreamConfiguration downstreamConfiguration;
+
     @MockitoBean
     private ContentService contentService;
 
+    @MockitoBean
+    private ContentOutboxService contentOutboxService;
+
     @MockitoBean
     private CreatorService creatorService;
 
     @MockitoBean
     private ArticleInfoRepository articleInfoRepository;
 
+    @MockitoBean
+    private RecentArticlesSnapshot recentArticlesSnapshot;
+
+    @MockitoBean
+    private ArticleSearchIndex articleSearchIndex;
+
+    @TestConfiguration
+    public static class TestConfig {
+        @Bean
+        public DownstreamConfiguration downstreamConfiguration() {
+            return new DownstreamConfiguration();
+        }
+
+        @Bean
+        public ArticleBatchConfiguration articleBatchConfiguration() {
+            return new ArticleBatchConfiguration();
+        }
+
+        @Bean
+        public TransactionTemplate transactionTemplate() {
+            return new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class));
+        }
+    }
+
     public ArticleServiceTest(ApplicationContext applicationContext) {
 
     }
@@ -55,9 +120,11 @@ public class ArticleServiceTest {
         Instant fakeCreatedAt = createInstantOf(2024, 1, 1, 17, 40, 0);
         ArticleInfo fakeArticleInfo = new ArticleInfo("Test title", fakeCreatedAt, 123L);
         fakeArticleInfo.setId(1L);
+        fakeArticleInfo.setContentHash(Hashes.sha256("Test content"));
 
         Mockito.when(articleInfoRepository.findById(1L)).thenReturn(Optional.of(fakeArticleInfo));
-        Mockito.when(contentService.getContentByArticleId(1L)).thenReturn(Optional.of("Test content"));
+        Mockito.when(contentService.getStoredContentAsync(1L, Hashes.sha256("Test content")))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(StoredContent.gzip("Test content"))));
         Mockito.when(creatorService.getCreator(123L)).thenReturn(new Creator(123L, "john"));
 
         Optional<Article> optionalArticle = articleService.getArticle(1);
@@ -72,6 +139,60 @@ public class ArticleServiceTest {
         Assertions.assertEquals("john", article.getCreator().getName());
     }
 
+    /**
+     * Checks if the head of an article and its entity tag are got without the content
+     */
+    @Test
+    public void getArticleHeadWithoutContent() {
+        Instant fakeCreatedAt = createInstantOf(2024, 1, 1, 17, 40, 0);
+        ArticleInfo fakeArticleInfo = new ArticleInfo("Test title", fakeCreatedAt, 123L);
+        fakeArticleInfo.setId(1L);
+        fakeArticleInfo.setContentHash(Hashes.sha256("Test content"));
+        Creator fakeCreator = new Creator(123L, "john");
+
+        Mockito.when(articleInfoRepository.findById(1L)).thenReturn(Optional.of(fakeArticleInfo));
+        Mockito.when(creatorService.getCreator(123L)).thenReturn(fakeCreator);
+
+        ArticleHead head = articleService.getArticleHead(1).orElseThrow();
+
+        Assertions.assertEquals(new Article(fakeArticleInfo, "Test content", fakeCreator).getEntityTag(),
+                head.getEntityTag());
+        Assertions.assertSame(fakeCreator, head.getCreator());
+        Mockito.verifyNoInteractions(contentService);
+    }
+
+    /**
+     * Checks if there is no entity tag for an article with unknown hash of the content
+     */
+    @Test
+    public void getArticleHeadWithoutContentHash() {
+        ArticleInfo fakeArticleInfo = new ArticleInfo("Test title", createInstantOf(2024, 1, 1, 17, 40, 0), 123L);
+        fakeArticleInfo.setId(1L);
+        Mockito.when(articleInfoRepository.findById(1L)).thenReturn(Optional.of(fakeArticleInfo));
+        Mockito.when(creatorService.getCreator(123L)).thenReturn(new Creator(123L, "john"));
+
+        Assertions.assertNull(articleService.getArticleHead(1).orElseThrow().getEntityTag());
+    }
+
+    /**
+     * Checks if only the content is fetched for the head of an article, and its info and creator are not read again
+     */
+    @Test
+    public void getArticleOfHead() {
+        ArticleInfo fakeArticleInfo = new ArticleInfo("Test title", createInstantOf(2024, 1, 1, 17, 40, 0), 123L);
+        fakeArticleInfo.setId(1L);
+        fakeArticleInfo.setContentHash(Hashes.sha256("Test content"));
+        Creator fakeCreator = new Creator(123L, "john");
+        Mockito.when(contentService.getStoredContent(1L, Hashes.sha256("Test content")))
+                .thenReturn(Optional.of(StoredContent.gzip("Test content")));
+
+        Article article = articleService.getArticle(new ArticleHead(fakeArticleInfo, fakeCreator));
+
+        Assertions.assertEquals("Test content", article.getContent());
+        Assertions.assertEquals(fakeCreator, article.getCreator());
+        Mockito.verifyNoInteractions(articleInfoRepository, creatorService);
+    }
+
     /**
      * Checks if the getter of an article with an incorrect ID throws an exception
      */
@@ -90,10 +211,10 @@ public class ArticleServiceTest {
     @Test
     public void getNonExistingArticle() throws ContentServiceException {
         Mockito.when(articleInfoRepository.findById(123L)).thenReturn(Optional.empty());
-        Mockito.when(contentService.getContentByArticleId(123L)).thenReturn(Optional.empty());
 
         Optional<Article> article = articleService.getArticle(123);
         Assertions.assertTrue(article.isEmpty());
+        Mockito.verifyNoInteractions(contentService);
     }
 
     @Test
@@ -106,7 +227,8 @@ public class ArticleServiceTest {
         Mockito.when(creatorService.getCreator(123L)).thenReturn(new Creator(123L, "john"));
         Exception cause = new Exception("Test cause");
         Exception contentException = new ContentServiceException("Test exception", cause);
-        Mockito.when(contentService.getContentByArticleId(1L)).thenThrow(contentException);
+        Mockito.when(contentService.getStoredContentAsync(eq(1L), any()))
+                .thenReturn(CompletableFuture.failedFuture(contentException));
 
         InternalServerException ex = Assertions.assertThrows(InternalServerException.class, () -> articleService.getArticle(1));
         Assertions.assertEquals("Can't get content of the article!", ex.getMessage());
@@ -121,12 +243,264 @@ public class ArticleServiceTest {
 
         Mockito.when(articleInfoRepository.findById(1L)).thenReturn(Optional.of(fakeArticleInfo));
         Mockito.when(creatorService.getCreator(123L)).thenReturn(new Creator(123L, "john"));
-        Mockito.when(contentService.getContentByArticleId(1L)).thenReturn(Optional.empty());
+        Mockito.when(contentService.getStoredContentAsync(eq(1L), any()))
+                .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
 
         InternalServerException ex = Assertions.assertThrows(InternalServerException.class, () -> articleService.getArticle(1));
         Assertions.assertEquals("ArticleInfo exists, but there's no content for the article!", ex.getMessage());
     }
 
+    /**
+     * Checks if the getter of an article returns the same result when the downstream services are called one by one
+     */
+    @Test
+    public void getExistingArticleSequentially() {
+        Instant fakeCreatedAt = createInstantOf(2024, 1, 1, 17, 40, 0);
+        ArticleInfo fakeArticleInfo = new ArticleInfo("Test title", fakeCreatedAt, 123L);
+        fakeArticleInfo.setId(1L);
+
+        Mockito.when(articleInfoRepository.findById(1L)).thenReturn(Optional.of(fakeArticleInfo));
+        Mockito.when(contentService.getStoredContent(eq(1L), any()))
+                .thenReturn(Optional.of(StoredContent.identity("Test content")));
+        Mockito.when(creatorService.getCreator(123L)).thenReturn(new Creator(123L, "john"));
+
+        downstreamConfiguration.setParallelCalls(false);
+        try {
+            Article article = articleService.getArticle(1).orElseThrow();
+            Assertions.assertEquals("Test title", article.getTitle());
+            Assertions.assertEquals("Test content", article.getContent());
+            Assertions.assertEquals("john", article.getCreator().getName());
+        } finally {
+            downstreamConfiguration.setParallelCalls(true);
+        }
+    }
+
+    /**
+     * Checks if the getter of an article fails when a downstream service doesn't respond in time
+     */
+    @Test
+    public void getArticleWithSlowContentService() {
+        Instant fakeCreatedAt = createInstantOf(2024, 1, 1, 17, 40, 0);
+        ArticleInfo fakeArticleInfo = new ArticleInfo("Test title", fakeCreatedAt, 123L);
+        fakeArticleInfo.setId(1L);
+
+        Mockito.when(articleInfoRepository.findById(1L)).thenReturn(Optional.of(fakeArticleInfo));
+        Mockito.when(creatorService.getCreator(123L)).thenReturn(new Creator(123L, "john"));
+        Mockito.when(contentService.getStoredContentAsync(eq(1L), any()))
+                .thenReturn(new CompletableFuture<>());
+
+        Duration oldTimeout = downstreamConfiguration.getS3().getTimeout();
+        downstreamConfiguration.getS3().setTimeout(Duration.ofMillis(50));
+        try {
+            InternalServerException ex = Assertions.assertThrows(InternalServerException.class,
+                    () -> articleService.getArticle(1));
+            Assertions.assertEquals("S3 didn't respond in PT0.05S!", ex.getMessage());
+        } finally {
+            downstreamConfiguration.getS3().setTimeout(oldTimeout);
+        }
+    }
+
+    /**
+     * Checks if the getter of an article fails before the response is written when the content is corrupted
+     */
+    @Test
+    public void getArticleWithCorruptedContent() {
+        ArticleInfo fakeArticleInfo = new ArticleInfo("Test title", createInstantOf(2024, 1, 1, 17, 40, 0), 123L);
+        fakeArticleInfo.setId(1L);
+        byte[] compressed = StoredContent.gzip("Test content").getData();
+        byte[] corrupted = Arrays.copyOf(compressed, compressed.length - 4);
+
+        Mockito.when(articleInfoRepository.findById(1L)).thenReturn(Optional.of(fakeArticleInfo));
+        Mockito.when(creatorService.getCreator(123L)).thenReturn(new Creator(123L, "john"));
+        Mockito.when(contentService.getStoredContentAsync(eq(1L), any()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        Optional.of(new StoredContent(corrupted, ContentEncoding.GZIP))));
+
+        InternalServerException ex = Assertions.assertThrows(InternalServerException.class,
+                () -> articleService.getArticle(1));
+        Assertions.assertEquals("Content of the article is corrupted!", ex.getMessage());
+    }
+
+    /**
+     * Checks if the content of an article that hasn't been uploaded yet is taken from the outbox
+     */
+    @Test
+    public void getArticleWithPendingContent() {
+        ArticleInfo fakeArticleInfo = new ArticleInfo("Test title", createInstantOf(2024, 1, 1, 17, 40, 0), 123L);
+        fakeArticleInfo.setId(1L);
+        fakeArticleInfo.setContentPending(true);
+
+        Mockito.when(articleInfoRepository.findById(1L)).thenReturn(Optional.of(fakeArticleInfo));
+        Mockito.when(creatorService.getCreator(123L)).thenReturn(new Creator(123L, "john"));
+        Mockito.when(contentService.getStoredContentAsync(eq(1L), any()))
+                .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+        Mockito.when(contentOutboxService.getContent(1L)).thenReturn(Optional.of("Pending content"));
+
+        Optional<Article> article = articleService.getArticle(1);
+
+        Assertions.assertTrue(article.isPresent());
+        Assertions.assertEquals("Pending content", article.get().getContent());
+    }
+
+    /**
+     * Checks if the content is taken from S3 when it has been uploaded after the info was read
+     */
+    @Test
+    public void getArticleWithContentUploadedAfterRead() {
+        ArticleInfo fakeArticleInfo = new ArticleInfo("Test title", createInstantOf(2024, 1, 1, 17, 40, 0), 123L);
+        fakeArticleInfo.setId(1L);
+        fakeArticleInfo.setContentPending(true);
+
+        Mockito.when(articleInfoRepository.findById(1L)).thenReturn(Optional.of(fakeArticleInfo));
+        Mockito.when(creatorService.getCreator(123L)).thenReturn(new Creator(123L, "john"));
+        Mockito.when(contentService.getStoredContentAsync(eq(1L), any()))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(StoredContent.identity("Uploaded content"))));
+        Mockito.when(contentOutboxService.getContent(1L)).thenReturn(Optional.empty());
+
+        Optional<Article> article = articleService.getArticle(1);
+
+        Assertions.assertTrue(article.isPresent());
+        Assertions.assertEquals("Uploaded content", article.get().getContent());
+    }
+
+    /**
+     * Checks if the stored content of an article that hasn't been uploaded yet is taken from the outbox
+     */
+    @Test
+    public void getStoredContentFromOutbox() {
+        ArticleInfo fakeArticleInfo = new ArticleInfo("Test title", createInstantOf(2024, 1, 1, 17, 40, 0), 123L);
+        fakeArticleInfo.setId(1L);
+        fakeArticleInfo.setContentPending(true);
+        Mockito.when(articleInfoRepository.findById(1L)).thenReturn(Optional.of(fakeArticleInfo));
+        Mockito.when(contentOutboxService.getContent(1L)).thenReturn(Optional.of("Pending content"));
+
+        Optional<StoredContent> content = articleService.getStoredContent(1);
+
+        Assertions.assertEquals(Optional.of(StoredContent.identity("Pending content")), content);
+        Mockito.verifyNoInteractions(contentService);
+    }
+
+    /**
+     * Checks if the stored content of an uploaded article is fetched by its hash without looking into the outbox
+     */
+    @Test
+    public void getStoredContentByHash() {
+        ArticleInfo fakeArticleInfo = new ArticleInfo("Test title", createInstantOf(2024, 1, 1, 17, 40, 0), 123L);
+        fakeArticleInfo.setId(1L);
+        fakeArticleInfo.setContentHash(Hashes.sha256("Test content"));
+        StoredContent storedContent = StoredContent.gzip("Test content");
+        Mockito.when(articleInfoRepository.findById(1L)).thenReturn(Optional.of(fakeArticleInfo));
+        Mockito.when(contentService.getStoredContent(1L, Hashes.sha256("Test content")))
+                .thenReturn(Optional.of(storedContent));
+
+        Assertions.assertEquals(Optional.of(storedContent), articleService.getStoredContent(1));
+        Mockito.verifyNoInteractions(contentOutboxService);
+    }
+
+    /**
+     * Checks if there's no stored content for an article that doesn't exist
+     */
+    @Test
+    public void getStoredContentOfNonExistingArticle() {
+        Mockito.when(articleInfoRepository.findById(1L)).thenReturn(Optional.empty());
+
+        Assertions.assertTrue(articleService.getStoredContent(1).isEmpty());
+        Mockito.verifyNoInteractions(contentService);
+    }
+
+    /**
+     * Checks if several articles are got with one query and one call for creators, and missing ones are marked
+     */
+    @Test
+    public void getSeveralArticles() {
+        Instant fakeCreatedAt = createInstantOf(2024, 1, 1, 17, 40, 0);
+        ArticleInfo firstInfo = new ArticleInfo("First title", fakeCreatedAt, 123L);
+        firstInfo.setId(1L);
+        ArticleInfo secondInfo = new ArticleInfo("Second title", fakeCreatedAt, 123L);
+        secondInfo.setId(2L);
+        Creator fakeCreator = new Creator(123L, "john");
+
+        Mockito.when(articleInfoRepository.findAllById(any())).thenReturn(List.of(secondInfo, firstInfo));
+        Mockito.when(contentService.getStoredContentAsync(eq(1L), any()))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(StoredContent.identity("First content"))));
+        Mockito.when(contentService.getStoredContentAsync(eq(2L), any()))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(StoredContent.identity("Second content"))));
+        Mockito.when(creatorService.getCreatorsByIds(List.of(123L))).thenReturn(List.of(fakeCreator));
+
+        List<ArticleLookup> results;
+        try (Stream<ArticleLookup> lookups = articleService.getArticles(List.of(2L, 3L, 1L, 2L))) {
+            results = lookups.toList();
+        }
+
+        Assertions.assertEquals(List.of(
+                ArticleLookup.found(new Article(secondInfo, "Second content", fakeCreator)),
+                ArticleLookup.missing(3L),
+                ArticleLookup.found(new Article(firstInfo, "First content", fakeCreator)),
+                ArticleLookup.found(new Article(secondInfo, "Second content", fakeCreator))), results);
+        Assertions.assertEquals("First content", results.get(2).getArticle().getContent());
+        Assertions.assertEquals("john", results.get(2).getArticle().getCreator().getName());
+        Mockito.verify(articleInfoRepository, Mockito.times(1)).findAllById(Set.of(1L, 2L, 3L));
+        Mockito.verify(creatorService, Mockito.times(1)).getCreatorsByIds(any());
+        Mockito.verify(contentService, Mockito.times(1)).getStoredContentAsync(eq(1L), any());
+        Mockito.verify(contentService, Mockito.times(1)).getStoredContentAsync(eq(2L), any());
+        Mockito.verify(contentService, Mockito.never()).getStoredContentAsync(eq(3L), any());
+    }
+
+    /**
+     * Checks if an article whose content is slow or fails is marked as failed, while the others are got
+     */
+    @Test
+    public void getSeveralArticlesWithFailedContents() {
+        Instant fakeCreatedAt = createInstantOf(2024, 1, 1, 17, 40, 0);
+        ArticleInfo slowInfo = new ArticleInfo("Slow title", fakeCreatedAt, 123L);
+        slowInfo.setId(1L);
+        ArticleInfo failedInfo = new ArticleInfo("Failed title", fakeCreatedAt, 123L);
+        failedInfo.setId(2L);
+        ArticleInfo fastInfo = new ArticleInfo("Fast title", fakeCreatedAt, 123L);
+        fastInfo.setId(3L);
+        Creator fakeCreator = new Creator(123L, "john");
+
+        Mockito.when(articleInfoRepository.findAllById(any())).thenReturn(List.of(slowInfo, failedInfo, fastInfo));
+        CompletableFuture<Optional<StoredContent>> slowContent = new CompletableFuture<>();
+        Mockito.when(contentService.getStoredContentAsync(eq(1L), any())).thenReturn(slowContent);
+        Mockito.when(contentService.getStoredContentAsync(eq(2L), any()))
+                .thenReturn(CompletableFuture.failedFuture(new ContentServiceException("Test", null)));
+        Mockito.when(contentService.getStoredContentAsync(eq(3L), any()))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(StoredContent.identity("Fast content"))));
+        Mockito.when(creatorService.getCreatorsByIds(List.of(123L))).thenReturn(List.of(fakeCreator));
+
+        Duration oldTimeout = downstreamConfiguration.getS3().getTimeout();
+        downstreamConfiguration.getS3().setTimeout(Duration.ofMillis(50));
+        List<ArticleLookup> results;
+        try (Stream<ArticleLookup> lookups = articleService.getArticles(List.of(1L, 2L, 3L))) {
+            results = lookups.toList();
+        } finally {
+            downstreamConfiguration.getS3().setTimeout(oldTimeout);
+        }
+
+        Assertions.assertEquals(List.of(
+                ArticleLookup.failed(1L, "S3 didn't respond in PT0.05S!"),
+                ArticleLookup.failed(2L, "Can't get content of the article!"),
+                ArticleLookup.found(new Article(fastInfo, "Fast content", fakeCreator))), results);
+        // The fetch that is not needed anymore is cancelled when the stream is closed
+        Assertions.assertTrue(slowContent.isCancelled());
+    }
+
+    /**
+     * Checks if too many or no IDs of articles throw an exception
+     */
+    @Test
+    public void getSeveralArticlesWithIncorrectNumberOfIds() {
+        for (List<Long> ids : List.of(List.<Long>of(), LongStream.rangeClosed(1, 101).boxed().toList())) {
+            ConstraintViolationException ex = Assertions.assertThrows(ConstraintViolationException.class,
+                    () -> articleService.getArticles(ids));
+            Assertions.assertEquals(1, ex.getConstraintViolations().size());
+            Assertions.assertEquals("From 1 to 100 articles can be got at once!",
+                    ex.getConstraintViolations().stream().findFirst().get().getMessage());
+        }
+        Mockito.verifyNoInteractions(articleInfoRepository);
+    }
+
     /**
      * Checks if the getter of recent articles is called and the result is correct
      */
@@ -134,14 +508,14 @@ public class ArticleServiceTest {
     public void getSomeRecentArticlesSummaries() {
         // There is only one test because the repository is responsible for pagination
         Instant firstFakeCreatedAt = createInstantOf(2024, 1, 1, 17, 40, 0);
-        ArticleInfo firstFakeArticleInfo = new ArticleInfo("Test title one", firstFakeCreatedAt, 123L);
-        firstFakeArticleInfo.setId(1L);
+        ArticleInfoSummary firstFakeArticleInfo =
+                new ArticleInfoSummary(1L, "Test title one", firstFakeCreatedAt, 123L);
 
         Instant secondFakeCreatedAt = createInstantOf(2024, 1, 2, 17, 40, 0);
-        ArticleInfo secondFakeArticleInfo = new ArticleInfo("Test title two", secondFakeCreatedAt, 321L);
-        secondFakeArticleInfo.setId(2L);
+        ArticleInfoSummary secondFakeArticleInfo =
+                new ArticleInfoSummary(2L, "Test title two", secondFakeCreatedAt, 321L);
 
-        List<ArticleInfo> someList = List.of(firstFakeArticleInfo, secondFakeArticleInfo);
+        List<ArticleInfoSummary> someList = List.of(firstFakeArticleInfo, secondFakeArticleInfo);
 
         Mockito.when(articleInfoRepository.findAllByOrderByCreatedAtDesc(PageRequest.of(0, 20)))
                 .thenReturn(someList);
@@ -166,6 +540,25 @@ public class ArticleServiceTest {
         Assertions.assertEquals("billy", firstPageArticles.get(1).getCreator().getName());
     }
 
+    /**
+     * Checks if recent articles that are in the snapshot are served without the DB and the auth service
+     */
+    @Test
+    public void getRecentArticlesSummariesFromSnapshot() {
+        Instant fakeCreatedAt = createInstantOf(2024, 1, 1, 17, 40, 0);
+        List<ArticleSummary> snapshotPage = List.of(
+                new ArticleSummary(1L, "Test title", fakeCreatedAt, new Creator(123L, "john")));
+        Mockito.when(recentArticlesSnapshot.getPage(20, 20)).thenReturn(Optional.of(snapshotPage));
+        Mockito.when(recentArticlesSnapshot.getPage(0, 20)).thenReturn(Optional.of(snapshotPage));
+
+        Assertions.assertEquals(snapshotPage, articleService.getRecentArticleSummaries(2));
+        ArticleSummaryPage page = articleService.getRecentArticleSummaries("");
+        Assertions.assertEquals(snapshotPage, page.getSummaries());
+        Assertions.assertNull(page.getNextCursor());
+
+        Mockito.verifyNoInteractions(articleInfoRepository, creatorService);
+    }
+
     /**
      * Checks if the getter of recent articles returns empty list if there are no articles
      */
@@ -189,20 +582,82 @@ public class ArticleServiceTest {
                 ex.getConstraintViolations().stream().findFirst().get().getMessage());
     }
 
+    /**
+     * Checks if found articles are returned with their creators in the order of relevance
+     */
+    @Test
+    public void searchArticles() {
+        Instant fakeCreatedAt = createInstantOf(2024, 1, 1, 17, 40, 0);
+        Mockito.when(articleSearchIndex.search("lucene", 20, 20)).thenReturn(List.of(
+                new ArticleSearchIndex.Hit(2L, "Test title two", fakeCreatedAt, 321L, 2.5f, "Test title two",
+                        "About <b>lucene</b>"),
+                new ArticleSearchIndex.Hit(1L, "Test title one", fakeCreatedAt, 123L, 1.5f, "Test title one",
+                        "Also <b>lucene</b>")));
+        Mockito.when(creatorService.getCreatorsByIds(List.of(321L, 123L))).thenReturn(List.of(
+                new Creator(321L, "jane"), new Creator(123L, "john")));
+
+        List<ArticleSearchResult> results = articleService.searchArticles("lucene", 2);
+
+        Assertions.assertEquals(2, results.size());
+        Assertions.assertEquals(2L, results.get(0).getSummary().getId());
+        Assertions.assertEquals("Test title two", results.get(0).getSummary().getTitle());
+        Assertions.assertEquals(fakeCreatedAt, results.get(0).getSummary().getCreatedAt());
+        Assertions.assertEquals("jane", results.get(0).getSummary().getCreator().getName());
+        Assertions.assertEquals("About <b>lucene</b>", results.get(0).getSnippet());
+        Assertions.assertEquals(2.5f, results.get(0).getScore());
+        Assertions.assertEquals(1L, results.get(1).getSummary().getId());
+        Assertions.assertEquals("john", results.get(1).getSummary().getCreator().getName());
+        Mockito.verifyNoInteractions(contentService);
+    }
+
+    /**
+     * Checks if a blank query and incorrect pages of search results are rejected
+     */
+    @Test
+    public void searchArticlesWithIncorrectArguments() {
+        ConstraintViolationException ex = Assertions.assertThrows(ConstraintViolationException.class,
+                () -> articleService.searchArticles(" ", 1));
+        Assertions.assertEquals("Search query must contain from 1 to 200 characters!",
+                ex.getConstraintViolations().stream().findFirst().get().getMessage());
+        Assertions.assertThrows(ConstraintViolationException.class,
+                () -> articleService.searchArticles("a".repeat(201), 1));
+        ex = Assertions.assertThrows(ConstraintViolationException.class,
+                () -> articleService.searchArticles("lucene", 0));
+        Assertions.assertEquals("Page number of search results must be from 1 to 50!",
+                ex.getConstraintViolations().stream().findFirst().get().getMessage());
+        Assertions.assertThrows(ConstraintViolationException.class,
+                () -> articleService.searchArticles("lucene", 51));
+        Mockito.verifyNoInteractions(articleSearchIndex);
+    }
+
+    /**
+     * Checks if a failure of the index is reported as an internal error
+     */
+    @Test
+    public void searchArticlesWithBrokenIndex() {
+        UncheckedIOException cause = new UncheckedIOException(new IOException("Test"));
+        Mockito.when(articleSearchIndex.search("lucene", 0, 20)).thenThrow(cause);
+
+        InternalServerException ex = Assertions.assertThrows(InternalServerException.class,
+                () -> articleService.searchArticles("lucene", 1));
+        Assertions.assertEquals("Can't search articles!", ex.getMessage());
+        Assertions.assertSame(cause, ex.getCause());
+    }
+
     /**
      * Checks if the getter of articles of a certain user is called and the result is correct
      */
     @Test
     public void getSomeUserArticlesSummariesWithExistingPage() {
         Instant firstFakeCreatedAt = createInstantOf(2024, 1, 1, 17, 40, 0);
-        ArticleInfo firstFakeArticleInfo = new ArticleInfo("Test title one", firstFakeCreatedAt, 123L);
-        firstFakeArticleInfo.setId(1L);
+        ArticleInfoSummary firstFakeArticleInfo =
+                new ArticleInfoSummary(1L, "Test title one", firstFakeCreatedAt, 123L);
 
         Instant secondFakeCreatedAt = createInstantOf(2024, 1, 2, 17, 40, 0);
-        ArticleInfo secondFakeArticleInfo = new ArticleInfo("Test title two", secondFakeCreatedAt, 123L);
-        secondFakeArticleInfo.setId(2L);
+        ArticleInfoSummary secondFakeArticleInfo =
+                new ArticleInfoSummary(2L, "Test title two", secondFakeCreatedAt, 123L);
 
-        List<ArticleInfo> fakeList = List.of(firstFakeArticleInfo, secondFakeArticleInfo);
+        List<ArticleInfoSummary> fakeList = List.of(firstFakeArticleInfo, secondFakeArticleInfo);
         Mockito.when(articleInfoRepository.findAllByCreatorIdOrderByCreatedAtDesc(123L, PageRequest.of(0, 20)))
                 .thenReturn(fakeList);
 
@@ -250,6 +705,99 @@ public class ArticleServiceTest {
                 ex.getConstraintViolations().stream().findFirst().get().getMessage());
     }
 
+    /**
+     * Checks if the first page by cursor is read without a cursor condition and points to the next page
+     */
+    @Test
+    public void getFullFirstPageOfRecentArticlesByCursor() {
+        Instant fakeCreatedAt = createInstantOf(2024, 1, 1, 17, 40, 0);
+        List<ArticleInfoSummary> fakeInfos = LongStream.rangeClosed(1, 20)
+                .mapToObj(i -> new ArticleInfoSummary(i, "Test title " + i, fakeCreatedAt, 123L))
+                .toList();
+        Mockito.when(articleInfoRepository.findAllByOrderByCreatedAtDescIdDesc(PageRequest.ofSize(20)))
+                .thenReturn(fakeInfos);
+        Mockito.when(creatorService.getCreatorsByIds(anyList()))
+                .thenAnswer(inv -> inv.<List<Long>>getArgument(0).stream()
+                        .map(id -> new Creator(id, "john"))
+                        .toList());
+
+        ArticleSummaryPage page = articleService.getRecentArticleSummaries("");
+
+        Assertions.assertEquals(20, page.getSummaries().size());
+        Assertions.assertEquals(new ArticleCursor(fakeCreatedAt, 20L).encode(), page.getNextCursor());
+        Mockito.verify(articleInfoRepository, Mockito.never()).findAllBefore(any(), anyLong(), any());
+    }
+
+    /**
+     * Checks if the page after the cursor is read by the cursor and the last page has no next cursor
+     */
+    @Test
+    public void getLastPageOfRecentArticlesByCursor() {
+        Instant cursorCreatedAt = createInstantOf(2024, 1, 2, 17, 40, 0);
+        Instant fakeCreatedAt = createInstantOf(2024, 1, 1, 17, 40, 0);
+        ArticleInfoSummary fakeArticleInfo = new ArticleInfoSummary(3L, "Test title", fakeCreatedAt, 123L);
+
+        Mockito.when(articleInfoRepository.findAllBefore(cursorCreatedAt, 7L, PageRequest.ofSize(20)))
+                .thenReturn(List.of(fakeArticleInfo));
+        Mockito.when(creatorService.getCreatorsByIds(List.of(123L)))
+                .thenReturn(List.of(new Creator(123L, "john")));
+
+        String cursor = new ArticleCursor(cursorCreatedAt, 7L).encode();
+        ArticleSummaryPage page = articleService.getRecentArticleSummaries(cursor);
+
+        Assertions.assertEquals(1, page.getSummaries().size());
+        Assertions.assertEquals(3L, page.getSummaries().get(0).getId());
+        Assertions.assertEquals("john", page.getSummaries().get(0).getCreator().getName());
+        Assertions.assertNull(page.getNextCursor());
+    }
+
+    /**
+     * Checks if the getter of recent articles with an incorrect cursor throws an exception
+     */
+    @Test
+    public void getRecentArticlesSummariesWithIncorrectCursor() {
+        ArticleServiceException ex = Assertions.assertThrows(ArticleServiceException.class,
+                () -> articleService.getRecentArticleSummaries("not a cursor"));
+        Assertions.assertEquals("Incorrect cursor of the page!", ex.getMessage());
+    }
+
+    /**
+     * Checks if the getter of recent articles with a cursor out of the range of dates throws an exception
+     */
+    @Test
+    public void getRecentArticlesSummariesWithCursorOutOfRange() {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        for (String plain : List.of("99999999999999999:0:1", Long.MAX_VALUE + ":1000000000:1")) {
+            String cursor = encoder.encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+            ArticleServiceException ex = Assertions.assertThrows(ArticleServiceException.class,
+                    () -> articleService.getRecentArticleSummaries(cursor));
+            Assertions.assertEquals("Incorrect cursor of the page!", ex.getMessage());
+        }
+    }
+
+    /**
+     * Checks if the getter of articles of a certain user reads the page after the cursor
+     */
+    @Test
+    public void getUserArticlesSummariesByCursor() {
+        Instant cursorCreatedAt = createInstantOf(2024, 1, 2, 17, 40, 0);
+        Instant fakeCreatedAt = createInstantOf(2024, 1, 1, 17, 40, 0);
+        ArticleInfoSummary fakeArticleInfo = new ArticleInfoSummary(3L, "Test title", fakeCreatedAt, 123L);
+
+        Mockito.when(articleInfoRepository.findAllByCreatorIdBefore(123L, cursorCreatedAt, 7L,
+                        PageRequest.ofSize(20)))
+                .thenReturn(List.of(fakeArticleInfo));
+
+        Creator creator = new Creator(123L, "john");
+        String cursor = new ArticleCursor(cursorCreatedAt, 7L).encode();
+        ArticleSummaryPage page = articleService.getArticleSummariesByCreator(creator, cursor);
+
+        Assertions.assertEquals(1, page.getSummaries().size());
+        Assertions.assertEquals(3L, page.getSummaries().get(0).getId());
+        Assertions.assertEquals(creator, page.getSummaries().get(0).getCreator());
+        Assertions.assertNull(page.getNextCursor());
+    }
+
     /**
      * Checks the creation of an article with correct data
      * @throws ArticleServiceException This exception should be not thrown
@@ -275,18 +823,25 @@ public class ArticleServiceTest {
                     ArticleInfo resultInfo = new ArticleInfo(title, fakeNow, 1L);
                     resultInfo.setId(1L);
 
-                    Mockito.when(articleInfoRepository.save(any(ArticleInfo.class)))
+                    Mockito.when(articleInfoRepository.saveAndFlush(any(ArticleInfo.class)))
                             .thenReturn(resultInfo);
 
                     long articleId = articleService.createArticle(1L, fakeData);
                     Assertions.assertEquals(1L, articleId);
 
                     Mockito.verify(articleInfoRepository, Mockito.times(1))
-                            .save(argThat(info -> assertArticleInfosEqual(fakeInfo, info)));
-                    Mockito.verify(contentService, Mockito.times(1)).saveContent(1L, content);
+                            .saveAndFlush(argThat(info -> assertArticleInfosEqual(fakeInfo, info)
+                                    && Hashes.sha256(content).equals(info.getContentHash())
+                                    && info.isContentPending()));
+                    Mockito.verify(contentOutboxService, Mockito.times(1)).add(1L, content, Hashes.sha256(content));
+                    Mockito.verifyNoInteractions(contentService);
+                    Mockito.verify(recentArticlesSnapshot, Mockito.times(1)).articleSaved(resultInfo);
+                    Mockito.verify(articleSearchIndex, Mockito.times(1)).articleSaved(resultInfo, content);
 
                     Mockito.reset(articleInfoRepository);
-                    Mockito.reset(contentService);
+                    Mockito.reset(contentOutboxService);
+                    Mockito.reset(recentArticlesSnapshot);
+                    Mockito.reset(articleSearchIndex);
                 }
             }
         }
@@ -406,6 +961,150 @@ public class ArticleServiceTest {
         Assertions.assertEquals("User already has an article with the same title!", ex.getMessage());
     }
 
+    /**
+     * Checks if an article with the same title that has been created concurrently gives the same error as one that
+     * has been found before the insert
+     */
+    @Test
+    public void createArticleWithTitleTakenConcurrently() {
+        String title = "a".repeat(50);
+        ArticleData fakeData = new ArticleData(title, "a".repeat(5_000));
+
+        Mockito.when(articleInfoRepository.existsByCreatorIdAndTitle(1L, title)).thenReturn(false);
+        Mockito.when(articleInfoRepository.saveAndFlush(any(ArticleInfo.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate key"));
+
+        ArticleServiceException ex = Assertions.assertThrows(ArticleServiceException.class,
+                () -> articleService.createArticle(1L, fakeData));
+        Assertions.assertEquals("User already has an article with the same title!", ex.getMessage());
+        Mockito.verifyNoInteractions(contentOutboxService, recentArticlesSnapshot, articleSearchIndex);
+    }
+
+    /**
+     * Checks if a batch is checked with one query, inserted at once with the contents in the outbox and only correct
+     * articles with unique titles are created
+     */
+    @Test
+    public void createArticlesInBatch() {
+        String content = "a".repeat(5_000);
+        List<CreateArticleRequest> requests = List.of(
+                new CreateArticleRequest("First title".repeat(2), content, 1L),
+                new CreateArticleRequest("First title".repeat(2), content, 2L),
+                new CreateArticleRequest("Short title", content, 1L),
+                new CreateArticleRequest("Second title".repeat(2), content, 1L),
+                new CreateArticleRequest("First title".repeat(2), content, 1L));
+
+        Mockito.when(articleInfoRepository.findAllByCreatorIdInAndTitleIn(any(), any())).thenReturn(List.of(
+                new ArticleInfoSummary(5L, "First title".repeat(2), Instant.now(), 2L)));
+        Mockito.when(articleInfoRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> {
+            List<ArticleInfo> infos = invocation.getArgument(0);
+            LongStream.range(0, infos.size()).forEach(i -> infos.get((int) i).setId(10L + i));
+            return infos;
+        });
+
+        List<CreateArticleResult> results = articleService.createArticles(requests);
+
+        Assertions.assertEquals(List.of(
+                CreateArticleResult.created(10L),
+                CreateArticleResult.failed("User already has an article with the same title!"),
+                CreateArticleResult.failed("Title must contain at least 15 characters!"),
+                CreateArticleResult.created(11L),
+                CreateArticleResult.failed("User already has an article with the same title!")), results);
+        Mockito.verify(articleInfoRepository, Mockito.times(1)).findAllByCreatorIdInAndTitleIn(
+                Set.of(1L, 2L), Set.of("First title".repeat(2), "Second title".repeat(2), "Short title"));
+        Mockito.verify(articleInfoRepository, Mockito.times(1)).saveAllAndFlush(argThat(infos ->
+                infos instanceof List<?> list && list.size() == 2 && list.stream()
+                        .allMatch(info -> info instanceof ArticleInfo articleInfo && articleInfo.isContentPending())));
+        Mockito.verify(articleInfoRepository, Mockito.never()).saveAndFlush(any());
+        Mockito.verify(contentOutboxService, Mockito.times(1)).addAll(List.of(
+                new ContentOutboxService.NewContent(10L, content, Hashes.sha256(content)),
+                new ContentOutboxService.NewContent(11L, content, Hashes.sha256(content))));
+        Mockito.verify(recentArticlesSnapshot, Mockito.times(2)).articleSaved(any());
+        Mockito.verifyNoInteractions(contentService);
+    }
+
+    /**
+     * Checks if the contents of a batch are added to the outbox instead of being uploaded, so the articles are
+     * created even when S3 is unavailable
+     */
+    @Test
+    public void createArticlesWithUnavailableContentService() {
+        String content = "a".repeat(5_000);
+        String otherContent = "b".repeat(5_000);
+        List<CreateArticleRequest> requests = List.of(
+                new CreateArticleRequest("First title".repeat(2), content, 1L),
+                new CreateArticleRequest("Second title".repeat(2), otherContent, 1L));
+
+        Mockito.when(articleInfoRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> {
+            List<ArticleInfo> infos = invocation.getArgument(0);
+            LongStream.range(0, infos.size()).forEach(i -> infos.get((int) i).setId(10L + i));
+            return infos;
+        });
+        Mockito.doThrow(new ContentServiceException("Test", null)).when(contentService).saveContent(any());
+
+        List<CreateArticleResult> results = articleService.createArticles(requests);
+
+        Assertions.assertEquals(List.of(CreateArticleResult.created(10L), CreateArticleResult.created(11L)), results);
+        Mockito.verify(contentOutboxService, Mockito.times(1)).addAll(List.of(
+                new ContentOutboxService.NewContent(10L, content, Hashes.sha256(content)),
+                new ContentOutboxService.NewContent(11L, otherContent, Hashes.sha256(otherContent))));
+        Mockito.verify(articleSearchIndex, Mockito.times(1)).articleSaved(argThat(info -> info.getId() == 11L),
+                eq(otherContent));
+        Mockito.verify(articleInfoRepository, Mockito.never()).deleteAllById(any());
+        Mockito.verify(articleSearchIndex, Mockito.never()).articlesDeleted(any());
+        Mockito.verifyNoInteractions(contentService);
+    }
+
+    /**
+     * Checks if the rows are inserted one by one when a title has been taken after the check, so only that article
+     * fails
+     */
+    @Test
+    public void createArticlesWithTitleTakenConcurrently() {
+        String content = "a".repeat(5_000);
+        List<CreateArticleRequest> requests = List.of(
+                new CreateArticleRequest("First title".repeat(2), content, 1L),
+                new CreateArticleRequest("Second title".repeat(2), content, 1L));
+
+        Mockito.when(articleInfoRepository.saveAllAndFlush(anyList()))
+                .thenThrow(new DataIntegrityViolationException("Test"));
+        Mockito.when(articleInfoRepository.saveAndFlush(argThat(info -> info != null
+                        && info.getTitle().equals("First title".repeat(2)))))
+                .thenThrow(new DataIntegrityViolationException("Test"));
+        Mockito.when(articleInfoRepository.saveAndFlush(argThat(info -> info != null
+                        && info.getTitle().equals("Second title".repeat(2)))))
+                .thenAnswer(invocation -> {
+                    ArticleInfo info = invocation.getArgument(0);
+                    Assertions.assertNull(info.getId());
+                    info.setId(20L);
+                    return info;
+                });
+
+        List<CreateArticleResult> results = articleService.createArticles(requests);
+
+        Assertions.assertEquals(List.of(
+                CreateArticleResult.failed("User already has an article with the same title!"),
+                CreateArticleResult.created(20L)), results);
+        Mockito.verify(contentOutboxService, Mockito.never()).addAll(any());
+        Mockito.verify(contentOutboxService, Mockito.times(1)).add(anyLong(), any(), any());
+        Mockito.verify(contentOutboxService, Mockito.times(1)).add(20L, content, Hashes.sha256(content));
+        Mockito.verifyNoInteractions(contentService);
+    }
+
+    /**
+     * Checks if a batch with too many articles is rejected without calls to the DB
+     */
+    @Test
+    public void createTooManyArticles() {
+        CreateArticleRequest request = new CreateArticleRequest("a".repeat(50), "a".repeat(5_000), 1L);
+        List<CreateArticleRequest> requests = Collections.nCopies(1001, request);
+
+        ArticleServiceException ex = Assertions.assertThrows(ArticleServiceException.class,
+                () -> articleService.createArticles(requests));
+        Assertions.assertEquals("Batch can't contain more than 1000 articles!", ex.getMessage());
+        Mockito.verifyNoInteractions(articleInfoRepository);
+    }
+
     /**
      * Checks updating of an article with correct data
      * @throws ArticleServiceException This exception should be not thrown
@@ -428,8 +1127,33 @@ public class ArticleServiceTest {
         expectedInfo.setId(1L);
 
         Mockito.verify(articleInfoRepository, Mockito.times(1))
-                .save(argThat(info -> assertArticleInfosEqual(expectedInfo, info)));
-        Mockito.verify(contentService, Mockito.times(1)).saveContent(1L, newContent);
+                .saveAndFlush(argThat(info -> assertArticleInfosEqual(expectedInfo, info) && info.isContentPending()));
+        Mockito.verify(contentOutboxService, Mockito.times(1)).add(1L, newContent, Hashes.sha256(newContent));
+        Mockito.verifyNoInteractions(contentService);
+        Mockito.verify(articleSearchIndex, Mockito.times(1)).articleSaved(
+                argThat(info -> assertArticleInfosEqual(expectedInfo, info)), eq(newContent));
+    }
+
+    /**
+     * Checks if an unchanged content is not uploaded again when only the title of an article is updated
+     */
+    @Test
+    public void updateArticleWithSameContent() {
+        String content = "a".repeat(5_000);
+        ArticleInfo fakeArticleInfo = new ArticleInfo("a".repeat(50), createInstantOf(2024, 1, 1, 17, 40, 0), 1L);
+        fakeArticleInfo.setId(1L);
+        fakeArticleInfo.setContentHash(Hashes.sha256(content));
+
+        Mockito.when(articleInfoRepository.findById(1L)).thenReturn(Optional.of(fakeArticleInfo));
+
+        String newTitle = "b".repeat(50);
+        articleService.updateArticle(1L, new ArticleData(newTitle, content));
+
+        Mockito.verify(articleInfoRepository, Mockito.times(1)).saveAndFlush(argThat(info ->
+                newTitle.equals(info.getTitle()) && Hashes.sha256(content).equals(info.getContentHash())
+                        && !info.isContentPending()));
+        Mockito.verifyNoInteractions(contentOutboxService);
+        Mockito.verifyNoInteractions(contentService);
     }
 
     /**
@@ -562,8 +1286,8 @@ public class ArticleServiceTest {
         articleService.updateArticle(1L, fakeData);
 
         Mockito.verify(articleInfoRepository, Mockito.times(1))
-                .save(argThat(info -> assertArticleInfosEqual(fakeArticleInfo, info)));
-        Mockito.verify(contentService, Mockito.times(1)).saveContent(1L, newContent);
+                .saveAndFlush(argThat(info -> assertArticleInfosEqual(fakeArticleInfo, info)));
+        Mockito.verify(contentOutboxService, Mockito.times(1)).add(1L, newContent, Hashes.sha256(newContent));
     }
 
     /**
@@ -591,8 +1315,30 @@ public class ArticleServiceTest {
                 articleService.updateArticle(1L, updateData));
 
         Assertions.assertEquals("User already has another article with the same title!", ex.getMessage());
-        Mockito.verify(articleInfoRepository, Mockito.never()).save(any());
-        Mockito.verify(contentService, Mockito.never()).saveContent(anyLong(), anyString());
+        Mockito.verify(articleInfoRepository, Mockito.never()).saveAndFlush(any());
+        Mockito.verify(contentOutboxService, Mockito.never()).add(anyLong(), anyString(), anyString());
+    }
+
+    /**
+     * Checks if updating an article to a title that has been taken concurrently gives the same error as the check
+     * before the update
+     */
+    @Test
+    public void updateArticleToTitleTakenConcurrently() {
+        ArticleInfo fakeArticleInfo = new ArticleInfo("a".repeat(50), createInstantOf(2024, 1, 1, 17, 40, 0), 777L);
+        fakeArticleInfo.setId(1L);
+        String anotherTitle = "b".repeat(50);
+
+        Mockito.when(articleInfoRepository.findById(1L)).thenReturn(Optional.of(fakeArticleInfo));
+        Mockito.when(articleInfoRepository.findAllByCreatorIdAndTitle(777L, anotherTitle)).thenReturn(List.of());
+        Mockito.when(articleInfoRepository.saveAndFlush(any(ArticleInfo.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate key"));
+
+        ArticleServiceException ex = Assertions.assertThrows(ArticleServiceException.class, () ->
+                articleService.updateArticle(1L, new ArticleData(anotherTitle, "b".repeat(5_000))));
+
+        Assertions.assertEquals("User already has another article with the same title!", ex.getMessage());
+        Mockito.verifyNoInteractions(contentOutboxService, recentArticlesSnapshot, articleSearchIndex);
     }
 
     /**
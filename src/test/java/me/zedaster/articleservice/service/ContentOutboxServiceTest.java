@@ -0,0 +1,323 @@
+package me.zedaster.articleservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.zedaster.articleservice.concurrency.Bulkheads;
+import me.zedaster.articleservice.configuration.ContentOutboxConfiguration;
+import me.zedaster.articleservice.configuration.DownstreamConfiguration;
+import me.zedaster.articleservice.entity.ContentOutboxEntry;
+import me.zedaster.articleservice.repository.ArticleInfoRepository;
+import me.zedaster.articleservice.repository.ContentOutboxBacklog;
+import me.zedaster.articleservice.repository.ContentOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+/**
+ * Tests for {@link ContentOutboxService}
+ */
+@SpringBootTest(classes = {ContentOutboxService.class, Bulkheads.class, SimpleMeterRegistry.class,
+        ContentOutboxServiceTest.TestConfig.class})
+public class ContentOutboxServiceTest {
+    private static final String HASH = "a".repeat(64);
+
+    private static final String NEW_HASH = "b".repeat(64);
+
+    @Autowired
+    private ContentOutboxService contentOutboxService;
+
+    @MockitoBean
+    private ContentOutboxRepository contentOutboxRepository;
+
+    @MockitoBean
+    private ArticleInfoRepository articleInfoRepository;
+
+    @MockitoBean
+    private ContentService contentService;
+
+    @TestConfiguration
+    public static class TestConfig {
+        @Bean
+        public ContentOutboxConfiguration contentOutboxConfiguration() {
+            ContentOutboxConfiguration configuration = new ContentOutboxConfiguration();
+            // Polls are called directly by the tests
+            configuration.setPollInterval(Duration.ofHours(1));
+            configuration.setInitialRetryDelay(Duration.ofSeconds(1));
+            configuration.setMaxRetryDelay(Duration.ofSeconds(10));
+            configuration.setMaxAttempts(5);
+            return configuration;
+        }
+
+        @Bean
+        public DownstreamConfiguration downstreamConfiguration() {
+            return new DownstreamConfiguration();
+        }
+
+        @Bean
+        public TransactionTemplate transactionTemplate() {
+            return new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class));
+        }
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void mockBacklog() {
+        Mockito.when(contentOutboxRepository.getBacklog()).thenReturn(ContentOutboxBacklog.EMPTY);
+    }
+
+    @AfterEach
+    public void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Checks if a content is added in the transaction and uploaded only after the commit
+     */
+    @Test
+    public void addAndUploadAfterCommit() {
+        mockEntry(entry("Test content", HASH, 0));
+        Mockito.when(contentOutboxRepository.claim(eq(1L), any(), any())).thenReturn(1);
+        Mockito.when(contentOutboxRepository.deleteUploaded(1L, HASH)).thenReturn(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        contentOutboxService.add(1L, "Test content", HASH);
+
+        Mockito.verify(contentOutboxRepository, Mockito.times(1)).upsert(eq(1L), eq("Test content"), eq(HASH), any());
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        Mockito.verifyNoInteractions(contentService);
+
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        Mockito.verify(contentService, Mockito.timeout(1_000)).saveContent("Test content");
+        Mockito.verify(contentOutboxRepository, Mockito.timeout(1_000)).deleteUploaded(1L, HASH);
+        Mockito.verify(articleInfoRepository, Mockito.timeout(1_000)).markContentUploaded(1L, HASH);
+    }
+
+    /**
+     * Checks if contents of several articles are added with one statement and uploaded only after the commit
+     */
+    @Test
+    public void addAllAndUploadAfterCommit() {
+        mockEntry(entry("Test content", HASH, 0));
+        Mockito.when(contentOutboxRepository.findById(2L)).thenReturn(Optional.of(
+                new ContentOutboxEntry(2L, "New content", NEW_HASH, 0, Instant.now(), Instant.now(), null)));
+        Mockito.when(contentOutboxRepository.claim(anyLong(), any(), any())).thenReturn(1);
+        Mockito.when(contentOutboxRepository.deleteUploaded(anyLong(), anyString())).thenReturn(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        contentOutboxService.addAll(List.of(
+                new ContentOutboxService.NewContent(1L, "Test content", HASH),
+                new ContentOutboxService.NewContent(2L, "New content", NEW_HASH)));
+
+        Mockito.verify(contentOutboxRepository, Mockito.times(1)).upsertAll(eq(new Long[]{1L, 2L}),
+                eq(new String[]{"Test content", "New content"}), eq(new String[]{HASH, NEW_HASH}), any());
+        Mockito.verify(contentOutboxRepository, Mockito.never()).upsert(anyLong(), any(), any(), any());
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        Mockito.verifyNoInteractions(contentService);
+
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        Mockito.verify(articleInfoRepository, Mockito.timeout(1_000)).markContentUploaded(1L, HASH);
+        Mockito.verify(articleInfoRepository, Mockito.timeout(1_000)).markContentUploaded(2L, NEW_HASH);
+        Mockito.verify(contentService, Mockito.times(1)).saveContent("Test content");
+        Mockito.verify(contentService, Mockito.times(1)).saveContent("New content");
+    }
+
+    /**
+     * Checks if a failed upload is postponed and the entry is kept
+     */
+    @Test
+    public void postponeFailedUpload() {
+        mockEntry(entry("Test content", HASH, 2));
+        Mockito.when(contentOutboxRepository.claim(eq(1L), any(), any())).thenReturn(1);
+        Mockito.doThrow(new ContentServiceException("Test", null)).when(contentService)
+                .saveContent(anyString());
+
+        Instant beforeUpload = Instant.now();
+        contentOutboxService.upload(1L);
+
+        // Two failed attempts before this one, so the delay is doubled twice
+        Mockito.verify(contentOutboxRepository, Mockito.times(1)).postpone(eq(1L),
+                Mockito.argThat(retryAt -> !retryAt.isBefore(beforeUpload.plusSeconds(4))));
+        Mockito.verify(contentOutboxRepository, Mockito.never()).deleteUploaded(anyLong(), anyString());
+        Mockito.verify(articleInfoRepository, Mockito.never()).markContentUploaded(anyLong(), anyString());
+    }
+
+    /**
+     * Checks if the content is dead-lettered after the last allowed attempt
+     */
+    @Test
+    public void deadLetterAfterMaxAttempts() {
+        mockEntry(entry("Test content", HASH, 4));
+        Mockito.when(contentOutboxRepository.claim(eq(1L), any(), any())).thenReturn(1);
+        Mockito.when(contentOutboxRepository.deadLetter(eq(1L), eq(HASH), any())).thenReturn(1);
+        Mockito.doThrow(new ContentServiceException("Test", null)).when(contentService)
+                .saveContent(anyString());
+        double deadLettersBefore = meterRegistry.counter("outbox.content.dead.letters").count();
+
+        contentOutboxService.upload(1L);
+
+        Mockito.verify(contentOutboxRepository, Mockito.times(1)).deadLetter(eq(1L), eq(HASH), any());
+        Mockito.verify(contentOutboxRepository, Mockito.never()).postpone(anyLong(), any());
+        Assertions.assertEquals(deadLettersBefore + 1, meterRegistry.counter("outbox.content.dead.letters").count());
+    }
+
+    /**
+     * Checks if a content that has been replaced before it's dead-lettered is retried
+     */
+    @Test
+    public void retryContentReplacedBeforeDeadLetter() {
+        mockEntry(entry("Test content", HASH, 4));
+        Mockito.when(contentOutboxRepository.claim(eq(1L), any(), any())).thenReturn(1);
+        Mockito.when(contentOutboxRepository.deadLetter(eq(1L), eq(HASH), any())).thenReturn(0);
+        Mockito.doThrow(new ContentServiceException("Test", null)).when(contentService)
+                .saveContent(anyString());
+
+        contentOutboxService.upload(1L);
+
+        Mockito.verify(contentOutboxRepository, Mockito.times(1)).postpone(eq(1L), any());
+    }
+
+    /**
+     * Checks if a content that has been replaced during the upload is uploaded again by the same worker
+     */
+    @Test
+    public void uploadContentReplacedDuringUpload() {
+        Mockito.when(contentOutboxRepository.findById(1L)).thenReturn(
+                Optional.of(entry("Old content", HASH, 0)),
+                Optional.of(entry("New content", NEW_HASH, 0)));
+        Mockito.when(contentOutboxRepository.claim(eq(1L), any(), any())).thenReturn(1);
+        Mockito.when(contentOutboxRepository.deleteUploaded(1L, HASH)).thenReturn(0);
+        Mockito.when(contentOutboxRepository.deleteUploaded(1L, NEW_HASH)).thenReturn(1);
+
+        contentOutboxService.upload(1L);
+
+        InOrder inOrder = Mockito.inOrder(contentService);
+        inOrder.verify(contentService).saveContent("Old content");
+        inOrder.verify(contentService).saveContent("New content");
+        Mockito.verify(articleInfoRepository, Mockito.never()).markContentUploaded(1L, HASH);
+        Mockito.verify(articleInfoRepository, Mockito.times(1)).markContentUploaded(1L, NEW_HASH);
+    }
+
+    /**
+     * Checks if a content that is claimed by another worker is not uploaded
+     */
+    @Test
+    public void skipClaimedContent() {
+        Mockito.when(contentOutboxRepository.claim(eq(1L), any(), any())).thenReturn(0);
+
+        contentOutboxService.upload(1L);
+
+        Mockito.verifyNoInteractions(contentService);
+        Mockito.verify(contentOutboxRepository, Mockito.never()).findById(anyLong());
+    }
+
+    /**
+     * Checks if a poll starts uploads of the available contents
+     */
+    @Test
+    public void uploadAvailableContents() {
+        Mockito.when(contentOutboxRepository.findAvailableArticleIds(any(), any())).thenReturn(List.of(1L));
+        mockEntry(entry("Test content", HASH, 0));
+        Mockito.when(contentOutboxRepository.claim(eq(1L), any(), any())).thenReturn(1);
+        Mockito.when(contentOutboxRepository.deleteUploaded(1L, HASH)).thenReturn(1);
+
+        contentOutboxService.uploadAvailable();
+
+        Mockito.verify(contentService, Mockito.timeout(1_000)).saveContent("Test content");
+        Mockito.verify(articleInfoRepository, Mockito.timeout(1_000)).markContentUploaded(1L, HASH);
+    }
+
+    /**
+     * Checks if a poll updates the gauges of the backlog
+     */
+    @Test
+    public void reportBacklog() {
+        Mockito.when(contentOutboxRepository.findAvailableArticleIds(any(), any())).thenReturn(List.of());
+        Mockito.when(contentOutboxRepository.getBacklog())
+                .thenReturn(new ContentOutboxBacklog(5L, 2L, Instant.now().minusSeconds(60)));
+
+        contentOutboxService.uploadAvailable();
+
+        Assertions.assertEquals(3, meterRegistry.get("outbox.content.pending").gauge().value());
+        Assertions.assertEquals(2, meterRegistry.get("outbox.content.dead.lettered").gauge().value());
+        Assertions.assertTrue(meterRegistry.get("outbox.content.oldest.age").gauge().value() >= 60);
+    }
+
+    /**
+     * Checks if the polls are started with the application context and can be stopped and started again
+     */
+    @Test
+    public void startAndStopPolls() {
+        Assertions.assertTrue(contentOutboxService.isRunning());
+
+        contentOutboxService.stop();
+        Assertions.assertFalse(contentOutboxService.isRunning());
+
+        contentOutboxService.start();
+        Assertions.assertTrue(contentOutboxService.isRunning());
+    }
+
+    /**
+     * Checks if the pending content is returned
+     */
+    @Test
+    public void getPendingContent() {
+        mockEntry(entry("Test content", HASH, 0));
+
+        Assertions.assertEquals(Optional.of("Test content"), contentOutboxService.getContent(1L));
+        Assertions.assertEquals(Optional.empty(), contentOutboxService.getContent(2L));
+    }
+
+    /**
+     * Checks if the delay between attempts grows and doesn't exceed the maximum
+     */
+    @Test
+    public void retryDelayIsLimited() {
+        Assertions.assertEquals(Duration.ofSeconds(1), contentOutboxService.retryDelay(0));
+        Assertions.assertEquals(Duration.ofSeconds(2), contentOutboxService.retryDelay(1));
+        Assertions.assertEquals(Duration.ofSeconds(8), contentOutboxService.retryDelay(3));
+        Assertions.assertEquals(Duration.ofSeconds(10), contentOutboxService.retryDelay(4));
+        Assertions.assertEquals(Duration.ofSeconds(10), contentOutboxService.retryDelay(1_000));
+    }
+
+    /**
+     * Makes the repository return the entry for the article with ID 1
+     */
+    private void mockEntry(ContentOutboxEntry entry) {
+        Mockito.when(contentOutboxRepository.findById(1L)).thenReturn(Optional.of(entry));
+    }
+
+    /**
+     * Creates an entry of the article with ID 1 that is not dead-lettered
+     */
+    private static ContentOutboxEntry entry(String content, String contentHash, int attempts) {
+        return new ContentOutboxEntry(1L, content, contentHash, attempts, Instant.now(), Instant.now(), null);
+    }
+}
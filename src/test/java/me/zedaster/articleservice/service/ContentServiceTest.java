@@ -1,11 +1,26 @@
 package me.zedaster.articleservice.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import me.zedaster.articleservice.cache.ContentCache;
+import me.zedaster.articleservice.concurrency.Bulkheads;
+import me.zedaster.articleservice.configuration.ContentStorageConfiguration;
+import me.zedaster.articleservice.configuration.DownstreamConfiguration;
+import me.zedaster.articleservice.configuration.ExecutorConfiguration;
 import me.zedaster.articleservice.configuration.S3Configuration;
+import me.zedaster.articleservice.configuration.cache.ContentCacheConfiguration;
+import me.zedaster.articleservice.dto.content.ContentEncoding;
+import me.zedaster.articleservice.dto.content.StoredContent;
+import me.zedaster.articleservice.storage.AsyncContentStorage;
+import me.zedaster.articleservice.storage.ContentStorage;
+import me.zedaster.articleservice.util.Hashes;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
@@ -14,13 +29,26 @@ import org.springframework.context.annotation.Primary;
 import org.testcontainers.containers.MinIOContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Tests for {@link ContentService}.
  */
-@SpringBootTest(classes = {ContentService.class, ContentServiceTest.TestConfig.class})
+@SpringBootTest(classes = {ContentService.class, ContentCache.class, Bulkheads.class, SimpleMeterRegistry.class,
+        ExecutorConfiguration.class, ContentStorageConfiguration.class, ContentServiceTest.TestConfig.class})
 @Testcontainers
 public class ContentServiceTest {
     private static final String MINIO_IMAGE = "minio/minio:RELEASE.2024-10-13T13-34-11Z";
@@ -33,12 +61,17 @@ public class ContentServiceTest {
         @Bean
         @Primary
         public S3Configuration s3Configuration() {
-            S3Configuration s3Config = Mockito.mock(S3Configuration.class);
-            Mockito.when(s3Config.getAccessKey()).thenReturn(minIoContainer.getUserName());
-            Mockito.when(s3Config.getSecretKey()).thenReturn(minIoContainer.getPassword());
-            Mockito.when(s3Config.getEndpointUrl()).thenReturn(minIoContainer.getS3URL());
-            Mockito.when(s3Config.getContentBucketName()).thenReturn("contents");
-            return s3Config;
+            return createS3Configuration(S3Configuration.ClientMode.SYNC);
+        }
+
+        @Bean
+        public ContentCacheConfiguration contentCacheConfiguration() {
+            return new ContentCacheConfiguration();
+        }
+
+        @Bean
+        public DownstreamConfiguration downstreamConfiguration() {
+            return new DownstreamConfiguration();
         }
 
     }
@@ -46,6 +79,21 @@ public class ContentServiceTest {
     @Autowired
     private ContentService contentService;
 
+    @Autowired
+    private ContentCache contentCache;
+
+    @Autowired
+    private Bulkheads bulkheads;
+
+    @Autowired
+    private ExecutorService downstreamExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectProvider<Tracer> tracerProvider;
+
     @BeforeAll
     static void beforeAll() {
         minIoContainer.start();
@@ -65,18 +113,202 @@ public class ContentServiceTest {
     @Test
     public void testSaveAndGetAndUpdate() throws ContentServiceException {
         // Get non-existent content
-        Assertions.assertTrue(contentService.getContentByArticleId(1L).isEmpty());
+        Assertions.assertTrue(contentService.getContent(1L, Hashes.sha256("content")).isEmpty());
         // Save and get existent content
-        contentService.saveContent(1L, "content");
-        Optional<String> content = contentService.getContentByArticleId(1L);
+        String hash = contentService.saveContent("content");
+        Assertions.assertEquals(Hashes.sha256("content"), hash);
+        Optional<String> content = contentService.getContent(1L, hash);
         Assertions.assertTrue(content.isPresent());
         Assertions.assertEquals("content", content.get());
         // Update content to the same value
-        contentService.saveContent(1L, "content");
-        Assertions.assertEquals(contentService.getContentByArticleId(1L).get(), "content");
+        Assertions.assertEquals(hash, contentService.saveContent("content"));
+        Assertions.assertEquals(contentService.getContent(1L, hash).get(), "content");
         // Update content to a new value
-        contentService.saveContent(1L, "new content");
-        Assertions.assertEquals(contentService.getContentByArticleId(1L).get(), "new content");
+        String newHash = contentService.saveContent("new content");
+        Assertions.assertEquals(contentService.getContent(1L, newHash).get(), "new content");
+    }
+
+    /**
+     * Tests that saved content is served from the cache without fetching it again.
+     */
+    @Test
+    public void testSavedContentIsCached() throws ContentServiceException {
+        String hash = contentService.saveContent("cached content");
+        long hitsBefore = contentCache.stats().hitCount();
+
+        Assertions.assertEquals("cached content", contentService.getContent(2L, hash).get());
+        Assertions.assertEquals(hitsBefore + 1, contentCache.stats().hitCount());
+    }
+
+    /**
+     * Tests that content is stored compressed and decoded on reading.
+     */
+    @Test
+    public void testContentIsStoredCompressed() throws ContentServiceException {
+        String text = "compressible content ".repeat(100);
+        String hash = contentService.saveContent(text);
+        contentCache.invalidate("contents/" + hash + ".txt.gz");
+
+        StoredContent stored = contentService.getStoredContent(3L, hash).orElseThrow();
+        Assertions.assertEquals(ContentEncoding.GZIP, stored.getEncoding());
+        Assertions.assertTrue(stored.getData().length < text.length() / 10);
+        Assertions.assertEquals(text, contentService.getContent(3L, hash).orElseThrow());
+    }
+
+    /**
+     * Tests that identical contents of different articles are stored as one object that is uploaded once.
+     */
+    @Test
+    public void testIdenticalContentsAreStoredOnce() throws ContentServiceException {
+        try (S3Client s3Client = createS3Client()) {
+            String hash = contentService.saveContent("shared content");
+            String key = "contents/" + hash + ".txt.gz";
+            s3Client.deleteObject(b -> b.bucket("contents").key(key));
+
+            // The content is known to be in S3, so it's not uploaded again
+            Assertions.assertEquals(hash, contentService.saveContent("shared content"));
+            Assertions.assertThrows(S3Exception.class, () -> s3Client.headObject(b -> b.bucket("contents").key(key)));
+
+            contentCache.invalidate(key);
+            contentService.saveContent("shared content");
+            Assertions.assertEquals("shared content", contentService.getContent(5L, hash).orElseThrow());
+            Assertions.assertEquals("shared content", contentService.getContent(6L, hash).orElseThrow());
+        }
+    }
+
+    /**
+     * Tests that content that was saved by article ID before content hashes is still readable, including plain text
+     * content that was saved before compression.
+     */
+    @Test
+    public void testLegacyContentIsReadable() throws ContentServiceException {
+        try (S3Client s3Client = createS3Client()) {
+            s3Client.putObject(b -> b.bucket("contents").key("articles/4.txt"),
+                    RequestBody.fromString("legacy content", StandardCharsets.UTF_8));
+
+            // The hash of the article may be known before its content is saved by the hash
+            StoredContent stored = contentService.getStoredContent(4L, Hashes.sha256("legacy content")).orElseThrow();
+            Assertions.assertEquals(ContentEncoding.IDENTITY, stored.getEncoding());
+            Assertions.assertEquals("legacy content", contentService.getContent(4L, null).orElseThrow());
+
+            String hash = contentService.saveContent("new content");
+            Assertions.assertEquals("new content", contentService.getContent(4L, hash).orElseThrow());
+        }
+    }
+
+    /**
+     * Tests that the fallback to legacy objects doesn't run in the thread that completed the fetch by the hash, so it
+     * never waits for the bulkhead in a thread of the S3 client.
+     */
+    @Test
+    public void testLegacyFallbackLeavesCompletingThread() throws Exception {
+        ContentStorage storage = Mockito.mock(ContentStorage.class);
+        CompletableFuture<byte[]> fetchByHash = new CompletableFuture<>();
+        AtomicReference<Thread> legacyFetchThread = new AtomicReference<>();
+        Mockito.when(storage.fetch(Mockito.anyString())).thenAnswer(invocation -> {
+            if (invocation.<String>getArgument(0).startsWith("contents/")) {
+                return fetchByHash;
+            }
+            legacyFetchThread.set(Thread.currentThread());
+            return CompletableFuture.completedFuture(null);
+        });
+        ContentService mockedContentService = new ContentService(storage, contentCache,
+                new DownstreamConfiguration(), downstreamExecutor, meterRegistry, tracerProvider);
+
+        CompletableFuture<Optional<StoredContent>> content = mockedContentService
+                .fetchStoredContentAsync(10L, Hashes.sha256("missing content"));
+        Thread completingThread = new Thread(() -> fetchByHash.complete(null));
+        completingThread.start();
+        completingThread.join();
+
+        Assertions.assertTrue(content.get(5, TimeUnit.SECONDS).isEmpty());
+        Assertions.assertNotNull(legacyFetchThread.get());
+        Assertions.assertNotSame(completingThread, legacyFetchThread.get());
+    }
+
+    /**
+     * Tests that content saved with the sync client is read and saved the same way with the async client.
+     */
+    @Test
+    public void testAsyncClient() throws ContentServiceException {
+        String hash = contentService.saveContent("async content");
+        contentCache.invalidate("contents/" + hash + ".txt.gz");
+
+        S3Configuration asyncConfiguration = createS3Configuration(S3Configuration.ClientMode.ASYNC);
+        try (ContentStorage asyncStorage = new ContentStorageConfiguration()
+                .contentStorage(asyncConfiguration, bulkheads, downstreamExecutor, meterRegistry)) {
+            Assertions.assertInstanceOf(AsyncContentStorage.class, asyncStorage);
+            ContentService asyncContentService = new ContentService(asyncStorage, contentCache,
+                    new DownstreamConfiguration(), downstreamExecutor, meterRegistry, tracerProvider);
+
+            StoredContent stored = asyncContentService.getStoredContentAsync(7L, hash).join().orElseThrow();
+            Assertions.assertEquals("async content", stored.decode());
+            Assertions.assertTrue(asyncContentService.getStoredContentAsync(7L, null).join().isEmpty());
+
+            String newHash = asyncContentService.saveContent("new async content");
+            contentCache.invalidate("contents/" + newHash + ".txt.gz");
+            Assertions.assertEquals("new async content", contentService.getContent(7L, newHash).orElseThrow());
+        }
+    }
+
+    /**
+     * Tests that the pool of connections of the S3 client is exported to the metrics.
+     */
+    @Test
+    public void testConnectionPoolMetrics() throws ContentServiceException {
+        String hash = contentService.saveContent("measured content");
+        contentCache.invalidate("contents/" + hash + ".txt.gz");
+        contentService.getContent(8L, hash);
+
+        Assertions.assertEquals(50, meterRegistry.get("http.client.pool.max").tag("client", "s3").gauge().value());
+        Assertions.assertTrue(meterRegistry.get("http.client.pool.acquire").tag("client", "s3").timer().count() > 0);
+    }
+
+    /**
+     * Tests that gets and saves of contents and the calls to S3 they make are timed, and sizes of objects are
+     * recorded.
+     */
+    @Test
+    public void testCallMetrics() throws ContentServiceException {
+        long savesBefore = callCount("contents.calls", "save");
+        long getsBefore = callCount("contents.calls", "get");
+        long fetchesBefore = callCount("s3.calls", "fetch");
+
+        String hash = contentService.saveContent("timed content " + System.nanoTime());
+        contentCache.invalidate("contents/" + hash + ".txt.gz");
+        contentService.getContent(9L, hash);
+        // The second get is served by the cache without calling S3
+        contentService.getContent(9L, hash);
+
+        Assertions.assertEquals(savesBefore + 1, callCount("contents.calls", "save"));
+        Assertions.assertEquals(getsBefore + 2, callCount("contents.calls", "get"));
+        Assertions.assertEquals(fetchesBefore + 1, callCount("s3.calls", "fetch"));
+        Assertions.assertTrue(callCount("s3.calls", "upload") > 0);
+        Assertions.assertTrue(meterRegistry.get("s3.object.size").tag("operation", "fetch").summary().count() > 0);
+    }
+
+    private long callCount(String name, String operation) {
+        return meterRegistry.get(name).tag("operation", operation).tag("outcome", "success").timer().count();
+    }
+
+    private static S3Configuration createS3Configuration(S3Configuration.ClientMode clientMode) {
+        S3Configuration s3Config = new S3Configuration();
+        s3Config.setAccessKey(minIoContainer.getUserName());
+        s3Config.setSecretKey(minIoContainer.getPassword());
+        s3Config.setEndpointUrl(minIoContainer.getS3URL());
+        s3Config.setContentBucketName("contents");
+        s3Config.setClientMode(clientMode);
+        return s3Config;
+    }
+
+    private static S3Client createS3Client() {
+        return S3Client.builder()
+                .endpointOverride(URI.create(minIoContainer.getS3URL()))
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(minIoContainer.getUserName(), minIoContainer.getPassword())))
+                .forcePathStyle(true)
+                .region(Region.AWS_GLOBAL)
+                .build();
     }
 
     // TODO: Handle 500 error
@@ -1,29 +1,70 @@
 package me.zedaster.articleservice.service;
 
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.ObservationView;
+import io.micrometer.observation.transport.SenderContext;
+import jakarta.validation.ConstraintViolationException;
+import me.zedaster.articleservice.concurrency.Bulkheads;
+import me.zedaster.articleservice.configuration.DownstreamConfiguration;
+import me.zedaster.articleservice.configuration.ExecutorConfiguration;
+import me.zedaster.articleservice.configuration.cache.CreatorCacheConfiguration;
 import me.zedaster.articleservice.configuration.microservice.AuthServiceConfiguration;
+import me.zedaster.articleservice.configuration.microservice.HttpClientConfiguration;
 import me.zedaster.articleservice.dto.article.Creator;
+import me.zedaster.articleservice.event.CreatorNameChangedEvent;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.web.client.HttpClientErrorException;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
-@SpringBootTest(classes = {CreatorService.class, CreatorServiceTest.TestConfig.class})
+@SpringBootTest(classes = {CreatorService.class, Bulkheads.class, SimpleMeterRegistry.class, ExecutorConfiguration.class,
+        ValidationAutoConfiguration.class, CreatorServiceTest.TestConfig.class})
 @WireMockTest(httpPort = 8080, proxyMode = true)
+// Every test needs an empty cache of creators
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RecordApplicationEvents
 public class CreatorServiceTest {
+    private static final String TRACE_HEADER = "traceparent";
 
     @Autowired
     private CreatorService creatorService;
 
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
     @TestConfiguration
     public static class TestConfig {
         @Bean
@@ -31,8 +72,47 @@ public class CreatorServiceTest {
         public AuthServiceConfiguration authServiceConfiguration() {
             AuthServiceConfiguration configuration = Mockito.mock(AuthServiceConfiguration.class);
             Mockito.when(configuration.getUri()).thenReturn(URI.create("http://auth-service:8080"));
+            Mockito.when(configuration.getHttpClient()).thenReturn(new HttpClientConfiguration());
             return configuration;
         }
+
+        @Bean
+        public CreatorCacheConfiguration creatorCacheConfiguration() {
+            return new CreatorCacheConfiguration();
+        }
+
+        @Bean
+        public DownstreamConfiguration downstreamConfiguration() {
+            DownstreamConfiguration configuration = new DownstreamConfiguration();
+            // The circuit opens after two failed calls
+            configuration.getAuthService().getCircuitBreaker().setMinimumCalls(2);
+            return configuration;
+        }
+
+        @Bean
+        public ObservationRegistry observationRegistry() {
+            ObservationRegistry registry = ObservationRegistry.create();
+            registry.observationConfig().observationHandler(new ParentNamePropagatingHandler());
+            return registry;
+        }
+    }
+
+    /**
+     * Stands in for the tracing handler. Instead of the trace context, it passes the name of the parent observation
+     * in the header.
+     */
+    static class ParentNamePropagatingHandler implements ObservationHandler<SenderContext<Object>> {
+        @Override
+        public void onStart(SenderContext<Object> context) {
+            ObservationView parent = context.getParentObservation();
+            context.getSetter().set(context.getCarrier(), TRACE_HEADER,
+                    parent == null ? "none" : parent.getContextView().getName());
+        }
+
+        @Override
+        public boolean supportsContext(Observation.Context context) {
+            return context instanceof SenderContext;
+        }
     }
 
     /**
@@ -68,4 +148,248 @@ public class CreatorServiceTest {
         assertEquals(1, creator.getId());
         assertEquals("one", creator.getName());
     }
+
+    /**
+     * Test that a cached creator is not requested from the auth service again
+     */
+    @Test
+    public void getCachedCreatorById() {
+        stubFor(get(urlEqualTo("/internal/profile/1/username"))
+                .withHost(equalTo("auth-service"))
+                .willReturn(ok().withBody("one")));
+
+        creatorService.getCreator(1L);
+        Creator creator = creatorService.getCreator(1L);
+
+        assertEquals("one", creator.getName());
+        verify(1, getRequestedFor(urlEqualTo("/internal/profile/1/username")));
+    }
+
+    /**
+     * Test that only uncached creators are requested in a batch and the result keeps the order of the IDs
+     */
+    @Test
+    public void getPartiallyCachedCreatorsByIds() {
+        stubFor(get(urlEqualTo("/internal/profile/2/username"))
+                .withHost(equalTo("auth-service"))
+                .willReturn(ok().withBody("two")));
+        stubFor(get(urlEqualTo("/internal/profile/usernames?ids=1&ids=3"))
+                .withHost(equalTo("auth-service"))
+                .willReturn(okJson("""
+                        ["one", "three"]""")));
+
+        creatorService.getCreator(2L);
+        List<Creator> creators = creatorService.getCreatorsByIds(List.of(3L, 2L, 1L, 3L));
+
+        assertEquals(List.of(3L, 2L, 1L, 3L), creators.stream().map(Creator::getId).toList());
+        assertEquals(List.of("three", "two", "one", "three"), creators.stream().map(Creator::getName).toList());
+        verify(1, getRequestedFor(urlEqualTo("/internal/profile/usernames?ids=1&ids=3")));
+    }
+
+    /**
+     * Test that concurrent requests of the same uncached creator share one request to the auth service
+     */
+    @Test
+    public void getSameCreatorConcurrently() throws Exception {
+        stubFor(get(urlEqualTo("/internal/profile/1/username"))
+                .withHost(equalTo("auth-service"))
+                .willReturn(ok().withBody("one").withFixedDelay(300)));
+
+        List<Future<Creator>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(10)) {
+            for (int i = 0; i < 10; i++) {
+                futures.add(executor.submit(() -> creatorService.getCreator(1L)));
+            }
+            for (Future<Creator> future : futures) {
+                assertEquals("one", future.get().getName());
+            }
+        }
+
+        verify(1, getRequestedFor(urlEqualTo("/internal/profile/1/username")));
+    }
+
+    /**
+     * Test that an updated username is served from the cache without requests to the auth service
+     */
+    @Test
+    public void updateCachedCreatorName() {
+        stubFor(get(urlEqualTo("/internal/profile/1/username"))
+                .withHost(equalTo("auth-service"))
+                .willReturn(ok().withBody("one")));
+
+        creatorService.getCreator(1L);
+        creatorService.updateCreatorNames(Map.of(1L, "new one", 2L, "new two"));
+
+        assertEquals("new one", creatorService.getCreator(1L).getName());
+        assertEquals(List.of("new one", "new two"), creatorService.getCreatorsByIds(List.of(1L, 2L)).stream()
+                .map(Creator::getName)
+                .toList());
+        verify(1, getRequestedFor(urlEqualTo("/internal/profile/1/username")));
+    }
+
+    /**
+     * Test that usernames of several creators are not updated if one of the IDs is incorrect
+     */
+    @Test
+    public void updateCreatorNamesWithIncorrectId() {
+        ConstraintViolationException ex = assertThrows(ConstraintViolationException.class,
+                () -> creatorService.updateCreatorNames(Map.of(1L, "new one", 0L, "new zero")));
+
+        assertEquals(1, ex.getConstraintViolations().size());
+        assertEquals("User id must be bigger than zero!", ex.getConstraintViolations().iterator().next().getMessage());
+        assertEquals(0, applicationEvents.stream(CreatorNameChangedEvent.class).count());
+    }
+
+    /**
+     * Test that a creator without a new username is requested from the auth service again
+     */
+    @Test
+    public void evictCachedCreator() {
+        stubFor(get(urlEqualTo("/internal/profile/1/username"))
+                .withHost(equalTo("auth-service"))
+                .willReturn(ok().withBody("one")));
+
+        creatorService.getCreator(1L);
+        creatorService.updateCreatorName(1L, null);
+        creatorService.getCreator(1L);
+
+        verify(2, getRequestedFor(urlEqualTo("/internal/profile/1/username")));
+    }
+
+    /**
+     * Test that the pool of connections to the auth service is exported to the metrics
+     */
+    @Test
+    public void exportConnectionPoolMetrics() {
+        stubFor(get(urlEqualTo("/internal/profile/1/username"))
+                .withHost(equalTo("auth-service"))
+                .willReturn(ok().withBody("one")));
+        stubFor(get(urlEqualTo("/internal/profile/2/username"))
+                .withHost(equalTo("auth-service"))
+                .willReturn(ok().withBody("two")));
+
+        creatorService.getCreator(1L);
+        creatorService.getCreator(2L);
+
+        assertEquals(50, meterRegistry.get("http.client.pool.max").tag("client", "auth-service").gauge().value());
+        assertEquals(0, meterRegistry.get("http.client.pool.leased").tag("client", "auth-service").gauge().value());
+        assertEquals(2, meterRegistry.get("http.client.pool.acquire").tag("client", "auth-service").timer().count());
+        // The second request reuses the connection of the first one
+        assertEquals(1, meterRegistry.get("http.client.pool.connections.opened").tag("client", "auth-service")
+                .counter().count());
+    }
+
+    /**
+     * Test that calls to the auth service are timed by their outcomes and the sizes of batches are recorded
+     */
+    @Test
+    public void timeAuthServiceCalls() {
+        stubFor(get(urlEqualTo("/internal/profile/1/username"))
+                .withHost(equalTo("auth-service"))
+                .willReturn(ok().withBody("one")));
+        stubFor(get(urlEqualTo("/internal/profile/usernames?ids=2&ids=3"))
+                .withHost(equalTo("auth-service"))
+                .willReturn(serverError()));
+
+        creatorService.getCreator(1L);
+        creatorService.getCreatorsByIds(List.of(2L, 3L));
+
+        assertEquals(1, meterRegistry.get("auth.service.calls").tag("operation", "get-username")
+                .tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("auth.service.calls").tag("operation", "get-usernames")
+                .tag("outcome", "error").timer().count());
+        assertEquals(2, meterRegistry.get("auth.service.batch.size").summary().totalAmount());
+    }
+
+    /**
+     * Test that the last known usernames and the placeholder name are returned if the auth service fails
+     */
+    @Test
+    public void getCreatorsWhenAuthServiceFails() {
+        // The first creator is cached, so only the second one is requested
+        stubFor(get(urlEqualTo("/internal/profile/usernames?ids=2"))
+                .withHost(equalTo("auth-service"))
+                .willReturn(serverError()));
+
+        creatorService.updateCreatorName(1L, "one");
+        List<Creator> creators = creatorService.getCreatorsByIds(List.of(1L, 2L));
+
+        assertEquals(List.of("one", CreatorService.PLACEHOLDER_NAME), creators.stream()
+                .map(Creator::getName)
+                .toList());
+        assertTrue(creators.stream().allMatch(Creator::isFallback));
+        assertEquals(1, meterRegistry.get("creators.fallbacks").tag("kind", "stale").counter().count());
+        assertEquals(1, meterRegistry.get("creators.fallbacks").tag("kind", "placeholder").counter().count());
+    }
+
+    /**
+     * Test that the auth service is not called while the circuit is open
+     */
+    @Test
+    public void skipAuthServiceWhileCircuitIsOpen() {
+        stubFor(get(urlEqualTo("/internal/profile/1/username"))
+                .withHost(equalTo("auth-service"))
+                .willReturn(serverError()));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(CreatorService.PLACEHOLDER_NAME, creatorService.getCreator(1L).getName());
+        }
+
+        verify(2, getRequestedFor(urlEqualTo("/internal/profile/1/username")));
+        assertEquals(1, meterRegistry.get("circuit.breaker.state")
+                .tag("downstream", "auth-service").tag("state", "open").gauge().value());
+    }
+
+    /**
+     * Test that 4xx responses of the auth service are thrown instead of the placeholder and don't open the circuit
+     */
+    @Test
+    public void throwClientErrorsOfAuthService() {
+        stubFor(get(urlEqualTo("/internal/profile/1/username"))
+                .withHost(equalTo("auth-service"))
+                .willReturn(notFound()));
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(HttpClientErrorException.NotFound.class, () -> creatorService.getCreator(1L));
+        }
+
+        verify(3, getRequestedFor(urlEqualTo("/internal/profile/1/username")));
+        assertEquals(1, meterRegistry.get("circuit.breaker.state")
+                .tag("downstream", "auth-service").tag("state", "closed").gauge().value());
+    }
+
+    /**
+     * Test that the context of the request is passed to the auth service, although the creator is loaded in another
+     * thread
+     */
+    @Test
+    public void passTraceContextToAuthService() {
+        stubFor(get(urlEqualTo("/internal/profile/1/username"))
+                .withHost(equalTo("auth-service"))
+                .withHeader(TRACE_HEADER, equalTo("test.request"))
+                .willReturn(ok().withBody("one")));
+
+        Observation request = Observation.start("test.request", observationRegistry);
+        try (Observation.Scope scope = request.openScope()) {
+            assertEquals("one", creatorService.getCreator(1L).getName());
+        } finally {
+            request.stop();
+        }
+    }
+
+    /**
+     * Test that other components are notified about changed usernames
+     */
+    @Test
+    public void publishChangedCreatorNames() {
+        creatorService.updateCreatorName(1L, "new one");
+        creatorService.updateCreatorName(2L, null);
+
+        List<CreatorNameChangedEvent> events = applicationEvents.stream(CreatorNameChangedEvent.class).toList();
+        assertEquals(2, events.size());
+        assertEquals(1L, events.get(0).getCreatorId());
+        assertEquals("new one", events.get(0).getNewUsername());
+        assertEquals(2L, events.get(1).getCreatorId());
+        assertNull(events.get(1).getNewUsername());
+    }
 }
@@ -0,0 +1,77 @@
+package me.zedaster.articleservice.service;
+
+import me.zedaster.articleservice.dto.content.StoredContent;
+import me.zedaster.articleservice.entity.ArticleInfo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+
+/**
+ * Tests for {@link IndexedContentSource}
+ */
+public class IndexedContentSourceTest {
+    private static final String HASH = "a".repeat(64);
+
+    private ContentService contentService;
+
+    private ContentOutboxService contentOutboxService;
+
+    private IndexedContentSource contentSource;
+
+    @BeforeEach
+    public void setUp() {
+        contentService = Mockito.mock(ContentService.class);
+        contentOutboxService = Mockito.mock(ContentOutboxService.class);
+        contentSource = new IndexedContentSource(contentService, contentOutboxService);
+    }
+
+    /**
+     * Checks if the content of an uploaded article is fetched from S3 and decoded
+     */
+    @Test
+    public void fetchUploadedContent() {
+        Mockito.when(contentService.fetchStoredContentAsync(1L, HASH)).thenReturn(
+                CompletableFuture.completedFuture(Optional.of(StoredContent.gzip("Uploaded content"))));
+
+        Assertions.assertEquals(Optional.of("Uploaded content"), contentSource.fetchContent(article(false)).join());
+        Mockito.verifyNoInteractions(contentOutboxService);
+    }
+
+    /**
+     * Checks if the content of a pending article is taken from the outbox
+     */
+    @Test
+    public void takePendingContentFromOutbox() {
+        Mockito.when(contentOutboxService.getContent(1L)).thenReturn(Optional.of("Pending content"));
+
+        Assertions.assertEquals(Optional.of("Pending content"), contentSource.fetchContent(article(true)).join());
+        Mockito.verify(contentService, Mockito.never()).fetchStoredContentAsync(anyLong(), Mockito.any());
+    }
+
+    /**
+     * Checks if the content is fetched from S3 if it has been uploaded since the info was read
+     */
+    @Test
+    public void fetchContentUploadedMeanwhile() {
+        Mockito.when(contentOutboxService.getContent(1L)).thenReturn(Optional.empty());
+        Mockito.when(contentService.fetchStoredContentAsync(1L, HASH)).thenReturn(
+                CompletableFuture.completedFuture(Optional.of(StoredContent.gzip("Uploaded content"))));
+
+        Assertions.assertEquals(Optional.of("Uploaded content"), contentSource.fetchContent(article(true)).join());
+    }
+
+    private static ArticleInfo article(boolean contentPending) {
+        ArticleInfo info = new ArticleInfo("Test title", Instant.now(), 123L);
+        info.setId(1L);
+        info.setContentHash(HASH);
+        info.setContentPending(contentPending);
+        return info;
+    }
+}
@@ -0,0 +1,53 @@
+package me.zedaster.articleservice.storage;
+
+import me.zedaster.articleservice.concurrency.Bulkhead;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * Tests for {@link SyncContentStorage}
+ */
+public class SyncContentStorageTest {
+    /**
+     * Checks that cancelling a fetch interrupts the call to S3
+     */
+    @Test
+    public void cancelFetch() throws InterruptedException {
+        S3Client s3Client = Mockito.mock(S3Client.class);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Mockito.when(s3Client.getObjectAsBytes(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            started.countDown();
+            try {
+                Thread.sleep(Duration.ofMinutes(1));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw new IllegalStateException(e);
+            }
+            throw new AssertionError("The call must be interrupted");
+        });
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            SyncContentStorage storage = new SyncContentStorage(s3Client, "contents",
+                    new Bulkhead("s3", 1, Duration.ofSeconds(1)), executor);
+            CompletableFuture<byte[]> fetch = storage.fetch("contents/abc.txt.gz");
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            fetch.cancel(true);
+
+            Assertions.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        }
+    }
+}
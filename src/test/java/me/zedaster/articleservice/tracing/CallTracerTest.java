@@ -0,0 +1,69 @@
+package me.zedaster.articleservice.tracing;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.test.simple.SimpleSpan;
+import io.micrometer.tracing.test.simple.SimpleTracer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Tests for {@link CallTracer}
+ */
+public class CallTracerTest {
+    private final SimpleTracer tracer = new SimpleTracer();
+
+    private final CallTracer callTracer = new CallTracer("test call", Tags.of("operation", "test"), tracer);
+
+    /**
+     * Checks that a call is made in a child span of the current one
+     */
+    @Test
+    public void traceCallInChildSpan() {
+        Span parent = tracer.nextSpan().name("request").start();
+        try (Tracer.SpanInScope scope = tracer.withSpan(parent)) {
+            Assertions.assertEquals("ok", callTracer.trace(() -> "ok"));
+        }
+
+        SimpleSpan span = tracer.lastSpan();
+        Assertions.assertEquals("test call", span.getName());
+        Assertions.assertEquals("test", span.getTags().get("operation"));
+        Assertions.assertEquals(parent.context().spanId(), span.context().parentId());
+    }
+
+    /**
+     * Checks that a call outside of a trace doesn't start a trace
+     */
+    @Test
+    public void skipCallOutsideOfTrace() {
+        Assertions.assertEquals("ok", callTracer.trace(() -> "ok"));
+
+        Assertions.assertTrue(tracer.getSpans().isEmpty());
+    }
+
+    /**
+     * Checks that an asynchronous call that is made later in another thread gets the span that was current when it
+     * was wrapped, and that its failure is recorded in its span
+     */
+    @Test
+    public void traceAsyncCallInAnotherThread() {
+        Span parent = tracer.nextSpan().name("request").start();
+        Supplier<CompletableFuture<String>> call;
+        try (Tracer.SpanInScope scope = tracer.withSpan(parent)) {
+            call = callTracer.traceAsync(() -> CompletableFuture.failedFuture(new IllegalStateException()));
+        }
+
+        CompletableFuture<String> result = CompletableFuture.supplyAsync(call).join();
+
+        Assertions.assertThrows(CompletionException.class, result::join);
+        SimpleSpan span = tracer.lastSpan();
+        Assertions.assertEquals("test call", span.getName());
+        Assertions.assertEquals(parent.context().spanId(), span.context().parentId());
+        Assertions.assertInstanceOf(IllegalStateException.class, span.getError());
+    }
+}
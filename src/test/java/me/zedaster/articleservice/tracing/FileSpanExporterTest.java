@@ -0,0 +1,53 @@
+package me.zedaster.articleservice.tracing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Tests for {@link FileSpanExporter}
+ */
+public class FileSpanExporterTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Checks that every span is written as a JSON line with its parent and attributes
+     */
+    @Test
+    public void writeSpansAsJsonLines(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("traces/spans.jsonl");
+
+        try (SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(new FileSpanExporter(file, objectMapper)))
+                .build()) {
+            Tracer tracer = tracerProvider.get("test");
+            Span parent = tracer.spanBuilder("request").startSpan();
+            try (Scope scope = parent.makeCurrent()) {
+                tracer.spanBuilder("s3 fetch").setAttribute("operation", "fetch").startSpan().end();
+            }
+            parent.end();
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        Assertions.assertEquals(2, lines.size());
+        JsonNode child = objectMapper.readTree(lines.get(0));
+        JsonNode root = objectMapper.readTree(lines.get(1));
+        Assertions.assertEquals("s3 fetch", child.get("name").asText());
+        Assertions.assertEquals("fetch", child.get("attributes").get("operation").asText());
+        Assertions.assertEquals(root.get("spanId").asText(), child.get("parentSpanId").asText());
+        Assertions.assertEquals(root.get("traceId").asText(), child.get("traceId").asText());
+        Assertions.assertTrue(root.get("parentSpanId").isNull());
+    }
+}
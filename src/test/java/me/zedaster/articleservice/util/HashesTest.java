@@ -0,0 +1,29 @@
+package me.zedaster.articleservice.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link Hashes}
+ */
+public class HashesTest {
+    /**
+     * Checks the hash of a known text
+     */
+    @Test
+    public void sha256() {
+        Assertions.assertEquals("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824",
+                Hashes.sha256("hello"));
+    }
+
+    /**
+     * Checks that entity tags are stable and depend on the boundaries of the parts
+     */
+    @Test
+    public void entityTag() {
+        Assertions.assertEquals(Hashes.entityTag(1L, "ab", "c"), Hashes.entityTag(1L, "ab", "c"));
+        Assertions.assertNotEquals(Hashes.entityTag("ab", "c"), Hashes.entityTag("a", "bc"));
+        Assertions.assertNotEquals(Hashes.entityTag("a", null), Hashes.entityTag("a"));
+        Assertions.assertTrue(Hashes.entityTag("a").matches("[A-Za-z0-9_-]+"));
+    }
+}